@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.michaelrocks.lightsaber.InjectorCreation")
+@Label("Injector Creation")
+@Description("Creation and configuration of an injector")
+@Category("Lightsaber")
+class InjectorCreationEvent extends Event {
+  @Label("Component")
+  String component;
+
+  @Label("Child")
+  boolean child;
+
+  @Label("Binding Count")
+  int bindingCount;
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.jfr;
+
+import io.michaelrocks.lightsaber.internal.InjectionEvents;
+import jdk.jfr.Event;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+// Loaded reflectively by InjectionEvents when this artifact is on the classpath.
+public class JfrInjectionEvents extends InjectionEvents {
+  @Nullable
+  @Override
+  public Object beginInjectorCreation() {
+    return begin(new InjectorCreationEvent());
+  }
+
+  @Override
+  public void endInjectorCreation(@Nullable final Object event, @Nonnull final Object component, final boolean child,
+      final int bindingCount) {
+    if (event != null) {
+      final InjectorCreationEvent creationEvent = (InjectorCreationEvent) event;
+      creationEvent.component = component.getClass().getName();
+      creationEvent.child = child;
+      creationEvent.bindingCount = bindingCount;
+      creationEvent.commit();
+    }
+  }
+
+  @Nullable
+  @Override
+  public Object beginInjectorConfiguration() {
+    return begin(new InjectorConfigurationEvent());
+  }
+
+  @Override
+  public void endInjectorConfiguration(@Nullable final Object event, @Nullable final Object component) {
+    if (event != null) {
+      final InjectorConfigurationEvent configurationEvent = (InjectorConfigurationEvent) event;
+      // The package configurator isn't bound to a component.
+      configurationEvent.component = component != null ? component.getClass().getName() : null;
+      configurationEvent.commit();
+    }
+  }
+
+  @Nullable
+  @Override
+  public Object beginSingletonInstantiation() {
+    return begin(new SingletonInstantiationEvent());
+  }
+
+  @Override
+  public void endSingletonInstantiation(@Nullable final Object event, @Nullable final Object instance) {
+    if (event != null) {
+      final SingletonInstantiationEvent instantiationEvent = (SingletonInstantiationEvent) event;
+      // The instance is null when instantiation fails.
+      instantiationEvent.type = instance != null ? instance.getClass().getName() : null;
+      instantiationEvent.commit();
+    }
+  }
+
+  @Nullable
+  @Override
+  public Object beginLazyResolution() {
+    return begin(new LazyResolutionEvent());
+  }
+
+  @Override
+  public void endLazyResolution(@Nullable final Object event, @Nullable final Object instance) {
+    if (event != null) {
+      final LazyResolutionEvent resolutionEvent = (LazyResolutionEvent) event;
+      resolutionEvent.type = instance != null ? instance.getClass().getName() : null;
+      resolutionEvent.commit();
+    }
+  }
+
+  @Nullable
+  private static Event begin(@Nonnull final Event event) {
+    if (!event.isEnabled()) {
+      return null;
+    }
+
+    event.begin();
+    return event;
+  }
+}
@@ -24,4 +24,8 @@ class InjectionDispatcher {
   public static void injectMembers(Object injector, Object object) {
     throw new UnsupportedOperationException("This method must be generated");
   }
+
+  public static int[][] getWarmUpSchedule(Object component) {
+    throw new UnsupportedOperationException("This method must be generated");
+  }
 }
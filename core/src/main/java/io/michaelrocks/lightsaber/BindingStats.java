@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import javax.annotation.Nonnull;
+
+public final class BindingStats {
+  public static final int HISTOGRAM_SIZE = 32;
+
+  private final Key<?> key;
+  private final long callCount;
+  private final long instanceCount;
+  private final long instantiationNanos;
+  private final long[] instantiationHistogram;
+
+  BindingStats(@Nonnull final Key<?> key, final long callCount, final long instanceCount,
+      final long instantiationNanos, @Nonnull final long[] instantiationHistogram) {
+    this.key = key;
+    this.callCount = callCount;
+    this.instanceCount = instanceCount;
+    this.instantiationNanos = instantiationNanos;
+    this.instantiationHistogram = instantiationHistogram;
+  }
+
+  @Nonnull
+  public Key<?> getKey() {
+    return key;
+  }
+
+  // Number of times the provider of the binding has been called, including calls that returned a scoped instance.
+  public long getCallCount() {
+    return callCount;
+  }
+
+  // Number of instances actually created by the binding.
+  public long getInstanceCount() {
+    return instanceCount;
+  }
+
+  public long getInstantiationNanos() {
+    return instantiationNanos;
+  }
+
+  // Bucket 0 counts instantiations that took no measurable time and bucket i counts instantiations that took
+  // from 2^(i-1) inclusive to 2^i exclusive nanoseconds. The last bucket also counts all slower instantiations.
+  @Nonnull
+  public long[] getInstantiationHistogram() {
+    return instantiationHistogram.clone();
+  }
+
+  public static long getHistogramBucketUpperBoundNanos(final int bucket) {
+    return bucket < HISTOGRAM_SIZE - 1 ? 1L << bucket : Long.MAX_VALUE;
+  }
+
+  @Override
+  public String toString() {
+    return "BindingStats{"
+        + "key=" + key
+        + ", callCount=" + callCount
+        + ", instanceCount=" + instanceCount
+        + ", instantiationNanos=" + instantiationNanos
+        + '}';
+  }
+}
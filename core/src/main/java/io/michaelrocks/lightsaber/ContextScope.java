@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class ContextScope {
+  private static final ContextStorage storage = ContextStorage.create();
+
+  private ContextScope() {
+  }
+
+  public static void run(@Nonnull final Runnable runnable) {
+    storage.run(new Context(), runnable);
+  }
+
+  public static <T> T call(@Nonnull final Callable<T> callable) throws Exception {
+    final Object[] result = new Object[1];
+    final Exception[] exception = new Exception[1];
+    run(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          result[0] = callable.call();
+        } catch (final Exception callableException) {
+          exception[0] = callableException;
+        }
+      }
+    });
+
+    if (exception[0] != null) {
+      throw exception[0];
+    }
+
+    // noinspection unchecked
+    return (T) result[0];
+  }
+
+  public static boolean isActive() {
+    return storage.getCurrentContext() != null;
+  }
+
+  @Nonnull
+  static Context getCurrentContext() {
+    final Context context = storage.getCurrentContext();
+    if (context == null) {
+      throw new IllegalStateException("No context scope is active in " + Thread.currentThread());
+    }
+    return context;
+  }
+
+  // Keys are context scoped providers which are compared by identity.
+  static final class Context {
+    private final ConcurrentMap<Object, Object> instances = new ConcurrentHashMap<Object, Object>();
+    private final Lock instanceLock = new ReentrantLock();
+
+    @Nullable
+    <T> T findInstance(@Nonnull final Object key) {
+      // noinspection unchecked
+      return (T) instances.get(key);
+    }
+
+    // Callers look the instance up first, so the lock is only taken when the instance may have to be created.
+    @Nonnull
+    <T> T getOrCreateInstance(@Nonnull final Object key, @Nonnull final Callable<T> factory) {
+      instanceLock.lock();
+      try {
+        T instance = findInstance(key);
+        if (instance == null) {
+          try {
+            instance = factory.call();
+          } catch (final RuntimeException exception) {
+            throw exception;
+          } catch (final Exception exception) {
+            throw new RuntimeException(exception);
+          }
+          instances.put(key, instance);
+        }
+        return instance;
+      } finally {
+        instanceLock.unlock();
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.InjectingProvider;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.Callable;
+
+public class ContextScopedProvider<T> implements InjectingProvider<T> {
+  private final InjectingProvider<T> provider;
+
+  public ContextScopedProvider(@Nonnull final InjectingProvider<T> provider) {
+    this.provider = provider;
+  }
+
+  @Nonnull
+  InjectingProvider<T> getProvider() {
+    return provider;
+  }
+
+  @Nonnull
+  @Override
+  public T get() {
+    final ContextScope.Context context = ContextScope.getCurrentContext();
+    final T instance = context.findInstance(this);
+    return instance != null ? instance : context.getOrCreateInstance(this, new Callable<T>() {
+      @Override
+      public T call() {
+        return provider.get();
+      }
+    });
+  }
+
+  @Nonnull
+  @Override
+  public T getWithInjector(@Nonnull final Injector injector) {
+    final ContextScope.Context context = ContextScope.getCurrentContext();
+    final T instance = context.findInstance(this);
+    return instance != null ? instance : context.getOrCreateInstance(this, new Callable<T>() {
+      @Override
+      public T call() {
+        return provider.getWithInjector(injector);
+      }
+    });
+  }
+}
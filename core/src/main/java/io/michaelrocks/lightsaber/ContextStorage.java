@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+abstract class ContextStorage {
+  static ContextStorage create() {
+    try {
+      return new ScopedValueContextStorage();
+    } catch (final Throwable exception) {
+      return new ThreadLocalContextStorage();
+    }
+  }
+
+  abstract void run(ContextScope.Context context, Runnable runnable);
+
+  @Nullable
+  abstract ContextScope.Context getCurrentContext();
+
+  // A scoped value is inherited by structured subtasks and cannot leak after the runnable exits. Available since
+  // Java 21, so its methods are looked up reflectively once and bound to adapters generated by LambdaMetafactory.
+  // Calls through the adapters are as fast as direct calls.
+  static class ScopedValueContextStorage extends ContextStorage {
+    private final Object scopedValue;
+    private final Binder binder;
+    private final Runner runner;
+    private final Reader reader;
+
+    ScopedValueContextStorage() throws Throwable {
+      final Class<?> scopedValueClass = Class.forName("java.lang.ScopedValue");
+      scopedValue = scopedValueClass.getMethod("newInstance").invoke(null);
+      final Class<?> carrierClass = scopedValueClass.getMethod("where", scopedValueClass, Object.class).getReturnType();
+
+      final MethodHandles.Lookup lookup = MethodHandles.lookup();
+      binder = createAdapter(lookup, Binder.class,
+          lookup.findStatic(scopedValueClass, "where",
+              MethodType.methodType(carrierClass, scopedValueClass, Object.class)));
+      runner = createAdapter(lookup, Runner.class,
+          lookup.findVirtual(carrierClass, "run", MethodType.methodType(void.class, Runnable.class)));
+      reader = createAdapter(lookup, Reader.class,
+          lookup.findVirtual(scopedValueClass, "orElse", MethodType.methodType(Object.class, Object.class)));
+
+      // Preview APIs may be present but not enabled.
+      run(new ContextScope.Context(), new Runnable() {
+        @Override
+        public void run() {
+        }
+      });
+    }
+
+    @Override
+    void run(final ContextScope.Context context, final Runnable runnable) {
+      runner.run(binder.where(scopedValue, context), runnable);
+    }
+
+    @Nullable
+    @Override
+    ContextScope.Context getCurrentContext() {
+      return (ContextScope.Context) reader.orElse(scopedValue, null);
+    }
+
+    @Nonnull
+    private static <T> T createAdapter(@Nonnull final MethodHandles.Lookup lookup, @Nonnull final Class<T> type,
+        @Nonnull final MethodHandle implementation) throws Throwable {
+      final Method metafactory = Class.forName("java.lang.invoke.LambdaMetafactory").getMethod("metafactory",
+          MethodHandles.Lookup.class, String.class, MethodType.class, MethodType.class, MethodHandle.class,
+          MethodType.class);
+      final Method method = type.getDeclaredMethods()[0];
+      final MethodType methodType = MethodType.methodType(method.getReturnType(), method.getParameterTypes());
+      final CallSite callSite = (CallSite) metafactory.invoke(null, lookup, method.getName(),
+          MethodType.methodType(type), methodType, implementation, implementation.type());
+      return type.cast(callSite.getTarget().invokeWithArguments());
+    }
+
+    interface Binder {
+      Object where(Object scopedValue, Object value);
+    }
+
+    interface Runner {
+      void run(Object carrier, Runnable runnable);
+    }
+
+    interface Reader {
+      Object orElse(Object scopedValue, Object other);
+    }
+  }
+
+  static class ThreadLocalContextStorage extends ContextStorage {
+    private final ThreadLocal<ContextScope.Context> currentContext = new ThreadLocal<ContextScope.Context>();
+
+    @Override
+    void run(final ContextScope.Context context, final Runnable runnable) {
+      final ContextScope.Context previousContext = currentContext.get();
+      currentContext.set(context);
+      try {
+        runnable.run();
+      } finally {
+        if (previousContext == null) {
+          currentContext.remove();
+        } else {
+          currentContext.set(previousContext);
+        }
+      }
+    }
+
+    @Nullable
+    @Override
+    ContextScope.Context getCurrentContext() {
+      return currentContext.get();
+    }
+  }
+}
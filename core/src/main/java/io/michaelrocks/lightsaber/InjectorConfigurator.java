@@ -18,4 +18,5 @@ package io.michaelrocks.lightsaber;
 
 interface InjectorConfigurator {
   void configureInjector(LightsaberInjector injector, Object component);
+  int[][] getWarmUpSchedule();
 }
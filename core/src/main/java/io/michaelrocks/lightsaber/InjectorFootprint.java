@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Sizes are shallow estimates for a 64-bit JVM with compressed references.
+public final class InjectorFootprint {
+  private final int providerTableCapacity;
+  private final int slotCapacity;
+  private final int overridingProviderCount;
+  private final long estimatedTableSize;
+  private final List<Binding> bindings;
+
+  InjectorFootprint(final int providerTableCapacity, final int slotCapacity, final int overridingProviderCount,
+      final long estimatedTableSize, @Nonnull final List<Binding> bindings) {
+    this.providerTableCapacity = providerTableCapacity;
+    this.slotCapacity = slotCapacity;
+    this.overridingProviderCount = overridingProviderCount;
+    this.estimatedTableSize = estimatedTableSize;
+    this.bindings = Collections.unmodifiableList(bindings);
+  }
+
+  public int getProviderCount() {
+    return bindings.size();
+  }
+
+  public int getProviderTableCapacity() {
+    return providerTableCapacity;
+  }
+
+  public float getProviderTableLoad() {
+    return providerTableCapacity == 0 ? 0f : (float) bindings.size() / providerTableCapacity;
+  }
+
+  public int getSlotCapacity() {
+    return slotCapacity;
+  }
+
+  // Number of providers created to resolve bindings of parent injectors through this injector.
+  public int getOverridingProviderCount() {
+    return overridingProviderCount;
+  }
+
+  // The injector itself together with its provider table and slots.
+  public long getEstimatedTableSize() {
+    return estimatedTableSize;
+  }
+
+  @Nonnull
+  public List<Binding> getBindings() {
+    return bindings;
+  }
+
+  @Nonnull
+  public List<Binding> getMaterializedSingletons() {
+    final List<Binding> singletons = new ArrayList<Binding>();
+    for (final Binding binding : bindings) {
+      if (binding.getInstanceType() != null) {
+        singletons.add(binding);
+      }
+    }
+    return singletons;
+  }
+
+  public long getEstimatedSize() {
+    long size = estimatedTableSize;
+    for (final Binding binding : bindings) {
+      size += binding.getEstimatedProviderSize() + binding.getEstimatedInstanceSize();
+    }
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return "InjectorFootprint{"
+        + "providerCount=" + getProviderCount()
+        + ", providerTableCapacity=" + providerTableCapacity
+        + ", slotCapacity=" + slotCapacity
+        + ", overridingProviderCount=" + overridingProviderCount
+        + ", materializedSingletonCount=" + getMaterializedSingletons().size()
+        + ", estimatedSize=" + getEstimatedSize()
+        + '}';
+  }
+
+  public static final class Binding {
+    private final Key<?> key;
+    private final long estimatedProviderSize;
+    @Nullable
+    private final Class<?> instanceType;
+    private final long estimatedInstanceSize;
+
+    Binding(@Nonnull final Key<?> key, final long estimatedProviderSize, @Nullable final Class<?> instanceType,
+        final long estimatedInstanceSize) {
+      this.key = key;
+      this.estimatedProviderSize = estimatedProviderSize;
+      this.instanceType = instanceType;
+      this.estimatedInstanceSize = estimatedInstanceSize;
+    }
+
+    @Nonnull
+    public Key<?> getKey() {
+      return key;
+    }
+
+    // The provider and the scope providers wrapping it.
+    public long getEstimatedProviderSize() {
+      return estimatedProviderSize;
+    }
+
+    // The type of the singleton instance if it has been created.
+    @Nullable
+    public Class<?> getInstanceType() {
+      return instanceType;
+    }
+
+    public long getEstimatedInstanceSize() {
+      return estimatedInstanceSize;
+    }
+
+    @Override
+    public String toString() {
+      return "Binding{"
+          + "key=" + key
+          + ", estimatedProviderSize=" + estimatedProviderSize
+          + ", instanceType=" + instanceType
+          + ", estimatedInstanceSize=" + estimatedInstanceSize
+          + '}';
+    }
+  }
+}
@@ -29,6 +29,11 @@ class InjectorOverridingProvider<T> extends AbstractInjectingProvider<T> {
     this.provider = provider;
   }
 
+  @Nonnull
+  InjectingProvider<T> getProvider() {
+    return provider;
+  }
+
   @Nonnull
   @Override
   public T getWithInjector(@Nonnull final Injector injector) {
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import javax.annotation.Nonnull;
+import javax.inject.Provider;
+import java.util.Arrays;
+
+public final class InjectorQuery {
+  private final Key<?>[] keys;
+  private final Provider<?>[] providers;
+
+  // Keys are resolved to providers once so a query can be executed many times without looking up the bindings.
+  InjectorQuery(@Nonnull final Injector injector, @Nonnull final Key<?>[] keys) {
+    this.keys = keys.clone();
+    this.providers = new Provider<?>[keys.length];
+    for (int i = 0; i < keys.length; ++i) {
+      providers[i] = injector.getProvider(keys[i]);
+    }
+  }
+
+  public int size() {
+    return providers.length;
+  }
+
+  // Stores an instance for every key of the query into the array at the index of the key.
+  public void resolve(@Nonnull final Object[] out) {
+    final Provider<?>[] providers = this.providers;
+    if (out.length < providers.length) {
+      throw new IllegalArgumentException(
+          "Array of length " + out.length + " cannot hold " + providers.length + " instances");
+    }
+
+    for (int i = 0; i < providers.length; ++i) {
+      out[i] = providers[i].get();
+    }
+  }
+
+  @Nonnull
+  public Object[] resolve() {
+    final Object[] out = new Object[providers.length];
+    resolve(out);
+    return out;
+  }
+
+  @Override
+  public String toString() {
+    return "InjectorQuery{keys=" + Arrays.toString(keys) + '}';
+  }
+}
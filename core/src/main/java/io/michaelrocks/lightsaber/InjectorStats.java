@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+
+public final class InjectorStats {
+  static final InjectorStats EMPTY = new InjectorStats(Collections.<BindingStats>emptyList());
+
+  private final List<BindingStats> bindingStats;
+
+  InjectorStats(@Nonnull final List<BindingStats> bindingStats) {
+    this.bindingStats = Collections.unmodifiableList(bindingStats);
+  }
+
+  // Stats are only collected when the processor runs with instrumentation enabled. Every binding is reported by
+  // the injector that registered it.
+  @Nonnull
+  public List<BindingStats> getBindingStats() {
+    return bindingStats;
+  }
+
+  @Nullable
+  public BindingStats findBindingStats(@Nonnull final Key<?> key) {
+    for (final BindingStats stats : bindingStats) {
+      if (stats.getKey().equals(key)) {
+        return stats;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return "InjectorStats{bindingStats=" + bindingStats + '}';
+  }
+}
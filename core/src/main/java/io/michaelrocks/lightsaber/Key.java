@@ -21,11 +21,21 @@ import io.michaelrocks.lightsaber.internal.TypeUtils;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.lang.annotation.Annotation;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class Key<T> {
+  // Canonical keys are held weakly, so interning a key doesn't prevent its classes from being unloaded.
+  private static final ConcurrentMap<CanonicalKeyReference, CanonicalKeyReference> canonicalKeys =
+      new ConcurrentHashMap<CanonicalKeyReference, CanonicalKeyReference>();
+  private static final ReferenceQueue<Key<?>> releasedKeys = new ReferenceQueue<Key<?>>();
+
   private final Type type;
   private final Annotation qualifier;
+  private final int hashCode;
 
   public Key(@Nonnull final Type type) {
     this(type, null);
@@ -34,6 +44,7 @@ public class Key<T> {
   public Key(@Nonnull final Type type, @Nullable final Annotation qualifier) {
     this.type = type;
     this.qualifier = qualifier;
+    this.hashCode = computeHashCode(type, qualifier);
   }
 
   public static <T> Key<T> of(@Nonnull final Class<T> type) {
@@ -52,6 +63,34 @@ public class Key<T> {
     return new Key<T>(type, annotation);
   }
 
+  // Returns a canonical instance of the key, so that equal interned keys are compared by reference. A canonical key
+  // is released when it isn't referenced anymore.
+  @Nonnull
+  public Key<T> intern() {
+    purgeReleasedKeys();
+    final CanonicalKeyReference reference = new CanonicalKeyReference(this, releasedKeys);
+    while (true) {
+      final CanonicalKeyReference oldReference = canonicalKeys.putIfAbsent(reference, reference);
+      if (oldReference == null) {
+        return this;
+      }
+
+      // noinspection unchecked
+      final Key<T> canonicalKey = (Key<T>) oldReference.get();
+      if (canonicalKey != null) {
+        return canonicalKey;
+      }
+      canonicalKeys.remove(oldReference, oldReference);
+    }
+  }
+
+  private static void purgeReleasedKeys() {
+    Object reference;
+    while ((reference = releasedKeys.poll()) != null) {
+      canonicalKeys.remove(reference, reference);
+    }
+  }
+
   @Nonnull
   public Type getType() {
     return type;
@@ -73,12 +112,20 @@ public class Key<T> {
     }
 
     final Key<?> key = (Key<?>) object;
+    if (hashCode != key.hashCode) {
+      return false;
+    }
+
     return TypeUtils.equals(type, key.type)
         && (qualifier != null ? qualifier.equals(key.qualifier) : key.qualifier == null);
   }
 
   @Override
   public int hashCode() {
+    return hashCode;
+  }
+
+  private static int computeHashCode(final Type type, final Annotation qualifier) {
     int result = 1;
     result = 31 * result + TypeUtils.hashCode(type);
     result = 31 * result + (qualifier != null ? qualifier.hashCode() : 0);
@@ -89,4 +136,38 @@ public class Key<T> {
   public String toString() {
     return "Key{type=" + type + ", qualifier=" + qualifier + '}';
   }
+
+  private static final class CanonicalKeyReference extends WeakReference<Key<?>> {
+    private final int hashCode;
+
+    CanonicalKeyReference(@Nonnull final Key<?> key, @Nonnull final ReferenceQueue<Key<?>> queue) {
+      super(key, queue);
+      this.hashCode = key.hashCode;
+    }
+
+    // A released reference is only equal to itself, so it can still be removed from the map.
+    @Override
+    public boolean equals(@Nullable final Object object) {
+      if (this == object) {
+        return true;
+      }
+
+      if (!(object instanceof CanonicalKeyReference)) {
+        return false;
+      }
+
+      final CanonicalKeyReference reference = (CanonicalKeyReference) object;
+      if (hashCode != reference.hashCode) {
+        return false;
+      }
+
+      final Key<?> key = get();
+      return key != null && key.equals(reference.get());
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
 }
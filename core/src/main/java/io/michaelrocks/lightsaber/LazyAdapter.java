@@ -16,13 +16,24 @@
 
 package io.michaelrocks.lightsaber;
 
+import io.michaelrocks.lightsaber.internal.InjectionEvents;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Provider;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class LazyAdapter<T> implements Lazy<T> {
+  private static final AtomicReferenceFieldUpdater<LazyAdapter, Lock> INSTANCE_LOCK_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(LazyAdapter.class, Lock.class, "instanceLock");
+
   private final Provider<T> provider;
   private volatile T instance;
-  private final Object instanceLock = new Object();
+  // Allocated only while the instance is being created, so unused and resolved instances don't hold a lock.
+  @Nullable
+  private volatile Lock instanceLock;
 
   public LazyAdapter(@Nonnull final Provider<T> provider) {
     this.provider = provider;
@@ -31,13 +42,38 @@ public class LazyAdapter<T> implements Lazy<T> {
   @Nonnull
   @Override
   public T get() {
-    if (instance == null) {
-      synchronized (instanceLock) {
-        if (instance == null) {
+    final T result = instance;
+    if (result != null) {
+      return result;
+    }
+
+    final Lock lock = getInstanceLock();
+    lock.lock();
+    try {
+      if (instance == null) {
+        final Object event = InjectionEvents.get().beginLazyResolution();
+        try {
           instance = provider.get();
+        } finally {
+          InjectionEvents.get().endLazyResolution(event, instance);
         }
       }
+      // Waiting threads already hold a reference to the lock and later ones will see the instance.
+      instanceLock = null;
+      return instance;
+    } finally {
+      lock.unlock();
     }
-    return instance;
+  }
+
+  @Nonnull
+  private Lock getInstanceLock() {
+    final Lock lock = instanceLock;
+    if (lock != null) {
+      return lock;
+    }
+
+    final Lock newLock = new ReentrantLock();
+    return INSTANCE_LOCK_UPDATER.compareAndSet(this, null, newLock) ? newLock : getInstanceLock();
   }
 }
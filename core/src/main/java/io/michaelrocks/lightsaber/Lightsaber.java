@@ -16,12 +16,14 @@
 
 package io.michaelrocks.lightsaber;
 
-import io.michaelrocks.lightsaber.internal.InjectingProvider;
-import io.michaelrocks.lightsaber.internal.MapIterator;
+import io.michaelrocks.lightsaber.internal.InjectionEvents;
+import io.michaelrocks.lightsaber.internal.StartupTrace;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Provider;
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
 
 public class Lightsaber {
@@ -44,9 +46,31 @@ public class Lightsaber {
 
   @Nonnull
   public Injector createInjector(@Nonnull final Object component) {
-    final LightsaberInjector injector = createInjectorInternal(null, component);
-    configurator.configureInjector(injector, null);
-    return injector;
+    final Object event = InjectionEvents.get().beginInjectorCreation();
+    LightsaberInjector injector = null;
+    try {
+      injector = createInjectorInternal(null, component);
+      configureInjector(injector, null);
+      return injector;
+    } finally {
+      InjectionEvents.get().endInjectorCreation(event, component, false, getProviderCount(injector));
+    }
+  }
+
+  @Nonnull
+  public WarmUpHandle createInjector(@Nonnull final Object component, @Nonnull final WarmUp warmUp) {
+    final LightsaberInjector injector = (LightsaberInjector) createInjector(component);
+    final int[][] packageSchedule = configurator.getWarmUpSchedule(null);
+    final int[][] componentSchedule = configurator.getWarmUpSchedule(component);
+    return warmUp(injector, mergeSchedules(packageSchedule, componentSchedule), warmUp);
+  }
+
+  @Nonnull
+  public WarmUpHandle createChildInjector(@Nonnull final Injector parentInjector, @Nonnull final Object component,
+      @Nonnull final WarmUp warmUp) {
+    final LightsaberInjector injector = (LightsaberInjector) createChildInjector(parentInjector, component);
+    final int[][] componentSchedule = configurator.getWarmUpSchedule(component);
+    return warmUp(injector, mergeSchedules(componentSchedule, null), warmUp);
   }
 
   @Nonnull
@@ -60,7 +84,18 @@ public class Lightsaber {
       throw new IllegalArgumentException("Cannot create a child injector for a non-Lightsaber injector");
     }
 
-    return createInjectorInternal(parentInjector, component);
+    final Object event = InjectionEvents.get().beginInjectorCreation();
+    LightsaberInjector injector = null;
+    try {
+      injector = createInjectorInternal(parentInjector, component);
+      return injector;
+    } finally {
+      InjectionEvents.get().endInjectorCreation(event, component, true, getProviderCount(injector));
+    }
+  }
+
+  private static int getProviderCount(@Nullable final LightsaberInjector injector) {
+    return injector != null ? injector.getProviderCount() : 0;
   }
 
   private LightsaberInjector createInjectorInternal(final Injector parentInjector, final Object component) {
@@ -69,60 +104,138 @@ public class Lightsaber {
     }
 
     final LightsaberInjector parent = (LightsaberInjector) parentInjector;
-    final LightsaberInjector injector = new LightsaberInjector(this);
-    if (parent != null) {
-      overrideProviders(injector, parent);
-    }
-    configurator.configureInjector(injector, component);
+    final LightsaberInjector injector = new LightsaberInjector(this, parent);
+    configureInjector(injector, component);
     return injector;
   }
 
-  private static void overrideProviders(final LightsaberInjector injector, final LightsaberInjector parent) {
-    final MapIterator<Object, InjectingProvider<?>> iterator = parent.getProviders().iterator();
-    while (iterator.hasNext()) {
-      final Object key = iterator.next();
-      if (!Injector.class.equals(key)) {
-        // noinspection unchecked
-        overrideProvider(injector, key, iterator.getValue());
+  private void configureInjector(final LightsaberInjector injector, final Object component) {
+    final Object event = InjectionEvents.get().beginInjectorConfiguration();
+    try {
+      configurator.configureInjector(injector, component);
+    } finally {
+      InjectionEvents.get().endInjectorConfiguration(event, component);
+    }
+  }
+
+  private static WarmUpHandle warmUp(final LightsaberInjector injector, final int[][] schedule,
+      final WarmUp warmUp) {
+    // noinspection ConstantConditions
+    if (warmUp == null) {
+      throw new NullPointerException("Warm-up cannot be null");
+    }
+
+    final WarmUpHandle handle = new WarmUpHandle(injector, schedule, warmUp.getExecutor());
+    handle.start();
+    return handle;
+  }
+
+  // Levels are computed for the whole dependency graph, so singletons with the same level never depend on each other
+  // regardless of the component that provides them.
+  private static int[][] mergeSchedules(final int[][] schedule1, final int[][] schedule2) {
+    final int length1 = schedule1 == null ? 0 : schedule1.length;
+    final int length2 = schedule2 == null ? 0 : schedule2.length;
+    final int[][] schedule = new int[Math.max(length1, length2)][];
+    for (int level = 0; level < schedule.length; ++level) {
+      final int[] slots1 = level < length1 ? schedule1[level] : null;
+      final int[] slots2 = level < length2 ? schedule2[level] : null;
+      final int count1 = slots1 == null ? 0 : slots1.length;
+      final int count2 = slots2 == null ? 0 : slots2.length;
+      final int[] slots = new int[count1 + count2];
+      if (count1 != 0) {
+        System.arraycopy(slots1, 0, slots, 0, count1);
+      }
+      if (count2 != 0) {
+        System.arraycopy(slots2, 0, slots, count1, count2);
       }
+      schedule[level] = slots;
     }
+    return schedule;
   }
 
-  private static <T> void overrideProvider(final LightsaberInjector injector, final Object key,
-      final InjectingProvider<T> provider) {
-    final InjectingProvider<T> overriddenProvider = new InjectorOverridingProvider<T>(provider, injector);
-    injector.registerProviderInternal(key, overriddenProvider);
+  // Writes a trace of configurators and providers generated with startup tracing enabled in the Chrome trace event
+  // format. The trace is empty if startup tracing is disabled.
+  public void writeStartupTrace(@Nonnull final Writer writer) throws IOException {
+    StartupTrace.write(writer);
   }
 
   void injectMembers(final Injector injector, final Object object) {
     configurator.injectMembers(injector, object);
   }
 
+  @Nonnull
+  public static InjectorStats getStats(@Nonnull final Injector injector) {
+    if (!(injector instanceof LightsaberInjector)) {
+      throw new IllegalArgumentException("Cannot collect stats of a non-Lightsaber injector");
+    }
+
+    return ((LightsaberInjector) injector).getStats();
+  }
+
+  @Nonnull
+  public static InjectorFootprint getFootprint(@Nonnull final Injector injector) {
+    if (!(injector instanceof LightsaberInjector)) {
+      throw new IllegalArgumentException("Cannot compute a footprint of a non-Lightsaber injector");
+    }
+
+    return ((LightsaberInjector) injector).getFootprint();
+  }
+
+  @Nonnull
+  public static InjectorQuery prepareQuery(@Nonnull final Injector injector, @Nonnull final Key<?>... keys) {
+    return new InjectorQuery(injector, keys);
+  }
+
+  public static void resolveAll(@Nonnull final Injector injector, @Nonnull final Key<?>[] keys,
+      @Nonnull final Object[] out) {
+    if (out.length < keys.length) {
+      throw new IllegalArgumentException(
+          "Array of length " + out.length + " cannot hold " + keys.length + " instances");
+    }
+
+    for (int i = 0; i < keys.length; ++i) {
+      out[i] = injector.getInstance(keys[i]);
+    }
+  }
+
   @Nonnull
   public static <T> T getInstance(@Nonnull final Injector injector, @Nonnull final Class<? extends T> type) {
-    return injector.getInstance(Key.of(type));
+    return injector.getInstance(type);
   }
 
   @Nonnull
   public static <T> T getInstance(@Nonnull final Injector injector, @Nonnull final Class<? extends T> type,
       @Nullable final Annotation annotation) {
+    if (annotation == null) {
+      return injector.getInstance(type);
+    }
+    if (injector instanceof LightsaberInjector) {
+      return ((LightsaberInjector) injector).getInstance(type, annotation);
+    }
     return injector.getInstance(Key.of(type, annotation));
   }
 
   @Nonnull
   public static <T> Provider<T> getProvider(@Nonnull final Injector injector, @Nonnull final Class<? extends T> type) {
-    return injector.getProvider(Key.of(type));
+    return injector.getProvider(type);
   }
 
   @Nonnull
   public static <T> Provider<T> getProvider(@Nonnull final Injector injector, @Nonnull final Class<? extends T> type,
       @Nullable final Annotation annotation) {
+    if (annotation == null) {
+      return injector.getProvider(type);
+    }
+    if (injector instanceof LightsaberInjector) {
+      return ((LightsaberInjector) injector).getProvider(type, annotation);
+    }
     return injector.getProvider(Key.of(type, annotation));
   }
 
   interface Configurator {
     void configureInjector(LightsaberInjector injector, Object component);
     void injectMembers(Injector injector, Object object);
+    int[][] getWarmUpSchedule(Object component);
   }
 
   private static class DefaultConfigurator implements Configurator {
@@ -135,6 +248,11 @@ public class Lightsaber {
     public void injectMembers(final Injector injector, final Object object) {
       InjectionDispatcher.injectMembers(injector, object);
     }
+
+    @Override
+    public int[][] getWarmUpSchedule(final Object component) {
+      return InjectionDispatcher.getWarmUpSchedule(component);
+    }
   }
 
   private static final class Holder {
@@ -16,19 +16,59 @@
 
 package io.michaelrocks.lightsaber;
 
+import io.michaelrocks.lightsaber.internal.BindingMetrics;
+import io.michaelrocks.lightsaber.internal.FactoryProvider;
+import io.michaelrocks.lightsaber.internal.IndexedInjector;
 import io.michaelrocks.lightsaber.internal.InjectingProvider;
-import io.michaelrocks.lightsaber.internal.IterableMap;
+import io.michaelrocks.lightsaber.internal.InjectorMetrics;
+import io.michaelrocks.lightsaber.internal.InstrumentedProvider;
 import io.michaelrocks.lightsaber.internal.LightweightHashMap;
+import io.michaelrocks.lightsaber.internal.MapMultibindingProvider;
+import io.michaelrocks.lightsaber.internal.ProviderFactory;
+import io.michaelrocks.lightsaber.internal.SetMultibindingProvider;
 import io.michaelrocks.lightsaber.internal.TypeUtils;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Provider;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+class LightsaberInjector implements Injector, IndexedInjector {
+  private static final int DEFAULT_SLOT_CAPACITY = 16;
+
+  private static final AtomicIntegerFieldUpdater<LightsaberInjector> OVERRIDING_PROVIDER_COUNT_UPDATER =
+      AtomicIntegerFieldUpdater.newUpdater(LightsaberInjector.class, "overridingProviderCount");
+  private static final AtomicReferenceFieldUpdater<LightsaberInjector, OverridingProviderCache>
+      OVERRIDING_PROVIDER_CACHE_UPDATER = AtomicReferenceFieldUpdater.newUpdater(
+          LightsaberInjector.class, OverridingProviderCache.class, "overridingProviderCache");
+  private static final AtomicReferenceFieldUpdater<LightsaberInjector, InjectorMetrics> METRICS_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(LightsaberInjector.class, InjectorMetrics.class, "metrics");
 
-class LightsaberInjector implements Injector {
   private final Lightsaber lightsaber;
-  private final IterableMap<Object, InjectingProvider<?>> providers =
-      new LightweightHashMap<Object, InjectingProvider<?>>() {
+  @Nullable
+  private final LightsaberInjector parent;
+  private InjectingProvider<?>[] slots = new InjectingProvider<?>[DEFAULT_SLOT_CAPACITY];
+  private Object[] slotKeys = new Object[DEFAULT_SLOT_CAPACITY];
+  // Lazy bindings keep their factories until their providers are created. Created providers are published through
+  // an atomic array because they may be created concurrently after the injector has been configured.
+  @Nullable
+  private ProviderFactory[] slotFactories;
+  @Nullable
+  private int[] slotProviderIds;
+  @Nullable
+  private AtomicReferenceArray<InjectingProvider<?>> lazySlots;
+  // Values are either providers or boxed slots of lazy bindings.
+  private final LightweightHashMap<Object, Object> providers =
+      new LightweightHashMap<Object, Object>() {
         @Override
         protected int hashCode(final Object key) {
           if (key instanceof Class<?>) {
@@ -57,10 +97,27 @@ class LightsaberInjector implements Injector {
           }
         }
       };
+  // Qualified bindings are also indexed by their qualifiers, so they can be looked up by a class and an annotation
+  // without allocating a key. Created on registration of the first qualified binding.
+  @Nullable
+  private LightweightHashMap<Annotation, Key<?>[]> qualifiedKeys;
+  // Only instrumented providers create metrics, so nothing is allocated when instrumentation is disabled.
+  @Nullable
+  private volatile InjectorMetrics metrics;
+  private volatile int overridingProviderCount;
+  // Created on the first lookup of a parent provider, so injectors without a parent don't allocate it.
+  @Nullable
+  private volatile OverridingProviderCache overridingProviderCache;
 
   LightsaberInjector(@Nonnull final Lightsaber lightsaber) {
+    this(lightsaber, null);
+  }
+
+  LightsaberInjector(@Nonnull final Lightsaber lightsaber, @Nullable final LightsaberInjector parent) {
     this.lightsaber = lightsaber;
-    registerProvider(Injector.class, new InjectingProvider<Injector>() {
+    this.parent = parent;
+    // Every injector binds Injector to itself, so this binding overrides the one of the parent.
+    final InjectingProvider<Injector> injectorProvider = new InjectingProvider<Injector>() {
       @Override
       public Injector get() {
         return LightsaberInjector.this;
@@ -71,7 +128,10 @@ class LightsaberInjector implements Injector {
       public Injector getWithInjector(@Nonnull final Injector injector) {
         return LightsaberInjector.this;
       }
-    });
+    };
+    providers.put(Injector.class, injectorProvider);
+    slots[INJECTOR_SLOT] = injectorProvider;
+    slotKeys[INJECTOR_SLOT] = Injector.class;
   }
 
   @Override
@@ -82,20 +142,23 @@ class LightsaberInjector implements Injector {
   @Nonnull
   @Override
   public <T> T getInstance(@Nonnull final Class<? extends T> type) {
-    return getProvider(type).get();
+    return getInstanceInternal(type);
   }
 
   @Nonnull
   @Override
   public <T> T getInstance(@Nonnull final Type type) {
-    // noinspection unchecked
-    return (T) getProvider(type).get();
+    return getInstanceInternal(type);
   }
 
   @Nonnull
   @Override
   public <T> T getInstance(@Nonnull final Key<? extends T> key) {
-    return getProvider(key).get();
+    if (key.getQualifier() == null) {
+      return getInstanceInternal(key.getType());
+    } else {
+      return getInstanceInternal(key);
+    }
   }
 
   @Nonnull
@@ -120,18 +183,373 @@ class LightsaberInjector implements Injector {
     }
   }
 
+  @Nonnull
+  <T> T getInstance(@Nonnull final Class<? extends T> type, @Nonnull final Annotation qualifier) {
+    final Key<?> key = findQualifiedKey(type, qualifier);
+    return getInstanceInternal(key != null ? key : Key.of(type, qualifier));
+  }
+
+  @Nonnull
+  <T> Provider<T> getProvider(@Nonnull final Class<? extends T> type, @Nonnull final Annotation qualifier) {
+    final Key<?> key = findQualifiedKey(type, qualifier);
+    return getProviderInternal(key != null ? key : Key.of(type, qualifier));
+  }
+
+  @Nullable
+  private Key<?> findQualifiedKey(@Nonnull final Class<?> type, @Nonnull final Annotation qualifier) {
+    for (LightsaberInjector injector = this; injector != null; injector = injector.parent) {
+      if (injector.qualifiedKeys != null) {
+        final Key<?>[] keys = injector.qualifiedKeys.get(qualifier);
+        if (keys != null) {
+          for (final Key<?> key : keys) {
+            if (key.getType() == type) {
+              return key;
+            }
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  @Nonnull
+  @Override
+  public <T> Provider<T> getProvider(final int slot) {
+    // noinspection unchecked
+    final InjectingProvider<T> provider = (InjectingProvider<T>) getSlot(slot);
+    if (provider != null) {
+      return provider;
+    }
+
+    // noinspection unchecked
+    final InjectingProvider<T> parentProvider = (InjectingProvider<T>) findParentSlot(slot);
+    if (parentProvider != null) {
+      return getOverridingProvider(slot, parentProvider);
+    }
+
+    throw new ConfigurationException("Provider for slot " + slot + " not found in " + this);
+  }
+
+  @Nonnull
+  @Override
+  public <T> T getInstance(final int slot) {
+    // noinspection unchecked
+    final InjectingProvider<T> provider = (InjectingProvider<T>) getSlot(slot);
+    if (provider != null) {
+      return provider.get();
+    }
+
+    // noinspection unchecked
+    final InjectingProvider<T> parentProvider = (InjectingProvider<T>) findParentSlot(slot);
+    if (parentProvider != null) {
+      return parentProvider.getWithInjector(this);
+    }
+
+    throw new ConfigurationException("Provider for slot " + slot + " not found in " + this);
+  }
+
+  private <T> T getInstanceInternal(final Object key) {
+    // noinspection unchecked
+    final InjectingProvider<T> provider = (InjectingProvider<T>) findProvider(key);
+    if (provider != null) {
+      return provider.get();
+    }
+
+    // noinspection unchecked
+    final InjectingProvider<T> parentProvider = (InjectingProvider<T>) findParentProvider(key);
+    if (parentProvider != null) {
+      return parentProvider.getWithInjector(this);
+    }
+
+    throw new ConfigurationException("Provider for " + key + " not found in " + this);
+  }
+
   private <T> Provider<T> getProviderInternal(final Object key) {
     // noinspection unchecked
-    final Provider<T> provider = (Provider<T>) providers.get(key);
-    if (provider == null) {
-      throw new ConfigurationException("Provider for " + key + " not found in " + this);
+    final InjectingProvider<T> provider = (InjectingProvider<T>) findProvider(key);
+    if (provider != null) {
+      return provider;
+    }
+
+    // noinspection unchecked
+    final InjectingProvider<T> parentProvider = (InjectingProvider<T>) findParentProvider(key);
+    if (parentProvider != null) {
+      return getOverridingProvider(parentProvider);
+    }
+
+    throw new ConfigurationException("Provider for " + key + " not found in " + this);
+  }
+
+  // A provider of a parent binding is wrapped once per child injector, so lookups of the binding by its slot and by
+  // its key return the same provider.
+  @Nonnull
+  private <T> InjectingProvider<T> getOverridingProvider(final int slot,
+      @Nonnull final InjectingProvider<T> parentProvider) {
+    final AtomicReferenceArray<InjectingProvider<?>> slotProviders = getOverridingProviderCache().slotProviders;
+    if (slot >= slotProviders.length()) {
+      return getOverridingProvider(parentProvider);
+    }
+
+    // noinspection unchecked
+    final InjectingProvider<T> provider = (InjectingProvider<T>) slotProviders.get(slot);
+    if (provider != null) {
+      return provider;
     }
-    return provider;
+
+    final InjectingProvider<T> newProvider = getOverridingProvider(parentProvider);
+    slotProviders.compareAndSet(slot, null, newProvider);
+    return newProvider;
+  }
+
+  @Nonnull
+  private <T> InjectingProvider<T> getOverridingProvider(@Nonnull final InjectingProvider<T> parentProvider) {
+    final ConcurrentMap<InjectingProvider<?>, InjectingProvider<?>> providers = getOverridingProviderCache().providers;
+    // noinspection unchecked
+    final InjectingProvider<T> provider = (InjectingProvider<T>) providers.get(parentProvider);
+    if (provider != null) {
+      return provider;
+    }
+
+    final InjectingProvider<T> newProvider = new InjectorOverridingProvider<T>(parentProvider, this);
+    // noinspection unchecked
+    final InjectingProvider<T> oldProvider = (InjectingProvider<T>) providers.putIfAbsent(parentProvider, newProvider);
+    if (oldProvider != null) {
+      return oldProvider;
+    }
+
+    OVERRIDING_PROVIDER_COUNT_UPDATER.incrementAndGet(this);
+    return newProvider;
   }
 
   @Nonnull
-  public IterableMap<Object, InjectingProvider<?>> getProviders() {
-    return providers;
+  private OverridingProviderCache getOverridingProviderCache() {
+    final OverridingProviderCache cache = overridingProviderCache;
+    if (cache != null) {
+      return cache;
+    }
+
+    // Parents are configured before their children are created, so their slots don't grow afterwards.
+    int slotCount = 0;
+    for (LightsaberInjector injector = parent; injector != null; injector = injector.parent) {
+      slotCount = Math.max(slotCount, injector.slots.length);
+    }
+    OVERRIDING_PROVIDER_CACHE_UPDATER.compareAndSet(this, null, new OverridingProviderCache(slotCount));
+    return overridingProviderCache;
+  }
+
+  @Nonnull
+  @Override
+  public InjectorMetrics getMetrics() {
+    final InjectorMetrics metrics = this.metrics;
+    if (metrics != null) {
+      return metrics;
+    }
+
+    METRICS_UPDATER.compareAndSet(this, null, new InjectorMetrics());
+    return this.metrics;
+  }
+
+  // Calls and instances of a binding are attributed to the injector that registered it, even when they're requested
+  // from a child injector.
+  @Nonnull
+  InjectorStats getStats() {
+    final InjectorMetrics metrics = this.metrics;
+    if (metrics == null) {
+      return InjectorStats.EMPTY;
+    }
+
+    final int slotCount = metrics.getSlotCount();
+    final List<BindingStats> bindingStats = new ArrayList<BindingStats>(slotCount);
+    for (int slot = 0; slot < slotCount; ++slot) {
+      final BindingMetrics bindingMetrics = metrics.findBindingMetrics(slot);
+      final Object key = bindingMetrics != null ? getSlotKey(slot) : null;
+      if (key != null) {
+        bindingStats.add(
+            new BindingStats(
+                toKey(key),
+                bindingMetrics.getCallCount(),
+                bindingMetrics.getInstanceCount(),
+                bindingMetrics.getInstantiationNanos(),
+                bindingMetrics.getHistogram()
+            )
+        );
+      }
+    }
+    return new InjectorStats(bindingStats);
+  }
+
+  @Nonnull
+  InjectorFootprint getFootprint() {
+    final List<InjectorFootprint.Binding> bindings = new ArrayList<InjectorFootprint.Binding>(providers.size());
+    for (final Object key : providers) {
+      bindings.add(getBindingFootprint(toKey(key), findCreatedProvider(providers.get(key))));
+    }
+
+    final long estimatedTableSize = ShallowSizeEstimator.estimate(this)
+        + ShallowSizeEstimator.estimate(providers)
+        + ShallowSizeEstimator.estimateArray(Object.class, providers.getCapacity() << 1)
+        + ShallowSizeEstimator.estimate(slots)
+        + ShallowSizeEstimator.estimate(slotKeys);
+    return new InjectorFootprint(providers.getCapacity(), slots.length, overridingProviderCount, estimatedTableSize,
+        bindings);
+  }
+
+  // Unlike findProvider() doesn't create providers of lazy bindings.
+  @Nullable
+  private InjectingProvider<?> findCreatedProvider(final Object value) {
+    if (value instanceof Integer) {
+      final int slot = (Integer) value;
+      return slots[slot] != null ? slots[slot] : lazySlots.get(slot);
+    }
+    return (InjectingProvider<?>) value;
+  }
+
+  @Nonnull
+  private static InjectorFootprint.Binding getBindingFootprint(final Key<?> key,
+      @Nullable final InjectingProvider<?> provider) {
+    long providerSize = 0;
+    Object instance = null;
+    InjectingProvider<?> current = provider;
+    while (current != null) {
+      providerSize += ShallowSizeEstimator.estimate(current);
+      if (current instanceof InstrumentedProvider<?>) {
+        current = ((InstrumentedProvider<?>) current).getProvider();
+      } else if (current instanceof SingletonProvider<?>) {
+        instance = ((SingletonProvider<?>) current).getCreatedInstance();
+        current = ((SingletonProvider<?>) current).getProvider();
+      } else if (current instanceof RacySingletonProvider<?>) {
+        instance = ((RacySingletonProvider<?>) current).getCreatedInstance();
+        current = ((RacySingletonProvider<?>) current).getProvider();
+      } else if (current instanceof ContextScopedProvider<?>) {
+        // Instances of context scoped bindings are held by their contexts, so they aren't reported.
+        current = ((ContextScopedProvider<?>) current).getProvider();
+      } else if (current instanceof InjectorOverridingProvider<?>) {
+        current = ((InjectorOverridingProvider<?>) current).getProvider();
+      } else if (current instanceof FactoryProvider<?>) {
+        current = ((FactoryProvider<?>) current).getCreatedProvider();
+      } else if (current instanceof SetMultibindingProvider<?>) {
+        providerSize += estimateContributionsSize(key, ((SetMultibindingProvider<?>) current).getProviders());
+        current = null;
+      } else if (current instanceof MapMultibindingProvider<?, ?>) {
+        providerSize += estimateContributionsSize(key, ((MapMultibindingProvider<?, ?>) current).getProviders());
+        current = null;
+      } else {
+        current = null;
+      }
+    }
+
+    if (instance == null) {
+      return new InjectorFootprint.Binding(key, providerSize, null, 0);
+    } else {
+      return new InjectorFootprint.Binding(key, providerSize, instance.getClass(),
+          ShallowSizeEstimator.estimate(instance));
+    }
+  }
+
+  // Multibindings create a new collection on every call, so only the providers of their contributions are counted.
+  private static long estimateContributionsSize(@Nonnull final Key<?> key,
+      @Nonnull final InjectingProvider<?>[] providers) {
+    long size = ShallowSizeEstimator.estimateArray(Object.class, providers.length);
+    for (final InjectingProvider<?> provider : providers) {
+      size += getBindingFootprint(key, provider).getEstimatedProviderSize();
+    }
+    return size;
+  }
+
+  @Nonnull
+  private static Key<?> toKey(@Nonnull final Object key) {
+    return key instanceof Key<?> ? (Key<?>) key : Key.of((Type) key);
+  }
+
+  @Nullable
+  Object getSlotKey(final int slot) {
+    LightsaberInjector injector = this;
+    while (injector != null) {
+      final Object[] slotKeys = injector.slotKeys;
+      if (slot < slotKeys.length && slotKeys[slot] != null) {
+        return slotKeys[slot];
+      }
+      injector = injector.parent;
+    }
+    return null;
+  }
+
+  @Nullable
+  private InjectingProvider<?> getSlot(final int slot) {
+    final InjectingProvider<?>[] slots = this.slots;
+    if (slot >= slots.length) {
+      return null;
+    }
+
+    final InjectingProvider<?> provider = slots[slot];
+    return provider != null || lazySlots == null ? provider : getLazySlot(slot);
+  }
+
+  @Nullable
+  private InjectingProvider<?> getLazySlot(final int slot) {
+    final InjectingProvider<?> provider = lazySlots.get(slot);
+    return provider != null || slotFactories[slot] == null ? provider : createLazySlot(slot);
+  }
+
+  // Racing threads may create a provider each, but only the first one is published. Providers don't create instances
+  // until they're called, so the others are just dropped.
+  @Nonnull
+  private InjectingProvider<?> createLazySlot(final int slot) {
+    final InjectingProvider<?> newProvider = slotFactories[slot].createProvider(this, slotProviderIds[slot]);
+    if (lazySlots.compareAndSet(slot, null, newProvider)) {
+      return newProvider;
+    }
+    return lazySlots.get(slot);
+  }
+
+  @Nullable
+  private InjectingProvider<?> findProvider(final Object key) {
+    final Object value = providers.get(key);
+    return value instanceof Integer ? getSlot((Integer) value) : (InjectingProvider<?>) value;
+  }
+
+  // Providers of a parent injector are shared with child injectors and are invoked with a child injector so that
+  // they can access bindings of the child. The Injector binding is registered in every injector and is never
+  // looked up in a parent.
+  @Nullable
+  private InjectingProvider<?> findParentProvider(final Object key) {
+    LightsaberInjector injector = parent;
+    while (injector != null) {
+      final InjectingProvider<?> provider = injector.findProvider(key);
+      if (provider != null) {
+        return provider;
+      }
+      injector = injector.parent;
+    }
+    return null;
+  }
+
+  @Nullable
+  private InjectingProvider<?> findParentSlot(final int slot) {
+    LightsaberInjector injector = parent;
+    while (injector != null) {
+      final InjectingProvider<?> provider = injector.getSlot(slot);
+      if (provider != null) {
+        return provider;
+      }
+      injector = injector.parent;
+    }
+    return null;
+  }
+
+  private boolean isRegisteredInParent(final Object key) {
+    LightsaberInjector injector = parent;
+    while (injector != null) {
+      if (injector.providers.containsKey(key)) {
+        return true;
+      }
+      injector = injector.parent;
+    }
+    return false;
+  }
+
+  int getProviderCount() {
+    return providers.size();
   }
 
   <T> void registerProvider(final Class<? extends T> type, final InjectingProvider<? extends T> provider) {
@@ -150,10 +568,132 @@ class LightsaberInjector implements Injector {
     }
   }
 
+  <T> void registerProvider(final int slot, final Class<? extends T> type,
+      final InjectingProvider<? extends T> provider) {
+    registerProviderInternal(slot, type, provider);
+  }
+
+  <T> void registerProvider(final int slot, final Type type, final InjectingProvider<? extends T> provider) {
+    registerProviderInternal(slot, type, provider);
+  }
+
+  <T> void registerProvider(final int slot, final Key<T> key, final InjectingProvider<? extends T> provider) {
+    if (key.getQualifier() == null) {
+      registerProviderInternal(slot, key.getType(), provider);
+    } else {
+      registerProviderInternal(slot, key, provider);
+    }
+  }
+
+  void registerLazyProvider(final int slot, final Class<?> type, final ProviderFactory factory, final int id) {
+    registerLazyProviderInternal(slot, type, factory, id);
+  }
+
+  void registerLazyProvider(final int slot, final Type type, final ProviderFactory factory, final int id) {
+    registerLazyProviderInternal(slot, type, factory, id);
+  }
+
+  void registerLazyProvider(final int slot, final Key<?> key, final ProviderFactory factory, final int id) {
+    if (key.getQualifier() == null) {
+      registerLazyProviderInternal(slot, key.getType(), factory, id);
+    } else {
+      registerLazyProviderInternal(slot, key, factory, id);
+    }
+  }
+
   <T> void registerProviderInternal(final Object key, final InjectingProvider<? extends T> provider) {
-    final Provider<?> oldProvider = providers.put(key, provider);
-    if (oldProvider != null) {
+    registerValueInternal(key, provider);
+  }
+
+  private void registerValueInternal(final Object key, final Object value) {
+    if (isRegisteredInParent(key)) {
       throw new ConfigurationException("Provider for " + key + " already registered in " + this);
     }
+
+    final Object oldValue = providers.put(key, value);
+    if (oldValue != null) {
+      throw new ConfigurationException("Provider for " + key + " already registered in " + this);
+    }
+
+    if (key instanceof Key<?>) {
+      indexQualifiedKey((Key<?>) key);
+    }
+  }
+
+  private void indexQualifiedKey(@Nonnull final Key<?> key) {
+    if (!(key.getType() instanceof Class<?>)) {
+      return;
+    }
+
+    if (qualifiedKeys == null) {
+      qualifiedKeys = new LightweightHashMap<Annotation, Key<?>[]>();
+    }
+
+    final Key<?>[] keys = qualifiedKeys.get(key.getQualifier());
+    if (keys == null) {
+      qualifiedKeys.put(key.getQualifier(), new Key<?>[] { key });
+    } else {
+      final Key<?>[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+      newKeys[keys.length] = key;
+      qualifiedKeys.put(key.getQualifier(), newKeys);
+    }
+  }
+
+  <T> void registerProviderInternal(final int slot, final Object key, final InjectingProvider<? extends T> provider) {
+    registerProviderInternal(key, provider);
+    ensureSlotCapacity(slot + 1);
+    slots[slot] = provider;
+    slotKeys[slot] = key;
+  }
+
+  private void registerLazyProviderInternal(final int slot, final Object key, final ProviderFactory factory,
+      final int id) {
+    // The slot is boxed once here, lookups unbox the stored value.
+    registerValueInternal(key, Integer.valueOf(slot));
+    ensureSlotCapacity(slot + 1);
+    if (lazySlots == null) {
+      slotFactories = new ProviderFactory[slots.length];
+      slotProviderIds = new int[slots.length];
+      lazySlots = new AtomicReferenceArray<InjectingProvider<?>>(slots.length);
+    }
+    slotFactories[slot] = factory;
+    slotProviderIds[slot] = id;
+    slotKeys[slot] = key;
+  }
+
+  private void ensureSlotCapacity(final int capacity) {
+    if (capacity <= slots.length) {
+      return;
+    }
+
+    final int newCapacity = Math.max(capacity, slots.length << 1);
+    final InjectingProvider<?>[] newSlots = new InjectingProvider<?>[newCapacity];
+    final Object[] newSlotKeys = new Object[newCapacity];
+    System.arraycopy(slots, 0, newSlots, 0, slots.length);
+    System.arraycopy(slotKeys, 0, newSlotKeys, 0, slotKeys.length);
+    slots = newSlots;
+    slotKeys = newSlotKeys;
+
+    if (lazySlots != null) {
+      final ProviderFactory[] newSlotFactories = new ProviderFactory[newCapacity];
+      final int[] newSlotProviderIds = new int[newCapacity];
+      System.arraycopy(slotFactories, 0, newSlotFactories, 0, slotFactories.length);
+      System.arraycopy(slotProviderIds, 0, newSlotProviderIds, 0, slotProviderIds.length);
+      slotFactories = newSlotFactories;
+      slotProviderIds = newSlotProviderIds;
+      // Providers aren't created before the injector is configured, so the array is still empty.
+      lazySlots = new AtomicReferenceArray<InjectingProvider<?>>(newCapacity);
+    }
+  }
+
+  private static final class OverridingProviderCache {
+    // Providers created by parent injectors don't override equals(), so they're compared by identity.
+    final ConcurrentMap<InjectingProvider<?>, InjectingProvider<?>> providers =
+        new ConcurrentHashMap<InjectingProvider<?>, InjectingProvider<?>>();
+    final AtomicReferenceArray<InjectingProvider<?>> slotProviders;
+
+    OverridingProviderCache(final int slotCount) {
+      slotProviders = new AtomicReferenceArray<InjectingProvider<?>>(slotCount);
+    }
   }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.InjectingProvider;
+import io.michaelrocks.lightsaber.internal.InjectionEvents;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+class RacySingletonProvider<T> implements InjectingProvider<T> {
+  private static final AtomicReferenceFieldUpdater<RacySingletonProvider, Object> INSTANCE_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(RacySingletonProvider.class, Object.class, "instance");
+
+  private final InjectingProvider<T> provider;
+  private volatile T instance;
+
+  public RacySingletonProvider(@Nonnull final InjectingProvider<T> provider) {
+    this.provider = provider;
+  }
+
+  @Nonnull
+  InjectingProvider<T> getProvider() {
+    return provider;
+  }
+
+  @Nullable
+  T getCreatedInstance() {
+    return instance;
+  }
+
+  @Nonnull
+  @Override
+  public T get() {
+    final T result = instance;
+    if (result != null) {
+      return result;
+    }
+
+    final Object event = InjectionEvents.get().beginSingletonInstantiation();
+    T candidate = null;
+    try {
+      candidate = provider.get();
+    } finally {
+      InjectionEvents.get().endSingletonInstantiation(event, candidate);
+    }
+    return publish(candidate);
+  }
+
+  @Nonnull
+  @Override
+  public T getWithInjector(@Nonnull final Injector injector) {
+    final T result = instance;
+    if (result != null) {
+      return result;
+    }
+
+    final Object event = InjectionEvents.get().beginSingletonInstantiation();
+    T candidate = null;
+    try {
+      candidate = provider.getWithInjector(injector);
+    } finally {
+      InjectionEvents.get().endSingletonInstantiation(event, candidate);
+    }
+    return publish(candidate);
+  }
+
+  @Nonnull
+  private T publish(@Nonnull final T candidate) {
+    if (INSTANCE_UPDATER.compareAndSet(this, null, candidate)) {
+      return candidate;
+    }
+    return instance;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+// Estimates shallow sizes of objects assuming a 64-bit JVM with compressed references.
+final class ShallowSizeEstimator {
+  private static final int OBJECT_HEADER_SIZE = 12;
+  private static final int ARRAY_HEADER_SIZE = 16;
+  private static final int REFERENCE_SIZE = 4;
+  private static final int ALIGNMENT = 8;
+
+  private ShallowSizeEstimator() {
+  }
+
+  static long estimate(@Nonnull final Object object) {
+    final Class<?> type = object.getClass();
+    if (type.isArray()) {
+      return estimateArray(type.getComponentType(), Array.getLength(object));
+    }
+
+    long size = OBJECT_HEADER_SIZE;
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      for (final Field field : current.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          size += getSize(field.getType());
+        }
+      }
+    }
+    return align(size);
+  }
+
+  static long estimateArray(@Nonnull final Class<?> componentType, final int length) {
+    return align(ARRAY_HEADER_SIZE + (long) getSize(componentType) * length);
+  }
+
+  private static int getSize(final Class<?> type) {
+    if (!type.isPrimitive()) {
+      return REFERENCE_SIZE;
+    } else if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    } else {
+      return 1;
+    }
+  }
+
+  private static long align(final long size) {
+    return (size + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+}
@@ -17,41 +17,100 @@
 package io.michaelrocks.lightsaber;
 
 import io.michaelrocks.lightsaber.internal.InjectingProvider;
+import io.michaelrocks.lightsaber.internal.InjectionEvents;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 class SingletonProvider<T> implements InjectingProvider<T> {
+  private static final AtomicReferenceFieldUpdater<SingletonProvider, Lock> INSTANCE_LOCK_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(SingletonProvider.class, Lock.class, "instanceLock");
+
   private final InjectingProvider<T> provider;
   private volatile T instance;
-  private final Object instanceLock = new Object();
+  // Allocated only while the instance is being created, so unused and resolved instances don't hold a lock.
+  @Nullable
+  private volatile Lock instanceLock;
 
   public SingletonProvider(@Nonnull final InjectingProvider<T> provider) {
     this.provider = provider;
   }
 
+  @Nonnull
+  InjectingProvider<T> getProvider() {
+    return provider;
+  }
+
+  @Nullable
+  T getCreatedInstance() {
+    return instance;
+  }
+
   @Nonnull
   @Override
   public T get() {
-    if (instance == null) {
-      synchronized (instanceLock) {
-        if (instance == null) {
+    final T result = instance;
+    if (result != null) {
+      return result;
+    }
+
+    final Lock lock = getInstanceLock();
+    lock.lock();
+    try {
+      if (instance == null) {
+        final Object event = InjectionEvents.get().beginSingletonInstantiation();
+        try {
           instance = provider.get();
+        } finally {
+          InjectionEvents.get().endSingletonInstantiation(event, instance);
         }
       }
+      // Waiting threads already hold a reference to the lock and later ones will see the instance.
+      instanceLock = null;
+      return instance;
+    } finally {
+      lock.unlock();
     }
-    return instance;
   }
 
   @Nonnull
   @Override
   public T getWithInjector(@Nonnull final Injector injector) {
-    if (instance == null) {
-      synchronized (instanceLock) {
-        if (instance == null) {
+    final T result = instance;
+    if (result != null) {
+      return result;
+    }
+
+    final Lock lock = getInstanceLock();
+    lock.lock();
+    try {
+      if (instance == null) {
+        final Object event = InjectionEvents.get().beginSingletonInstantiation();
+        try {
           instance = provider.getWithInjector(injector);
+        } finally {
+          InjectionEvents.get().endSingletonInstantiation(event, instance);
         }
       }
+      // Waiting threads already hold a reference to the lock and later ones will see the instance.
+      instanceLock = null;
+      return instance;
+    } finally {
+      lock.unlock();
     }
-    return instance;
+  }
+
+  @Nonnull
+  private Lock getInstanceLock() {
+    final Lock lock = instanceLock;
+    if (lock != null) {
+      return lock;
+    }
+
+    final Lock newLock = new ReentrantLock();
+    return INSTANCE_LOCK_UPDATER.compareAndSet(this, null, newLock) ? newLock : getInstanceLock();
   }
 }
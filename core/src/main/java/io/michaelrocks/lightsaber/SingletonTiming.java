@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import javax.annotation.Nonnull;
+
+public final class SingletonTiming {
+  private final Object key;
+  private final int level;
+  private final long durationNanos;
+  private final String threadName;
+
+  SingletonTiming(@Nonnull final Object key, final int level, final long durationNanos,
+      @Nonnull final String threadName) {
+    this.key = key;
+    this.level = level;
+    this.durationNanos = durationNanos;
+    this.threadName = threadName;
+  }
+
+  @Nonnull
+  public Object getKey() {
+    return key;
+  }
+
+  public int getLevel() {
+    return level;
+  }
+
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  @Nonnull
+  public String getThreadName() {
+    return threadName;
+  }
+
+  @Override
+  public String toString() {
+    return "SingletonTiming{"
+        + "key=" + key
+        + ", level=" + level
+        + ", durationNanos=" + durationNanos
+        + ", threadName=" + threadName
+        + '}';
+  }
+}
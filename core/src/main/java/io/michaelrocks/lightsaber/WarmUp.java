@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+
+public final class WarmUp {
+  private static final WarmUp SEQUENTIAL = new WarmUp(new DirectExecutor());
+
+  private final Executor executor;
+
+  private WarmUp(@Nonnull final Executor executor) {
+    this.executor = executor;
+  }
+
+  @Nonnull
+  public static WarmUp sequential() {
+    return SEQUENTIAL;
+  }
+
+  @Nonnull
+  public static WarmUp parallel() {
+    final Executor commonPool = findCommonPool();
+    return commonPool == null ? SEQUENTIAL : new WarmUp(commonPool);
+  }
+
+  @Nonnull
+  public static WarmUp parallel(@Nonnull final Executor executor) {
+    // noinspection ConstantConditions
+    if (executor == null) {
+      throw new NullPointerException("Executor cannot be null");
+    }
+
+    return new WarmUp(executor);
+  }
+
+  @Nonnull
+  Executor getExecutor() {
+    return executor;
+  }
+
+  // ForkJoinPool is unavailable on Java 6 and old Android versions.
+  private static Executor findCommonPool() {
+    try {
+      final Class<?> forkJoinPoolClass = Class.forName("java.util.concurrent.ForkJoinPool");
+      final Method commonPoolMethod = forkJoinPoolClass.getMethod("commonPool");
+      return (Executor) commonPoolMethod.invoke(null);
+    } catch (final Exception exception) {
+      return null;
+    }
+  }
+
+  private static class DirectExecutor implements Executor {
+    @Override
+    public void execute(@Nonnull final Runnable command) {
+      command.run();
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class WarmUpHandle {
+  private final LightsaberInjector injector;
+  private final int[][] schedule;
+  private final Executor executor;
+
+  private final AtomicInteger pendingSingletonCount = new AtomicInteger();
+  private final AtomicInteger pendingLevelCount = new AtomicInteger();
+  // Only accessed by the thread that starts levels. Hand-offs between threads are ordered by pendingLevelCount.
+  private int nextLevel;
+  private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+  private final CountDownLatch completionLatch = new CountDownLatch(1);
+  private final Queue<SingletonTiming> timings = new ConcurrentLinkedQueue<SingletonTiming>();
+
+  WarmUpHandle(@Nonnull final LightsaberInjector injector, @Nonnull final int[][] schedule,
+      @Nonnull final Executor executor) {
+    this.injector = injector;
+    this.schedule = schedule;
+    this.executor = executor;
+  }
+
+  void start() {
+    onLevelFinished();
+  }
+
+  @Nonnull
+  public Injector getInjector() {
+    return injector;
+  }
+
+  public boolean isDone() {
+    return completionLatch.getCount() == 0;
+  }
+
+  @Nonnull
+  public Injector await() throws InterruptedException {
+    completionLatch.await();
+    rethrowFailure();
+    return injector;
+  }
+
+  public boolean await(final long timeout, @Nonnull final TimeUnit unit) throws InterruptedException {
+    if (!completionLatch.await(timeout, unit)) {
+      return false;
+    }
+
+    rethrowFailure();
+    return true;
+  }
+
+  @Nonnull
+  public List<SingletonTiming> getTimings() {
+    return new ArrayList<SingletonTiming>(timings);
+  }
+
+  // The thread that finishes a level starts the next one. When a level finishes while the thread is still starting
+  // it, e.g. with a direct executor, the level is only counted and the loop starts the next one, so the stack doesn't
+  // grow with the number of levels.
+  private void onLevelFinished() {
+    if (pendingLevelCount.getAndIncrement() != 0) {
+      return;
+    }
+
+    do {
+      startNextLevel();
+    } while (pendingLevelCount.decrementAndGet() != 0);
+  }
+
+  private void startNextLevel() {
+    while (nextLevel < schedule.length && schedule[nextLevel].length == 0) {
+      nextLevel += 1;
+    }
+
+    if (nextLevel >= schedule.length || failure.get() != null) {
+      completionLatch.countDown();
+      return;
+    }
+
+    final int level = nextLevel++;
+    final int[] slots = schedule[level];
+    pendingSingletonCount.set(slots.length);
+    for (final int slot : slots) {
+      try {
+        executor.execute(new SingletonTask(level, slot));
+      } catch (final RuntimeException exception) {
+        onSingletonFailed(exception);
+        onSingletonFinished();
+      }
+    }
+  }
+
+  private void onSingletonFailed(final Throwable exception) {
+    failure.compareAndSet(null, exception);
+  }
+
+  private void onSingletonFinished() {
+    if (pendingSingletonCount.decrementAndGet() == 0) {
+      onLevelFinished();
+    }
+  }
+
+  private void rethrowFailure() {
+    final Throwable exception = failure.get();
+    if (exception instanceof RuntimeException) {
+      throw (RuntimeException) exception;
+    }
+    if (exception instanceof Error) {
+      throw (Error) exception;
+    }
+    if (exception != null) {
+      throw new ConfigurationException("Failed to warm up singletons", exception);
+    }
+  }
+
+  private class SingletonTask implements Runnable {
+    private final int level;
+    private final int slot;
+
+    SingletonTask(final int level, final int slot) {
+      this.level = level;
+      this.slot = slot;
+    }
+
+    @Override
+    public void run() {
+      try {
+        final long startTime = System.nanoTime();
+        injector.getInstance(slot);
+        final long duration = System.nanoTime() - startTime;
+        final Object key = injector.getSlotKey(slot);
+        timings.add(new SingletonTiming(key, level, duration, Thread.currentThread().getName()));
+      } catch (final Throwable exception) {
+        onSingletonFailed(exception);
+      } finally {
+        onSingletonFinished();
+      }
+    }
+  }
+}
@@ -25,6 +25,10 @@ public abstract class AbstractInjectingProvider<T> implements InjectingProvider<
     this.injector = injector;
   }
 
+  protected final Injector getInjector() {
+    return injector;
+  }
+
   @Override
   public final T get() {
     return getWithInjector(injector);
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// An immutable map backed by arrays of keys and values. Keys are looked up in an open-addressed table of their
+// indices that can be shared by all maps with the same keys.
+public final class ArrayMap<K, V> extends AbstractMap<K, V> {
+  private final Object[] keys;
+  private final Object[] values;
+  private final int[] table;
+  private final boolean identity;
+
+  // The table must be created for the keys with createTable(). Takes ownership of the values.
+  public ArrayMap(@Nonnull final Object[] keys, @Nonnull final Object[] values, @Nonnull final int[] table,
+      final boolean identity) {
+    this.keys = keys;
+    this.values = values;
+    this.table = table;
+    this.identity = identity;
+  }
+
+  // Identity tables compare keys by reference, e.g. classes.
+  @Nonnull
+  public static int[] createTable(@Nonnull final Object[] keys, final boolean identity) {
+    final int[] table = new int[getTableCapacity(keys.length)];
+    for (int i = 0; i < keys.length; ++i) {
+      final int index = findIndex(keys, i, table, keys[i], identity);
+      if (index >= 0) {
+        throw new IllegalArgumentException("Duplicate key: " + keys[i]);
+      }
+      table[-index - 1] = i + 1;
+    }
+    return table;
+  }
+
+  static int getTableCapacity(final int size) {
+    // Keeps the load factor below 0.5 so lookups rarely probe more than one cell.
+    int capacity = 2;
+    while (capacity < size * 2) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  // Returns an index of the key among the first size keys or (-cell - 1) where cell is a free cell of the table.
+  static int findIndex(final Object[] keys, final int size, final int[] table, final Object key,
+      final boolean identity) {
+    final int mask = table.length - 1;
+    final int hash = identity ? System.identityHashCode(key) : key.hashCode();
+    int cell = (hash ^ (hash >>> 16)) & mask;
+    while (true) {
+      final int entry = table[cell];
+      if (entry == 0) {
+        return -cell - 1;
+      }
+
+      final int index = entry - 1;
+      if (index < size) {
+        final Object candidate = keys[index];
+        if (candidate == key || (!identity && candidate.equals(key))) {
+          return index;
+        }
+      }
+
+      cell = (cell + 1) & mask;
+    }
+  }
+
+  @Override
+  public V get(final Object key) {
+    if (key == null) {
+      return null;
+    }
+
+    final int index = findIndex(keys, keys.length, table, key, identity);
+    // noinspection unchecked
+    return index >= 0 ? (V) values[index] : null;
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return key != null && findIndex(keys, keys.length, table, key, identity) >= 0;
+  }
+
+  @Override
+  public int size() {
+    return keys.length;
+  }
+
+  @Nonnull
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new EntrySet();
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+    @Nonnull
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return keys.length;
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Entry<K, V>> {
+    private int index;
+
+    @Override
+    public boolean hasNext() {
+      return index < keys.length;
+    }
+
+    @Override
+    public Entry<K, V> next() {
+      if (index >= keys.length) {
+        throw new NoSuchElementException();
+      }
+
+      // noinspection unchecked
+      final Entry<K, V> entry = new SimpleImmutableEntry<K, V>((K) keys[index], (V) values[index]);
+      index += 1;
+      return entry;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
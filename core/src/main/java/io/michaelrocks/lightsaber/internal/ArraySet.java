@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// An immutable set backed by an array of elements and an open-addressed table of their indices.
+public final class ArraySet<E> extends AbstractSet<E> {
+  private final Object[] elements;
+  private final int size;
+  private final int[] table;
+
+  // Takes ownership of the array. Duplicate elements are dropped.
+  public ArraySet(@Nonnull final Object[] elements) {
+    this.elements = elements;
+    this.table = new int[ArrayMap.getTableCapacity(elements.length)];
+
+    int size = 0;
+    for (final Object element : elements) {
+      final int index = ArrayMap.findIndex(this.elements, size, table, element, false);
+      if (index < 0) {
+        this.elements[size] = element;
+        table[-index - 1] = ++size;
+      }
+    }
+
+    for (int i = size; i < elements.length; ++i) {
+      this.elements[i] = null;
+    }
+
+    this.size = size;
+  }
+
+  @Override
+  public boolean contains(final Object object) {
+    return object != null && ArrayMap.findIndex(elements, size, table, object, false) >= 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Nonnull
+  @Override
+  public Iterator<E> iterator() {
+    return new ArrayIterator<E>(elements, size);
+  }
+
+  static final class ArrayIterator<E> implements Iterator<E> {
+    private final Object[] elements;
+    private final int size;
+    private int index;
+
+    ArrayIterator(final Object[] elements, final int size) {
+      this.elements = elements;
+      this.size = size;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < size;
+    }
+
+    @Override
+    public E next() {
+      if (index >= size) {
+        throw new NoSuchElementException();
+      }
+
+      // noinspection unchecked
+      return (E) elements[index++];
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Striped counters of a single binding. Every thread updates its own row so concurrent updates rarely contend.
+public final class BindingMetrics {
+  public static final int HISTOGRAM_SIZE = 32;
+
+  private static final int CALL_COUNT_INDEX = 0;
+  private static final int INSTANCE_COUNT_INDEX = 1;
+  private static final int INSTANTIATION_NANOS_INDEX = 2;
+  private static final int HISTOGRAM_INDEX = 3;
+  // 35 counters padded to a multiple of 64 bytes.
+  private static final int ROW_SIZE = 40;
+  private static final int STRIPE_COUNT = getStripeCount();
+
+  private final AtomicLongArray cells = new AtomicLongArray(STRIPE_COUNT * ROW_SIZE);
+
+  public void recordCall() {
+    cells.incrementAndGet(getRow() + CALL_COUNT_INDEX);
+  }
+
+  public void recordInstance(final long nanos) {
+    final int row = getRow();
+    cells.incrementAndGet(row + INSTANCE_COUNT_INDEX);
+    cells.addAndGet(row + INSTANTIATION_NANOS_INDEX, nanos);
+    cells.incrementAndGet(row + HISTOGRAM_INDEX + getHistogramBucket(nanos));
+  }
+
+  public long getCallCount() {
+    return sum(CALL_COUNT_INDEX);
+  }
+
+  public long getInstanceCount() {
+    return sum(INSTANCE_COUNT_INDEX);
+  }
+
+  public long getInstantiationNanos() {
+    return sum(INSTANTIATION_NANOS_INDEX);
+  }
+
+  public long[] getHistogram() {
+    final long[] histogram = new long[HISTOGRAM_SIZE];
+    for (int i = 0; i < HISTOGRAM_SIZE; ++i) {
+      histogram[i] = sum(HISTOGRAM_INDEX + i);
+    }
+    return histogram;
+  }
+
+  // Bucket 0 counts zero durations and bucket i counts durations in [2^(i-1), 2^i) ns. The last bucket is unbounded.
+  public static int getHistogramBucket(final long nanos) {
+    final int bucket = 64 - Long.numberOfLeadingZeros(Math.max(nanos, 0));
+    return Math.min(bucket, HISTOGRAM_SIZE - 1);
+  }
+
+  private long sum(final int index) {
+    long sum = 0;
+    for (int row = 0; row < STRIPE_COUNT * ROW_SIZE; row += ROW_SIZE) {
+      sum += cells.get(row + index);
+    }
+    return sum;
+  }
+
+  private static int getRow() {
+    final long hash = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+    return ((int) (hash >>> 32) & (STRIPE_COUNT - 1)) * ROW_SIZE;
+  }
+
+  private static int getStripeCount() {
+    final int processors = Math.min(Runtime.getRuntime().availableProcessors(), 16);
+    return Integer.highestOneBit(Math.max(processors, 1) * 2 - 1);
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import io.michaelrocks.lightsaber.ConfigurationException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Retrieves a module from its component the first time it's needed.
+public final class DeferredModule {
+  private final ModuleRetriever retriever;
+  @Nullable
+  private Object component;
+  private final int index;
+  private volatile Object module;
+  private final Lock moduleLock = new ReentrantLock();
+
+  public DeferredModule(@Nonnull final ModuleRetriever retriever, @Nullable final Object component,
+      final int index) {
+    this.retriever = retriever;
+    this.component = component;
+    this.index = index;
+  }
+
+  @Nonnull
+  public Object get() {
+    final Object result = module;
+    if (result != null) {
+      return result;
+    }
+
+    moduleLock.lock();
+    try {
+      if (module == null) {
+        final Object newModule = retriever.retrieveModule(component, index);
+        if (newModule == null) {
+          throw new ConfigurationException("Module " + index + " of " + component + " is null");
+        }
+        module = newModule;
+        // The component isn't needed anymore.
+        component = null;
+      }
+      return module;
+    } finally {
+      moduleLock.unlock();
+    }
+  }
+}
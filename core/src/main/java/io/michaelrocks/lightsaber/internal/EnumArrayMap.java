@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// An immutable map with enum keys backed by an array of values indexed by ordinals of the keys.
+public final class EnumArrayMap<K extends Enum<K>, V> extends AbstractMap<K, V> {
+  private final Class<K> keyType;
+  private final K[] universe;
+  private final Object[] values;
+  private final int size;
+
+  // The values must be indexed by ordinals of their keys. Takes ownership of the values.
+  public EnumArrayMap(@Nonnull final Class<K> keyType, @Nonnull final K[] universe, @Nonnull final Object[] values,
+      final int size) {
+    this.keyType = keyType;
+    this.universe = universe;
+    this.values = values;
+    this.size = size;
+  }
+
+  @Override
+  public V get(final Object key) {
+    if (!(key instanceof Enum<?>) || ((Enum<?>) key).getDeclaringClass() != keyType) {
+      return null;
+    }
+
+    // noinspection unchecked
+    return (V) values[((Enum<?>) key).ordinal()];
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Nonnull
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new EntrySet();
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+    @Nonnull
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Entry<K, V>> {
+    private int ordinal = findNext(0);
+
+    @Override
+    public boolean hasNext() {
+      return ordinal < values.length;
+    }
+
+    @Override
+    public Entry<K, V> next() {
+      if (ordinal >= values.length) {
+        throw new NoSuchElementException();
+      }
+
+      // noinspection unchecked
+      final Entry<K, V> entry = new SimpleImmutableEntry<K, V>(universe[ordinal], (V) values[ordinal]);
+      ordinal = findNext(ordinal + 1);
+      return entry;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private int findNext(final int start) {
+      int next = start;
+      while (next < values.length && values[next] == null) {
+        next += 1;
+      }
+      return next;
+    }
+  }
+}
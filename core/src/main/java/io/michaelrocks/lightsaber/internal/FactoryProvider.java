@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import io.michaelrocks.lightsaber.Injector;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+// Creates a provider with a provider factory on first use. Used for contributions of lazily registered modules.
+public final class FactoryProvider<T> implements InjectingProvider<T> {
+  private static final AtomicReferenceFieldUpdater<FactoryProvider, InjectingProvider> PROVIDER_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(FactoryProvider.class, InjectingProvider.class, "provider");
+
+  private final ProviderFactory factory;
+  private final Injector injector;
+  private final int id;
+  private volatile InjectingProvider<T> provider;
+
+  public FactoryProvider(@Nonnull final ProviderFactory factory, @Nonnull final Injector injector, final int id) {
+    this.factory = factory;
+    this.injector = injector;
+    this.id = id;
+  }
+
+  // Unlike getProvider() doesn't create the provider.
+  @Nullable
+  public InjectingProvider<T> getCreatedProvider() {
+    return provider;
+  }
+
+  @Nonnull
+  @Override
+  public T get() {
+    return getProvider().get();
+  }
+
+  @Nonnull
+  @Override
+  public T getWithInjector(@Nonnull final Injector injector) {
+    return getProvider().getWithInjector(injector);
+  }
+
+  // Creating a provider doesn't create any instances, so a provider created by a thread that lost the race is just
+  // dropped.
+  @Nonnull
+  private InjectingProvider<T> getProvider() {
+    final InjectingProvider<T> result = provider;
+    if (result != null) {
+      return result;
+    }
+
+    PROVIDER_UPDATER.compareAndSet(this, null, factory.createProvider(injector, id));
+    return provider;
+  }
+}
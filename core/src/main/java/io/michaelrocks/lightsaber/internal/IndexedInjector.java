@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import javax.annotation.Nonnull;
+import javax.inject.Provider;
+
+public interface IndexedInjector {
+  int INJECTOR_SLOT = 0;
+
+  @Nonnull
+  <T> Provider<T> getProvider(int slot);
+
+  @Nonnull
+  <T> T getInstance(int slot);
+
+  @Nonnull
+  InjectorMetrics getMetrics();
+}
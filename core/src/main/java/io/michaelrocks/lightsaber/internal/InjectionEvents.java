@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+// Receives events about injector configuration and scoped instantiation. Every begin method returns an opaque event
+// that is passed to the matching end method or null if the event isn't recorded. An end method is called even when
+// the operation fails, in which case the instance is null.
+public abstract class InjectionEvents {
+  private static final String JFR_INJECTION_EVENTS_CLASS_NAME = "io.michaelrocks.lightsaber.jfr.JfrInjectionEvents";
+
+  private static volatile InjectionEvents instance = create();
+
+  @Nonnull
+  public static InjectionEvents get() {
+    return instance;
+  }
+
+  // Allows tests to observe events. Returns the events that have been replaced.
+  @Nonnull
+  static InjectionEvents replace(@Nonnull final InjectionEvents events) {
+    final InjectionEvents oldEvents = instance;
+    instance = events;
+    return oldEvents;
+  }
+
+  @Nullable
+  public Object beginInjectorCreation() {
+    return null;
+  }
+
+  public void endInjectorCreation(@Nullable final Object event, @Nonnull final Object component, final boolean child,
+      final int bindingCount) {
+  }
+
+  @Nullable
+  public Object beginInjectorConfiguration() {
+    return null;
+  }
+
+  public void endInjectorConfiguration(@Nullable final Object event, @Nullable final Object component) {
+  }
+
+  @Nullable
+  public Object beginSingletonInstantiation() {
+    return null;
+  }
+
+  public void endSingletonInstantiation(@Nullable final Object event, @Nullable final Object instance) {
+  }
+
+  @Nullable
+  public Object beginLazyResolution() {
+    return null;
+  }
+
+  public void endLazyResolution(@Nullable final Object event, @Nullable final Object instance) {
+  }
+
+  private static InjectionEvents create() {
+    // JFR events are provided by an optional artifact, so it's fine when it's missing or can't be loaded.
+    try {
+      final Class<?> eventsClass = Class.forName(JFR_INJECTION_EVENTS_CLASS_NAME);
+      return (InjectionEvents) eventsClass.newInstance();
+    } catch (final Throwable exception) {
+      return new InjectionEvents() {};
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import io.michaelrocks.lightsaber.Injector;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+public final class InjectorMetrics {
+  private volatile BindingMetrics[] bindings = new BindingMetrics[0];
+
+  @Nonnull
+  public BindingMetrics getBindingMetrics(final int slot) {
+    final BindingMetrics[] bindings = this.bindings;
+    if (slot < bindings.length && bindings[slot] != null) {
+      return bindings[slot];
+    }
+    return createBindingMetrics(slot);
+  }
+
+  @Nullable
+  public BindingMetrics findBindingMetrics(final int slot) {
+    final BindingMetrics[] bindings = this.bindings;
+    return slot < bindings.length ? bindings[slot] : null;
+  }
+
+  public int getSlotCount() {
+    return bindings.length;
+  }
+
+  private synchronized BindingMetrics createBindingMetrics(final int slot) {
+    BindingMetrics[] bindings = this.bindings;
+    if (slot >= bindings.length) {
+      final BindingMetrics[] newBindings = new BindingMetrics[Math.max(slot + 1, bindings.length << 1)];
+      System.arraycopy(bindings, 0, newBindings, 0, bindings.length);
+      bindings = newBindings;
+    }
+
+    BindingMetrics metrics = bindings[slot];
+    if (metrics == null) {
+      // Copy on write so that readers never see a partially initialized array.
+      bindings = bindings.clone();
+      metrics = new BindingMetrics();
+      bindings[slot] = metrics;
+      this.bindings = bindings;
+    }
+    return metrics;
+  }
+
+  // Called by instrumented providers with the injector that registered the binding, which also counts its calls.
+  public static void recordInstance(@Nonnull final Injector injector, final int slot, final long startNanos) {
+    final long nanos = System.nanoTime() - startNanos;
+    if (injector instanceof IndexedInjector) {
+      ((IndexedInjector) injector).getMetrics().getBindingMetrics(slot).recordInstance(nanos);
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import io.michaelrocks.lightsaber.Injector;
+
+import javax.annotation.Nonnull;
+
+public final class InstrumentedProvider<T> implements InjectingProvider<T> {
+  private final BindingMetrics metrics;
+  private final InjectingProvider<T> provider;
+
+  public InstrumentedProvider(@Nonnull final IndexedInjector injector, final int slot,
+      @Nonnull final InjectingProvider<T> provider) {
+    this.metrics = injector.getMetrics().getBindingMetrics(slot);
+    this.provider = provider;
+  }
+
+  @Nonnull
+  public InjectingProvider<T> getProvider() {
+    return provider;
+  }
+
+  @Nonnull
+  @Override
+  public T get() {
+    metrics.recordCall();
+    return provider.get();
+  }
+
+  @Nonnull
+  @Override
+  public T getWithInjector(@Nonnull final Injector injector) {
+    metrics.recordCall();
+    return provider.getWithInjector(injector);
+  }
+}
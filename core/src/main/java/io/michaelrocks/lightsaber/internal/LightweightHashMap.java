@@ -55,6 +55,10 @@ public class LightweightHashMap<K, V> implements IterableMap<K, V> {
     return size;
   }
 
+  public int getCapacity() {
+    return data.length >> 1;
+  }
+
   @Override
   public boolean isEmpty() {
     return size == 0;
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import io.michaelrocks.lightsaber.Injector;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+// Provides a map of instances contributed by the providers with the given keys. A new map is created on every call.
+// Maps with enum keys index values by ordinals, maps with class keys compare keys by reference.
+public final class MapMultibindingProvider<K, V> implements InjectingProvider<Map<K, V>> {
+  private final Object[] keys;
+  private final InjectingProvider<?>[] providers;
+  private final Class<?> enumType;
+  private final Object[] universe;
+  private final int[] table;
+  private final boolean identity;
+
+  public MapMultibindingProvider(@Nonnull final Object[] keys, @Nonnull final InjectingProvider<?>[] providers) {
+    this.keys = keys;
+    this.providers = providers;
+
+    final Object firstKey = keys.length == 0 ? null : keys[0];
+    if (firstKey instanceof Enum<?>) {
+      enumType = ((Enum<?>) firstKey).getDeclaringClass();
+      universe = enumType.getEnumConstants();
+      table = null;
+      identity = false;
+      checkEnumKeysAreUnique(keys, universe.length);
+    } else {
+      enumType = null;
+      universe = null;
+      identity = firstKey instanceof Class<?>;
+      table = ArrayMap.createTable(keys, identity);
+    }
+  }
+
+  @Nonnull
+  public InjectingProvider<?>[] getProviders() {
+    return providers;
+  }
+
+  private static void checkEnumKeysAreUnique(@Nonnull final Object[] keys, final int universeSize) {
+    final boolean[] ordinals = new boolean[universeSize];
+    for (final Object key : keys) {
+      final int ordinal = ((Enum<?>) key).ordinal();
+      if (ordinals[ordinal]) {
+        throw new IllegalArgumentException("Duplicate key: " + key);
+      }
+      ordinals[ordinal] = true;
+    }
+  }
+
+  @Nonnull
+  @Override
+  public Map<K, V> get() {
+    final Object[] values = new Object[providers.length];
+    for (int i = 0; i < providers.length; ++i) {
+      values[i] = providers[i].get();
+    }
+    return createMap(values);
+  }
+
+  @Nonnull
+  @Override
+  public Map<K, V> getWithInjector(@Nonnull final Injector injector) {
+    final Object[] values = new Object[providers.length];
+    for (int i = 0; i < providers.length; ++i) {
+      values[i] = providers[i].getWithInjector(injector);
+    }
+    return createMap(values);
+  }
+
+  @Nonnull
+  private Map<K, V> createMap(@Nonnull final Object[] values) {
+    if (enumType == null) {
+      return new ArrayMap<K, V>(keys, values, table, identity);
+    }
+
+    final Object[] valuesByOrdinal = new Object[universe.length];
+    for (int i = 0; i < keys.length; ++i) {
+      valuesByOrdinal[((Enum<?>) keys[i]).ordinal()] = values[i];
+    }
+    // noinspection unchecked
+    return (Map<K, V>) createEnumMap(enumType, universe, valuesByOrdinal, keys.length);
+  }
+
+  @Nonnull
+  private static <E extends Enum<E>, V> Map<E, V> createEnumMap(@Nonnull final Class<?> enumType,
+      @Nonnull final Object[] universe, @Nonnull final Object[] valuesByOrdinal, final int size) {
+    // noinspection unchecked
+    return new EnumArrayMap<E, V>((Class<E>) enumType, (E[]) universe, valuesByOrdinal, size);
+  }
+}
@@ -23,11 +23,13 @@ public final class ParameterizedTypeImpl implements ParameterizedType {
   private final Type ownerType;
   private final Type rawType;
   private final Type[] typeArguments;
+  private final int hashCode;
 
   public ParameterizedTypeImpl(final Type ownerType, final Type rawType, final Type... typeArguments) {
     this.ownerType = ownerType;
     this.rawType = rawType;
     this.typeArguments = typeArguments;
+    this.hashCode = TypeUtils.computeHashCode(ownerType, rawType, typeArguments);
   }
 
   @Override
@@ -44,4 +46,30 @@ public final class ParameterizedTypeImpl implements ParameterizedType {
   public Type getOwnerType() {
     return ownerType;
   }
+
+  @Override
+  public boolean equals(final Object object) {
+    if (this == object) {
+      return true;
+    }
+
+    // JDK types hash differently, so they're only equal to this one through TypeUtils.
+    if (!(object instanceof ParameterizedTypeImpl)) {
+      return false;
+    }
+
+    final ParameterizedTypeImpl type = (ParameterizedTypeImpl) object;
+    if (hashCode != type.hashCode) {
+      return false;
+    }
+
+    return TypeUtils.equals(ownerType, type.ownerType)
+        && TypeUtils.equals(rawType, type.rawType)
+        && TypeUtils.equals(typeArguments, type.typeArguments);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import io.michaelrocks.lightsaber.Injector;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+
+// Provides a set of instances contributed by the providers. A new set is created on every call.
+public final class SetMultibindingProvider<E> implements InjectingProvider<Set<E>> {
+  private final InjectingProvider<?>[] providers;
+
+  public SetMultibindingProvider(@Nonnull final InjectingProvider<?>[] providers) {
+    this.providers = providers;
+  }
+
+  @Nonnull
+  public InjectingProvider<?>[] getProviders() {
+    return providers;
+  }
+
+  @Nonnull
+  @Override
+  public Set<E> get() {
+    final Object[] elements = new Object[providers.length];
+    for (int i = 0; i < providers.length; ++i) {
+      elements[i] = providers[i].get();
+    }
+    return new ArraySet<E>(elements);
+  }
+
+  @Nonnull
+  @Override
+  public Set<E> getWithInjector(@Nonnull final Injector injector) {
+    final Object[] elements = new Object[providers.length];
+    for (int i = 0; i < providers.length; ++i) {
+      elements[i] = providers[i].getWithInjector(injector);
+    }
+    return new ArraySet<E>(elements);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// A ring buffer of complete events recorded by generated code when startup tracing is enabled. Every event carries
+// its start time and duration, so an event never loses its counterpart when the buffer wraps. Events are immutable and
+// are published through an atomic array, so the trace may be written while other threads are still recording.
+public final class StartupTrace {
+  private static final int CAPACITY = 1 << 15;
+  private static final int MASK = CAPACITY - 1;
+
+  private static final AtomicLong nextSequence = new AtomicLong();
+
+  private StartupTrace() {
+  }
+
+  // Returns the start time that has to be passed to end().
+  public static long begin() {
+    return System.nanoTime();
+  }
+
+  public static void end(@Nonnull final String name, final long startNanos) {
+    final long durationNanos = System.nanoTime() - startNanos;
+    final long sequence = nextSequence.getAndIncrement();
+    final Event event = new Event(sequence, name, Thread.currentThread().getId(), startNanos, durationNanos);
+    Buffer.events.lazySet((int) (sequence & MASK), event);
+  }
+
+  // Writes recorded events in the Chrome trace event format that is also understood by Perfetto.
+  public static void write(@Nonnull final Writer writer) throws IOException {
+    final long end = nextSequence.get();
+    writer.write("{\"traceEvents\":[");
+    if (end != 0) {
+      writeEvents(writer, Math.max(0, end - CAPACITY), end);
+    }
+    writer.write("\n],\"displayTimeUnit\":\"ns\"}\n");
+    writer.flush();
+  }
+
+  private static void writeEvents(final Writer writer, final long start, final long end) throws IOException {
+    final AtomicReferenceArray<Event> events = Buffer.events;
+    long origin = Long.MAX_VALUE;
+    for (long sequence = start; sequence < end; ++sequence) {
+      final Event event = events.get((int) (sequence & MASK));
+      if (event != null && event.sequence == sequence) {
+        origin = Math.min(origin, event.startNanos);
+      }
+    }
+
+    boolean first = true;
+    for (long sequence = start; sequence < end; ++sequence) {
+      // The slot may still be empty or may have been reused by a newer event.
+      final Event event = events.get((int) (sequence & MASK));
+      if (event == null || event.sequence != sequence) {
+        continue;
+      }
+
+      if (!first) {
+        writer.write(',');
+      }
+      first = false;
+      writer.write("\n{\"name\":\"");
+      writeEscaped(writer, event.name);
+      writer.write("\",\"cat\":\"lightsaber\",\"ph\":\"X\",\"ts\":");
+      writeMicros(writer, event.startNanos - origin);
+      writer.write(",\"dur\":");
+      writeMicros(writer, event.durationNanos);
+      writer.write(",\"pid\":1,\"tid\":");
+      writer.write(Long.toString(event.threadId));
+      writer.write('}');
+    }
+  }
+
+  private static void writeMicros(final Writer writer, final long nanos) throws IOException {
+    final long absoluteNanos = Math.abs(nanos);
+    final String fraction = Long.toString(1000 + absoluteNanos % 1000).substring(1);
+    writer.write((nanos < 0 ? "-" : "") + absoluteNanos / 1000 + "." + fraction);
+  }
+
+  private static void writeEscaped(final Writer writer, final String string) throws IOException {
+    for (int i = 0; i < string.length(); ++i) {
+      final char c = string.charAt(i);
+      if (c == '"' || c == '\\') {
+        writer.write('\\');
+        writer.write(c);
+      } else if (c < 0x20) {
+        writer.write(String.format("\\u%04x", (int) c));
+      } else {
+        writer.write(c);
+      }
+    }
+  }
+
+  private static final class Event {
+    final long sequence;
+    final String name;
+    final long threadId;
+    final long startNanos;
+    final long durationNanos;
+
+    Event(final long sequence, final String name, final long threadId, final long startNanos,
+        final long durationNanos) {
+      this.sequence = sequence;
+      this.name = name;
+      this.threadId = threadId;
+      this.startNanos = startNanos;
+      this.durationNanos = durationNanos;
+    }
+  }
+
+  // The buffer is allocated only when the first event is recorded.
+  private static final class Buffer {
+    static final AtomicReferenceArray<Event> events = new AtomicReferenceArray<Event>(CAPACITY);
+  }
+}
@@ -22,7 +22,6 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
-import java.util.Arrays;
 
 public class TypeUtils {
   private TypeUtils() {
@@ -39,6 +38,10 @@ public class TypeUtils {
 
     if (type1 instanceof Class<?> && type2 instanceof Class<?>) {
       return type1.equals(type2);
+    } else if ((type1 instanceof ParameterizedTypeImpl && type2 instanceof ParameterizedTypeImpl)
+        || (type1 instanceof GenericArrayTypeImpl && type2 instanceof GenericArrayTypeImpl)) {
+      // Internal implementations compare cached hashes before doing a deep comparison.
+      return type1.equals(type2);
     } else if (type1 instanceof ParameterizedType && type2 instanceof ParameterizedType) {
       return equals((ParameterizedType) type1, (ParameterizedType) type2);
     } else if (type1 instanceof WildcardType && type2 instanceof WildcardType) {
@@ -59,6 +62,8 @@ public class TypeUtils {
 
     if (type instanceof Class<?>) {
       return type.hashCode();
+    } else if (type instanceof ParameterizedTypeImpl || type instanceof GenericArrayTypeImpl) {
+      return type.hashCode();
     } else if (type instanceof ParameterizedType) {
       return hashCode((ParameterizedType) type);
     } else if (type instanceof WildcardType) {
@@ -72,18 +77,18 @@ public class TypeUtils {
     }
   }
 
-  private static boolean equals(final ParameterizedType type1, final ParameterizedType type2) {
+  static boolean equals(final ParameterizedType type1, final ParameterizedType type2) {
     return equals(type1.getOwnerType(), type2.getOwnerType())
         && equals(type1.getRawType(), type2.getRawType())
         && equals(type1.getActualTypeArguments(), type2.getActualTypeArguments());
   }
 
-  private static boolean equals(final WildcardType type1, final WildcardType type2) {
+  static boolean equals(final WildcardType type1, final WildcardType type2) {
     return equals(type1.getUpperBounds(), type2.getUpperBounds())
         && equals(type1.getLowerBounds(), type2.getLowerBounds());
   }
 
-  private static boolean equals(final GenericArrayType type1, final GenericArrayType type2) {
+  static boolean equals(final GenericArrayType type1, final GenericArrayType type2) {
     return equals(type1.getGenericComponentType(), type2.getGenericComponentType());
   }
 
@@ -93,7 +98,7 @@ public class TypeUtils {
         && equals(type1.getBounds(), type2.getBounds());
   }
 
-  private static boolean equals(final Type[] types1, final Type[] types2) {
+  static boolean equals(final Type[] types1, final Type[] types2) {
     if (types1 == types2) {
       return true;
     }
@@ -133,22 +138,30 @@ public class TypeUtils {
   }
 
   private static int hashCode(final ParameterizedType type) {
+    return computeHashCode(type.getOwnerType(), type.getRawType(), type.getActualTypeArguments());
+  }
+
+  static int computeHashCode(final Type ownerType, final Type rawType, final Type[] typeArguments) {
     int result = 1;
-    result = 31 * result + hashCode(type.getActualTypeArguments());
-    result = 31 * result + hashCode(type.getOwnerType());
-    result = 31 * result + hashCode(type.getRawType());
+    result = 31 * result + hashCode(typeArguments);
+    result = 31 * result + hashCode(ownerType);
+    result = 31 * result + hashCode(rawType);
     return result;
   }
 
   private static int hashCode(final WildcardType type) {
     int result = 1;
-    result = 31 * result + Arrays.hashCode(type.getUpperBounds());
-    result = 31 * result + Arrays.hashCode(type.getLowerBounds());
+    result = 31 * result + hashCode(type.getUpperBounds());
+    result = 31 * result + hashCode(type.getLowerBounds());
     return result;
   }
 
   private static int hashCode(final GenericArrayType type) {
-    return 31 + hashCode(type.getGenericComponentType());
+    return computeHashCode(type.getGenericComponentType());
+  }
+
+  static int computeHashCode(final Type genericComponentType) {
+    return 31 + hashCode(genericComponentType);
   }
 
   private static int hashCode(final TypeVariable<?> type) {
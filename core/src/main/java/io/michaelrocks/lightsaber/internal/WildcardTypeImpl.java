@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+
+public final class WildcardTypeImpl implements WildcardType {
+  private static final Type[] EMPTY_BOUNDS = new Type[0];
+
+  private final Type[] upperBounds;
+  private final Type[] lowerBounds;
+  private final int hashCode;
+
+  // A wildcard has either an upper bound or a lower bound, in the latter case the upper bound is Object.
+  public WildcardTypeImpl(@Nonnull final Type upperBound, @Nullable final Type lowerBound) {
+    this.upperBounds = new Type[] { upperBound };
+    this.lowerBounds = lowerBound == null ? EMPTY_BOUNDS : new Type[] { lowerBound };
+    this.hashCode = TypeUtils.hashCode(this);
+  }
+
+  @Nonnull
+  @Override
+  public Type[] getUpperBounds() {
+    return upperBounds.clone();
+  }
+
+  @Nonnull
+  @Override
+  public Type[] getLowerBounds() {
+    return lowerBounds.clone();
+  }
+
+  @Override
+  public boolean equals(final Object object) {
+    if (this == object) {
+      return true;
+    }
+
+    // JDK types hash differently, so they're only equal to this one through TypeUtils.
+    if (!(object instanceof WildcardTypeImpl)) {
+      return false;
+    }
+
+    final WildcardTypeImpl type = (WildcardTypeImpl) object;
+    return hashCode == type.hashCode
+        && TypeUtils.equals(upperBounds, type.upperBounds)
+        && TypeUtils.equals(lowerBounds, type.lowerBounds);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    if (lowerBounds.length != 0) {
+      return "? super " + getTypeName(lowerBounds[0]);
+    }
+    if (upperBounds[0] == Object.class) {
+      return "?";
+    }
+    return "? extends " + getTypeName(upperBounds[0]);
+  }
+
+  @Nonnull
+  private static String getTypeName(@Nonnull final Type type) {
+    return type instanceof Class<?> ? ((Class<?>) type).getName() : type.toString();
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.InjectingProvider;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNoException;
+
+public class ContextScopeTest {
+  @Test
+  public void testSameInstanceInContext() throws Exception {
+    final ContextScopedProvider<Object> provider = new ContextScopedProvider<Object>(new NewObjectProvider());
+    ContextScope.run(new Runnable() {
+      @Override
+      public void run() {
+        assertTrue(ContextScope.isActive());
+        assertSame(provider.get(), provider.get());
+      }
+    });
+    assertFalse(ContextScope.isActive());
+  }
+
+  @Test
+  public void testDifferentInstancesInDifferentContexts() throws Exception {
+    final ContextScopedProvider<Object> provider = new ContextScopedProvider<Object>(new NewObjectProvider());
+    final Object instance1 = ContextScope.call(new GetCallable(provider));
+    final Object instance2 = ContextScope.call(new GetCallable(provider));
+    assertNotSame(instance1, instance2);
+  }
+
+  @Test
+  public void testNestedContext() throws Exception {
+    final ContextScopedProvider<Object> provider = new ContextScopedProvider<Object>(new NewObjectProvider());
+    ContextScope.run(new Runnable() {
+      @Override
+      public void run() {
+        final Object outerInstance = provider.get();
+        try {
+          assertNotSame(outerInstance, ContextScope.call(new GetCallable(provider)));
+        } catch (final Exception exception) {
+          throw new RuntimeException(exception);
+        }
+        assertSame(outerInstance, provider.get());
+      }
+    });
+  }
+
+  @Test
+  public void testNoActiveContext() throws Exception {
+    final ContextScopedProvider<Object> provider = new ContextScopedProvider<Object>(new NewObjectProvider());
+    try {
+      provider.get();
+      fail();
+    } catch (final IllegalStateException exception) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testCallPropagatesException() throws Exception {
+    final Exception exception = new Exception();
+    try {
+      ContextScope.call(new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          throw exception;
+        }
+      });
+      fail();
+    } catch (final Exception callException) {
+      assertSame(exception, callException);
+    }
+  }
+
+  @Test
+  public void testInstancesOfAlternatingContexts() throws Exception {
+    final ContextScopedProvider<Object> provider = new ContextScopedProvider<Object>(new NewObjectProvider());
+    ContextScope.run(new Runnable() {
+      @Override
+      public void run() {
+        final Object outerInstance = provider.get();
+        for (int i = 0; i < 2; ++i) {
+          ContextScope.run(new Runnable() {
+            @Override
+            public void run() {
+              assertNotSame(outerInstance, provider.get());
+              assertSame(provider.get(), provider.get());
+            }
+          });
+          assertSame(outerInstance, provider.get());
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testThreadLocalStorageRestoresContext() throws Exception {
+    assertStorageRestoresContext(new ContextStorage.ThreadLocalContextStorage());
+  }
+
+  @Test
+  public void testScopedValueStorageRestoresContext() throws Exception {
+    final ContextStorage storage;
+    try {
+      storage = new ContextStorage.ScopedValueContextStorage();
+    } catch (final Throwable exception) {
+      assumeNoException(exception);
+      return;
+    }
+    assertStorageRestoresContext(storage);
+  }
+
+  private static void assertStorageRestoresContext(final ContextStorage storage) {
+    final ContextScope.Context outerContext = new ContextScope.Context();
+    storage.run(outerContext, new Runnable() {
+      @Override
+      public void run() {
+        final ContextScope.Context innerContext = new ContextScope.Context();
+        storage.run(innerContext, new Runnable() {
+          @Override
+          public void run() {
+            assertSame(innerContext, storage.getCurrentContext());
+          }
+        });
+        assertSame(outerContext, storage.getCurrentContext());
+      }
+    });
+    assertNull(storage.getCurrentContext());
+  }
+
+  private static class GetCallable implements Callable<Object> {
+    private final ContextScopedProvider<Object> provider;
+
+    GetCallable(final ContextScopedProvider<Object> provider) {
+      this.provider = provider;
+    }
+
+    @Override
+    public Object call() {
+      return provider.get();
+    }
+  }
+
+  private static class NewObjectProvider implements InjectingProvider<Object> {
+    @Nonnull
+    @Override
+    public Object get() {
+      return new Object();
+    }
+
+    @Nonnull
+    @Override
+    public Object getWithInjector(@Nonnull final Injector injector) {
+      return get();
+    }
+  }
+}
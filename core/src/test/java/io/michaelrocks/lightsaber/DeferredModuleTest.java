@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.DeferredModule;
+import io.michaelrocks.lightsaber.internal.ModuleRetriever;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class DeferredModuleTest {
+  private static final int THREAD_COUNT = 8;
+
+  @Test
+  public void testModuleIsRetrievedOnFirstAccess() throws Exception {
+    final Object component = new Object();
+    final CountingModuleRetriever retriever = new CountingModuleRetriever();
+    final DeferredModule module = new DeferredModule(retriever, component, 1);
+
+    assertEquals(0, retriever.getCount());
+    final Object instance = module.get();
+    assertSame(instance, module.get());
+    assertEquals(1, retriever.getCount());
+    assertSame(component, retriever.getComponent());
+    assertEquals(1, retriever.getIndex());
+  }
+
+  @Test
+  public void testModuleIsRetrievedOnceConcurrently() throws Exception {
+    final CountingModuleRetriever retriever = new CountingModuleRetriever();
+    final DeferredModule module = new DeferredModule(retriever, new Object(), 0);
+    final CountDownLatch latch = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    try {
+      @SuppressWarnings("unchecked")
+      final Future<Object>[] futures = new Future[THREAD_COUNT];
+      for (int i = 0; i < THREAD_COUNT; ++i) {
+        futures[i] = executor.submit(new Callable<Object>() {
+          @Override
+          public Object call() throws Exception {
+            latch.await();
+            return module.get();
+          }
+        });
+      }
+
+      latch.countDown();
+      final Object instance = futures[0].get();
+      for (final Future<Object> future : futures) {
+        assertSame(instance, future.get());
+      }
+      assertEquals(1, retriever.getCount());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testNullModuleIsReported() throws Exception {
+    final DeferredModule module = new DeferredModule(new ModuleRetriever() {
+      @Nullable
+      @Override
+      public Object retrieveModule(@Nullable final Object component, final int index) {
+        return null;
+      }
+    }, new Object(), 0);
+
+    try {
+      module.get();
+      fail();
+    } catch (final ConfigurationException exception) {
+      // Expected.
+    }
+  }
+
+  private static class CountingModuleRetriever implements ModuleRetriever {
+    private final AtomicInteger count = new AtomicInteger();
+    private volatile Object component;
+    private volatile int index = -1;
+
+    @Nullable
+    @Override
+    public Object retrieveModule(@Nullable final Object component, final int index) {
+      count.incrementAndGet();
+      this.component = component;
+      this.index = index;
+      return new Object();
+    }
+
+    int getCount() {
+      return count.get();
+    }
+
+    Object getComponent() {
+      return component;
+    }
+
+    int getIndex() {
+      return index;
+    }
+  }
+}
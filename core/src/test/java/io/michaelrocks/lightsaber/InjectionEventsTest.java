@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.InjectingProvider;
+import io.michaelrocks.lightsaber.internal.RecordingInjectionEvents;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.inject.Provider;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+public class InjectionEventsTest {
+  private final RecordingInjectionEvents events = new RecordingInjectionEvents();
+
+  @Before
+  public void installEvents() {
+    events.install();
+  }
+
+  @After
+  public void uninstallEvents() {
+    events.uninstall();
+  }
+
+  @Test
+  public void testSingletonInstantiation() throws Exception {
+    new SingletonProvider<Object>(new ObjectProvider()).get();
+    new RacySingletonProvider<Object>(new ObjectProvider()).get();
+    assertEquals(
+        Arrays.asList(
+            "begin SingletonInstantiation", "end SingletonInstantiation",
+            "begin SingletonInstantiation", "end SingletonInstantiation"
+        ),
+        events.getEvents()
+    );
+  }
+
+  @Test
+  public void testFailedSingletonInstantiation() throws Exception {
+    assertFails(new SingletonProvider<Object>(new FailingProvider()));
+    assertFails(new RacySingletonProvider<Object>(new FailingProvider()));
+    assertFails(new LazyAdapter<Object>(new FailingProvider()));
+    assertEquals(
+        Arrays.asList(
+            "begin SingletonInstantiation", "end SingletonInstantiation without instance",
+            "begin SingletonInstantiation", "end SingletonInstantiation without instance",
+            "begin LazyResolution", "end LazyResolution without instance"
+        ),
+        events.getEvents()
+    );
+  }
+
+  @Test
+  public void testFailedInjectorCreation() throws Exception {
+    final Lightsaber.Configurator configurator = mock(Lightsaber.Configurator.class);
+    doThrow(new ConfigurationException("Failure"))
+        .when(configurator).configureInjector(any(LightsaberInjector.class), any());
+    try {
+      new Lightsaber(configurator).createInjector(new Object());
+      fail();
+    } catch (final ConfigurationException exception) {
+      // Expected.
+    }
+    assertEquals(
+        Arrays.asList(
+            "begin InjectorCreation",
+            "begin InjectorConfiguration", "end InjectorConfiguration without instance",
+            "end InjectorCreation without instance"
+        ),
+        events.getEvents()
+    );
+  }
+
+  private static void assertFails(final Provider<?> provider) {
+    try {
+      provider.get();
+      fail();
+    } catch (final IllegalStateException exception) {
+      // Expected.
+    }
+  }
+
+  private static void assertFails(final Lazy<?> lazy) {
+    try {
+      lazy.get();
+      fail();
+    } catch (final IllegalStateException exception) {
+      // Expected.
+    }
+  }
+
+  private static class ObjectProvider implements InjectingProvider<Object> {
+    @Nonnull
+    @Override
+    public Object get() {
+      return new Object();
+    }
+
+    @Nonnull
+    @Override
+    public Object getWithInjector(@Nonnull final Injector injector) {
+      return get();
+    }
+  }
+
+  private static class FailingProvider implements InjectingProvider<Object> {
+    @Nonnull
+    @Override
+    public Object get() {
+      throw new IllegalStateException("Failure");
+    }
+
+    @Nonnull
+    @Override
+    public Object getWithInjector(@Nonnull final Injector injector) {
+      return get();
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.AbstractInjectingProvider;
+import io.michaelrocks.lightsaber.internal.InjectingProvider;
+import io.michaelrocks.lightsaber.internal.ParameterizedTypeImpl;
+import io.michaelrocks.lightsaber.internal.SetMultibindingProvider;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class InjectorFootprintTest {
+  @Test
+  public void testFootprintReportsMaterializedSingletons() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(mock(Lightsaber.Configurator.class));
+    final LightsaberInjector injector = new LightsaberInjector(lightsaber);
+    injector.registerProvider(1, Key.of(Object.class), new SingletonProvider<Object>(
+        new AbstractInjectingProvider<Object>(injector) {
+          @Nonnull
+          @Override
+          public Object getWithInjector(@Nonnull final Injector injector) {
+            return new Object();
+          }
+        }));
+    injector.registerProvider(2, Key.of(String.class), new SingletonProvider<String>(
+        new AbstractInjectingProvider<String>(injector) {
+          @Nonnull
+          @Override
+          public String getWithInjector(@Nonnull final Injector injector) {
+            return "String";
+          }
+        }));
+
+    injector.getInstance(String.class);
+
+    final InjectorFootprint footprint = Lightsaber.getFootprint(injector);
+    assertEquals(3, footprint.getProviderCount());
+    assertTrue(footprint.getProviderTableCapacity() >= 3);
+    assertTrue(footprint.getProviderTableLoad() > 0f);
+    assertTrue(footprint.getSlotCapacity() >= 3);
+    assertEquals(0, footprint.getOverridingProviderCount());
+
+    final List<InjectorFootprint.Binding> singletons = footprint.getMaterializedSingletons();
+    assertEquals(1, singletons.size());
+    assertEquals(Key.of(String.class), singletons.get(0).getKey());
+    assertSame(String.class, singletons.get(0).getInstanceType());
+    assertTrue(singletons.get(0).getEstimatedInstanceSize() > 0);
+    assertTrue(singletons.get(0).getEstimatedProviderSize() > 0);
+    assertTrue(footprint.getEstimatedSize() > footprint.getEstimatedTableSize());
+  }
+
+  @Test
+  public void testFootprintCountsOverridingProviders() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(mock(Lightsaber.Configurator.class));
+    final LightsaberInjector parent = new LightsaberInjector(lightsaber);
+    parent.registerProvider(1, Key.of(String.class), new AbstractInjectingProvider<String>(parent) {
+      @Nonnull
+      @Override
+      public String getWithInjector(@Nonnull final Injector injector) {
+        return "String";
+      }
+    });
+    final LightsaberInjector child = new LightsaberInjector(lightsaber, parent);
+
+    child.getProvider(String.class);
+    child.getProvider(1);
+
+    final InjectorFootprint footprint = Lightsaber.getFootprint(child);
+    assertEquals(1, footprint.getProviderCount());
+    assertEquals(1, footprint.getOverridingProviderCount());
+    assertNull(footprint.getBindings().get(0).getInstanceType());
+  }
+
+  @Test
+  public void testFootprintCountsOverridingProvidersOnce() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(mock(Lightsaber.Configurator.class));
+    final LightsaberInjector parent = new LightsaberInjector(lightsaber);
+    parent.registerProvider(1, Key.of(String.class), new AbstractInjectingProvider<String>(parent) {
+      @Nonnull
+      @Override
+      public String getWithInjector(@Nonnull final Injector injector) {
+        return "String";
+      }
+    });
+    final LightsaberInjector child = new LightsaberInjector(lightsaber, parent);
+
+    assertSame(child.getProvider(String.class), child.getProvider(String.class));
+    assertEquals(1, Lightsaber.getFootprint(child).getOverridingProviderCount());
+  }
+
+  @Test
+  public void testFootprintIncludesWrappedProviders() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(mock(Lightsaber.Configurator.class));
+    final LightsaberInjector injector = new LightsaberInjector(lightsaber);
+    final InjectingProvider<String> provider = new AbstractInjectingProvider<String>(injector) {
+      @Nonnull
+      @Override
+      public String getWithInjector(@Nonnull final Injector injector) {
+        return "String";
+      }
+    };
+    final SetMultibindingProvider<String> setProvider =
+        new SetMultibindingProvider<String>(new InjectingProvider<?>[] { new SingletonProvider<String>(provider) });
+    final ContextScopedProvider<String> scopedProvider = new ContextScopedProvider<String>(provider);
+    injector.registerProvider(1, Key.of(new ParameterizedTypeImpl(null, Set.class, String.class)), setProvider);
+    injector.registerProvider(2, Key.of(String.class), scopedProvider);
+
+    final InjectorFootprint footprint = Lightsaber.getFootprint(injector);
+    final long providerSize = ShallowSizeEstimator.estimate(provider);
+    for (final InjectorFootprint.Binding binding : footprint.getBindings()) {
+      if (binding.getKey().equals(Key.of(String.class))) {
+        assertEquals(ShallowSizeEstimator.estimate(scopedProvider) + providerSize, binding.getEstimatedProviderSize());
+      } else if (!binding.getKey().equals(Key.of(Injector.class))) {
+        assertTrue(binding.getEstimatedProviderSize() > ShallowSizeEstimator.estimate(setProvider) + providerSize);
+      }
+    }
+  }
+}
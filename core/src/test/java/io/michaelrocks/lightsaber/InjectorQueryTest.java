@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.AbstractInjectingProvider;
+import io.michaelrocks.lightsaber.internal.InjectingProvider;
+import io.michaelrocks.lightsaber.internal.ProviderFactory;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class InjectorQueryTest {
+  private final Lightsaber lightsaber = new Lightsaber(mock(Lightsaber.Configurator.class));
+
+  @Test
+  public void testQueryResolvesAllKeys() throws Exception {
+    final LightsaberInjector injector = new LightsaberInjector(lightsaber);
+    final CountingProviderFactory factory = new CountingProviderFactory();
+    injector.registerLazyProvider(1, String.class, factory, 0);
+    injector.registerLazyProvider(2, Integer.class, factory, 1);
+
+    final InjectorQuery query =
+        Lightsaber.prepareQuery(injector, Key.of(String.class), Key.of(Integer.class), Key.of(Injector.class));
+    assertEquals(3, query.size());
+    assertEquals(2, factory.getCount());
+
+    final Object[] out = new Object[3];
+    query.resolve(out);
+    assertArrayEquals(new Object[] { "String", 42, injector }, out);
+    assertArrayEquals(new Object[] { "String", 43, injector }, query.resolve());
+    assertEquals(2, factory.getCount());
+  }
+
+  @Test
+  public void testQueryOfChildInjectorUsesParentBindings() throws Exception {
+    final LightsaberInjector parent = new LightsaberInjector(lightsaber);
+    parent.registerLazyProvider(1, String.class, new CountingProviderFactory(), 0);
+    final LightsaberInjector child = new LightsaberInjector(lightsaber, parent);
+
+    final Object[] out = Lightsaber.prepareQuery(child, Key.of(String.class), Key.of(Injector.class)).resolve();
+    assertEquals("String", out[0]);
+    assertSame(child, out[1]);
+  }
+
+  @Test
+  public void testQueryWithMissingKeyFailsOnPreparation() throws Exception {
+    final LightsaberInjector injector = new LightsaberInjector(lightsaber);
+    try {
+      Lightsaber.prepareQuery(injector, Key.of(String.class));
+      fail();
+    } catch (final ConfigurationException exception) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testQueryWithShortArrayFails() throws Exception {
+    final LightsaberInjector injector = new LightsaberInjector(lightsaber);
+    final InjectorQuery query = Lightsaber.prepareQuery(injector, Key.of(Injector.class), Key.of(Injector.class));
+    try {
+      query.resolve(new Object[1]);
+      fail();
+    } catch (final IllegalArgumentException exception) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testResolveAll() throws Exception {
+    final LightsaberInjector injector = new LightsaberInjector(lightsaber);
+    injector.registerLazyProvider(1, String.class, new CountingProviderFactory(), 0);
+
+    final Object[] out = new Object[3];
+    Lightsaber.resolveAll(injector, new Key<?>[] { Key.of(Injector.class), Key.of(String.class) }, out);
+    assertArrayEquals(new Object[] { injector, "String", null }, out);
+  }
+
+  private static class CountingProviderFactory implements ProviderFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Nonnull
+    @Override
+    public InjectingProvider<?> createProvider(@Nonnull final Injector injector, final int id) {
+      count.incrementAndGet();
+      switch (id) {
+        case 0:
+          return new AbstractInjectingProvider<String>(injector) {
+            @Nonnull
+            @Override
+            public String getWithInjector(@Nonnull final Injector injector) {
+              return "String";
+            }
+          };
+        case 1:
+          return new AbstractInjectingProvider<Integer>(injector) {
+            private final AtomicInteger value = new AtomicInteger(42);
+
+            @Nonnull
+            @Override
+            public Integer getWithInjector(@Nonnull final Injector injector) {
+              return value.getAndIncrement();
+            }
+          };
+        default:
+          throw new IllegalArgumentException("Unknown provider id " + id);
+      }
+    }
+
+    int getCount() {
+      return count.get();
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.AbstractInjectingProvider;
+import io.michaelrocks.lightsaber.internal.BindingMetrics;
+import io.michaelrocks.lightsaber.internal.InjectorMetrics;
+import io.michaelrocks.lightsaber.internal.InstrumentedProvider;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class InjectorStatsTest {
+  @Test
+  public void testStatsAreEmptyWithoutInstrumentation() throws Exception {
+    final LightsaberInjector injector = createInjector();
+    injector.registerProvider(1, Key.of(String.class), new AbstractInjectingProvider<String>(injector) {
+      @Nonnull
+      @Override
+      public String getWithInjector(@Nonnull final Injector injector) {
+        return "String";
+      }
+    });
+
+    assertEquals("String", injector.getInstance(String.class));
+    assertTrue(Lightsaber.getStats(injector).getBindingStats().isEmpty());
+  }
+
+  @Test
+  public void testMetricsAreCreatedOnce() throws Exception {
+    final LightsaberInjector injector = createInjector();
+    final InjectorMetrics metrics = injector.getMetrics();
+    assertSame(metrics, injector.getMetrics());
+  }
+
+  @Test
+  public void testInstrumentedSingletonCountsCallsAndInstances() throws Exception {
+    final LightsaberInjector injector = createInjector();
+    registerInstrumentedSingleton(injector);
+
+    for (int i = 0; i < 3; ++i) {
+      injector.getInstance(Object.class);
+    }
+
+    final InjectorStats stats = Lightsaber.getStats(injector);
+    assertEquals(1, stats.getBindingStats().size());
+    final BindingStats bindingStats = stats.findBindingStats(Key.of(Object.class));
+    assertNotNull(bindingStats);
+    assertEquals(3, bindingStats.getCallCount());
+    assertEquals(1, bindingStats.getInstanceCount());
+    long histogramCount = 0;
+    for (final long count : bindingStats.getInstantiationHistogram()) {
+      histogramCount += count;
+    }
+    assertEquals(1, histogramCount);
+    assertNull(stats.findBindingStats(Key.of(String.class)));
+  }
+
+  @Test
+  public void testParentInjectorCountsCallsAndInstancesOfChildInjector() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(mock(Lightsaber.Configurator.class));
+    final LightsaberInjector parentInjector = new LightsaberInjector(lightsaber);
+    registerInstrumentedSingleton(parentInjector);
+    final LightsaberInjector childInjector = new LightsaberInjector(lightsaber, parentInjector);
+
+    childInjector.getInstance(Object.class);
+    childInjector.getInstance(Key.of(Object.class));
+    childInjector.getProvider(Object.class).get();
+
+    final BindingStats bindingStats = Lightsaber.getStats(parentInjector).findBindingStats(Key.of(Object.class));
+    assertNotNull(bindingStats);
+    assertEquals(3, bindingStats.getCallCount());
+    assertEquals(1, bindingStats.getInstanceCount());
+    assertTrue(Lightsaber.getStats(childInjector).getBindingStats().isEmpty());
+  }
+
+  @Test
+  public void testHistogramBuckets() throws Exception {
+    assertEquals(0, BindingMetrics.getHistogramBucket(0));
+    assertEquals(1, BindingMetrics.getHistogramBucket(1));
+    assertEquals(2, BindingMetrics.getHistogramBucket(2));
+    assertEquals(2, BindingMetrics.getHistogramBucket(3));
+    assertEquals(11, BindingMetrics.getHistogramBucket(1024));
+    assertEquals(BindingMetrics.HISTOGRAM_SIZE - 1, BindingMetrics.getHistogramBucket(Long.MAX_VALUE));
+    for (int bucket = 1; bucket < BindingMetrics.HISTOGRAM_SIZE - 1; ++bucket) {
+      final long upperBound = BindingStats.getHistogramBucketUpperBoundNanos(bucket);
+      assertEquals(bucket, BindingMetrics.getHistogramBucket(upperBound - 1));
+      assertEquals(bucket + 1, BindingMetrics.getHistogramBucket(upperBound));
+    }
+  }
+
+  private static void registerInstrumentedSingleton(final LightsaberInjector injector) {
+    injector.registerProvider(1, Key.of(Object.class), new InstrumentedProvider<Object>(injector, 1,
+        new SingletonProvider<Object>(new AbstractInjectingProvider<Object>(injector) {
+          @Nonnull
+          @Override
+          public Object getWithInjector(@Nonnull final Injector injector) {
+            // Generated providers record instances in the injector that registered them.
+            final long startNanos = System.nanoTime();
+            final Object instance = new Object();
+            InjectorMetrics.recordInstance(getInjector(), 1, startNanos);
+            return instance;
+          }
+        })));
+  }
+
+  private static LightsaberInjector createInjector() {
+    return new LightsaberInjector(new Lightsaber(mock(Lightsaber.Configurator.class)));
+  }
+}
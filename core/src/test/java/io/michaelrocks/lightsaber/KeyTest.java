@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.GenericArrayTypeImpl;
+import io.michaelrocks.lightsaber.internal.ParameterizedTypeImpl;
+import io.michaelrocks.lightsaber.internal.WildcardTypeImpl;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class KeyTest {
+  @Test
+  public void testEqualKeys() throws Exception {
+    final Key<?> key1 = Key.of(new ParameterizedTypeImpl(null, List.class, String.class));
+    final Key<?> key2 = Key.of(new ParameterizedTypeImpl(null, List.class, String.class));
+    assertNotSame(key1, key2);
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+  }
+
+  @Test
+  public void testDifferentKeys() throws Exception {
+    final Key<?> key1 = Key.of(new ParameterizedTypeImpl(null, List.class, String.class));
+    final Key<?> key2 = Key.of(new ParameterizedTypeImpl(null, List.class, Integer.class));
+    assertNotEquals(key1, key2);
+  }
+
+  @Test
+  public void testNestedGenericKeys() throws Exception {
+    final Key<?> key1 = Key.of(new TypeReference<Map<String, List<Map<String, Integer[]>>>>() {}.getType());
+    final Key<?> key2 = Key.of(
+        new ParameterizedTypeImpl(null, Map.class,
+            String.class,
+            new ParameterizedTypeImpl(null, List.class,
+                new ParameterizedTypeImpl(null, Map.class, String.class, Integer[].class))));
+    assertEquals(key1, key2);
+    assertEquals(key2, key1);
+    assertEquals(key1.hashCode(), key2.hashCode());
+  }
+
+  @Test
+  public void testInternalTypesAreOnlyEqualToInternalTypes() throws Exception {
+    final Type reflectiveType = new TypeReference<List<String>>() {}.getType();
+    final Type internalType = new ParameterizedTypeImpl(null, List.class, String.class);
+    assertFalse(internalType.equals(reflectiveType));
+    assertEquals(Key.of(reflectiveType), Key.of(internalType));
+    assertEquals(Key.of(reflectiveType).hashCode(), Key.of(internalType).hashCode());
+
+    final Type reflectiveArrayType = new TypeReference<List<String>[]>() {}.getType();
+    final Type internalArrayType = new GenericArrayTypeImpl(internalType);
+    assertFalse(internalArrayType.equals(reflectiveArrayType));
+    assertEquals(Key.of(reflectiveArrayType), Key.of(internalArrayType));
+    assertEquals(Key.of(reflectiveArrayType).hashCode(), Key.of(internalArrayType).hashCode());
+  }
+
+  @Test
+  public void testWildcardKeysWithGenericBounds() throws Exception {
+    final Key<?> key1 = Key.of(new TypeReference<List<? extends List<String>>>() {}.getType());
+    final Key<?> key2 = Key.of(
+        new ParameterizedTypeImpl(null, List.class,
+            new WildcardTypeImpl(new ParameterizedTypeImpl(null, List.class, String.class), null)));
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+  }
+
+  @Test
+  public void testIntern() throws Exception {
+    final Key<?> key1 = Key.of(new ParameterizedTypeImpl(null, List.class, Long.class)).intern();
+    final Key<?> key2 = Key.of(new ParameterizedTypeImpl(null, List.class, Long.class)).intern();
+    assertSame(key1, key2);
+    assertSame(key1, key1.intern());
+  }
+
+  @Test
+  public void testInternedKeyIsReleased() throws Exception {
+    final WeakReference<Key<?>> reference =
+        new WeakReference<Key<?>>(Key.of(new ParameterizedTypeImpl(null, List.class, Short.class)).intern());
+    for (int i = 0; i < 100 && reference.get() != null; ++i) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(reference.get());
+
+    final Key<?> key = Key.of(new ParameterizedTypeImpl(null, List.class, Short.class));
+    assertSame(key, key.intern());
+  }
+}
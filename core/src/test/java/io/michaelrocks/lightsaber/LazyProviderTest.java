@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.AbstractInjectingProvider;
+import io.michaelrocks.lightsaber.internal.InjectingProvider;
+import io.michaelrocks.lightsaber.internal.ProviderFactory;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class LazyProviderTest {
+  private final Lightsaber lightsaber = new Lightsaber(mock(Lightsaber.Configurator.class));
+
+  @Test
+  public void testProviderIsCreatedOnFirstLookup() throws Exception {
+    final LightsaberInjector injector = new LightsaberInjector(lightsaber);
+    final CountingProviderFactory factory = new CountingProviderFactory();
+    injector.registerLazyProvider(1, String.class, factory, 0);
+    injector.registerLazyProvider(2, Key.of(Object.class), factory, 1);
+
+    assertEquals(3, Lightsaber.getFootprint(injector).getProviderCount());
+    assertEquals(0, factory.getCount());
+
+    assertEquals("String", injector.getInstance(String.class));
+    assertEquals("String", injector.getInstance(1));
+    assertEquals(1, factory.getCount());
+
+    final Object object = injector.getInstance(2);
+    assertSame(object, injector.getInstance(Object.class));
+    assertEquals(2, factory.getCount());
+  }
+
+  @Test
+  public void testChildInjectorUsesLazyProviderOfParent() throws Exception {
+    final LightsaberInjector parent = new LightsaberInjector(lightsaber);
+    final CountingProviderFactory factory = new CountingProviderFactory();
+    parent.registerLazyProvider(1, String.class, factory, 0);
+    final LightsaberInjector child = new LightsaberInjector(lightsaber, parent);
+
+    assertEquals("String", child.getInstance(String.class));
+    assertEquals("String", child.getProvider(1).get());
+    assertEquals("String", parent.getInstance(1));
+    assertEquals(1, factory.getCount());
+  }
+
+  @Test
+  public void testDuplicateRegistrationDoesNotCreateProvider() throws Exception {
+    final LightsaberInjector parent = new LightsaberInjector(lightsaber);
+    final CountingProviderFactory factory = new CountingProviderFactory();
+    parent.registerLazyProvider(1, String.class, factory, 0);
+    final LightsaberInjector child = new LightsaberInjector(lightsaber, parent);
+
+    try {
+      child.registerLazyProvider(1, String.class, factory, 0);
+      fail();
+    } catch (final ConfigurationException exception) {
+      assertEquals(0, factory.getCount());
+    }
+  }
+
+  @Test
+  public void testSlotsBeyondInitialCapacity() throws Exception {
+    final LightsaberInjector injector = new LightsaberInjector(lightsaber);
+    final CountingProviderFactory factory = new CountingProviderFactory();
+    injector.registerLazyProvider(1, String.class, factory, 0);
+    injector.registerLazyProvider(1000, Key.of(Object.class), factory, 1);
+
+    assertEquals("String", injector.getInstance(1));
+    assertSame(injector.getInstance(Object.class), injector.getInstance(1000));
+    assertEquals(2, factory.getCount());
+  }
+
+  @Test
+  public void testProviderIsCreatedWithoutInjectorMonitor() throws Exception {
+    final LightsaberInjector injector = new LightsaberInjector(lightsaber);
+    final boolean[] holdsLock = new boolean[1];
+    injector.registerLazyProvider(1, String.class, new ProviderFactory() {
+      @Nonnull
+      @Override
+      public InjectingProvider<?> createProvider(@Nonnull final Injector providerInjector, final int id) {
+        holdsLock[0] = Thread.holdsLock(injector);
+        return new CountingProviderFactory().createProvider(providerInjector, id);
+      }
+    }, 0);
+
+    assertEquals("String", injector.getInstance(String.class));
+    assertFalse(holdsLock[0]);
+  }
+
+  @Test
+  public void testConcurrentLookupsShareProvider() throws Exception {
+    final LightsaberInjector injector = new LightsaberInjector(lightsaber);
+    injector.registerLazyProvider(1, Key.of(Object.class), new CountingProviderFactory(), 1);
+
+    final int threadCount = 8;
+    final CountDownLatch startLatch = new CountDownLatch(1);
+    final Object[] instances = new Object[threadCount];
+    final Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; ++i) {
+      final int index = i;
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            startLatch.await();
+          } catch (final InterruptedException exception) {
+            throw new RuntimeException(exception);
+          }
+          instances[index] = injector.getInstance(1);
+        }
+      });
+      threads[i].start();
+    }
+
+    startLatch.countDown();
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+
+    for (final Object instance : instances) {
+      assertSame(instances[0], instance);
+    }
+    assertSame(instances[0], injector.getInstance(Object.class));
+  }
+
+  private static class CountingProviderFactory implements ProviderFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Nonnull
+    @Override
+    public InjectingProvider<?> createProvider(@Nonnull final Injector injector, final int id) {
+      count.incrementAndGet();
+      switch (id) {
+        case 0:
+          return new AbstractInjectingProvider<String>(injector) {
+            @Nonnull
+            @Override
+            public String getWithInjector(@Nonnull final Injector injector) {
+              return "String";
+            }
+          };
+        case 1:
+          return new SingletonProvider<Object>(new AbstractInjectingProvider<Object>(injector) {
+            @Nonnull
+            @Override
+            public Object getWithInjector(@Nonnull final Injector injector) {
+              return new Object();
+            }
+          });
+        default:
+          throw new IllegalArgumentException("Unknown provider id " + id);
+      }
+    }
+
+    int getCount() {
+      return count.get();
+    }
+  }
+}
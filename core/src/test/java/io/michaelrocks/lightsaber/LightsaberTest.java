@@ -17,6 +17,7 @@
 package io.michaelrocks.lightsaber;
 
 import io.michaelrocks.lightsaber.internal.AbstractInjectingProvider;
+import io.michaelrocks.lightsaber.internal.IndexedInjector;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
@@ -25,9 +26,16 @@ import org.mockito.stubbing.Answer;
 import javax.annotation.Nonnull;
 import javax.inject.Named;
 import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 public class LightsaberTest {
@@ -82,6 +90,31 @@ public class LightsaberTest {
       }
     })
         .when(configurator).configureInjector(any(LightsaberInjector.class), isA(ChildAnnotatedModule.class));
+    doAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(final InvocationOnMock invocation) throws Throwable {
+        final LightsaberInjector injector = (LightsaberInjector) invocation.getArguments()[0];
+        injector.registerProvider(1, Key.of(Object.class), new SingletonProvider<Object>(
+            new AbstractInjectingProvider<Object>(injector) {
+              @Nonnull
+              @Override
+              public Object getWithInjector(@Nonnull final Injector injector) {
+                return new Object();
+              }
+            }));
+        injector.registerProvider(2, Key.of(String.class), new SingletonProvider<String>(
+            new AbstractInjectingProvider<String>(injector) {
+              @Nonnull
+              @Override
+              public String getWithInjector(@Nonnull final Injector injector) {
+                return "Warm " + injector.getInstance(Object.class);
+              }
+            }));
+        return null;
+      }
+    })
+        .when(configurator).configureInjector(any(LightsaberInjector.class), isA(WarmUpModule.class));
+    when(configurator.getWarmUpSchedule(isA(WarmUpModule.class))).thenReturn(new int[][] { { 1 }, { 2 } });
   }
 
   @Test
@@ -142,15 +175,190 @@ public class LightsaberTest {
     assertEquals("Child Annotated String", childInjector.getInstance(Key.of(String.class, annotation)));
   }
 
+  @Test
+  public void testCreateGrandchildInjector() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(configurator);
+    final Injector injector = lightsaber.createInjector(new ParentModule());
+    final Injector childInjector = lightsaber.createChildInjector(injector, new ChildModule());
+    final Injector grandchildInjector = lightsaber.createChildInjector(childInjector, new ChildAnnotatedModule());
+
+    final Named annotation = new NamedProxy("Annotated");
+    assertSame(grandchildInjector, grandchildInjector.getInstance(Key.of(Injector.class)));
+    assertSame(grandchildInjector, grandchildInjector.getProvider(Injector.class).get());
+    assertEquals("Parent String", grandchildInjector.getInstance(String.class));
+    assertEquals("Parent String", grandchildInjector.getProvider(String.class).get());
+    assertEquals("Child Object", grandchildInjector.getInstance(Object.class));
+    assertEquals("Child Annotated String", grandchildInjector.getInstance(Key.of(String.class, annotation)));
+  }
+
+  @Test
+  public void testGetInstanceWithAnnotation() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(configurator);
+    final Injector injector = lightsaber.createInjector(new ParentModule());
+    final Injector childInjector = lightsaber.createChildInjector(injector, new ChildAnnotatedModule());
+    final Injector grandchildInjector = lightsaber.createChildInjector(childInjector, new ChildModule());
+
+    final Named annotation = new NamedProxy("Annotated");
+    assertEquals("Child Annotated String", Lightsaber.getInstance(childInjector, String.class, annotation));
+    assertEquals("Child Annotated String", Lightsaber.getInstance(grandchildInjector, String.class, annotation));
+    assertSame(grandchildInjector.getProvider(Key.of(String.class, annotation)),
+        Lightsaber.getProvider(grandchildInjector, String.class, annotation));
+    assertEquals("Parent String", Lightsaber.getInstance(grandchildInjector, String.class, null));
+  }
+
+  @Test(expected = ConfigurationException.class)
+  public void testGetInstanceWithUnboundAnnotation() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(configurator);
+    final Injector injector = lightsaber.createInjector(new ChildAnnotatedModule());
+    Lightsaber.getInstance(injector, Object.class, new NamedProxy("Annotated"));
+  }
+
+  @Test(expected = ConfigurationException.class)
+  public void testCreateChildInjectorWithParentBinding() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(configurator);
+    final Injector injector = lightsaber.createInjector(new ParentModule());
+    lightsaber.createChildInjector(injector, new ParentModule());
+  }
+
+  @Test
+  public void testParentProviderReceivesChildInjector() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(configurator);
+    final LightsaberInjector injector = (LightsaberInjector) lightsaber.createInjector(new ParentModule());
+    injector.registerProvider(1, Key.of(Injector.class, new NamedProxy("Requester")),
+        new AbstractInjectingProvider<Injector>(injector) {
+          @Nonnull
+          @Override
+          public Injector getWithInjector(@Nonnull final Injector injector) {
+            return injector;
+          }
+        });
+    final LightsaberInjector childInjector =
+        (LightsaberInjector) lightsaber.createChildInjector(injector, new ChildModule());
+
+    final Key<Injector> key = Key.of(Injector.class, new NamedProxy("Requester"));
+    assertSame(injector, injector.getInstance(key));
+    assertSame(childInjector, childInjector.getInstance(key));
+    assertSame(childInjector, childInjector.getProvider(key).get());
+    assertSame(childInjector, childInjector.getInstance(1));
+    assertSame(childInjector, childInjector.getProvider(1).get());
+  }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(configurator);
+    final WarmUpHandle handle = lightsaber.createInjector(new WarmUpModule(), WarmUp.sequential());
+
+    assertTrue(handle.isDone());
+    final Injector injector = handle.await();
+    final List<SingletonTiming> timings = handle.getTimings();
+    assertEquals(2, timings.size());
+    assertEquals(Object.class, timings.get(0).getKey());
+    assertEquals(0, timings.get(0).getLevel());
+    assertEquals(String.class, timings.get(1).getKey());
+    assertEquals(1, timings.get(1).getLevel());
+    assertSame(injector.getInstance(Object.class), injector.getInstance(Object.class));
+    assertEquals("Warm " + injector.getInstance(Object.class), injector.getInstance(String.class));
+  }
+
+  @Test
+  public void testParallelWarmUp() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(configurator);
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final WarmUpHandle handle = lightsaber.createInjector(new WarmUpModule(), WarmUp.parallel(executor));
+      assertTrue(handle.await(10, TimeUnit.SECONDS));
+      assertEquals(2, handle.getTimings().size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testWarmUpOfManyLevels() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(configurator);
+    final LightsaberInjector injector = (LightsaberInjector) lightsaber.createInjector(new WarmUpModule());
+    final int[][] schedule = new int[100000][];
+    Arrays.fill(schedule, new int[] { 1 });
+    final WarmUpHandle handle = new WarmUpHandle(injector, schedule, WarmUp.sequential().getExecutor());
+    handle.start();
+
+    assertTrue(handle.isDone());
+    assertSame(injector, handle.await());
+    assertEquals(schedule.length, handle.getTimings().size());
+  }
+
+  @Test
+  public void testWarmUpWrapsCheckedException() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(configurator);
+    final LightsaberInjector injector = (LightsaberInjector) lightsaber.createInjector(new ParentModule());
+    final Exception exception = new Exception("Checked");
+    injector.registerProvider(1, Key.of(Object.class), new AbstractInjectingProvider<Object>(injector) {
+      @Nonnull
+      @Override
+      public Object getWithInjector(@Nonnull final Injector injector) {
+        return LightsaberTest.<RuntimeException>throwUnchecked(exception);
+      }
+    });
+    final WarmUpHandle handle =
+        new WarmUpHandle(injector, new int[][] { { 1 } }, WarmUp.sequential().getExecutor());
+    handle.start();
+
+    try {
+      handle.await();
+      fail();
+    } catch (final ConfigurationException configurationException) {
+      assertSame(exception, configurationException.getCause());
+    }
+  }
+
+  @Test
+  public void testSlotProviders() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(configurator);
+    final LightsaberInjector injector = (LightsaberInjector) lightsaber.createInjector(new ParentModule());
+    injector.registerProvider(1, Key.of(Object.class), new AbstractInjectingProvider<Object>(injector) {
+      @Nonnull
+      @Override
+      public Object getWithInjector(@Nonnull final Injector injector) {
+        return "Slot Object";
+      }
+    });
+    final LightsaberInjector childInjector =
+        (LightsaberInjector) lightsaber.createChildInjector(injector, new ChildAnnotatedModule());
+
+    assertSame(injector, injector.getInstance(IndexedInjector.INJECTOR_SLOT));
+    assertSame(childInjector, childInjector.getInstance(IndexedInjector.INJECTOR_SLOT));
+    assertEquals("Slot Object", injector.getInstance(1));
+    assertEquals("Slot Object", injector.getInstance(Object.class));
+    assertEquals("Slot Object", childInjector.getInstance(1));
+    assertEquals("Slot Object", childInjector.getProvider(1).get());
+    assertSame(childInjector.getProvider(Object.class), childInjector.getProvider(1));
+    assertSame(childInjector.getProvider(1), childInjector.getProvider(1));
+  }
+
+  @Test(expected = ConfigurationException.class)
+  public void testMissingSlotProvider() throws Exception {
+    final Lightsaber lightsaber = new Lightsaber(configurator);
+    final LightsaberInjector injector = (LightsaberInjector) lightsaber.createInjector(new ParentModule());
+    injector.getProvider(42);
+  }
+
   private static class ParentModule {
   }
 
+  private static <E extends Throwable> Object throwUnchecked(final Throwable exception) throws E {
+    // noinspection unchecked
+    throw (E) exception;
+  }
+
   private static class ChildModule {
   }
 
   private static class ChildAnnotatedModule {
   }
 
+  private static class WarmUpModule {
+  }
+
   @SuppressWarnings("ClassExplicitlyAnnotation")
   private static class NamedProxy implements Named {
     @Nonnull
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.AbstractInjectingProvider;
+import io.michaelrocks.lightsaber.internal.FactoryProvider;
+import io.michaelrocks.lightsaber.internal.InjectingProvider;
+import io.michaelrocks.lightsaber.internal.MapMultibindingProvider;
+import io.michaelrocks.lightsaber.internal.ParameterizedTypeImpl;
+import io.michaelrocks.lightsaber.internal.ProviderFactory;
+import io.michaelrocks.lightsaber.internal.SetMultibindingProvider;
+import io.michaelrocks.lightsaber.internal.WildcardTypeImpl;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class MultibindingTest {
+  private final Injector injector = mock(Injector.class);
+
+  @Test
+  public void testSetContainsContributions() throws Exception {
+    final SetMultibindingProvider<String> provider = new SetMultibindingProvider<String>(
+        providers("a", "b", "a", "c"));
+    final Set<String> set = provider.get();
+
+    assertEquals(3, set.size());
+    assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), set);
+    assertTrue(set.contains("b"));
+    assertFalse(set.contains("d"));
+    assertFalse(set.contains(null));
+    assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(set.toArray()));
+  }
+
+  @Test
+  public void testSetIsImmutable() throws Exception {
+    final Set<String> set = new SetMultibindingProvider<String>(providers("a")).get();
+    try {
+      set.add("b");
+      fail();
+    } catch (final UnsupportedOperationException exception) {
+      // Expected.
+    }
+
+    final Iterator<String> iterator = set.iterator();
+    iterator.next();
+    try {
+      iterator.remove();
+      fail();
+    } catch (final UnsupportedOperationException exception) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testMapWithStringKeys() throws Exception {
+    final Object[] keys = new Object[] { "one", "two", "three" };
+    final Map<String, String> map =
+        new MapMultibindingProvider<String, String>(keys, providers("1", "2", "3")).get();
+
+    final Map<String, String> expected = new HashMap<String, String>();
+    expected.put("one", "1");
+    expected.put("two", "2");
+    expected.put("three", "3");
+    assertEquals(expected, map);
+    assertEquals(expected.hashCode(), map.hashCode());
+    assertEquals("2", map.get(new String("two")));
+    assertNull(map.get("four"));
+    assertNull(map.get(null));
+  }
+
+  @Test
+  public void testMapWithClassKeys() throws Exception {
+    final Object[] keys = new Object[] { String.class, Integer.class };
+    final Map<Class<?>, String> map =
+        new MapMultibindingProvider<Class<?>, String>(keys, providers("String", "Integer")).get();
+
+    assertEquals(2, map.size());
+    assertEquals("String", map.get(String.class));
+    assertEquals("Integer", map.get(Integer.class));
+    assertNull(map.get(Long.class));
+    assertTrue(map.containsKey(Integer.class));
+  }
+
+  @Test
+  public void testMapWithEnumKeys() throws Exception {
+    final Object[] keys = new Object[] { Color.BLUE, Color.RED };
+    final Map<Color, String> map =
+        new MapMultibindingProvider<Color, String>(keys, providers("blue", "red")).get();
+
+    assertEquals(2, map.size());
+    assertEquals("red", map.get(Color.RED));
+    assertEquals("blue", map.get(Color.BLUE));
+    assertNull(map.get(Color.GREEN));
+    assertFalse(map.containsKey(Color.GREEN));
+    assertNull(map.get("RED"));
+    assertEquals(Arrays.asList(Color.RED, Color.BLUE), Arrays.asList(map.keySet().toArray()));
+  }
+
+  @Test
+  public void testDuplicateMapKeysAreReported() throws Exception {
+    try {
+      new MapMultibindingProvider<String, String>(new Object[] { "key", "key" }, providers("1", "2"));
+      fail();
+    } catch (final IllegalArgumentException exception) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testDuplicateEnumMapKeysAreReported() throws Exception {
+    try {
+      new MapMultibindingProvider<Color, String>(new Object[] { Color.RED, Color.RED }, providers("1", "2"));
+      fail();
+    } catch (final IllegalArgumentException exception) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testWildcardTypeToString() throws Exception {
+    assertEquals("?", new WildcardTypeImpl(Object.class, null).toString());
+    assertEquals("? extends java.lang.CharSequence", new WildcardTypeImpl(CharSequence.class, null).toString());
+    assertEquals("? super java.lang.String", new WildcardTypeImpl(Object.class, String.class).toString());
+  }
+
+  @Test
+  public void testWildcardTypeIsOnlyEqualToWildcardTypeImpl() throws Exception {
+    final Type reflectiveType = new TypeReference<Set<? extends CharSequence>>() {}.getType();
+    final Type reflectiveWildcard = ((ParameterizedType) reflectiveType).getActualTypeArguments()[0];
+    final WildcardTypeImpl wildcard = new WildcardTypeImpl(CharSequence.class, null);
+    assertEquals(new WildcardTypeImpl(CharSequence.class, null), wildcard);
+    assertFalse(wildcard.equals(reflectiveWildcard));
+    assertEquals(Key.of(reflectiveType), Key.of(new ParameterizedTypeImpl(null, Set.class, wildcard)));
+  }
+
+  @Test
+  public void testFactoryProviderCreatesProviderOnFirstUse() throws Exception {
+    final int[] count = new int[1];
+    final boolean[] holdsLock = new boolean[1];
+    final FactoryProvider<?>[] factoryProvider = new FactoryProvider<?>[1];
+    factoryProvider[0] = new FactoryProvider<String>(new ProviderFactory() {
+      @Nonnull
+      @Override
+      public InjectingProvider<?> createProvider(@Nonnull final Injector injector, final int id) {
+        count[0] += 1;
+        holdsLock[0] = Thread.holdsLock(factoryProvider[0]);
+        return providers("a")[0];
+      }
+    }, injector, 0);
+
+    assertNull(factoryProvider[0].getCreatedProvider());
+    assertEquals("a", factoryProvider[0].get());
+    assertEquals("a", factoryProvider[0].getWithInjector(injector));
+    assertEquals(1, count[0]);
+    assertFalse(holdsLock[0]);
+  }
+
+  private InjectingProvider<?>[] providers(final String... values) {
+    final InjectingProvider<?>[] providers = new InjectingProvider<?>[values.length];
+    for (int i = 0; i < values.length; ++i) {
+      final String value = values[i];
+      providers[i] = new AbstractInjectingProvider<String>(injector) {
+        @Nonnull
+        @Override
+        public String getWithInjector(@Nonnull final Injector injector) {
+          return value;
+        }
+      };
+    }
+    return providers;
+  }
+
+  private enum Color {
+    RED, GREEN, BLUE
+  }
+}
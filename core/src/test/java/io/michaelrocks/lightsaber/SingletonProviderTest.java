@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.InjectingProvider;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.inject.Provider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SingletonProviderTest {
+  private static final int THREAD_COUNT = 8;
+
+  @Test
+  public void testSingletonProviderCreatesSingleInstanceConcurrently() throws Exception {
+    final CountingProvider provider = new CountingProvider();
+    final List<Object> instances = getConcurrently(new SingletonProvider<Object>(provider));
+    assertEquals(1, provider.getCount());
+    for (final Object instance : instances) {
+      assertSame(instances.get(0), instance);
+    }
+  }
+
+  @Test
+  public void testRacySingletonProviderPublishesSingleInstanceConcurrently() throws Exception {
+    final CountingProvider provider = new CountingProvider();
+    final List<Object> instances = getConcurrently(new RacySingletonProvider<Object>(provider));
+    assertTrue(provider.getCount() >= 1);
+    for (final Object instance : instances) {
+      assertSame(instances.get(0), instance);
+    }
+  }
+
+  @Test
+  public void testRacySingletonProviderCachesInstance() throws Exception {
+    final CountingProvider provider = new CountingProvider();
+    final RacySingletonProvider<Object> singletonProvider = new RacySingletonProvider<Object>(provider);
+    final Object instance = singletonProvider.get();
+    assertSame(instance, singletonProvider.get());
+    assertEquals(1, provider.getCount());
+  }
+
+  @Test
+  public void testLazyAdapterCreatesSingleInstanceConcurrently() throws Exception {
+    final CountingProvider provider = new CountingProvider();
+    final LazyAdapter<Object> lazy = new LazyAdapter<Object>(provider);
+    final List<Object> instances = getConcurrently(new Provider<Object>() {
+      @Override
+      public Object get() {
+        return lazy.get();
+      }
+    });
+    assertEquals(1, provider.getCount());
+    for (final Object instance : instances) {
+      assertSame(instances.get(0), instance);
+    }
+  }
+
+  private static List<Object> getConcurrently(final Provider<Object> provider) throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    try {
+      final CountDownLatch startLatch = new CountDownLatch(1);
+      final List<Future<Object>> futures = new ArrayList<Future<Object>>(THREAD_COUNT);
+      for (int i = 0; i < THREAD_COUNT; ++i) {
+        futures.add(executor.submit(new Callable<Object>() {
+          @Override
+          public Object call() throws Exception {
+            startLatch.await();
+            return provider.get();
+          }
+        }));
+      }
+
+      startLatch.countDown();
+      final List<Object> instances = new ArrayList<Object>(THREAD_COUNT);
+      for (final Future<Object> future : futures) {
+        instances.add(future.get(10, TimeUnit.SECONDS));
+      }
+      return instances;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static class CountingProvider implements InjectingProvider<Object> {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Nonnull
+    @Override
+    public Object get() {
+      count.incrementAndGet();
+      return new Object();
+    }
+
+    @Nonnull
+    @Override
+    public Object getWithInjector(@Nonnull final Injector injector) {
+      return get();
+    }
+
+    int getCount() {
+      return count.get();
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber;
+
+import io.michaelrocks.lightsaber.internal.StartupTrace;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StartupTraceTest {
+  private static final Pattern EVENT_PATTERN =
+      Pattern.compile("\\{\"name\":\"(.*?)\",\"cat\":\"lightsaber\",\"ph\":\"X\",\"ts\":([0-9.]+),\"dur\":([0-9.]+),");
+
+  @Test
+  public void testTraceContainsNestedEvents() throws Exception {
+    final long outerStartNanos = StartupTrace.begin();
+    final long innerStartNanos = StartupTrace.begin();
+    StartupTrace.end("Inner \"quoted\"", innerStartNanos);
+    StartupTrace.end("Outer", outerStartNanos);
+
+    final String trace = writeTrace();
+    assertTrue(trace.startsWith("{\"traceEvents\":["));
+    assertTrue(trace.trim().endsWith("],\"displayTimeUnit\":\"ns\"}"));
+
+    double innerStart = -1;
+    double innerEnd = -1;
+    double outerStart = -1;
+    double outerEnd = -1;
+    final Matcher matcher = EVENT_PATTERN.matcher(trace);
+    while (matcher.find()) {
+      final double start = Double.parseDouble(matcher.group(2));
+      final double end = start + Double.parseDouble(matcher.group(3));
+      if (matcher.group(1).equals("Inner \\\"quoted\\\"")) {
+        innerStart = start;
+        innerEnd = end;
+      } else if (matcher.group(1).equals("Outer")) {
+        outerStart = start;
+        outerEnd = end;
+      }
+    }
+
+    assertTrue(outerStart >= 0);
+    assertTrue(outerStart <= innerStart);
+    assertTrue(innerStart <= innerEnd);
+    assertTrue(innerEnd <= outerEnd);
+  }
+
+  @Test
+  public void testWrappedTraceContainsOnlyCompleteEvents() throws Exception {
+    for (int i = 0; i < 40000; ++i) {
+      StartupTrace.end("Event", StartupTrace.begin());
+    }
+
+    final String trace = writeTrace();
+    final Matcher matcher = EVENT_PATTERN.matcher(trace);
+    int eventCount = 0;
+    while (matcher.find()) {
+      eventCount += 1;
+    }
+    assertEquals(1 << 15, eventCount);
+    assertFalse(trace.contains("\"ph\":\"B\""));
+    assertFalse(trace.contains("\"ph\":\"E\""));
+  }
+
+  private static String writeTrace() throws IOException {
+    final StringWriter writer = new StringWriter();
+    Lightsaber.get().writeStartupTrace(writer);
+    return writer.toString();
+  }
+}
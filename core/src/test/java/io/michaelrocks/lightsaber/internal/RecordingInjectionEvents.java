@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.internal;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+// Records begin and end events while installed in place of the default events.
+public class RecordingInjectionEvents extends InjectionEvents {
+  private final List<String> events = new ArrayList<String>();
+  private InjectionEvents replacedEvents;
+
+  public void install() {
+    replacedEvents = InjectionEvents.replace(this);
+  }
+
+  public void uninstall() {
+    InjectionEvents.replace(replacedEvents);
+  }
+
+  @Nonnull
+  public synchronized List<String> getEvents() {
+    return new ArrayList<String>(events);
+  }
+
+  @Nullable
+  @Override
+  public Object beginInjectorCreation() {
+    return begin("InjectorCreation");
+  }
+
+  @Override
+  public void endInjectorCreation(@Nullable final Object event, @Nonnull final Object component, final boolean child,
+      final int bindingCount) {
+    end(event, null);
+  }
+
+  @Nullable
+  @Override
+  public Object beginInjectorConfiguration() {
+    return begin("InjectorConfiguration");
+  }
+
+  @Override
+  public void endInjectorConfiguration(@Nullable final Object event, @Nullable final Object component) {
+    end(event, null);
+  }
+
+  @Nullable
+  @Override
+  public Object beginSingletonInstantiation() {
+    return begin("SingletonInstantiation");
+  }
+
+  @Override
+  public void endSingletonInstantiation(@Nullable final Object event, @Nullable final Object instance) {
+    end(event, instance);
+  }
+
+  @Nullable
+  @Override
+  public Object beginLazyResolution() {
+    return begin("LazyResolution");
+  }
+
+  @Override
+  public void endLazyResolution(@Nullable final Object event, @Nullable final Object instance) {
+    end(event, instance);
+  }
+
+  @Nonnull
+  private synchronized Object begin(@Nonnull final String name) {
+    events.add("begin " + name);
+    return name;
+  }
+
+  private synchronized void end(@Nullable final Object event, @Nullable final Object instance) {
+    events.add("end " + event + (instance != null ? "" : " without instance"));
+  }
+}
@@ -35,9 +35,9 @@ class JavaLightsaberPlugin : BaseLightsaberPlugin() {
 
     project.afterEvaluate {
       if (project.plugins.hasPlugin("java")) {
-        setupLightsaberForJava()
+        setupLightsaberForJava(lightsaber)
         if (lightsaber.processTest) {
-          setupLightsaberForJavaTest()
+          setupLightsaberForJavaTest(lightsaber)
         }
       } else {
         throw GradleException("Project should use Java plugin")
@@ -45,22 +45,28 @@ class JavaLightsaberPlugin : BaseLightsaberPlugin() {
     }
   }
 
-  private fun setupLightsaberForJava() {
+  private fun setupLightsaberForJava(lightsaber: JavaLightsaberPluginExtension) {
     logger.info("Setting up Lightsaber task for Java project {}...", project.name)
-    createTasks(project.sourceSets.main, project.tasks.compileJava)
+    createTasks(lightsaber, project.sourceSets.main, project.tasks.compileJava)
   }
 
-  private fun setupLightsaberForJavaTest() {
+  private fun setupLightsaberForJavaTest(lightsaber: JavaLightsaberPluginExtension) {
     logger.info("Setting up Lightsaber task for Java test project {}...", project.name)
-    createTasks(project.sourceSets.test, project.tasks.compileTestJava, "test")
+    createTasks(lightsaber, project.sourceSets.test, project.tasks.compileTestJava, "test")
   }
 
-  private fun createTasks(sourceSet: SourceSet, compileTask: JavaCompile, nameSuffix: String = "") {
+  private fun createTasks(
+      lightsaber: JavaLightsaberPluginExtension,
+      sourceSet: SourceSet,
+      compileTask: JavaCompile,
+      nameSuffix: String = ""
+  ) {
     val suffix = nameSuffix.capitalize()
     val lightsaberDir = File(project.buildDir, getLightsaberRelativePath(nameSuffix))
     val classesDirs = getClassesDirs(sourceSet.output)
     val backupDirs = getBackupDirs(project.buildDir, lightsaberDir, classesDirs)
     val sourceDir = File(lightsaberDir, "src")
+    val cacheFile = if (lightsaber.incremental) File(lightsaberDir, "cache") else null
     val classpath = compileTask.classpath.toList()
     val bootClasspathString = compileTask.options.bootClasspath ?: System.getProperty("sun.boot.class.path")
     val bootClasspath = bootClasspathString?.split(File.pathSeparator)?.map { File(it) } ?: emptyList()
@@ -70,8 +76,10 @@ class JavaLightsaberPlugin : BaseLightsaberPlugin() {
             classesDirs,
             backupDirs,
             sourceDir,
+            cacheFile,
             classpath,
-            bootClasspath
+            bootClasspath,
+            lightsaber
         )
     val backupTask =
         createBackupClassFilesTask("lightsaberBackupClasses$suffix", classesDirs, backupDirs)
@@ -126,8 +134,10 @@ class JavaLightsaberPlugin : BaseLightsaberPlugin() {
       classesDirs: List<File>,
       backupDirs: List<File>,
       sourceDir: File,
+      cacheFile: File?,
       classpath: List<File>,
-      bootClasspath: List<File>
+      bootClasspath: List<File>,
+      lightsaber: JavaLightsaberPluginExtension
   ): LightsaberTask {
     logger.info("Creating Lightsaber task {}...", taskName)
     logger.info("  Source classes directories: {}", backupDirs)
@@ -138,8 +148,16 @@ class JavaLightsaberPlugin : BaseLightsaberPlugin() {
       task.backupDirs = backupDirs
       task.classesDirs = classesDirs
       task.sourceDir = sourceDir
+      task.cacheFile = cacheFile
       task.classpath = classpath
       task.bootClasspath = bootClasspath
+      task.prewireProviders = lightsaber.prewireProviders
+      task.mergeProviders = lightsaber.mergeProviders
+      task.instrument = lightsaber.instrument
+      task.traceStartup = lightsaber.traceStartup
+      task.lazyProviders = lightsaber.lazyProviders
+      task.deferModules = lightsaber.deferModules
+      task.threads = lightsaber.threads
     }
   }
 
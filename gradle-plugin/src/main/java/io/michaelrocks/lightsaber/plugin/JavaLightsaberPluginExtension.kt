@@ -18,4 +18,12 @@ package io.michaelrocks.lightsaber.plugin
 
 open class JavaLightsaberPluginExtension {
   var processTest: Boolean = true
+  var prewireProviders: Boolean = false
+  var mergeProviders: Boolean = false
+  var instrument: Boolean = false
+  var traceStartup: Boolean = false
+  var lazyProviders: Boolean = false
+  var deferModules: Boolean = false
+  var threads: Int = 1
+  var incremental: Boolean = false
 }
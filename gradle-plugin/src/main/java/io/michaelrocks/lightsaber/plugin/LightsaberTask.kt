@@ -23,7 +23,9 @@ import org.gradle.api.DefaultTask
 import org.gradle.api.GradleScriptException
 import org.gradle.api.logging.LogLevel
 import org.gradle.api.tasks.Classpath
+import org.gradle.api.tasks.Input
 import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.Internal
 import org.gradle.api.tasks.OutputDirectories
 import org.gradle.api.tasks.OutputDirectory
 import org.gradle.api.tasks.TaskAction
@@ -42,6 +44,22 @@ open class LightsaberTask : DefaultTask() {
   @InputFiles
   @Classpath
   var bootClasspath: List<File> = emptyList()
+  @Input
+  var prewireProviders: Boolean = false
+  @Input
+  var mergeProviders: Boolean = false
+  @Input
+  var instrument: Boolean = false
+  @Input
+  var traceStartup: Boolean = false
+  @Input
+  var lazyProviders: Boolean = false
+  @Input
+  var deferModules: Boolean = false
+  @Input
+  var threads: Int = 1
+  @Internal
+  var cacheFile: File? = null
 
   init {
     logging.captureStandardOutput(LogLevel.INFO)
@@ -58,6 +76,14 @@ open class LightsaberTask : DefaultTask() {
         bootClasspath = bootClasspath,
         source = sourceDir,
         gen = classesDirs[0],
+        prewireProviders = prewireProviders,
+        mergeProviders = mergeProviders,
+        instrument = instrument,
+        traceStartup = traceStartup,
+        lazyProviders = lazyProviders,
+        deferModules = deferModules,
+        threads = threads,
+        cache = cacheFile,
         debug = logger.isDebugEnabled,
         info = logger.isInfoEnabled
     )
@@ -95,6 +121,11 @@ open class LightsaberTask : DefaultTask() {
       }
     }
 
+    cacheFile?.let { cacheFile ->
+      logger.info("Removing the processing cache: {}", cacheFile)
+      cacheFile.delete()
+    }
+
     sourceDir?.let { sourceDir ->
       logger.info("Removing a directory with generated source files: {}", sourceDir)
       sourceDir.deleteRecursively()
@@ -16,9 +16,11 @@
 
 package io.michaelrocks.lightsaber.plugin
 
+import com.android.build.api.transform.DirectoryInput
 import com.android.build.api.transform.Format
 import com.android.build.api.transform.JarInput
 import com.android.build.api.transform.QualifiedContent
+import com.android.build.api.transform.Status
 import com.android.build.api.transform.Transform
 import com.android.build.api.transform.TransformException
 import com.android.build.api.transform.TransformInvocation
@@ -35,8 +37,8 @@ class LightsaberTransform(private val project: Project) : Transform() {
   private val logger = getLogger()
 
   override fun transform(invocation: TransformInvocation) {
-    val inputs = invocation.inputs.flatMap { it.jarInputs + it.directoryInputs }
-    val outputs = inputs.map { input ->
+    val contents = invocation.inputs.flatMap { it.jarInputs + it.directoryInputs }
+    val contentOutputs = contents.map { input ->
       val format = if (input is JarInput) Format.JAR else Format.DIRECTORY
       invocation.outputProvider.getContentLocation(
           input.name,
@@ -46,11 +48,24 @@ class LightsaberTransform(private val project: Project) : Transform() {
       )
     }
 
+    val cacheFile = File(invocation.context.temporaryDir, "cache")
+    if (invocation.isIncremental) {
+      contents.zip(contentOutputs) { input, output -> removeOutputsOfRemovedFiles(input, output) }
+    } else {
+      logger.info("Non-incremental build. Removing all outputs...")
+      invocation.outputProvider.deleteAll()
+      cacheFile.delete()
+    }
+
+    val (inputs, outputs) = contents.zip(contentOutputs)
+        .filter { (input, _) -> (input as? JarInput)?.status != Status.REMOVED }
+        .unzip()
+
     // For now just skip tests.
     if (invocation.context.path.endsWith("Test")) {
       logger.info("Found a test project. Skipping...")
       inputs.zip(outputs) { input, output ->
-        input.file.copyRecursively(output, true)
+        copyInput(input, output, invocation.isIncremental)
       }
       return
     }
@@ -69,6 +84,7 @@ class LightsaberTransform(private val project: Project) : Transform() {
           it.jarInputs.map { it.file } + it.directoryInputs.map { it.file }
         },
         bootClasspath = project.android.bootClasspath,
+        cache = cacheFile,
         debug = logger.isDebugEnabled,
         info = logger.isInfoEnabled
     )
@@ -111,8 +127,44 @@ class LightsaberTransform(private val project: Project) : Transform() {
     )
   }
 
+  // Outputs of removed files are deleted here while the processor finds out itself whether the changed files need
+  // the classes to be analyzed and generated again. Even then unchanged classes that are patched the same way as in
+  // the previous run aren't patched or written again, and an unchanged JAR is only rewritten if its patching changes.
   override fun isIncremental(): Boolean {
-    return false
+    return true
+  }
+
+  private fun copyInput(input: QualifiedContent, output: File, isIncremental: Boolean) {
+    when {
+      !isIncremental -> input.file.copyRecursively(output, true)
+      input is JarInput ->
+        if (input.status != Status.NOTCHANGED) {
+          input.file.copyTo(output, true)
+        }
+      input is DirectoryInput ->
+        input.changedFiles.forEach { (file, status) ->
+          if (status == Status.ADDED || status == Status.CHANGED) {
+            file.copyTo(File(output, file.relativeTo(input.file).path), true)
+          }
+        }
+    }
+  }
+
+  private fun removeOutputsOfRemovedFiles(input: QualifiedContent, output: File) {
+    when (input) {
+      is JarInput ->
+        if (input.status == Status.REMOVED) {
+          logger.debug("Removing output of removed {}", input.file)
+          output.delete()
+        }
+      is DirectoryInput ->
+        input.changedFiles.forEach { (file, status) ->
+          if (status == Status.REMOVED) {
+            logger.debug("Removing output of removed {}", file)
+            File(output, file.relativeTo(input.file).path).delete()
+          }
+        }
+    }
   }
 
   private fun TransformOutputProvider.getContentLocation(
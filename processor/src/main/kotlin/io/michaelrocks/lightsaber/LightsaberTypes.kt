@@ -23,5 +23,6 @@ object LightsaberTypes {
   val MEMBERS_INJECTOR_TYPE = getObjectType<MembersInjector<*>>()
   val LIGHTSABER_INJECTOR_TYPE = getObjectType<LightsaberInjector>()
   val SINGLETON_PROVIDER_TYPE = getObjectType<SingletonProvider<*>>()
+  val RACY_SINGLETON_PROVIDER_TYPE = getObjectType<RacySingletonProvider<*>>()
   val LAZY_ADAPTER_TYPE = getObjectType<LazyAdapter<*>>()
 }
@@ -16,17 +16,26 @@
 
 package io.michaelrocks.lightsaber.processor
 
+import io.michaelrocks.grip.ClassRegistry
 import io.michaelrocks.grip.Grip
 import io.michaelrocks.grip.GripFactory
+import io.michaelrocks.grip.mirrors.getObjectTypeByInternalName
 import io.michaelrocks.lightsaber.processor.analysis.Analyzer
-import io.michaelrocks.lightsaber.processor.commons.StandaloneClassWriter
+import io.michaelrocks.lightsaber.processor.cache.IncrementalCache
+import io.michaelrocks.lightsaber.processor.cache.InputChanges
+import io.michaelrocks.lightsaber.processor.commons.ParallelExecutor
+import io.michaelrocks.lightsaber.processor.commons.SynchronizedClassRegistry
 import io.michaelrocks.lightsaber.processor.commons.closeQuietly
 import io.michaelrocks.lightsaber.processor.compiler.JavaToolsCompiler
+import io.michaelrocks.lightsaber.processor.generation.GenerationOptions
 import io.michaelrocks.lightsaber.processor.generation.Generator
 import io.michaelrocks.lightsaber.processor.injection.Patcher
 import io.michaelrocks.lightsaber.processor.io.DirectoryFileSink
+import io.michaelrocks.lightsaber.processor.io.FileSink
 import io.michaelrocks.lightsaber.processor.io.FileSource
 import io.michaelrocks.lightsaber.processor.io.IoFactory
+import io.michaelrocks.lightsaber.processor.io.RawFile
+import io.michaelrocks.lightsaber.processor.io.RecordingFileSink
 import io.michaelrocks.lightsaber.processor.logging.getLogger
 import io.michaelrocks.lightsaber.processor.model.Component
 import io.michaelrocks.lightsaber.processor.model.InjectionContext
@@ -34,10 +43,10 @@ import io.michaelrocks.lightsaber.processor.model.InjectionPoint
 import io.michaelrocks.lightsaber.processor.model.InjectionTarget
 import io.michaelrocks.lightsaber.processor.model.ProvisionPoint
 import io.michaelrocks.lightsaber.processor.validation.Validator
-import org.objectweb.asm.ClassReader
-import org.objectweb.asm.ClassWriter
 import java.io.Closeable
 import java.io.File
+import java.util.ArrayList
+import java.util.HashMap
 
 class ClassProcessor(
     private val inputs: List<File>,
@@ -45,74 +54,244 @@ class ClassProcessor(
     private val sourcePath: File,
     private val genPath: File,
     classpath: List<File>,
-    bootClasspath: List<File>
+    bootClasspath: List<File>,
+    private val generationOptions: GenerationOptions = GenerationOptions(),
+    threads: Int = 1,
+    cacheFile: File? = null
 ) : Closeable {
+  companion object {
+    private const val PATCH_BATCH_SIZE = 1024
+    private const val META_INF_PATH = "META-INF/"
+    private const val CLASS_FILE_EXTENSION = ".class"
+    private const val SOURCE_FILE_EXTENSION = ".java"
+  }
+
   private val logger = getLogger()
 
   private val grip: Grip = GripFactory.create(inputs + classpath + bootClasspath)
+  private val classRegistry: ClassRegistry =
+      if (threads > 1) SynchronizedClassRegistry(grip.classRegistry) else grip.classRegistry
   private val errorReporter = ErrorReporter()
+  private val executor = ParallelExecutor(threads)
 
-  private val fileSourcesAndSinks = inputs.zip(outputs) { input, output ->
-    val source = IoFactory.createFileSource(input)
-    val sink = IoFactory.createFileSink(input, output)
-    source to sink
-  }
-  private val sourceSink = DirectoryFileSink(sourcePath)
-  private val classSink = DirectoryFileSink(genPath)
+  // Sinks are created only for the outputs being rewritten since creating a JAR sink truncates the output, which must
+  // be kept intact when the results of the previous run are reused. They're closed as soon as they're written, so the
+  // outputs are complete when the cache records them, and only get closed again if processing fails.
+  private val fileSources = ArrayList<FileSource>()
+  private val fileSinks = ArrayList<FileSink>()
+  private val sourceSink = RecordingFileSink(DirectoryFileSink(sourcePath))
+  private val classSink = RecordingFileSink(DirectoryFileSink(genPath))
 
   private val compiler = JavaToolsCompiler(inputs + classpath + genPath, bootClasspath, errorReporter)
 
+  private val incrementalCache = cacheFile?.let {
+    val locations = inputs + outputs + sourcePath + genPath
+    val processorLocation = javaClass.protectionDomain?.codeSource?.location?.let { File(it.toURI()) }
+    val dependencies = classpath + bootClasspath + listOfNotNull(processorLocation)
+    val configurationKey = IncrementalCache.computeConfigurationKey(generationOptions, locations, dependencies)
+    IncrementalCache(it, inputs, outputs, configurationKey, executor)
+  }
+
   fun processClasses() {
-    val context = performAnalysisAndValidation()
+    val changes = incrementalCache?.findIrrelevantChanges()
+    if (incrementalCache != null && changes != null) {
+      logger.info("Reusing the results of the previous run")
+      copyChangedFiles(changes)
+      incrementalCache.saveReusedResults()
+      return
+    }
+
+    // Analysis still covers all the inputs since the model can't be restored from the cache, but the work done after
+    // it is limited to what the changes affect.
+    val changeFilter = incrementalCache?.createChangeFilter()
+    incrementalCache?.invalidate()
+    val context = performAnalysisAndValidation { chain ->
+      changeFilter?.isAffected(chain.map { it.type.internalName }) ?: true
+    }
     context.dump()
-    copyAndPatchClasses(context)
+    val patchSignatures = copyAndPatchClasses(context)
     performGeneration(context)
-    performCompilation()
+    if (incrementalCache != null && incrementalCache.isCompilationReusable(sourceSink.checksums)) {
+      logger.info("Generated sources haven't been changed, skipping compilation")
+    } else {
+      performCompilation()
+    }
+    incrementalCache?.let { saveIncrementalCache(it, patchSignatures) }
   }
 
   override fun close() {
+    executor.close()
     classSink.closeQuietly()
     sourceSink.closeQuietly()
 
-    fileSourcesAndSinks.forEach {
-      it.first.closeQuietly()
-      it.second.closeQuietly()
+    fileSources.forEach { it.closeQuietly() }
+    fileSinks.forEach { it.closeQuietly() }
+  }
+
+  // None of the changed files is relevant for the analysis, so they're copied as is and removed files are removed from
+  // the output too. Changes to archives are always relevant, so only directories get here.
+  private fun copyChangedFiles(changes: List<InputChanges>) {
+    inputs.forEachIndexed { index, input ->
+      val fileSink = DirectoryFileSink(outputs[index])
+      executor.forEach(changes[index].changedFiles) { path ->
+        fileSink.createFile(path, File(input, path).readBytes())
+      }
+      changes[index].removedFiles.forEach { path ->
+        logger.debug("Removing {} from {}", path, outputs[index])
+        fileSink.deleteFile(path)
+      }
     }
   }
 
-  private fun performAnalysisAndValidation(): InjectionContext {
+  private fun saveIncrementalCache(incrementalCache: IncrementalCache, patchSignatures: List<Map<String, String>>) {
+    // Classes generated by the previous run but not by this one belong to removed components or modules.
+    val generatedFiles = getGeneratedFiles()
+    (incrementalCache.previousGeneratedFiles - generatedFiles).forEach { path ->
+      logger.debug("Removing stale generated file {}", path)
+      File(path).delete()
+    }
+    incrementalCache.save(generatedFiles, sourceSink.checksums, patchSignatures)
+  }
+
+  private fun getGeneratedFiles(): Collection<String> {
+    val classFiles = classSink.paths.map { File(genPath, it) }
+    val compiledFiles = sourceSink.paths.map { path ->
+      File(genPath, path.removeSuffix(SOURCE_FILE_EXTENSION) + CLASS_FILE_EXTENSION)
+    }
+    return (classFiles + compiledFiles).map { it.absolutePath }
+  }
+
+  private fun performAnalysisAndValidation(isChainAffected: (List<Component>) -> Boolean): InjectionContext {
     val analyzer = Analyzer(grip, errorReporter)
     val context = analyzer.analyze(inputs)
-    Validator(grip.classRegistry, errorReporter).validate(context)
+    Validator(grip.classRegistry, errorReporter, isChainAffected).validate(context)
     checkErrors()
     return context
   }
 
-  private fun copyAndPatchClasses(context: InjectionContext) {
-    fileSourcesAndSinks.forEach { (fileSource, fileSink) ->
-      fileSource.listFiles { path, type ->
-        when (type) {
-          FileSource.EntryType.CLASS -> {
-            val classReader = ClassReader(fileSource.readFile(path))
-            val classWriter = StandaloneClassWriter(
-                classReader, ClassWriter.COMPUTE_MAXS or ClassWriter.COMPUTE_FRAMES, grip.classRegistry)
-            val classVisitor = Patcher(classWriter, context)
-            classReader.accept(classVisitor, ClassReader.SKIP_FRAMES)
-            fileSink.createFile(path, classWriter.toByteArray())
-          }
-          FileSource.EntryType.FILE -> fileSink.createFile(path, fileSource.readFile(path))
-          FileSource.EntryType.DIRECTORY -> fileSink.createDirectory(path)
+  // Returns patch signatures of the classes of every input. Outputs of unchanged classes patched the same way as in the
+  // previous run are kept as is, an archive is only rewritten if any of its classes needs to be.
+  private fun copyAndPatchClasses(context: InjectionContext): List<Map<String, String>> {
+    val patchSignatures = inputs.mapIndexed { index, input ->
+      val fileSource = IoFactory.createFileSource(input)
+      fileSources += fileSource
+      val entries = ArrayList<Entry>()
+      fileSource.listFiles { path, type -> entries += Entry(path, type) }
+
+      val signatures = computePatchSignatures(entries, context)
+      val inputSignatures = if (input.isFile) {
+        val signature = IncrementalCache.combinePatchSignatures(signatures)
+        if (incrementalCache?.isOutputReusable(index, IncrementalCache.ARCHIVE_PATH, signature) != true) {
+          val fileSink = createFileSink(index)
+          copyAndPatchEntries(fileSource, fileSink, entries, context)
+          fileSink.close()
+        }
+        if (signature.isEmpty()) emptyMap() else mapOf(IncrementalCache.ARCHIVE_PATH to signature)
+      } else {
+        val fileSink = createFileSink(index)
+        val changedEntries = entries.filterNot { entry ->
+          val path = entry.normalizedPath
+          entry.type != FileSource.EntryType.DIRECTORY &&
+              incrementalCache?.isOutputReusable(index, path, signatures[path].orEmpty()) == true
+        }
+        copyAndPatchEntries(fileSource, fileSink, changedEntries, context)
+        incrementalCache?.findRemovedFiles(index)?.forEach { path ->
+          logger.debug("Removing {} from {}", path, outputs[index])
+          fileSink.deleteFile(path)
         }
+        fileSink.close()
+        signatures
       }
 
-      fileSink.flush()
+      fileSource.close()
+      inputSignatures
     }
 
     checkErrors()
+    return patchSignatures
+  }
+
+  private fun createFileSink(index: Int): FileSink {
+    return IoFactory.createFileSink(inputs[index], outputs[index]).also { fileSinks += it }
+  }
+
+  private fun computePatchSignatures(entries: List<Entry>, context: InjectionContext): Map<String, String> {
+    val signatures = HashMap<String, String>()
+    entries.forEach { entry ->
+      val path = entry.normalizedPath
+      if (entry.type == FileSource.EntryType.CLASS && !path.startsWith(META_INF_PATH)) {
+        val type = getObjectTypeByInternalName(path.removeSuffix(CLASS_FILE_EXTENSION))
+        val signature = Patcher.computePatchSignature(context, type)
+        if (signature.isNotEmpty()) {
+          signatures[path] = signature
+        }
+      }
+    }
+    return signatures
+  }
+
+  private fun copyAndPatchEntries(
+      fileSource: FileSource,
+      fileSink: FileSink,
+      entries: List<Entry>,
+      context: InjectionContext
+  ) {
+    // Entries are read and patched in batches on the executor but written in the order they were listed, so the
+    // output doesn't depend on the number of threads and only a batch of class files is kept in memory.
+    var start = 0
+    while (start < entries.size) {
+      val batch = entries.subList(start, minOf(start + PATCH_BATCH_SIZE, entries.size))
+      val contents = executor.map(batch) { entry -> readAndPatchEntry(fileSource, entry, context) }
+      batch.forEachIndexed { index, entry ->
+        val content = contents[index]
+        when (content) {
+          is Content.Data -> fileSink.createFile(entry.path, content.data)
+          is Content.Raw -> fileSink.createFile(entry.path, content.file)
+          Content.Directory -> fileSink.createDirectory(entry.path)
+        }
+      }
+      start += batch.size
+    }
+
+    fileSink.flush()
+  }
+
+  private fun readAndPatchEntry(fileSource: FileSource, entry: Entry, context: InjectionContext): Content {
+    return when (entry.type) {
+      FileSource.EntryType.CLASS -> readAndPatchClass(fileSource, entry.path, context)
+      FileSource.EntryType.FILE -> readFile(fileSource, entry.path)
+      FileSource.EntryType.DIRECTORY -> Content.Directory
+    }
+  }
+
+  private fun readFile(fileSource: FileSource, path: String): Content {
+    val rawFile = fileSource.readRawFile(path)
+    return if (rawFile != null) Content.Raw(rawFile) else Content.Data(fileSource.readFile(path))
+  }
+
+  private fun readAndPatchClass(fileSource: FileSource, path: String, context: InjectionContext): Content {
+    // Classes are stored at paths matching their names, so the ones that aren't patched are copied without being
+    // inflated. Versioned classes of multi-release JARs don't match their paths and are always inspected.
+    val normalizedPath = path.replace(File.separatorChar, '/')
+    if (!normalizedPath.startsWith(META_INF_PATH)) {
+      val type = getObjectTypeByInternalName(normalizedPath.removeSuffix(CLASS_FILE_EXTENSION))
+      if (!Patcher.isPatchable(context, type)) {
+        return readFile(fileSource, path)
+      }
+    }
+
+    val rawFile = fileSource.readRawFile(path)
+    val classData = rawFile?.inflate() ?: fileSource.readFile(path)
+    val patchedClassData = Patcher.patch(classData, context)
+    return if (rawFile != null && patchedClassData === classData) {
+      Content.Raw(rawFile)
+    } else {
+      Content.Data(patchedClassData)
+    }
   }
 
   private fun performGeneration(context: InjectionContext) {
-    val generator = Generator(grip.classRegistry, errorReporter, classSink, sourceSink)
+    val generator = Generator(classRegistry, errorReporter, classSink, sourceSink, generationOptions, executor)
     generator.generate(context)
     checkErrors()
   }
@@ -168,4 +347,14 @@ class ClassProcessor(
       }
     }
   }
+
+  private class Entry(val path: String, val type: FileSource.EntryType) {
+    val normalizedPath = path.replace(File.separatorChar, '/')
+  }
+
+  private sealed class Content {
+    class Data(val data: ByteArray) : Content()
+    class Raw(val file: RawFile) : Content()
+    object Directory : Content()
+  }
 }
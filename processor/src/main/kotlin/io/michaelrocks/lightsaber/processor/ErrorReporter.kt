@@ -18,21 +18,25 @@ package io.michaelrocks.lightsaber.processor
 
 import java.util.*
 
+// Errors may be reported from worker threads during patching and generation.
 class ErrorReporter {
   private val errors = ArrayList<Exception>()
 
+  @Synchronized
   fun hasErrors(): Boolean {
     return errors.isNotEmpty()
   }
 
+  @Synchronized
   fun getErrors(): List<Exception> {
-    return errors
+    return ArrayList(errors)
   }
 
   fun reportError(errorMessage: String) {
     reportError(ProcessingException(errorMessage))
   }
 
+  @Synchronized
   fun reportError(error: Exception) {
     errors.add(error)
   }
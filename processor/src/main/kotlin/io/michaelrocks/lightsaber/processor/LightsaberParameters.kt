@@ -19,6 +19,7 @@ package io.michaelrocks.lightsaber.processor
 import ch.qos.logback.classic.Level
 import com.beust.jcommander.Parameter
 import com.beust.jcommander.converters.FileConverter
+import io.michaelrocks.lightsaber.processor.generation.GenerationOptions
 import java.io.File
 
 data class LightsaberParameters(
@@ -45,6 +46,46 @@ data class LightsaberParameters(
     var source: File? = null,
     @Parameter(names = arrayOf("--gen"), description = "Output directory for generated .class files")
     var gen: File? = null,
+    @Parameter(
+        names = arrayOf("--prewire-providers"),
+        description = "Make generated providers resolve their dependency providers once instead of on every call"
+    )
+    var prewireProviders: Boolean = false,
+    @Parameter(
+        names = arrayOf("--merge-providers"),
+        description = "Generate a single provider class per module instead of a class per provider"
+    )
+    var mergeProviders: Boolean = false,
+    @Parameter(
+        names = arrayOf("--instrument"),
+        description = "Make generated providers collect call counts and instantiation latencies of every binding"
+    )
+    var instrument: Boolean = false,
+    @Parameter(
+        names = arrayOf("--trace-startup"),
+        description = "Make generated configurators and providers record a startup trace"
+    )
+    var traceStartup: Boolean = false,
+    @Parameter(
+        names = arrayOf("--lazy-providers"),
+        description = "Make injectors create providers of bindings on first use instead of during configuration"
+    )
+    var lazyProviders: Boolean = false,
+    @Parameter(
+        names = arrayOf("--defer-modules"),
+        description = "Make injectors retrieve modules from components when their bindings are used for the first time"
+    )
+    var deferModules: Boolean = false,
+    @Parameter(
+        names = arrayOf("--threads"),
+        description = "Number of threads used to patch classes and generate code"
+    )
+    var threads: Int = 1,
+    @Parameter(
+        names = arrayOf("--cache"),
+        description = "File to keep analysis results in between runs so unrelated changes aren't processed again"
+    )
+    var cache: File? = null,
     @Parameter(names = arrayOf("-i", "--info"), description = "Enable detailed logging")
     var info: Boolean = false,
     @Parameter(names = arrayOf("-d", "--debug"), description = "Enable verbose logging")
@@ -52,6 +93,16 @@ data class LightsaberParameters(
     @Parameter(names = arrayOf("--stacktrace"), description = "Print stack traces")
     var printStacktrace: Boolean = false
 ) {
+  val generationOptions: GenerationOptions
+    get() = GenerationOptions(
+        prewireProviders = prewireProviders,
+        mergeProviders = mergeProviders,
+        instrument = instrument,
+        traceStartup = traceStartup,
+        lazyProviders = lazyProviders,
+        deferModules = deferModules
+    )
+
   val loggingLevel: Level
     get() {
       if (debug) {
@@ -29,7 +29,12 @@ class LightsaberProcessor(private val parameters: LightsaberParameters) {
     val genPath = parameters.gen!!
     val classpath = parameters.classpath
     val bootClasspath = parameters.bootClasspath
-    ClassProcessor(inputs, outputs, sourcePath, genPath, classpath, bootClasspath).apply {
+    val generationOptions = parameters.generationOptions
+    val threads = parameters.threads
+    val cacheFile = parameters.cache
+    ClassProcessor(
+        inputs, outputs, sourcePath, genPath, classpath, bootClasspath, generationOptions, threads, cacheFile
+    ).apply {
       processClasses()
       close()
     }
@@ -25,17 +25,18 @@ class Analyzer(
     private val grip: Grip,
     private val errorReporter: ErrorReporter
 ) {
+  private val scopeRegistry = ScopeRegistry(grip.classRegistry, errorReporter)
   private val injectionTargetAnalyzer: InjectionTargetsAnalyzer
   private val componentsAnalyzer: ComponentsAnalyzer
 
   init {
-    val analyzerHelper = AnalyzerHelperImpl(grip.classRegistry, ScopeRegistry(), errorReporter)
+    val analyzerHelper = AnalyzerHelperImpl(grip.classRegistry, scopeRegistry, errorReporter)
     injectionTargetAnalyzer = InjectionTargetsAnalyzerImpl(grip, analyzerHelper, errorReporter)
     componentsAnalyzer = ComponentsAnalyzerImpl(grip, analyzerHelper, errorReporter)
   }
 
   fun analyze(files: Collection<File>): InjectionContext {
-    val analyzerHelper: AnalyzerHelper = AnalyzerHelperImpl(grip.classRegistry, ScopeRegistry(), errorReporter)
+    val analyzerHelper: AnalyzerHelper = AnalyzerHelperImpl(grip.classRegistry, scopeRegistry, errorReporter)
     val (injectableTargets, providableTargets) =
         InjectionTargetsAnalyzerImpl(grip, analyzerHelper, errorReporter).let { analyzer ->
           analyzer.analyze(files)
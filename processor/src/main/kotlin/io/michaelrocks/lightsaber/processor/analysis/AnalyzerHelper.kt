@@ -119,13 +119,29 @@ class AnalyzerHelperImpl(
       scopeRegistry.findScopeProviderByAnnotationType(it.type)
     }
 
+    val isIdempotent = annotated.annotations.contains(Types.IDEMPOTENT_TYPE)
     return when (scopeProviders.size) {
-      0 -> Scope.None
-      1 -> Scope.Class(scopeProviders[0])
+      0 -> {
+        if (isIdempotent) {
+          errorReporter.reportError("Element $this is idempotent but isn't a singleton")
+        }
+        Scope.None
+      }
+      1 -> Scope.Class(if (isIdempotent) getIdempotentScopeProvider(scopeProviders[0]) else scopeProviders[0])
       else -> {
         errorReporter.reportError("Element $this has multiple scopes: $scopeProviders")
         Scope.None
       }
     }
   }
+
+  private fun Annotated.getIdempotentScopeProvider(scopeProvider: Type.Object): Type.Object {
+    return when (scopeProvider) {
+      LightsaberTypes.SINGLETON_PROVIDER_TYPE -> LightsaberTypes.RACY_SINGLETON_PROVIDER_TYPE
+      else -> {
+        errorReporter.reportError("Element $this is idempotent but its scope isn't a singleton")
+        scopeProvider
+      }
+    }
+  }
 }
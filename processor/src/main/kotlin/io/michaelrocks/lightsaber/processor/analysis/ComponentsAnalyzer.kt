@@ -142,7 +142,9 @@ class ComponentsAnalyzerImpl(
       ModuleProvider(field.toModule(), ModuleProvisionPoint.Field(field))
     }
 
-    return Component(mirror.type, methods + fields, subcomponents)
+    val providers = methods + fields
+    val multibindings = moduleRegistry.getMultibindings(providers.map { it.module })
+    return Component(mirror.type, providers, subcomponents, multibindings)
   }
 
   private fun MethodMirror.toModule(): Module =
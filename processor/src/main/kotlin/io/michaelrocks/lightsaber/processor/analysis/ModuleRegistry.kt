@@ -24,24 +24,39 @@ import io.michaelrocks.grip.from
 import io.michaelrocks.grip.isStatic
 import io.michaelrocks.grip.methodType
 import io.michaelrocks.grip.methods
+import io.michaelrocks.grip.mirrors.Annotated
 import io.michaelrocks.grip.mirrors.ClassMirror
+import io.michaelrocks.grip.mirrors.EnumMirror
 import io.michaelrocks.grip.mirrors.FieldMirror
 import io.michaelrocks.grip.mirrors.MethodMirror
 import io.michaelrocks.grip.mirrors.Type
 import io.michaelrocks.grip.mirrors.getObjectTypeByInternalName
+import io.michaelrocks.grip.mirrors.isPublic
+import io.michaelrocks.grip.mirrors.signature.GenericType
 import io.michaelrocks.grip.not
 import io.michaelrocks.grip.returns
 import io.michaelrocks.lightsaber.processor.ErrorReporter
 import io.michaelrocks.lightsaber.processor.commons.Types
+import io.michaelrocks.lightsaber.processor.commons.boxed
+import io.michaelrocks.lightsaber.processor.generation.box
 import io.michaelrocks.lightsaber.processor.logging.getLogger
+import io.michaelrocks.lightsaber.processor.model.Contribution
 import io.michaelrocks.lightsaber.processor.model.Dependency
 import io.michaelrocks.lightsaber.processor.model.Module
+import io.michaelrocks.lightsaber.processor.model.Multibinding
 import io.michaelrocks.lightsaber.processor.model.Provider
 import io.michaelrocks.lightsaber.processor.model.ProvisionPoint
+import org.objectweb.asm.Opcodes.ACC_ENUM
+import java.util.ArrayList
 import java.util.HashMap
+import java.util.HashSet
+import java.util.LinkedHashMap
+
+private val WILDCARD_TYPE = GenericType.UpperBounded(GenericType.Raw(Types.OBJECT_TYPE))
 
 interface ModuleRegistry {
   fun getOrCreateModule(type: Type.Object): Module
+  fun getMultibindings(modules: Collection<Module>): Collection<Multibinding>
 }
 
 class ModuleRegistryImpl(
@@ -57,6 +72,35 @@ class ModuleRegistryImpl(
     return modulesByType.getOrPut(type) { convertToModule(grip.classRegistry.getClassMirror(type)) }
   }
 
+  // Collects contributions of the modules into multibindings. Contributions from every module of a component are
+  // aggregated into a single binding.
+  override fun getMultibindings(modules: Collection<Module>): Collection<Multibinding> {
+    val contributionsByDependency = LinkedHashMap<Dependency, MutableList<Provider>>()
+    modules.forEach { module ->
+      module.providers.forEach { provider ->
+        provider.contribution?.let { contribution ->
+          contributionsByDependency.getOrPut(contribution.dependency) { ArrayList() } += provider
+        }
+      }
+    }
+
+    return contributionsByDependency.map { entry ->
+      val (dependency, contributions) = entry
+      checkMapKeysAreUnique(dependency, contributions)
+      Multibinding(dependency, contributions)
+    }
+  }
+
+  private fun checkMapKeysAreUnique(dependency: Dependency, contributions: List<Provider>) {
+    val keys = HashSet<Any>()
+    contributions.forEach { provider ->
+      val contribution = provider.contribution as? Contribution.Map ?: return@forEach
+      if (!keys.add(contribution.key)) {
+        errorReporter.reportError("Key ${contribution.key} is contributed to $dependency multiple times")
+      }
+    }
+  }
+
   private fun convertToModule(mirror: ClassMirror): Module {
     if (mirror.signature.typeParameters.isNotEmpty()) {
       errorReporter.reportError("Module cannot have a type parameters: $mirror")
@@ -94,7 +138,7 @@ class ModuleRegistryImpl(
     val dependency = Dependency(signature.returnType, analyzerHelper.findQualifier(this))
     val provisionPoint = ProvisionPoint.Method(dependency, injectionPoint)
     val scope = analyzerHelper.findScope(this)
-    return Provider(providerType, provisionPoint, container, scope)
+    return Provider(providerType, provisionPoint, container, scope, findContribution(dependency))
   }
 
   private fun FieldMirror.toProvider(container: Type.Object, index: Int): Provider {
@@ -102,6 +146,85 @@ class ModuleRegistryImpl(
     val dependency = Dependency(signature.type, analyzerHelper.findQualifier(this))
     val provisionPoint = ProvisionPoint.Field(container, dependency, this)
     val scope = analyzerHelper.findScope(this)
-    return Provider(providerType, provisionPoint, container, scope)
+    return Provider(providerType, provisionPoint, container, scope, findContribution(dependency))
   }
+
+  private fun Annotated.findContribution(dependency: Dependency): Contribution? {
+    val intoSet = Types.INTO_SET_TYPE in annotations
+    val intoMap = Types.INTO_MAP_TYPE in annotations
+    if (intoSet && intoMap) {
+      errorReporter.reportError("Element $this cannot contribute to a set and a map at the same time")
+      return null
+    }
+
+    val elementType = dependency.box().type
+    if (intoSet) {
+      val setType = GenericType.Parameterized(Types.SET_TYPE, listOf(elementType))
+      return Contribution.Set(Dependency(setType, dependency.qualifier))
+    }
+
+    if (intoMap) {
+      val mapKey = findMapKey() ?: return null
+      val keyType = mapKey.type.toMapKeyType() ?: run {
+        errorReporter.reportError("Map key of $this must be a String, an int, a long, a Class or an enum")
+        return null
+      }
+
+      val key = mapKey.values["value"] ?: return null
+      if (!key.isPublicMapKey()) {
+        // Keys are loaded by the generated configurator that resides in another package.
+        errorReporter.reportError("Map key $key of $this must be public")
+        return null
+      }
+
+      val mapType = GenericType.Parameterized(Types.MAP_TYPE, listOf(keyType, elementType))
+      return Contribution.Map(Dependency(mapType, dependency.qualifier), key)
+    }
+
+    return null
+  }
+
+  // Returns the type of the value of the map key annotation and the value itself.
+  private fun Annotated.findMapKey(): MapKey? {
+    val mapKeys = annotations.filter { annotation ->
+      Types.MAP_KEY_TYPE in grip.classRegistry.getClassMirror(annotation.type).annotations
+    }
+
+    if (mapKeys.size != 1) {
+      errorReporter.reportError("Element $this must have exactly one map key")
+      return null
+    }
+
+    val annotation = mapKeys[0]
+    val valueMethod = grip.classRegistry.getClassMirror(annotation.type).methods.firstOrNull { it.name == "value" }
+    if (valueMethod == null) {
+      errorReporter.reportError("Map key ${annotation.type.className} must have a value")
+      return null
+    }
+
+    return MapKey(valueMethod.type.returnType, annotation.values)
+  }
+
+  private fun Type.toMapKeyType(): GenericType? {
+    return when (this) {
+      Type.Primitive.Int, Type.Primitive.Long -> GenericType.Raw(boxed())
+      Types.STRING_TYPE -> GenericType.Raw(this)
+      Types.CLASS_TYPE -> GenericType.Parameterized(Types.CLASS_TYPE, listOf(WILDCARD_TYPE))
+      is Type.Object -> if (isEnum()) GenericType.Raw(this) else null
+      else -> null
+    }
+  }
+
+  private fun Any.isPublicMapKey(): Boolean {
+    return when (this) {
+      is Type.Object -> grip.classRegistry.getClassMirror(this).isPublic
+      is EnumMirror -> grip.classRegistry.getClassMirror(type).isPublic
+      else -> true
+    }
+  }
+
+  private fun Type.Object.isEnum(): Boolean =
+      (grip.classRegistry.getClassMirror(this).access and ACC_ENUM) != 0
+
+  private class MapKey(val type: Type, val values: Map<String, Any>)
 }
@@ -16,15 +16,96 @@
 
 package io.michaelrocks.lightsaber.processor.analysis
 
+import io.michaelrocks.grip.ClassRegistry
+import io.michaelrocks.grip.mirrors.ClassMirror
 import io.michaelrocks.grip.mirrors.Type
+import io.michaelrocks.grip.mirrors.isConstructor
 import io.michaelrocks.lightsaber.LightsaberTypes
+import io.michaelrocks.lightsaber.processor.ErrorReporter
 import io.michaelrocks.lightsaber.processor.commons.Types
+import org.objectweb.asm.Opcodes.ACC_ABSTRACT
+import org.objectweb.asm.Opcodes.ACC_INTERFACE
+import org.objectweb.asm.Opcodes.ACC_PUBLIC
+import java.util.HashMap
+
+class ScopeRegistry(
+    private val classRegistry: ClassRegistry,
+    private val errorReporter: ErrorReporter
+) {
+  private val scopeProvidersByAnnotationType = HashMap<Type.Object, Type.Object?>()
 
-class ScopeRegistry {
   fun findScopeProviderByAnnotationType(annotationType: Type.Object): Type.Object? {
     return when (annotationType) {
       Types.SINGLETON_TYPE -> LightsaberTypes.SINGLETON_PROVIDER_TYPE
-      else -> null
+      else -> findCachedScopeProvider(annotationType)
+    }
+  }
+
+  private fun findCachedScopeProvider(annotationType: Type.Object): Type.Object? {
+    // Invalid scope providers are cached as nulls so that each error is reported only once.
+    if (annotationType in scopeProvidersByAnnotationType) {
+      return scopeProvidersByAnnotationType[annotationType]
+    }
+
+    val scopeProvider = findCustomScopeProvider(annotationType)
+    scopeProvidersByAnnotationType.put(annotationType, scopeProvider)
+    return scopeProvider
+  }
+
+  private fun findCustomScopeProvider(annotationType: Type.Object): Type.Object? {
+    val annotationMirror = classRegistry.getClassMirror(annotationType)
+    val annotation = annotationMirror.annotations[Types.SCOPE_PROVIDER_TYPE] ?: return null
+    val scopeProvider = annotation.values["value"] as? Type.Object
+    if (scopeProvider == null) {
+      errorReporter.reportError("Scope provider of ${annotationType.className} is not a class")
+      return null
+    }
+
+    val mirror = classRegistry.getClassMirror(scopeProvider)
+    return if (validateScopeProvider(annotationType, mirror)) scopeProvider else null
+  }
+
+  private fun validateScopeProvider(annotationType: Type.Object, mirror: ClassMirror): Boolean {
+    val scope = annotationType.className
+    val provider = mirror.type.className
+    if (mirror.access and ACC_PUBLIC == 0) {
+      errorReporter.reportError("Scope provider $provider of $scope must be public")
+      return false
     }
+
+    if (mirror.access and (ACC_ABSTRACT or ACC_INTERFACE) != 0) {
+      errorReporter.reportError("Scope provider $provider of $scope must be a concrete class")
+      return false
+    }
+
+    if (!mirror.isInjectingProvider()) {
+      errorReporter.reportError(
+          "Scope provider $provider of $scope must implement ${Types.INJECTING_PROVIDER_TYPE.className}"
+      )
+      return false
+    }
+
+    val hasDelegateConstructor = mirror.methods.any { method ->
+      method.isConstructor && method.access and ACC_PUBLIC != 0 &&
+          method.type.argumentTypes == listOf(Types.INJECTING_PROVIDER_TYPE)
+    }
+    if (!hasDelegateConstructor) {
+      errorReporter.reportError(
+          "Scope provider $provider of $scope must have a public constructor accepting a single " +
+              Types.INJECTING_PROVIDER_TYPE.className
+      )
+      return false
+    }
+
+    return true
+  }
+
+  private fun ClassMirror.isInjectingProvider(): Boolean {
+    if (Types.INJECTING_PROVIDER_TYPE in interfaces) {
+      return true
+    }
+
+    return interfaces.any { classRegistry.getClassMirror(it).isInjectingProvider() } ||
+        superType?.let { classRegistry.getClassMirror(it).isInjectingProvider() } ?: false
   }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.michaelrocks.lightsaber.processor.cache
+
+import java.util.ArrayDeque
+import java.util.HashSet
+
+// Tells whether a change of a class may affect the given classes. The classes are affected by a change of any class
+// they reach through the types relevant classes refer to. Other classes, e.g. the ones from the classpath, don't refer
+// to anything. A changed relevant class that refers to a reachable relevant class affects them too since references
+// may go the other way, e.g. a class provided by a module refers to the module but not vice versa.
+class ChangeFilter(
+    private val changedTypes: Set<String>,
+    private val referencedTypes: Map<String, Collection<String>>
+) {
+  fun isAffected(types: Collection<String>): Boolean {
+    val reachableTypes = findReachableTypes(types)
+    return changedTypes.any { changedType ->
+      changedType in reachableTypes ||
+          referencedTypes[changedType].orEmpty().any { it in reachableTypes && it in referencedTypes }
+    }
+  }
+
+  private fun findReachableTypes(types: Collection<String>): Set<String> {
+    val reachableTypes = HashSet<String>(types)
+    val queue = ArrayDeque<String>(types)
+    while (queue.isNotEmpty()) {
+      referencedTypes[queue.removeFirst()]?.forEach { referencedType ->
+        if (reachableTypes.add(referencedType)) {
+          queue.addLast(referencedType)
+        }
+      }
+    }
+
+    return reachableTypes
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.cache
+
+import org.objectweb.asm.ClassReader
+import java.util.HashSet
+
+object ClassScanner {
+  private const val CONSTANT_UTF8 = 1
+  private const val CONSTANT_CLASS = 7
+
+  private val RELEVANT_PACKAGES = listOf("javax/inject/", "io/michaelrocks/lightsaber/")
+  private val DESCRIPTOR_TYPE_REGEX = Regex("L([^;<>:.\\[()]+)[;<]")
+
+  // A class is relevant if anything in its constant pool mentions an injection related type. Such classes are
+  // analyzed and may be patched, so any change to them requires a new analysis. Types a relevant class refers to
+  // matter as well since the analysis may look into them, e.g. into superclasses of injectable classes.
+  fun scan(classData: ByteArray): ClassSummary {
+    val reader = ClassReader(classData)
+    val buffer = CharArray(reader.maxStringLength)
+    val referencedTypes = HashSet<String>()
+    var isRelevant = false
+    for (index in 1 until reader.itemCount) {
+      // The second slot of long and double constants has no item.
+      val offset = reader.getItem(index)
+      if (offset == 0) {
+        continue
+      }
+
+      when (classData[offset - 1].toInt()) {
+        CONSTANT_UTF8 -> {
+          // Modified UTF-8 only differs from UTF-8 in characters that never occur in type names.
+          val string = String(classData, offset + 2, reader.readUnsignedShort(offset), Charsets.UTF_8)
+          if (!isRelevant && RELEVANT_PACKAGES.any { it in string }) {
+            isRelevant = true
+          }
+          DESCRIPTOR_TYPE_REGEX.findAll(string).forEach { referencedTypes += it.groupValues[1] }
+        }
+        CONSTANT_CLASS -> {
+          val name = reader.readUTF8(offset, buffer)
+          if (!name.startsWith("[")) {
+            referencedTypes += name
+          }
+        }
+      }
+    }
+
+    return ClassSummary(isRelevant, if (isRelevant) referencedTypes else emptySet<String>())
+  }
+
+  class ClassSummary(val isRelevant: Boolean, val referencedTypes: Collection<String>)
+}
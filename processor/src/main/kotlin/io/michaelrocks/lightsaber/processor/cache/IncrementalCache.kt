@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.cache
+
+import io.michaelrocks.lightsaber.processor.commons.ParallelExecutor
+import io.michaelrocks.lightsaber.processor.logging.getLogger
+import java.io.File
+import java.security.MessageDigest
+import java.util.HashMap
+import java.util.HashSet
+import java.util.zip.CRC32
+
+class IncrementalCache(
+    private val cacheFile: File,
+    private val inputs: List<File>,
+    private val outputs: List<File>,
+    private val configurationKey: String,
+    executor: ParallelExecutor
+) {
+  companion object {
+    // An archive is fingerprinted as a whole and stored under this path.
+    const val ARCHIVE_PATH = ""
+    private const val CLASS_FILE_EXTENSION = ".class"
+
+    // The key covers everything besides the inputs that affects the results: the options, the locations of the
+    // files and the stamps of the dependencies including the processor itself. A mismatch discards the whole cache.
+    fun computeConfigurationKey(options: Any, locations: Collection<File>, dependencies: Collection<File>): String {
+      val digest = MessageDigest.getInstance("SHA-1")
+      fun update(value: Any) {
+        digest.update(value.toString().toByteArray(Charsets.UTF_8))
+        digest.update(0)
+      }
+
+      update(ProcessingCacheSerializer.VERSION)
+      update(options)
+      locations.forEach { update(it.absolutePath) }
+      dependencies.forEach { dependency ->
+        dependency.walkTopDown().filter { it.isFile }.forEach { file ->
+          update(file.absolutePath)
+          update(file.length())
+          update(file.lastModified())
+        }
+      }
+
+      return digest.digest().joinToString("") { String.format("%02x", it) }
+    }
+
+    // Combines signatures of the classes of an archive, which is patched as a whole.
+    fun combinePatchSignatures(patchSignatures: Map<String, String>): String {
+      if (patchSignatures.isEmpty()) {
+        return ""
+      }
+
+      val digest = MessageDigest.getInstance("SHA-1")
+      patchSignatures.entries.sortedBy { it.key }.forEach { (path, patchSignature) ->
+        digest.update(path.toByteArray(Charsets.UTF_8))
+        digest.update(0)
+        digest.update(patchSignature.toByteArray(Charsets.UTF_8))
+        digest.update(0)
+      }
+      return digest.digest().joinToString("") { String.format("%02x", it) }
+    }
+  }
+
+  private val logger = getLogger()
+
+  private val previous = ProcessingCacheSerializer.read(cacheFile)?.takeIf {
+    it.configurationKey == configurationKey && it.inputs.size == inputs.size
+  }
+  private val fingerprints = inputs.mapIndexed { index, input ->
+    fingerprintInput(input, previous?.inputs?.get(index), executor)
+  }
+
+  val previousGeneratedFiles: Collection<String>
+    get() = previous?.generatedFiles.orEmpty()
+
+  // Returns files changed and removed in every input if the results of the previous run can be reused or null
+  // otherwise. The results can be reused if no changed file is relevant for the analysis and every patched output of
+  // the previous run is still in place.
+  fun findIrrelevantChanges(): List<InputChanges>? {
+    val previous = previous ?: return null
+    previous.generatedFiles.firstOrNull { !File(it).exists() }?.let { path ->
+      logger.info("Generated file {} is missing", path)
+      return null
+    }
+
+    val referencedTypes = HashSet<String>()
+    fingerprints.forEach { input ->
+      input.values.forEach { if (it.isRelevant) referencedTypes += it.referencedTypes }
+    }
+
+    return fingerprints.mapIndexed { index, current ->
+      val state = previous.inputs[index]
+      val changes = findChanges(index)
+      state.patchSignatures.keys.firstOrNull { path -> path !in changes && !isOutputIntact(index, path) }?.let { path ->
+        logger.info("Output {} of {} has been changed", path, outputs[index])
+        return null
+      }
+
+      changes.firstOrNull { path -> isRelevantChange(path, state.fingerprints[path], current[path], referencedTypes) }
+          ?.let { path ->
+            logger.info("Relevant file {} of {} has been changed", path, inputs[index])
+            return null
+          }
+      InputChanges(changes.filter { it in current }, changes.filterNot { it in current })
+    }
+  }
+
+  // Paths of the files of the input that existed in the previous run but don't exist anymore.
+  fun findRemovedFiles(index: Int): Collection<String> {
+    val previous = previous ?: return emptyList()
+    return previous.inputs[index].fingerprints.keys.filterNot { it in fingerprints[index] }
+  }
+
+  // An output of the previous run may be kept if neither its input nor the way it's patched has been changed and
+  // nothing else has overwritten it.
+  fun isOutputReusable(index: Int, path: String, patchSignature: String): Boolean {
+    val state = previous?.inputs?.get(index) ?: return false
+    val fingerprint = fingerprints[index][path] ?: return false
+    return fingerprint.crc == state.fingerprints[path]?.crc &&
+        patchSignature == state.patchSignatures[path].orEmpty() &&
+        isOutputIntact(index, path)
+  }
+
+  // Returns a filter of classes affected by the changes since the previous run or null if changes can't be tracked
+  // per class. Classes of archives aren't fingerprinted separately, so inputs with archives are never filtered.
+  fun createChangeFilter(): ChangeFilter? {
+    val previous = previous ?: return null
+    if (fingerprints.any { ARCHIVE_PATH in it }) {
+      return null
+    }
+
+    val changedTypes = HashSet<String>()
+    val referencedTypes = HashMap<String, Collection<String>>()
+    fingerprints.forEachIndexed { index, current ->
+      val state = previous.inputs[index]
+      findChanges(index).forEach { path ->
+        if (path.endsWith(CLASS_FILE_EXTENSION)) {
+          changedTypes += path.removeSuffix(CLASS_FILE_EXTENSION)
+        }
+      }
+      (state.fingerprints + current).forEach { (path, fingerprint) ->
+        if (fingerprint.isRelevant && path.endsWith(CLASS_FILE_EXTENSION)) {
+          val type = path.removeSuffix(CLASS_FILE_EXTENSION)
+          referencedTypes[type] = referencedTypes[type].orEmpty() + fingerprint.referencedTypes
+        }
+      }
+    }
+
+    return ChangeFilter(changedTypes, referencedTypes)
+  }
+
+  // Generated sources only refer to generated classes and Lightsaber, so the classes compiled from them are still
+  // valid if the sources haven't been changed.
+  fun isCompilationReusable(generatedSources: Map<String, Long>): Boolean {
+    val previous = previous ?: return false
+    return previous.generatedSources == generatedSources && previous.generatedFiles.all { File(it).exists() }
+  }
+
+  // Saves the state of the previous run for the current inputs when its results have been reused.
+  fun saveReusedResults() {
+    val previous = previous ?: return
+    save(previous.generatedFiles, previous.generatedSources, previous.inputs.map { it.patchSignatures })
+  }
+
+  fun save(
+      generatedFiles: Collection<String>,
+      generatedSources: Map<String, Long>,
+      patchSignatures: List<Map<String, String>>
+  ) {
+    val states = fingerprints.mapIndexed { index, current ->
+      val outputStamps = HashMap<String, FileStamp>(current.size)
+      current.keys.forEach { path -> outputStamps[path] = FileStamp.of(resolveOutput(index, path)) }
+      InputState(current, outputStamps, patchSignatures[index])
+    }
+
+    val cache = ProcessingCache(configurationKey, states, generatedFiles, generatedSources)
+    ProcessingCacheSerializer.write(cacheFile, cache)
+  }
+
+  fun invalidate() {
+    cacheFile.delete()
+  }
+
+  private fun findChanges(index: Int): Set<String> {
+    val current = fingerprints[index]
+    val state = previous?.inputs?.get(index) ?: return current.keys
+    return (current.keys + state.fingerprints.keys).filterTo(HashSet()) { path ->
+      current[path]?.crc != state.fingerprints[path]?.crc
+    }
+  }
+
+  private fun isOutputIntact(index: Int, path: String): Boolean {
+    val stamp = previous?.inputs?.get(index)?.outputStamps?.get(path) ?: return false
+    return FileStamp.of(resolveOutput(index, path)) == stamp
+  }
+
+  private fun isRelevantChange(
+      path: String,
+      previous: FileFingerprint?,
+      current: FileFingerprint?,
+      referencedTypes: Set<String>
+  ): Boolean {
+    return previous?.isRelevant == true || current?.isRelevant == true ||
+        (path.endsWith(CLASS_FILE_EXTENSION) && path.removeSuffix(CLASS_FILE_EXTENSION) in referencedTypes)
+  }
+
+  private fun resolveOutput(index: Int, path: String): File {
+    return if (path == ARCHIVE_PATH) outputs[index] else File(outputs[index], path)
+  }
+
+  private fun fingerprintInput(
+      input: File,
+      previous: InputState?,
+      executor: ParallelExecutor
+  ): Map<String, FileFingerprint> {
+    val files = when {
+      input.isDirectory ->
+        input.walkTopDown().filter { it.isFile }.map { it.toRelativeString(input).replace(File.separatorChar, '/') }
+      input.isFile -> sequenceOf(ARCHIVE_PATH)
+      else -> emptySequence()
+    }.toList()
+
+    val fingerprints = executor.map(files) { path ->
+      val file = if (path == ARCHIVE_PATH) input else File(input, path)
+      val stamp = FileStamp.of(file)
+      val fingerprint = previous?.fingerprints?.get(path)
+      if (fingerprint != null && fingerprint.stamp == stamp) fingerprint else fingerprintFile(file, path, stamp)
+    }
+    return files.zip(fingerprints).toMap(HashMap())
+  }
+
+  private fun fingerprintFile(file: File, path: String, stamp: FileStamp): FileFingerprint {
+    val data = file.readBytes()
+    val crc = CRC32().run {
+      update(data)
+      value
+    }
+
+    return when {
+      // Archives aren't looked into, so any change to them is considered relevant.
+      path == ARCHIVE_PATH -> FileFingerprint(stamp, crc, true, emptyList())
+      path.endsWith(CLASS_FILE_EXTENSION) -> {
+        val summary = ClassScanner.scan(data)
+        FileFingerprint(stamp, crc, summary.isRelevant, summary.referencedTypes)
+      }
+      else -> FileFingerprint(stamp, crc, false, emptyList())
+    }
+  }
+}
+
+class InputChanges(
+    val changedFiles: Collection<String>,
+    val removedFiles: Collection<String>
+)
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.cache
+
+import java.io.File
+
+class ProcessingCache(
+    val configurationKey: String,
+    val inputs: List<InputState>,
+    val generatedFiles: Collection<String>,
+    val generatedSources: Map<String, Long>
+)
+
+class InputState(
+    val fingerprints: Map<String, FileFingerprint>,
+    val outputStamps: Map<String, FileStamp>,
+    val patchSignatures: Map<String, String>
+)
+
+class FileFingerprint(
+    val stamp: FileStamp,
+    val crc: Long,
+    val isRelevant: Boolean,
+    val referencedTypes: Collection<String>
+)
+
+data class FileStamp(val length: Long, val lastModified: Long) {
+  companion object {
+    fun of(file: File) = FileStamp(file.length(), file.lastModified())
+  }
+}
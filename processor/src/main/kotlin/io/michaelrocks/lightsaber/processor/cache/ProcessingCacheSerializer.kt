@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.cache
+
+import io.michaelrocks.lightsaber.processor.commons.using
+import io.michaelrocks.lightsaber.processor.logging.getLogger
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.util.ArrayList
+import java.util.HashMap
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+object ProcessingCacheSerializer {
+  private const val MAGIC = 0x4c534348
+  // Must be incremented whenever the format or the meaning of the stored data changes.
+  const val VERSION = 2
+
+  private val logger = getLogger()
+
+  fun read(file: File): ProcessingCache? {
+    if (!file.isFile) {
+      return null
+    }
+
+    return try {
+      using(DataInputStream(GZIPInputStream(file.inputStream().buffered()))) { it.readCache() }
+    } catch (exception: IOException) {
+      logger.warn("Cannot read processing cache from {}: {}", file, exception.message)
+      null
+    }
+  }
+
+  fun write(file: File, cache: ProcessingCache) {
+    file.parentFile?.mkdirs()
+    using(DataOutputStream(GZIPOutputStream(file.outputStream().buffered()))) { it.writeCache(cache) }
+  }
+
+  private fun DataInputStream.readCache(): ProcessingCache? {
+    if (readInt() != MAGIC || readInt() != VERSION) {
+      return null
+    }
+
+    val configurationKey = readUTF()
+    val inputs = readList { readInputState() }
+    val generatedFiles = readList { readUTF() }
+    val generatedSources = readMap { readLong() }
+    return ProcessingCache(configurationKey, inputs, generatedFiles, generatedSources)
+  }
+
+  private fun DataOutputStream.writeCache(cache: ProcessingCache) {
+    writeInt(MAGIC)
+    writeInt(VERSION)
+    writeUTF(cache.configurationKey)
+    writeList(cache.inputs) { writeInputState(it) }
+    writeList(cache.generatedFiles) { writeUTF(it) }
+    writeMap(cache.generatedSources) { writeLong(it) }
+  }
+
+  private fun DataInputStream.readInputState(): InputState {
+    val fingerprints = readMap { readFileFingerprint() }
+    val outputStamps = readMap { readFileStamp() }
+    val patchSignatures = readMap { readUTF() }
+    return InputState(fingerprints, outputStamps, patchSignatures)
+  }
+
+  private fun DataOutputStream.writeInputState(state: InputState) {
+    writeMap(state.fingerprints) { writeFileFingerprint(it) }
+    writeMap(state.outputStamps) { writeFileStamp(it) }
+    writeMap(state.patchSignatures) { writeUTF(it) }
+  }
+
+  private fun DataInputStream.readFileFingerprint(): FileFingerprint {
+    val stamp = readFileStamp()
+    val crc = readLong()
+    val isRelevant = readBoolean()
+    val referencedTypes = readList { readUTF() }
+    return FileFingerprint(stamp, crc, isRelevant, referencedTypes)
+  }
+
+  private fun DataOutputStream.writeFileFingerprint(fingerprint: FileFingerprint) {
+    writeFileStamp(fingerprint.stamp)
+    writeLong(fingerprint.crc)
+    writeBoolean(fingerprint.isRelevant)
+    writeList(fingerprint.referencedTypes) { writeUTF(it) }
+  }
+
+  private fun DataInputStream.readFileStamp(): FileStamp {
+    val length = readLong()
+    val lastModified = readLong()
+    return FileStamp(length, lastModified)
+  }
+
+  private fun DataOutputStream.writeFileStamp(stamp: FileStamp) {
+    writeLong(stamp.length)
+    writeLong(stamp.lastModified)
+  }
+
+  private inline fun <T> DataInputStream.readList(readElement: DataInputStream.() -> T): List<T> {
+    val size = readInt()
+    val list = ArrayList<T>(size)
+    repeat(size) { list += readElement() }
+    return list
+  }
+
+  private inline fun <T> DataOutputStream.writeList(list: Collection<T>, writeElement: DataOutputStream.(T) -> Unit) {
+    writeInt(list.size)
+    list.forEach { writeElement(it) }
+  }
+
+  private inline fun <T> DataInputStream.readMap(readValue: DataInputStream.() -> T): Map<String, T> {
+    val size = readInt()
+    val map = HashMap<String, T>(size)
+    repeat(size) {
+      val key = readUTF()
+      map[key] = readValue()
+    }
+    return map
+  }
+
+  private inline fun <T> DataOutputStream.writeMap(map: Map<String, T>, writeValue: DataOutputStream.(T) -> Unit) {
+    writeInt(map.size)
+    map.forEach { (key, value) ->
+      writeUTF(key)
+      writeValue(value)
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.commons
+
+import java.io.Closeable
+import java.util.concurrent.Callable
+import java.util.concurrent.ForkJoinPool
+
+class ParallelExecutor(threads: Int) : Closeable {
+  // A single thread doesn't need a pool, so the work is performed on the calling thread.
+  private val pool = if (threads > 1) ForkJoinPool(threads) else null
+
+  // Results are returned in the order of the elements regardless of the order the work has been completed in.
+  fun <T, R> map(elements: Iterable<T>, action: (T) -> R): List<R> {
+    val pool = pool ?: return elements.map(action)
+    // Tasks catch exceptions themselves because a ForkJoinTask rethrows a copy of an exception thrown on another
+    // thread.
+    val tasks = elements.map { element ->
+      pool.submit(Callable<Any?> {
+        try {
+          action(element)
+        } catch (exception: Throwable) {
+          Failure(exception)
+        }
+      })
+    }
+    return tasks.map { task ->
+      val result = task.get()
+      if (result is Failure) {
+        throw result.exception
+      }
+      @Suppress("UNCHECKED_CAST")
+      result as R
+    }
+  }
+
+  fun <T> forEach(elements: Iterable<T>, action: (T) -> Unit) {
+    map(elements, action)
+  }
+
+  override fun close() {
+    pool?.shutdown()
+  }
+
+  private class Failure(val exception: Throwable)
+}
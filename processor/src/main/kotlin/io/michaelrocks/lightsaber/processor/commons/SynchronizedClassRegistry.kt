@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.commons
+
+import io.michaelrocks.grip.ClassRegistry
+import io.michaelrocks.grip.mirrors.AnnotationMirror
+import io.michaelrocks.grip.mirrors.ClassMirror
+import io.michaelrocks.grip.mirrors.Type
+
+// Grip reads and caches mirrors lazily without any synchronization. Most of the mirrors are already cached after
+// the analysis, so serializing the lookups doesn't stall workers for long.
+class SynchronizedClassRegistry(private val classRegistry: ClassRegistry) : ClassRegistry {
+  private val lock = Any()
+
+  override fun getClassMirror(type: Type.Object): ClassMirror {
+    return synchronized(lock) { classRegistry.getClassMirror(type) }
+  }
+
+  override fun getAnnotationMirror(type: Type.Object): AnnotationMirror {
+    return synchronized(lock) { classRegistry.getAnnotationMirror(type) }
+  }
+}
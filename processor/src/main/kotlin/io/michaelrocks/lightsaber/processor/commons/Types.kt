@@ -21,12 +21,27 @@ import io.michaelrocks.bimap.HashBiMap
 import io.michaelrocks.grip.mirrors.Type
 import io.michaelrocks.grip.mirrors.getObjectType
 import io.michaelrocks.lightsaber.Component
+import io.michaelrocks.lightsaber.Idempotent
 import io.michaelrocks.lightsaber.Injector
+import io.michaelrocks.lightsaber.IntoMap
+import io.michaelrocks.lightsaber.IntoSet
 import io.michaelrocks.lightsaber.Key
 import io.michaelrocks.lightsaber.Lazy
+import io.michaelrocks.lightsaber.MapKey
 import io.michaelrocks.lightsaber.Module
 import io.michaelrocks.lightsaber.Provides
+import io.michaelrocks.lightsaber.ScopeProvider
+import io.michaelrocks.lightsaber.internal.DeferredModule
+import io.michaelrocks.lightsaber.internal.FactoryProvider
+import io.michaelrocks.lightsaber.internal.IndexedInjector
 import io.michaelrocks.lightsaber.internal.InjectingProvider
+import io.michaelrocks.lightsaber.internal.InjectorMetrics
+import io.michaelrocks.lightsaber.internal.InstrumentedProvider
+import io.michaelrocks.lightsaber.internal.MapMultibindingProvider
+import io.michaelrocks.lightsaber.internal.ModuleRetriever
+import io.michaelrocks.lightsaber.internal.ProviderFactory
+import io.michaelrocks.lightsaber.internal.SetMultibindingProvider
+import io.michaelrocks.lightsaber.internal.StartupTrace
 import javax.inject.Inject
 import javax.inject.Provider
 import javax.inject.Qualifier
@@ -38,18 +53,35 @@ object Types {
   val STRING_TYPE = getObjectType<String>()
   val INJECT_TYPE = getObjectType<Inject>()
   val PROVIDES_TYPE = getObjectType<Provides>()
+  val INTO_SET_TYPE = getObjectType<IntoSet>()
+  val INTO_MAP_TYPE = getObjectType<IntoMap>()
+  val MAP_KEY_TYPE = getObjectType<MapKey>()
   val COMPONENT_TYPE = getObjectType<Component>()
   val MODULE_TYPE = getObjectType<Module>()
   val QUALIFIER_TYPE = getObjectType<Qualifier>()
   val SINGLETON_TYPE = getObjectType<Singleton>()
+  val IDEMPOTENT_TYPE = getObjectType<Idempotent>()
+  val SCOPE_PROVIDER_TYPE = getObjectType<ScopeProvider>()
   val INJECTOR_TYPE = getObjectType<Injector>()
   val PROVIDER_TYPE = getObjectType<Provider<*>>()
   val LAZY_TYPE = getObjectType<Lazy<*>>()
   val KEY_TYPE = getObjectType<Key<*>>()
   val CLASS_TYPE = getObjectType<Class<*>>()
+  val SET_TYPE = getObjectType<Set<*>>()
+  val MAP_TYPE = getObjectType<Map<*, *>>()
   val TYPE_TYPE = getObjectType<JavaType>()
   val ANNOTATION_TYPE = getObjectType<Annotation>()
   val INJECTING_PROVIDER_TYPE = getObjectType<InjectingProvider<*>>()
+  val INDEXED_INJECTOR_TYPE = getObjectType<IndexedInjector>()
+  val INJECTOR_METRICS_TYPE = getObjectType<InjectorMetrics>()
+  val INSTRUMENTED_PROVIDER_TYPE = getObjectType<InstrumentedProvider<*>>()
+  val STARTUP_TRACE_TYPE = getObjectType<StartupTrace>()
+  val PROVIDER_FACTORY_TYPE = getObjectType<ProviderFactory>()
+  val MODULE_RETRIEVER_TYPE = getObjectType<ModuleRetriever>()
+  val DEFERRED_MODULE_TYPE = getObjectType<DeferredModule>()
+  val FACTORY_PROVIDER_TYPE = getObjectType<FactoryProvider<*>>()
+  val SET_MULTIBINDING_PROVIDER_TYPE = getObjectType<SetMultibindingProvider<*>>()
+  val MAP_MULTIBINDING_PROVIDER_TYPE = getObjectType<MapMultibindingProvider<*, *>>()
 
   val BOXED_VOID_TYPE = getObjectType<Void>()
   val BOXED_BOOLEAN_TYPE = getObjectType<Boolean>()
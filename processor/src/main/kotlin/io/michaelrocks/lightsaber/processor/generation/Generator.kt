@@ -22,8 +22,10 @@ import io.michaelrocks.grip.mirrors.getObjectTypeByInternalName
 import io.michaelrocks.grip.mirrors.isPublic
 import io.michaelrocks.grip.mirrors.packageName
 import io.michaelrocks.grip.mirrors.signature.GenericType
+import io.michaelrocks.lightsaber.internal.IndexedInjector
 import io.michaelrocks.lightsaber.processor.ErrorReporter
 import io.michaelrocks.lightsaber.processor.annotations.proxy.AnnotationCreator
+import io.michaelrocks.lightsaber.processor.commons.ParallelExecutor
 import io.michaelrocks.lightsaber.processor.commons.Types
 import io.michaelrocks.lightsaber.processor.commons.associateByIndexedTo
 import io.michaelrocks.lightsaber.processor.commons.boxedOrElementType
@@ -42,13 +44,16 @@ import io.michaelrocks.lightsaber.processor.io.FileSink
 import io.michaelrocks.lightsaber.processor.model.Component
 import io.michaelrocks.lightsaber.processor.model.Dependency
 import io.michaelrocks.lightsaber.processor.model.InjectionContext
+import io.michaelrocks.lightsaber.processor.model.bindingDependency
 import java.util.HashMap
 
 class Generator(
     private val classRegistry: ClassRegistry,
     private val errorReporter: ErrorReporter,
     private val fileSink: FileSink,
-    private val sourceSink: FileSink
+    private val sourceSink: FileSink,
+    private val options: GenerationOptions = GenerationOptions(),
+    private val executor: ParallelExecutor = ParallelExecutor(1)
 ) {
   private val classProducer = ProcessorClassProducer(fileSink, errorReporter)
   private val sourceProducer = ProcessorSourceProducer(sourceSink, errorReporter)
@@ -67,25 +72,35 @@ class Generator(
     sourceSink.flush()
   }
 
-  private fun composeGeneratorModel(context: InjectionContext) =
-      GenerationContext(
-          composePackageInjectorConfigurator(context),
-          composeInjectorConfigurators(context),
-          composeMembersInjectors(context),
-          composePackageInvaders(context),
-          composeKeyRegistry(context)
-      )
+  private fun composeGeneratorModel(context: InjectionContext): GenerationContext {
+    val warmUpScheduleComposer = WarmUpScheduleComposer(context)
+    return GenerationContext(
+        composePackageInjectorConfigurator(context, warmUpScheduleComposer),
+        composeInjectorConfigurators(context, warmUpScheduleComposer),
+        composeMembersInjectors(context),
+        composePackageInvaders(context),
+        composeKeyRegistry(context)
+    )
+  }
 
-  private fun composePackageInjectorConfigurator(context: InjectionContext): InjectorConfigurator {
+  private fun composePackageInjectorConfigurator(
+      context: InjectionContext,
+      warmUpScheduleComposer: WarmUpScheduleComposer
+  ): InjectorConfigurator {
     val configuratorType = composeConfiguratorType(context.packageComponent)
-    return InjectorConfigurator(configuratorType, context.packageComponent)
+    val warmUpSchedule = warmUpScheduleComposer.composeSchedule(context.packageComponent)
+    return InjectorConfigurator(configuratorType, context.packageComponent, warmUpSchedule)
   }
 
-  private fun composeInjectorConfigurators(context: InjectionContext): Collection<InjectorConfigurator> {
+  private fun composeInjectorConfigurators(
+      context: InjectionContext,
+      warmUpScheduleComposer: WarmUpScheduleComposer
+  ): Collection<InjectorConfigurator> {
     return context.components
         .map { component ->
           val configuratorType = composeConfiguratorType(component)
-          InjectorConfigurator(configuratorType, component)
+          val warmUpSchedule = warmUpScheduleComposer.composeSchedule(component)
+          InjectorConfigurator(configuratorType, component, warmUpSchedule)
         }
   }
 
@@ -144,45 +159,48 @@ class Generator(
 
   private fun composeKeyRegistry(context: InjectionContext): KeyRegistry {
     val type = getObjectTypeByInternalName("io/michaelrocks/lightsaber/KeyRegistry")
-    val keys = context.allComponents.asSequence()
+    val injectorDependency = Dependency(GenericType.Raw(Types.INJECTOR_TYPE))
+    val dependencies = context.allComponents.asSequence()
         .flatMap { it.modules.asSequence() }
         .flatMap { it.providers.asSequence() }
+        .map { it.bindingDependency.box() }
+        .filter { it != injectorDependency }
+        .distinct()
         .asIterable()
-        .associateByIndexedTo(
-            HashMap(),
-            { _, provider -> provider.dependency.box() },
-            { index, provider -> composeKey("key$index", provider.dependency) }
-        )
-    val injectorDependency = Dependency(GenericType.Raw(Types.INJECTOR_TYPE))
-    keys.put(injectorDependency, composeKey("injectorKey", injectorDependency))
+    val keys = dependencies.associateByIndexedTo(
+        HashMap(),
+        { _, dependency -> dependency },
+        { index, dependency -> composeKey("key$index", dependency, index + 1) }
+    )
+    keys.put(injectorDependency, composeKey("injectorKey", injectorDependency, IndexedInjector.INJECTOR_SLOT))
     return KeyRegistry(type, keys)
   }
 
-  private fun composeKey(name: String, dependency: Dependency): Key {
+  private fun composeKey(name: String, dependency: Dependency, slot: Int): Key {
     return when {
-      dependency.qualifier != null -> Key.QualifiedType(FieldDescriptor(name, Types.KEY_TYPE))
-      dependency.type is GenericType.Raw -> Key.Class(FieldDescriptor(name, Types.CLASS_TYPE))
-      else -> Key.Type(FieldDescriptor(name, Types.TYPE_TYPE))
+      dependency.qualifier != null -> Key.QualifiedType(FieldDescriptor(name, Types.KEY_TYPE), slot)
+      dependency.type is GenericType.Raw -> Key.Class(FieldDescriptor(name, Types.CLASS_TYPE), slot)
+      else -> Key.Type(FieldDescriptor(name, Types.TYPE_TYPE), slot)
     }
   }
 
   private fun generateProviders(injectionContext: InjectionContext, generationContext: GenerationContext) {
-    val generator = ProvidersGenerator(classProducer, classRegistry)
+    val generator = ProvidersGenerator(classProducer, classRegistry, options, executor)
     generator.generate(injectionContext, generationContext)
   }
 
   private fun generateInjectorConfigurators(generationContext: GenerationContext) {
-    val generator = InjectorConfiguratorsGenerator(classProducer, classRegistry)
+    val generator = InjectorConfiguratorsGenerator(classProducer, classRegistry, options, executor)
     generator.generate(generationContext)
   }
 
   private fun generateInjectors(generationContext: GenerationContext) {
-    val generator = MembersInjectorsGenerator(classProducer, classRegistry)
+    val generator = MembersInjectorsGenerator(classProducer, classRegistry, executor)
     generator.generate(generationContext)
   }
 
   private fun generatePackageInvaders(generationContext: GenerationContext) {
-    val generator = PackageInvadersGenerator(classProducer, classRegistry)
+    val generator = PackageInvadersGenerator(classProducer, classRegistry, executor)
     generator.generate(generationContext)
   }
 
@@ -192,7 +210,7 @@ class Generator(
   }
 
   private fun generateInjectionDispatcher(generationContext: GenerationContext) {
-    val generator = InjectorDispatcherSourceGenerator(sourceProducer, classRegistry)
+    val generator = InjectorDispatcherSourceGenerator(sourceProducer)
     generator.generate(generationContext)
   }
 }
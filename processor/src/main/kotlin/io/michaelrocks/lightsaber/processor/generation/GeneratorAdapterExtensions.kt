@@ -20,6 +20,7 @@ import io.michaelrocks.grip.mirrors.Type
 import io.michaelrocks.lightsaber.LightsaberTypes
 import io.michaelrocks.lightsaber.processor.commons.GeneratorAdapter
 import io.michaelrocks.lightsaber.processor.commons.Types
+import io.michaelrocks.lightsaber.processor.commons.newLocal
 import io.michaelrocks.lightsaber.processor.commons.rawType
 import io.michaelrocks.lightsaber.processor.descriptors.MethodDescriptor
 import io.michaelrocks.lightsaber.processor.generation.model.Key
@@ -33,28 +34,38 @@ import io.michaelrocks.lightsaber.processor.model.Scope
 private val PROVIDER_GET_METHOD = MethodDescriptor.forMethod("get", Types.OBJECT_TYPE)
 private val ADAPTER_CONSTRUCTOR = MethodDescriptor.forConstructor(Types.PROVIDER_TYPE)
 
-private val GET_PROVIDER_FOR_CLASS_METHOD =
-    MethodDescriptor.forMethod("getProvider", Types.PROVIDER_TYPE, Types.CLASS_TYPE)
-private val GET_PROVIDER_FOR_TYPE_METHOD =
-    MethodDescriptor.forMethod("getProvider", Types.PROVIDER_TYPE, Types.TYPE_TYPE)
-private val GET_PROVIDER_FOR_KEY_METHOD =
-    MethodDescriptor.forMethod("getProvider", Types.PROVIDER_TYPE, Types.KEY_TYPE)
-
-private val GET_INSTANCE_FOR_CLASS_METHOD =
-    MethodDescriptor.forMethod("getInstance", Types.OBJECT_TYPE, Types.CLASS_TYPE)
-private val GET_INSTANCE_FOR_TYPE_METHOD =
-    MethodDescriptor.forMethod("getInstance", Types.OBJECT_TYPE, Types.TYPE_TYPE)
-private val GET_INSTANCE_FOR_KEY_METHOD =
-    MethodDescriptor.forMethod("getInstance", Types.OBJECT_TYPE, Types.KEY_TYPE)
+private val GET_PROVIDER_FOR_SLOT_METHOD =
+    MethodDescriptor.forMethod("getProvider", Types.PROVIDER_TYPE, Type.Primitive.Int)
+private val GET_INSTANCE_FOR_SLOT_METHOD =
+    MethodDescriptor.forMethod("getInstance", Types.OBJECT_TYPE, Type.Primitive.Int)
 
 private val REGISTER_PROVIDER_FOR_CLASS_METHOD =
-    MethodDescriptor.forMethod("registerProvider", Type.Primitive.Void, Types.CLASS_TYPE, Types.INJECTING_PROVIDER_TYPE)
+    MethodDescriptor.forMethod("registerProvider",
+        Type.Primitive.Void, Type.Primitive.Int, Types.CLASS_TYPE, Types.INJECTING_PROVIDER_TYPE)
 private val REGISTER_PROVIDER_FOR_TYPE_METHOD =
-    MethodDescriptor.forMethod("registerProvider", Type.Primitive.Void, Types.TYPE_TYPE, Types.INJECTING_PROVIDER_TYPE)
+    MethodDescriptor.forMethod("registerProvider",
+        Type.Primitive.Void, Type.Primitive.Int, Types.TYPE_TYPE, Types.INJECTING_PROVIDER_TYPE)
 private val REGISTER_PROVIDER_FOR_KEY_METHOD =
-    MethodDescriptor.forMethod("registerProvider", Type.Primitive.Void, Types.KEY_TYPE, Types.INJECTING_PROVIDER_TYPE)
+    MethodDescriptor.forMethod("registerProvider",
+        Type.Primitive.Void, Type.Primitive.Int, Types.KEY_TYPE, Types.INJECTING_PROVIDER_TYPE)
+
+private val REGISTER_LAZY_PROVIDER_FOR_CLASS_METHOD =
+    MethodDescriptor.forMethod("registerLazyProvider",
+        Type.Primitive.Void, Type.Primitive.Int, Types.CLASS_TYPE, Types.PROVIDER_FACTORY_TYPE, Type.Primitive.Int)
+private val REGISTER_LAZY_PROVIDER_FOR_TYPE_METHOD =
+    MethodDescriptor.forMethod("registerLazyProvider",
+        Type.Primitive.Void, Type.Primitive.Int, Types.TYPE_TYPE, Types.PROVIDER_FACTORY_TYPE, Type.Primitive.Int)
+private val REGISTER_LAZY_PROVIDER_FOR_KEY_METHOD =
+    MethodDescriptor.forMethod("registerLazyProvider",
+        Type.Primitive.Void, Type.Primitive.Int, Types.KEY_TYPE, Types.PROVIDER_FACTORY_TYPE, Type.Primitive.Int)
+
+private val TRACE_BEGIN_METHOD = MethodDescriptor.forMethod("begin", Type.Primitive.Long)
+private val TRACE_END_METHOD =
+    MethodDescriptor.forMethod("end", Type.Primitive.Void, Types.STRING_TYPE, Type.Primitive.Long)
 
 private val DELEGATE_PROVIDER_CONSTRUCTOR = MethodDescriptor.forConstructor(Types.INJECTING_PROVIDER_TYPE)
+private val INSTRUMENTED_PROVIDER_CONSTRUCTOR =
+    MethodDescriptor.forConstructor(Types.INDEXED_INJECTOR_TYPE, Type.Primitive.Int, Types.INJECTING_PROVIDER_TYPE)
 
 fun GeneratorAdapter.getDependency(keyRegistry: KeyRegistry, injectee: Injectee) {
   when (injectee.converter) {
@@ -75,42 +86,124 @@ fun GeneratorAdapter.getDependency(keyRegistry: KeyRegistry, injectee: Injectee)
   }
 }
 
+fun GeneratorAdapter.convertDependency(injectee: Injectee) {
+  when (injectee.converter) {
+    is Converter.Identity -> {
+    }
+    is Converter.Instance -> {
+      invokeInterface(Types.PROVIDER_TYPE, PROVIDER_GET_METHOD)
+      unbox(injectee.dependency.type.rawType)
+    }
+    is Converter.Adapter -> {
+      newInstance(injectee.converter.adapterType)
+      dupX1()
+      swap()
+      invokeConstructor(injectee.converter.adapterType, ADAPTER_CONSTRUCTOR)
+    }
+  }
+}
+
 fun GeneratorAdapter.getProvider(keyRegistry: KeyRegistry, dependency: Dependency) {
   val key = getKey(keyRegistry, dependency)
-  getStatic(keyRegistry.type, key.field)
+  checkCast(Types.INDEXED_INJECTOR_TYPE)
+  push(key.slot)
+  invokeInterface(Types.INDEXED_INJECTOR_TYPE, GET_PROVIDER_FOR_SLOT_METHOD)
+}
 
-  when (key) {
-    is Key.Class -> invokeInterface(Types.INJECTOR_TYPE, GET_PROVIDER_FOR_CLASS_METHOD)
-    is Key.Type -> invokeInterface(Types.INJECTOR_TYPE, GET_PROVIDER_FOR_TYPE_METHOD)
-    is Key.QualifiedType -> invokeInterface(Types.INJECTOR_TYPE, GET_PROVIDER_FOR_KEY_METHOD)
+fun GeneratorAdapter.getInstance(keyRegistry: KeyRegistry, dependency: Dependency) {
+  val key = getKey(keyRegistry, dependency)
+  checkCast(Types.INDEXED_INJECTOR_TYPE)
+  push(key.slot)
+  invokeInterface(Types.INDEXED_INJECTOR_TYPE, GET_INSTANCE_FOR_SLOT_METHOD)
+}
+
+fun GeneratorAdapter.registerProvider(
+    keyRegistry: KeyRegistry,
+    provider: Provider,
+    instrument: Boolean = false,
+    providerCreator: () -> Unit
+) {
+  registerProvider(keyRegistry, provider.dependency) {
+    newProvider(keyRegistry, provider, instrument, providerCreator)
   }
 }
 
-fun GeneratorAdapter.getInstance(keyRegistry: KeyRegistry, dependency: Dependency) {
+// Registers a provider created by the provider creator as is.
+fun GeneratorAdapter.registerProvider(keyRegistry: KeyRegistry, dependency: Dependency, providerCreator: () -> Unit) {
   val key = getKey(keyRegistry, dependency)
+  push(key.slot)
   getStatic(keyRegistry.type, key.field)
+  providerCreator()
 
   when (key) {
-    is Key.Class -> invokeInterface(Types.INJECTOR_TYPE, GET_INSTANCE_FOR_CLASS_METHOD)
-    is Key.Type -> invokeInterface(Types.INJECTOR_TYPE, GET_INSTANCE_FOR_TYPE_METHOD)
-    is Key.QualifiedType -> invokeInterface(Types.INJECTOR_TYPE, GET_INSTANCE_FOR_KEY_METHOD)
+    is Key.Class -> invokeVirtual(LightsaberTypes.LIGHTSABER_INJECTOR_TYPE, REGISTER_PROVIDER_FOR_CLASS_METHOD)
+    is Key.Type -> invokeVirtual(LightsaberTypes.LIGHTSABER_INJECTOR_TYPE, REGISTER_PROVIDER_FOR_TYPE_METHOD)
+    is Key.QualifiedType -> invokeVirtual(LightsaberTypes.LIGHTSABER_INJECTOR_TYPE, REGISTER_PROVIDER_FOR_KEY_METHOD)
   }
 }
 
-fun GeneratorAdapter.registerProvider(keyRegistry: KeyRegistry, provider: Provider, providerCreator: () -> Unit) {
+// Registers a binding whose provider will be created by a provider factory on first use.
+fun GeneratorAdapter.registerLazyProvider(keyRegistry: KeyRegistry, provider: Provider, factoryLocal: Int, id: Int) {
   val key = getKey(keyRegistry, provider.dependency)
+  push(key.slot)
   getStatic(keyRegistry.type, key.field)
+  loadLocal(factoryLocal)
+  push(id)
+
+  when (key) {
+    is Key.Class -> invokeVirtual(LightsaberTypes.LIGHTSABER_INJECTOR_TYPE, REGISTER_LAZY_PROVIDER_FOR_CLASS_METHOD)
+    is Key.Type -> invokeVirtual(LightsaberTypes.LIGHTSABER_INJECTOR_TYPE, REGISTER_LAZY_PROVIDER_FOR_TYPE_METHOD)
+    is Key.QualifiedType ->
+      invokeVirtual(LightsaberTypes.LIGHTSABER_INJECTOR_TYPE, REGISTER_LAZY_PROVIDER_FOR_KEY_METHOD)
+  }
+}
+
+// Leaves a provider created by the provider creator and wrapped according to its scope on the stack. The injector
+// must be the first argument of the method being generated.
+fun GeneratorAdapter.newProvider(
+    keyRegistry: KeyRegistry,
+    provider: Provider,
+    instrument: Boolean,
+    providerCreator: () -> Unit
+) {
+  if (instrument) {
+    val key = getKey(keyRegistry, provider.dependency)
+    newInstrumentedProvider(key.slot) {
+      newScopedProvider(provider, providerCreator)
+    }
+  } else {
+    newScopedProvider(provider, providerCreator)
+  }
+}
+
+// Returns a local that holds the start time of the traced event.
+fun GeneratorAdapter.beginTrace(): Int {
+  return newLocal(Type.Primitive.Long) {
+    invokeStatic(Types.STARTUP_TRACE_TYPE, TRACE_BEGIN_METHOD)
+  }
+}
+
+fun GeneratorAdapter.endTrace(name: String, startNanosLocal: Int) {
+  push(name)
+  loadLocal(startNanosLocal)
+  invokeStatic(Types.STARTUP_TRACE_TYPE, TRACE_END_METHOD)
+}
 
+private fun GeneratorAdapter.newScopedProvider(provider: Provider, providerCreator: () -> Unit) {
   when (provider.scope) {
     is Scope.Class -> newDelegator(provider.scope.scopeType, providerCreator)
     is Scope.None -> providerCreator()
   }
+}
 
-  when (key) {
-    is Key.Class -> invokeVirtual(LightsaberTypes.LIGHTSABER_INJECTOR_TYPE, REGISTER_PROVIDER_FOR_CLASS_METHOD)
-    is Key.Type -> invokeVirtual(LightsaberTypes.LIGHTSABER_INJECTOR_TYPE, REGISTER_PROVIDER_FOR_TYPE_METHOD)
-    is Key.QualifiedType -> invokeVirtual(LightsaberTypes.LIGHTSABER_INJECTOR_TYPE, REGISTER_PROVIDER_FOR_KEY_METHOD)
-  }
+private fun GeneratorAdapter.newInstrumentedProvider(slot: Int, providerCreator: () -> Unit) {
+  newInstance(Types.INSTRUMENTED_PROVIDER_TYPE)
+  dup()
+  loadArg(0)
+  checkCast(Types.INDEXED_INJECTOR_TYPE)
+  push(slot)
+  providerCreator()
+  invokeConstructor(Types.INSTRUMENTED_PROVIDER_TYPE, INSTRUMENTED_PROVIDER_CONSTRUCTOR)
 }
 
 private fun GeneratorAdapter.newDelegator(scopeType: Type, providerCreator: () -> Unit) {
@@ -17,7 +17,10 @@
 package io.michaelrocks.lightsaber.processor.generation
 
 import io.michaelrocks.grip.ClassRegistry
+import io.michaelrocks.grip.mirrors.EnumMirror
 import io.michaelrocks.grip.mirrors.Type
+import io.michaelrocks.grip.mirrors.getObjectType
+import io.michaelrocks.grip.mirrors.toArrayType
 import io.michaelrocks.lightsaber.LightsaberTypes
 import io.michaelrocks.lightsaber.processor.commons.GeneratorAdapter
 import io.michaelrocks.lightsaber.processor.commons.StandaloneClassWriter
@@ -30,29 +33,55 @@ import io.michaelrocks.lightsaber.processor.commons.toMethodDescriptor
 import io.michaelrocks.lightsaber.processor.descriptors.MethodDescriptor
 import io.michaelrocks.lightsaber.processor.generation.model.InjectorConfigurator
 import io.michaelrocks.lightsaber.processor.generation.model.KeyRegistry
+import io.michaelrocks.lightsaber.processor.model.Contribution
+import io.michaelrocks.lightsaber.processor.model.Module
 import io.michaelrocks.lightsaber.processor.model.ModuleProvider
 import io.michaelrocks.lightsaber.processor.model.ModuleProvisionPoint
+import io.michaelrocks.lightsaber.processor.model.Multibinding
 import io.michaelrocks.lightsaber.processor.model.Provider
 import io.michaelrocks.lightsaber.processor.model.isConstructorProvider
+import io.michaelrocks.lightsaber.processor.model.isMap
 import io.michaelrocks.lightsaber.processor.watermark.WatermarkClassVisitor
+import org.objectweb.asm.ClassVisitor
 import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
 import org.objectweb.asm.Opcodes.ACC_PUBLIC
 import org.objectweb.asm.Opcodes.ACC_SUPER
 import org.objectweb.asm.Opcodes.V1_6
+import org.objectweb.asm.commons.TableSwitchGenerator
+import java.util.HashMap
 
 class InjectorConfiguratorClassGenerator(
     private val classRegistry: ClassRegistry,
     private val keyRegistry: KeyRegistry,
-    private val injectorConfigurator: InjectorConfigurator
+    private val injectorConfigurator: InjectorConfigurator,
+    private val options: GenerationOptions = GenerationOptions()
 ) {
   companion object {
     private val CONFIGURE_INJECTOR_METHOD =
         MethodDescriptor.forMethod("configureInjector",
             Type.Primitive.Void, LightsaberTypes.LIGHTSABER_INJECTOR_TYPE, Types.OBJECT_TYPE)
+    private val SLOTS_TYPE = Type.Primitive.Int.toArrayType()
+    private val GET_WARM_UP_SCHEDULE_METHOD =
+        MethodDescriptor.forMethod("getWarmUpSchedule", SLOTS_TYPE.toArrayType())
+
+    private val RETRIEVE_MODULE_METHOD =
+        MethodDescriptor.forMethod("retrieveModule", Types.OBJECT_TYPE, Types.OBJECT_TYPE, Type.Primitive.Int)
+    private val DEFERRED_MODULE_CONSTRUCTOR =
+        MethodDescriptor.forConstructor(Types.MODULE_RETRIEVER_TYPE, Types.OBJECT_TYPE, Type.Primitive.Int)
+    private val ILLEGAL_STATE_EXCEPTION_TYPE = getObjectType<IllegalStateException>()
+    private val CONTRIBUTIONS_TYPE = Types.INJECTING_PROVIDER_TYPE.toArrayType()
+    private val FACTORY_PROVIDER_CONSTRUCTOR =
+        MethodDescriptor.forConstructor(Types.PROVIDER_FACTORY_TYPE, Types.INJECTOR_TYPE, Type.Primitive.Int)
+    private val SET_MULTIBINDING_PROVIDER_CONSTRUCTOR = MethodDescriptor.forConstructor(CONTRIBUTIONS_TYPE)
+    private val MAP_MULTIBINDING_PROVIDER_CONSTRUCTOR =
+        MethodDescriptor.forConstructor(Types.OBJECT_TYPE.toArrayType(), CONTRIBUTIONS_TYPE)
 
     private val INVALID_LOCAL = -1
   }
 
+  private class ContributionSlot(val arrayLocal: Int, val index: Int)
+
   fun generate(): ByteArray {
     val classWriter =
         StandaloneClassWriter(ClassWriter.COMPUTE_FRAMES or ClassWriter.COMPUTE_MAXS, classRegistry)
@@ -63,44 +92,282 @@ class InjectorConfiguratorClassGenerator(
         injectorConfigurator.type.internalName,
         null,
         Types.OBJECT_TYPE.internalName,
-        arrayOf(LightsaberTypes.INJECTOR_CONFIGURATOR_TYPE.internalName))
+        composeInterfaces())
 
     classVisitor.newDefaultConstructor()
     classVisitor.newMethod(ACC_PUBLIC, CONFIGURE_INJECTOR_METHOD) { configureInjector() }
+    classVisitor.newMethod(ACC_PUBLIC, GET_WARM_UP_SCHEDULE_METHOD) { getWarmUpSchedule() }
+    if (options.deferModules) {
+      generateRetrieveModuleMethod(classVisitor)
+    }
 
     classVisitor.visitEnd()
     return classWriter.toByteArray()
   }
 
+  private fun composeInterfaces(): Array<String> {
+    if (options.deferModules) {
+      return arrayOf(
+          LightsaberTypes.INJECTOR_CONFIGURATOR_TYPE.internalName,
+          Types.MODULE_RETRIEVER_TYPE.internalName
+      )
+    } else {
+      return arrayOf(LightsaberTypes.INJECTOR_CONFIGURATOR_TYPE.internalName)
+    }
+  }
+
   private fun GeneratorAdapter.configureInjector() {
+    val traceName = "Configure ${injectorConfigurator.component.type.className}"
+    val traceLocal = if (options.traceStartup) beginTrace() else INVALID_LOCAL
+
+    val contributionSlots = newContributionArrays()
     loadArg(1)
     checkCast(injectorConfigurator.component.type)
-    injectorConfigurator.component.providers.forEach { provider ->
+    injectorConfigurator.component.providers.forEachIndexed { index, provider ->
       dup()
-      configureInjectorWithModule(provider)
+      configureInjectorWithModule(provider, index, contributionSlots)
     }
     pop()
+    registerMultibindings(contributionSlots)
+
+    if (options.traceStartup) {
+      endTrace(traceName, traceLocal)
+    }
+  }
+
+  private fun GeneratorAdapter.getWarmUpSchedule() {
+    val schedule = injectorConfigurator.warmUpSchedule
+    newArray(SLOTS_TYPE, schedule.size)
+    schedule.forEachIndexed { level, dependencies ->
+      dup()
+      push(level)
+      newArray(Type.Primitive.Int, dependencies.size)
+      dependencies.forEachIndexed { index, dependency ->
+        val key = keyRegistry.keys[dependency] ?: error("Key for $dependency not found")
+        dup()
+        push(index)
+        push(key.slot)
+        arrayStore(Type.Primitive.Int)
+      }
+      arrayStore(SLOTS_TYPE)
+    }
+  }
+
+  private fun GeneratorAdapter.configureInjectorWithModule(
+      moduleProvider: ModuleProvider,
+      index: Int,
+      contributionSlots: Map<Provider, ContributionSlot>
+  ) {
+    val traceName = "Register ${moduleProvider.module.type.className}"
+    val traceLocal = if (options.traceStartup) beginTrace() else INVALID_LOCAL
+
+    if (options.deferModules && moduleProvider.module.hasInstance) {
+      // The module is retrieved from the component by its factory when one of its bindings is used.
+      pop()
+      registerLazyProviders(moduleProvider.module, INVALID_LOCAL, index, contributionSlots)
+    } else if (options.createsProvidersLazily) {
+      val moduleLocal = getModule(moduleProvider.provisionPoint)
+      registerLazyProviders(moduleProvider.module, moduleLocal, index, contributionSlots)
+    } else {
+      val moduleLocal = getModule(moduleProvider.provisionPoint)
+      registerProviders(moduleProvider.module, moduleLocal, contributionSlots)
+    }
+
+    if (options.traceStartup) {
+      endTrace(traceName, traceLocal)
+    }
+  }
+
+  private fun GeneratorAdapter.registerProviders(
+      module: Module,
+      moduleLocal: Int,
+      contributionSlots: Map<Provider, ContributionSlot>
+  ) {
+    module.providers.forEachIndexed { id, provider ->
+      val contributionSlot = contributionSlots[provider]
+      if (contributionSlot != null) {
+        storeContribution(contributionSlot) {
+          newProvider(keyRegistry, provider, false) { newBindingProvider(module, provider, id, moduleLocal) }
+        }
+      } else {
+        loadArg(0)
+        registerProvider(keyRegistry, provider, options.instrument) {
+          newBindingProvider(module, provider, id, moduleLocal)
+        }
+      }
+    }
   }
 
-  private fun GeneratorAdapter.configureInjectorWithModule(moduleProvider: ModuleProvider) {
-    val moduleLocal = getModule(moduleProvider.provisionPoint)
+  private fun GeneratorAdapter.newBindingProvider(module: Module, provider: Provider, id: Int, moduleLocal: Int) {
+    if (options.mergeProviders) {
+      newMergedModuleProvider(module, id) {
+        check(moduleLocal != INVALID_LOCAL)
+        loadLocal(moduleLocal)
+      }
+    } else if (moduleLocal == INVALID_LOCAL) {
+      check(provider.isConstructorProvider)
+      newConstructorProvider(provider)
+    } else {
+      check(!provider.isConstructorProvider)
+      newModuleProvider(provider) {
+        loadLocal(moduleLocal)
+      }
+    }
+  }
+
+  // Allocates a single provider factory for the module instead of a provider for every binding.
+  private fun GeneratorAdapter.registerLazyProviders(
+      module: Module,
+      moduleLocal: Int,
+      index: Int,
+      contributionSlots: Map<Provider, ContributionSlot>
+  ) {
+    if (module.providers.isEmpty()) {
+      return
+    }
+
+    val factoryLocal = newLocal(module.providerFactoryType) {
+      newInstance(module.providerFactoryType)
+      dup()
+      if (module.hasInstance) {
+        if (options.deferModules) {
+          newDeferredModule(index)
+        } else {
+          check(moduleLocal != INVALID_LOCAL)
+          loadLocal(moduleLocal)
+        }
+      }
+      invokeConstructor(module.providerFactoryType, module.getProviderFactoryConstructor(options))
+    }
 
-    moduleProvider.module.providers.forEach { provider ->
+    module.providers.forEachIndexed { id, provider ->
+      val contributionSlot = contributionSlots[provider]
+      if (contributionSlot != null) {
+        storeContribution(contributionSlot) { newFactoryProvider(factoryLocal, id) }
+      } else {
+        loadArg(0)
+        registerLazyProvider(keyRegistry, provider, factoryLocal, id)
+      }
+    }
+  }
+
+  private fun GeneratorAdapter.newFactoryProvider(factoryLocal: Int, id: Int) {
+    newInstance(Types.FACTORY_PROVIDER_TYPE)
+    dup()
+    loadLocal(factoryLocal)
+    loadArg(0)
+    push(id)
+    invokeConstructor(Types.FACTORY_PROVIDER_TYPE, FACTORY_PROVIDER_CONSTRUCTOR)
+  }
+
+  // Creates an array for providers of contributions of every multibinding of the component.
+  private fun GeneratorAdapter.newContributionArrays(): Map<Provider, ContributionSlot> {
+    val contributionSlots = HashMap<Provider, ContributionSlot>()
+    injectorConfigurator.component.multibindings.forEach { multibinding ->
+      val arrayLocal = newLocal(CONTRIBUTIONS_TYPE) {
+        newArray(Types.INJECTING_PROVIDER_TYPE, multibinding.contributions.size)
+      }
+      multibinding.contributions.forEachIndexed { index, provider ->
+        contributionSlots[provider] = ContributionSlot(arrayLocal, index)
+      }
+    }
+    return contributionSlots
+  }
+
+  private fun GeneratorAdapter.storeContribution(contributionSlot: ContributionSlot, providerCreator: () -> Unit) {
+    loadLocal(contributionSlot.arrayLocal)
+    push(contributionSlot.index)
+    providerCreator()
+    arrayStore(Types.INJECTING_PROVIDER_TYPE)
+  }
+
+  private fun GeneratorAdapter.registerMultibindings(contributionSlots: Map<Provider, ContributionSlot>) {
+    injectorConfigurator.component.multibindings.forEach { multibinding ->
+      val arrayLocal = contributionSlots.getValue(multibinding.contributions.first()).arrayLocal
       loadArg(0)
-      registerProvider(keyRegistry, provider) {
-        if (moduleLocal == INVALID_LOCAL) {
-          check(provider.isConstructorProvider)
-          newConstructorProvider(provider)
+      registerProvider(keyRegistry, multibinding.dependency) {
+        if (multibinding.isMap) {
+          newMapMultibindingProvider(multibinding, arrayLocal)
         } else {
-          check(!provider.isConstructorProvider)
-          newModuleProvider(provider) {
-            loadLocal(moduleLocal)
-          }
+          newSetMultibindingProvider(arrayLocal)
         }
       }
     }
   }
 
+  private fun GeneratorAdapter.newSetMultibindingProvider(arrayLocal: Int) {
+    newInstance(Types.SET_MULTIBINDING_PROVIDER_TYPE)
+    dup()
+    loadLocal(arrayLocal)
+    invokeConstructor(Types.SET_MULTIBINDING_PROVIDER_TYPE, SET_MULTIBINDING_PROVIDER_CONSTRUCTOR)
+  }
+
+  private fun GeneratorAdapter.newMapMultibindingProvider(multibinding: Multibinding, arrayLocal: Int) {
+    newInstance(Types.MAP_MULTIBINDING_PROVIDER_TYPE)
+    dup()
+    newArray(Types.OBJECT_TYPE, multibinding.contributions.size)
+    multibinding.contributions.forEachIndexed { index, provider ->
+      dup()
+      push(index)
+      pushMapKey((provider.contribution as Contribution.Map).key)
+      arrayStore(Types.OBJECT_TYPE)
+    }
+    loadLocal(arrayLocal)
+    invokeConstructor(Types.MAP_MULTIBINDING_PROVIDER_TYPE, MAP_MULTIBINDING_PROVIDER_CONSTRUCTOR)
+  }
+
+  private fun GeneratorAdapter.pushMapKey(key: Any) {
+    when (key) {
+      is String -> push(key)
+      is Int -> {
+        push(key)
+        valueOf(Type.Primitive.Int)
+      }
+      is Long -> {
+        push(key)
+        valueOf(Type.Primitive.Long)
+      }
+      is Type -> push(key)
+      is EnumMirror -> getStatic(key.type, key.value, key.type)
+      else -> error("Unsupported map key $key")
+    }
+  }
+
+  private fun GeneratorAdapter.newDeferredModule(index: Int) {
+    newInstance(Types.DEFERRED_MODULE_TYPE)
+    dup()
+    loadThis()
+    loadArg(1)
+    push(index)
+    invokeConstructor(Types.DEFERRED_MODULE_TYPE, DEFERRED_MODULE_CONSTRUCTOR)
+  }
+
+  private fun generateRetrieveModuleMethod(classVisitor: ClassVisitor) {
+    // Every case returns or throws, so the method has no common exit.
+    val generator = GeneratorAdapter(classVisitor, ACC_PUBLIC, RETRIEVE_MODULE_METHOD)
+    generator.visitCode()
+    generator.generateModuleSwitch()
+    generator.endMethod()
+  }
+
+  private fun GeneratorAdapter.generateModuleSwitch() {
+    val moduleProviders = injectorConfigurator.component.providers.toList()
+    val indices = moduleProviders.indices.filter { moduleProviders[it].module.hasInstance }.toIntArray()
+    loadArg(1)
+    tableSwitch(indices, object : TableSwitchGenerator {
+      override fun generateCase(key: Int, end: Label) {
+        loadArg(0)
+        checkCast(injectorConfigurator.component.type)
+        loadModule(moduleProviders[key].provisionPoint)
+        returnValue()
+      }
+
+      override fun generateDefault() {
+        throwException(ILLEGAL_STATE_EXCEPTION_TYPE, "Unknown module index")
+      }
+    }, true)
+  }
+
   private fun GeneratorAdapter.getModule(provisionPoint: ModuleProvisionPoint): Int {
     return when (provisionPoint) {
       is ModuleProvisionPoint.Method -> getModule(provisionPoint)
@@ -110,31 +377,20 @@ class InjectorConfiguratorClassGenerator(
   }
 
   private fun GeneratorAdapter.getModule(provisionPoint: ModuleProvisionPoint.Method): Int {
-    return newLocal(provisionPoint.method.type.returnType) {
-      invokeVirtual(injectorConfigurator.component.type, provisionPoint.method.toMethodDescriptor())
-    }
+    return newLocal(provisionPoint.method.type.returnType) { loadModule(provisionPoint) }
   }
 
   private fun GeneratorAdapter.getModule(provisionPoint: ModuleProvisionPoint.Field): Int {
-    return newLocal(provisionPoint.field.type) {
-      getField(injectorConfigurator.component.type, provisionPoint.field.toFieldDescriptor())
-    }
-  }
-
-  private fun GeneratorAdapter.newModuleProvider(provider: Provider, moduleRetriever: () -> Unit) {
-    newInstance(provider.type)
-    dup()
-    moduleRetriever()
-    loadArg(0)
-    val constructor = MethodDescriptor.forConstructor(provider.moduleType, Types.INJECTOR_TYPE)
-    invokeConstructor(provider.type, constructor)
+    return newLocal(provisionPoint.field.type) { loadModule(provisionPoint) }
   }
 
-  private fun GeneratorAdapter.newConstructorProvider(provider: Provider) {
-    newInstance(provider.type)
-    dup()
-    loadArg(0)
-    val constructor = MethodDescriptor.forConstructor(Types.INJECTOR_TYPE)
-    invokeConstructor(provider.type, constructor)
+  private fun GeneratorAdapter.loadModule(provisionPoint: ModuleProvisionPoint) {
+    when (provisionPoint) {
+      is ModuleProvisionPoint.Method ->
+        invokeVirtual(injectorConfigurator.component.type, provisionPoint.method.toMethodDescriptor())
+      is ModuleProvisionPoint.Field ->
+        getField(injectorConfigurator.component.type, provisionPoint.field.toFieldDescriptor())
+      is ModuleProvisionPoint.Null -> error("Cannot retrieve a module without a provision point")
+    }
   }
 }
@@ -17,20 +17,23 @@
 package io.michaelrocks.lightsaber.processor.generation
 
 import io.michaelrocks.grip.ClassRegistry
+import io.michaelrocks.lightsaber.processor.commons.ParallelExecutor
 import io.michaelrocks.lightsaber.processor.generation.model.GenerationContext
 import io.michaelrocks.lightsaber.processor.logging.getLogger
 
 class InjectorConfiguratorsGenerator(
     private val classProducer: ClassProducer,
-    private val classRegistry: ClassRegistry
+    private val classRegistry: ClassRegistry,
+    private val options: GenerationOptions,
+    private val executor: ParallelExecutor
 ) {
   private val logger = getLogger()
 
   fun generate(generationContext: GenerationContext) {
-    generationContext.allInjectorConfigurators.forEach { configurator ->
+    executor.forEach(generationContext.allInjectorConfigurators) { configurator ->
       logger.debug("Generating injector configurator {}", configurator.type.internalName)
       val generator =
-          InjectorConfiguratorClassGenerator(classRegistry, generationContext.keyRegistry, configurator)
+          InjectorConfiguratorClassGenerator(classRegistry, generationContext.keyRegistry, configurator, options)
       val classData = generator.generate()
       classProducer.produceClass(configurator.type.internalName, classData)
     }
@@ -16,85 +16,83 @@
 
 package io.michaelrocks.lightsaber.processor.generation
 
-import io.michaelrocks.grip.ClassRegistry
 import io.michaelrocks.grip.mirrors.Type
 import io.michaelrocks.grip.mirrors.getObjectTypeByInternalName
 import io.michaelrocks.lightsaber.processor.generation.model.GenerationContext
 import io.michaelrocks.lightsaber.processor.generation.model.InjectorConfigurator
 import io.michaelrocks.lightsaber.processor.generation.model.MembersInjector
-import io.michaelrocks.lightsaber.processor.generation.model.PackageInvader
 import io.michaelrocks.lightsaber.processor.templates.TemplateLoader
 import io.michaelrocks.lightsaber.processor.templates.loadTemplate
 
 private val INJECTION_DISPATCHER_TYPE = getObjectTypeByInternalName("io/michaelrocks/lightsaber/InjectionDispatcher")
 private const val STATIC_INITIALIZER_PARAMETER = "STATIC_INITIALIZER"
+private const val INJECTOR_CONFIGURATOR_FACTORY_PARAMETER = "INJECTOR_CONFIGURATOR_FACTORY"
+private const val MEMBERS_INJECTOR_FACTORY_PARAMETER = "MEMBERS_INJECTOR_FACTORY"
 
 class InjectorDispatcherSourceGenerator(
-    private val sourceProducer: SourceProducer,
-    private val classRegistry: ClassRegistry
+    private val sourceProducer: SourceProducer
 ) {
-  private val InjectorConfigurator.className: String
-    get() = type.internalName.substringAfterLast('/')
+  // Matches Class.getName() which is used for the lookup at runtime.
+  private val Type.Object.binaryName: String
+    get() = internalName.replace('/', '.')
 
   fun generate(generationContext: GenerationContext) {
+    // The package configurator comes first and gets the id of 0.
+    val injectorConfigurators = generationContext.allInjectorConfigurators.toList()
+    val membersInjectors = generationContext.membersInjectors.toList()
     val template = TemplateLoader().loadTemplate(INJECTION_DISPATCHER_TYPE)
     val sourceCode = template.newRenderer()
-        .substitute(STATIC_INITIALIZER_PARAMETER, composeStaticInitializer(generationContext))
+        .substitute(STATIC_INITIALIZER_PARAMETER, composeStaticInitializer(injectorConfigurators, membersInjectors))
+        .substitute(INJECTOR_CONFIGURATOR_FACTORY_PARAMETER, composeInjectorConfiguratorFactory(injectorConfigurators))
+        .substitute(MEMBERS_INJECTOR_FACTORY_PARAMETER, composeMembersInjectorFactory(membersInjectors))
         .render()
     sourceProducer.produceSourceFile(INJECTION_DISPATCHER_TYPE.internalName, sourceCode)
   }
 
-  private fun composeStaticInitializer(generationContext: GenerationContext): String {
+  private fun composeStaticInitializer(
+      injectorConfigurators: List<InjectorConfigurator>,
+      membersInjectors: List<MembersInjector>
+  ): String {
     return buildString {
-      putPackageInjectorConfigurator(generationContext.packageInjectorConfigurator)
-      generationContext.injectorConfigurators.forEach { injectorConfigurator ->
-        val packageInvader = generationContext.findPackageInvaderByTargetType(injectorConfigurator.component.type)
-        putInjectorConfigurator(injectorConfigurator, packageInvader)
+      putToInjectorConfiguratorIds("null", 0)
+      injectorConfigurators.forEachIndexed { id, injectorConfigurator ->
+        if (id != 0) {
+          putToInjectorConfiguratorIds("\"${injectorConfigurator.component.type.binaryName}\"", id)
+        }
       }
       appendln()
-      generationContext.membersInjectors.forEach { membersInjector ->
-        val packageInvader = generationContext.findPackageInvaderByTargetType(membersInjector.type)
-        putMembersInjector(membersInjector, packageInvader)
+      membersInjectors.forEachIndexed { id, membersInjector ->
+        putToMembersInjectorIds("\"${membersInjector.target.type.binaryName}\"", id)
       }
     }
   }
 
-  private fun StringBuilder.putPackageInjectorConfigurator(injectorConfigurator: InjectorConfigurator) {
-    val configurator = injectorConfigurator.className
-    putToInjectorConfigurators("null", "new $configurator()")
+  private fun StringBuilder.putToInjectorConfiguratorIds(key: String, id: Int) {
+    appendln("injectorConfiguratorIds.put($key, $id);")
   }
 
-  private fun StringBuilder.putInjectorConfigurator(injectorConfigurator: InjectorConfigurator,
-      packageInvader: PackageInvader?) {
-    val component = injectorConfigurator.component.type.getClassReference(packageInvader)
-    val configurator = injectorConfigurator.className
-    putToInjectorConfigurators(component, "new $configurator()")
+  private fun StringBuilder.putToMembersInjectorIds(key: String, id: Int) {
+    appendln("membersInjectorIds.put($key, $id);")
   }
 
-  private fun StringBuilder.putToInjectorConfigurators(key: String, value: String) {
-    appendln("injectorConfigurators.put($key, $value);")
-  }
-
-  private fun StringBuilder.putMembersInjector(membersInjector: MembersInjector, packageInvader: PackageInvader?) {
-    val target = membersInjector.target.type.getClassReference(packageInvader)
-    val injector = membersInjector.type.className
-    putToMembersInjectors(target, "new $injector()")
-  }
-
-  private fun StringBuilder.putToMembersInjectors(key: String, value: String) {
-    appendln("membersInjectors.put($key, $value);")
+  private fun composeInjectorConfiguratorFactory(injectorConfigurators: List<InjectorConfigurator>): String {
+    return buildString {
+      injectorConfigurators.forEachIndexed { id, injectorConfigurator ->
+        putFactoryCase(id, injectorConfigurator.type)
+      }
+    }
   }
 
-  private fun Type.Object.getClassReference(packageInvader: PackageInvader?): String {
-    val componentField = packageInvader?.fields?.get(this)
-    return if (componentField == null) {
-      "${getJavaClassName()}.class"
-    } else {
-      "${packageInvader.type.className}.${componentField.name}"
+  private fun composeMembersInjectorFactory(membersInjectors: List<MembersInjector>): String {
+    return buildString {
+      membersInjectors.forEachIndexed { id, membersInjector ->
+        putFactoryCase(id, membersInjector.type)
+      }
     }
   }
 
-  private fun Type.Object.getJavaClassName(): String {
-    return classRegistry.getClassMirror(this).name
+  private fun StringBuilder.putFactoryCase(id: Int, type: Type.Object) {
+    appendln("case $id:")
+    appendln("  return new ${type.className}();")
   }
 }
@@ -23,6 +23,7 @@ import io.michaelrocks.grip.mirrors.signature.GenericType
 import io.michaelrocks.grip.mirrors.toArrayType
 import io.michaelrocks.lightsaber.internal.GenericArrayTypeImpl
 import io.michaelrocks.lightsaber.internal.ParameterizedTypeImpl
+import io.michaelrocks.lightsaber.internal.WildcardTypeImpl
 import io.michaelrocks.lightsaber.processor.annotations.proxy.AnnotationCreator
 import io.michaelrocks.lightsaber.processor.commons.GeneratorAdapter
 import io.michaelrocks.lightsaber.processor.commons.StandaloneClassWriter
@@ -44,14 +45,18 @@ import org.objectweb.asm.Opcodes.ACC_SUPER
 import org.objectweb.asm.Opcodes.V1_6
 
 private val KEY_CONSTRUCTOR = MethodDescriptor.forConstructor(Types.TYPE_TYPE, Types.ANNOTATION_TYPE)
+private val KEY_INTERN_METHOD = MethodDescriptor.forMethod("intern", Types.KEY_TYPE)
 
 private val PARAMETERIZED_TYPE_IMPL_TYPE = getObjectType<ParameterizedTypeImpl>()
 private val GENERIC_ARRAY_TYPE_IMPL_TYPE = getObjectType<GenericArrayTypeImpl>()
+private val WILDCARD_TYPE_IMPL_TYPE = getObjectType<WildcardTypeImpl>()
 
 private val PARAMETERIZED_TYPE_IMPL_CONSTRUCTOR =
     MethodDescriptor.forConstructor(Types.TYPE_TYPE, Types.TYPE_TYPE, Types.TYPE_TYPE.toArrayType())
 private val GENERIC_ARRAY_TYPE_IMPL_CONSTRUCTOR =
     MethodDescriptor.forConstructor(Types.TYPE_TYPE)
+private val WILDCARD_TYPE_IMPL_CONSTRUCTOR =
+    MethodDescriptor.forConstructor(Types.TYPE_TYPE, Types.TYPE_TYPE)
 
 class KeyRegistryClassGenerator(
     private val classProducer: ClassProducer,
@@ -127,6 +132,7 @@ class KeyRegistryClassGenerator(
     }
 
     invokeConstructor(Types.KEY_TYPE, KEY_CONSTRUCTOR)
+    invokeVirtual(Types.KEY_TYPE, KEY_INTERN_METHOD)
   }
 
   private fun GeneratorAdapter.push(type: GenericType) {
@@ -134,6 +140,8 @@ class KeyRegistryClassGenerator(
       is GenericType.Raw -> pushType(type.type.boxed())
       is GenericType.Parameterized -> newParameterizedType(type)
       is GenericType.Array -> newGenericArrayType(type)
+      is GenericType.UpperBounded -> newWildcardType(type.upperBound, null)
+      is GenericType.LowerBounded -> newWildcardType(GenericType.Raw(Types.OBJECT_TYPE), type.lowerBound)
       else -> error("Unsupported generic type $type")
     }
   }
@@ -160,6 +168,18 @@ class KeyRegistryClassGenerator(
     invokeConstructor(GENERIC_ARRAY_TYPE_IMPL_TYPE, GENERIC_ARRAY_TYPE_IMPL_CONSTRUCTOR)
   }
 
+  private fun GeneratorAdapter.newWildcardType(upperBound: GenericType, lowerBound: GenericType?) {
+    newInstance(WILDCARD_TYPE_IMPL_TYPE)
+    dup()
+    push(upperBound)
+    if (lowerBound == null) {
+      pushNull()
+    } else {
+      push(lowerBound)
+    }
+    invokeConstructor(WILDCARD_TYPE_IMPL_TYPE, WILDCARD_TYPE_IMPL_CONSTRUCTOR)
+  }
+
   private fun GeneratorAdapter.pushType(rawType: Type) {
     val type = rawType.boxed() as Type.Object
     val packageInvader = generationContext.findPackageInvaderByTargetType(type)
@@ -18,14 +18,16 @@ package io.michaelrocks.lightsaber.processor.generation
 
 
 import io.michaelrocks.grip.ClassRegistry
+import io.michaelrocks.lightsaber.processor.commons.ParallelExecutor
 import io.michaelrocks.lightsaber.processor.generation.model.GenerationContext
 
 class MembersInjectorsGenerator(
     private val classProducer: ClassProducer,
-    private val classRegistry: ClassRegistry
+    private val classRegistry: ClassRegistry,
+    private val executor: ParallelExecutor
 ) {
   fun generate(generationContext: GenerationContext) {
-    generationContext.membersInjectors.forEach { injector ->
+    executor.forEach(generationContext.membersInjectors) { injector ->
       val generator = MembersInjectorClassGenerator(classRegistry, generationContext.keyRegistry, injector)
       val injectorClassData = generator.generate()
       classProducer.produceClass(injector.type.internalName, injectorClassData)
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.generation
+
+import io.michaelrocks.grip.ClassRegistry
+import io.michaelrocks.grip.mirrors.Type
+import io.michaelrocks.grip.mirrors.getObjectType
+import io.michaelrocks.grip.mirrors.getObjectTypeByInternalName
+import io.michaelrocks.lightsaber.internal.AbstractInjectingProvider
+import io.michaelrocks.lightsaber.processor.commons.GeneratorAdapter
+import io.michaelrocks.lightsaber.processor.commons.StandaloneClassWriter
+import io.michaelrocks.lightsaber.processor.commons.Types
+import io.michaelrocks.lightsaber.processor.commons.newMethod
+import io.michaelrocks.lightsaber.processor.descriptors.MethodDescriptor
+import io.michaelrocks.lightsaber.processor.generation.model.KeyRegistry
+import io.michaelrocks.lightsaber.processor.model.Module
+import io.michaelrocks.lightsaber.processor.model.isConstructorProvider
+import io.michaelrocks.lightsaber.processor.watermark.WatermarkClassVisitor
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.Opcodes.ACC_FINAL
+import org.objectweb.asm.Opcodes.ACC_PRIVATE
+import org.objectweb.asm.Opcodes.ACC_PUBLIC
+import org.objectweb.asm.Opcodes.ACC_SUPER
+import org.objectweb.asm.Opcodes.V1_6
+import org.objectweb.asm.commons.TableSwitchGenerator
+
+// A single provider class for all providers of a module. An instance provides one binding selected by its id.
+val Module.providersType: Type.Object
+  get() = getObjectTypeByInternalName("${type.internalName}\$Providers")
+
+// Modules of constructor providers are synthetic and are never instantiated.
+val Module.hasInstance: Boolean
+  get() = providers.any { !it.isConstructorProvider }
+
+val Module.providersConstructor: MethodDescriptor
+  get() {
+    if (hasInstance) {
+      return MethodDescriptor.forConstructor(type, Types.INJECTOR_TYPE, Type.Primitive.Int)
+    } else {
+      return MethodDescriptor.forConstructor(Types.INJECTOR_TYPE, Type.Primitive.Int)
+    }
+  }
+
+class ModuleProvidersClassGenerator(
+    private val classRegistry: ClassRegistry,
+    private val keyRegistry: KeyRegistry,
+    private val module: Module,
+    private val options: GenerationOptions = GenerationOptions()
+) {
+  companion object {
+    private const val MODULE_FIELD_NAME = "module"
+    private const val ID_FIELD_NAME = "id"
+    private val INVALID_LOCAL = -1
+
+    private val ABSTRACT_INJECTING_PROVIDER_TYPE = getObjectType<AbstractInjectingProvider<*>>()
+    private val ILLEGAL_STATE_EXCEPTION_TYPE = getObjectType<IllegalStateException>()
+
+    private val SUPER_CONSTRUCTOR = MethodDescriptor.forConstructor(Types.INJECTOR_TYPE)
+
+    private val GET_WITH_INJECTOR_METHOD =
+        MethodDescriptor.forMethod("getWithInjector", Types.OBJECT_TYPE, Types.INJECTOR_TYPE)
+  }
+
+  private val providers = module.providers.toList()
+  private val type = module.providersType
+
+  fun generate(): ByteArray {
+    val classWriter = StandaloneClassWriter(ClassWriter.COMPUTE_FRAMES or ClassWriter.COMPUTE_MAXS, classRegistry)
+    val classVisitor = WatermarkClassVisitor(classWriter, true)
+    classVisitor.visit(
+        V1_6,
+        ACC_PUBLIC or ACC_SUPER,
+        type.internalName,
+        null,
+        ABSTRACT_INJECTING_PROVIDER_TYPE.internalName,
+        null
+    )
+
+    generateFields(classVisitor)
+    classVisitor.newMethod(ACC_PUBLIC, module.providersConstructor) { generateConstructor() }
+    generateGetWithInjectorMethod(classVisitor)
+
+    classVisitor.visitEnd()
+    return classWriter.toByteArray()
+  }
+
+  private fun generateFields(classVisitor: ClassVisitor) {
+    if (module.hasInstance) {
+      classVisitor.visitField(ACC_PRIVATE or ACC_FINAL, MODULE_FIELD_NAME, module.type.descriptor, null, null)
+          .visitEnd()
+    }
+
+    classVisitor.visitField(ACC_PRIVATE or ACC_FINAL, ID_FIELD_NAME, Type.Primitive.Int.descriptor, null, null)
+        .visitEnd()
+  }
+
+  private fun GeneratorAdapter.generateConstructor() {
+    val injectorArgument = if (module.hasInstance) 1 else 0
+    loadThis()
+    loadArg(injectorArgument)
+    invokeConstructor(ABSTRACT_INJECTING_PROVIDER_TYPE, SUPER_CONSTRUCTOR)
+
+    if (module.hasInstance) {
+      loadThis()
+      loadArg(0)
+      putField(type, MODULE_FIELD_NAME, module.type)
+    }
+
+    loadThis()
+    loadArg(injectorArgument + 1)
+    putField(type, ID_FIELD_NAME, Type.Primitive.Int)
+  }
+
+  private fun generateGetWithInjectorMethod(classVisitor: ClassVisitor) {
+    // Every case returns or throws, so the method has no common exit.
+    val generator = GeneratorAdapter(classVisitor, ACC_PUBLIC, GET_WITH_INJECTOR_METHOD)
+    generator.visitCode()
+    val startNanosLocal = if (options.instrument) generator.startInstantiationTimer() else INVALID_LOCAL
+    val traceLocal = if (options.traceStartup) generator.beginTrace() else INVALID_LOCAL
+    generator.generateProviderSwitch(startNanosLocal, traceLocal)
+    generator.endMethod()
+  }
+
+  private fun GeneratorAdapter.generateProviderSwitch(startNanosLocal: Int, traceLocal: Int) {
+    loadThis()
+    getField(type, ID_FIELD_NAME, Type.Primitive.Int)
+    val ids = IntArray(providers.size) { it }
+    tableSwitch(ids, object : TableSwitchGenerator {
+      override fun generateCase(key: Int, end: Label) {
+        val provider = providers[key]
+        provide(provider, { loadModule() }) { injectee ->
+          loadArg(0)
+          getDependency(keyRegistry, injectee)
+        }
+        if (provider.isInstrumented(options)) {
+          recordInstance(keyRegistry, provider, type, startNanosLocal)
+        }
+        if (options.traceStartup) {
+          endTrace(provider.traceName, traceLocal)
+        }
+        returnValue()
+      }
+
+      override fun generateDefault() {
+        throwException(ILLEGAL_STATE_EXCEPTION_TYPE, "Unknown provider id")
+      }
+    }, true)
+  }
+
+  private fun GeneratorAdapter.loadModule() {
+    loadThis()
+    getField(type, MODULE_FIELD_NAME, module.type)
+  }
+}
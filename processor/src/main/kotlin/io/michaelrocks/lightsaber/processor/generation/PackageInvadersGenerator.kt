@@ -17,17 +17,19 @@
 package io.michaelrocks.lightsaber.processor.generation
 
 import io.michaelrocks.grip.ClassRegistry
+import io.michaelrocks.lightsaber.processor.commons.ParallelExecutor
 import io.michaelrocks.lightsaber.processor.generation.model.GenerationContext
 import io.michaelrocks.lightsaber.processor.logging.getLogger
 
 class PackageInvadersGenerator(
     private val classProducer: ClassProducer,
-    private val classRegistry: ClassRegistry
+    private val classRegistry: ClassRegistry,
+    private val executor: ParallelExecutor
 ) {
   private val logger = getLogger()
 
   fun generate(generationContext: GenerationContext) {
-    generationContext.packageInvaders.forEach { packageInvader ->
+    executor.forEach(generationContext.packageInvaders) { packageInvader ->
       logger.debug("Generating package invader {}", packageInvader.type)
       val generator = PackageInvaderClassGenerator(classRegistry, packageInvader)
       val classData = generator.generate()
@@ -17,17 +17,11 @@
 package io.michaelrocks.lightsaber.processor.generation
 
 import io.michaelrocks.grip.ClassRegistry
-import io.michaelrocks.grip.mirrors.Type
 import io.michaelrocks.grip.mirrors.getObjectType
-import io.michaelrocks.grip.mirrors.isPrimitive
 import io.michaelrocks.lightsaber.internal.AbstractInjectingProvider
 import io.michaelrocks.lightsaber.processor.commons.GeneratorAdapter
 import io.michaelrocks.lightsaber.processor.commons.StandaloneClassWriter
 import io.michaelrocks.lightsaber.processor.commons.Types
-import io.michaelrocks.lightsaber.processor.commons.cast
-import io.michaelrocks.lightsaber.processor.commons.rawType
-import io.michaelrocks.lightsaber.processor.commons.toFieldDescriptor
-import io.michaelrocks.lightsaber.processor.commons.toMethodDescriptor
 import io.michaelrocks.lightsaber.processor.descriptors.MethodDescriptor
 import io.michaelrocks.lightsaber.processor.generation.model.KeyRegistry
 import io.michaelrocks.lightsaber.processor.model.Injectee
@@ -42,24 +36,26 @@ import org.objectweb.asm.Opcodes.ACC_PRIVATE
 import org.objectweb.asm.Opcodes.ACC_PUBLIC
 import org.objectweb.asm.Opcodes.ACC_SUPER
 import org.objectweb.asm.Opcodes.V1_6
+import org.objectweb.asm.commons.GeneratorAdapter.NE
 
 class ProviderClassGenerator(
     private val classRegistry: ClassRegistry,
     private val keyRegistry: KeyRegistry,
-    private val provider: Provider
+    private val provider: Provider,
+    private val options: GenerationOptions = GenerationOptions()
 ) {
   companion object {
     private const val MODULE_FIELD_NAME = "module"
+    private const val PROVIDER_FIELD_NAME_PREFIX = "provider"
+    private val INVALID_LOCAL = -1
 
     private val ABSTRACT_INJECTING_PROVIDER_TYPE = getObjectType<AbstractInjectingProvider<*>>()
-    private val NULL_POINTER_EXCEPTION_TYPE = getObjectType<NullPointerException>()
 
     private val SUPER_CONSTRUCTOR = MethodDescriptor.forConstructor(Types.INJECTOR_TYPE)
 
+    private val GET_INJECTOR_METHOD = MethodDescriptor.forMethod("getInjector", Types.INJECTOR_TYPE)
     private val GET_WITH_INJECTOR_METHOD =
         MethodDescriptor.forMethod("getWithInjector", Types.OBJECT_TYPE, Types.INJECTOR_TYPE)
-    private val INJECT_MEMBERS_METHOD =
-        MethodDescriptor.forMethod("injectMembers", Type.Primitive.Void, Types.OBJECT_TYPE)
   }
 
   private val providerConstructor: MethodDescriptor
@@ -71,6 +67,12 @@ class ProviderClassGenerator(
       }
     }
 
+  private val injectees: List<Injectee>
+    get() = provider.injectees
+
+  private val isPrewired: Boolean
+    get() = options.prewireProviders && injectees.isNotEmpty()
+
   fun generate(): ByteArray {
     val classWriter = StandaloneClassWriter(ClassWriter.COMPUTE_FRAMES or ClassWriter.COMPUTE_MAXS, classRegistry)
     val classVisitor = WatermarkClassVisitor(classWriter, true)
@@ -95,6 +97,22 @@ class ProviderClassGenerator(
     if (!provider.isConstructorProvider) {
       generateModuleField(classVisitor)
     }
+
+    if (isPrewired) {
+      injectees.forEachIndexed { index, _ ->
+        generateProviderField(classVisitor, index)
+      }
+    }
+  }
+
+  private fun generateProviderField(classVisitor: ClassVisitor, index: Int) {
+    val fieldVisitor = classVisitor.visitField(
+        ACC_PRIVATE or ACC_FINAL,
+        PROVIDER_FIELD_NAME_PREFIX + index,
+        Types.PROVIDER_TYPE.descriptor,
+        null,
+        null)
+    fieldVisitor.visitEnd()
   }
 
   private fun generateModuleField(classVisitor: ClassVisitor) {
@@ -112,18 +130,27 @@ class ProviderClassGenerator(
     generator.visitCode()
     generator.loadThis()
 
-    if (provider.isConstructorProvider) {
-      generator.loadArg(0)
-      generator.invokeConstructor(ABSTRACT_INJECTING_PROVIDER_TYPE, SUPER_CONSTRUCTOR)
-    } else {
-      generator.loadArg(1)
-      generator.invokeConstructor(ABSTRACT_INJECTING_PROVIDER_TYPE, SUPER_CONSTRUCTOR)
+    val injectorArgument = if (provider.isConstructorProvider) 0 else 1
+    generator.loadArg(injectorArgument)
+    generator.invokeConstructor(ABSTRACT_INJECTING_PROVIDER_TYPE, SUPER_CONSTRUCTOR)
 
+    if (!provider.isConstructorProvider) {
       generator.loadThis()
       generator.loadArg(0)
       generator.putField(provider.type, MODULE_FIELD_NAME, provider.moduleType)
     }
 
+    if (isPrewired) {
+      // Prewired providers are created lazily when all bindings of the injector have been registered already, so
+      // dependency providers can be resolved here and published through final fields.
+      injectees.forEachIndexed { index, injectee ->
+        generator.loadThis()
+        generator.loadArg(injectorArgument)
+        generator.getProvider(keyRegistry, injectee.dependency)
+        generator.putField(provider.type, PROVIDER_FIELD_NAME_PREFIX + index, Types.PROVIDER_TYPE)
+      }
+    }
+
     generator.returnValue()
     generator.endMethod()
   }
@@ -132,71 +159,58 @@ class ProviderClassGenerator(
     val generator = GeneratorAdapter(classVisitor, ACC_PUBLIC, GET_WITH_INJECTOR_METHOD)
     generator.visitCode()
 
-    if (provider.provisionPoint is ProvisionPoint.Field) {
-      generateProviderFieldRetrieval(generator)
-    } else if (provider.isConstructorProvider) {
-      generateConstructorInvocation(generator)
-      generateInjectMembersInvocation(generator)
-    } else {
-      generateProviderMethodInvocation(generator)
+    val startNanosLocal = if (provider.isInstrumented(options)) generator.startInstantiationTimer() else INVALID_LOCAL
+    val traceLocal = if (options.traceStartup) generator.beginTrace() else INVALID_LOCAL
+
+    if (isPrewired) {
+      generatePrewiredProvision(generator, startNanosLocal, traceLocal)
     }
 
-    generator.valueOf(provider.dependency.type.rawType)
+    generateProvision(generator, startNanosLocal, traceLocal) { injectee ->
+      generator.loadArg(0)
+      generator.getDependency(keyRegistry, injectee)
+    }
 
-    generator.returnValue()
     generator.endMethod()
   }
 
-  private fun generateProviderFieldRetrieval(generator: GeneratorAdapter) {
-    generator.loadThis()
-    generator.getField(provider.type, MODULE_FIELD_NAME, provider.moduleType)
-    val field = provider.provisionPoint.cast<ProvisionPoint.Field>().field.toFieldDescriptor()
-    generator.getField(provider.moduleType, field)
-  }
-
-  private fun generateConstructorInvocation(generator: GeneratorAdapter) {
-    generator.newInstance(provider.dependency.type.rawType)
-    generator.dup()
-    generateProvideMethodArguments(generator)
-    val method = provider.provisionPoint.cast<ProvisionPoint.AbstractMethod>().method.toMethodDescriptor()
-    generator.invokeConstructor(provider.dependency.type.rawType, method)
-  }
-
-  private fun generateProviderMethodInvocation(generator: GeneratorAdapter) {
+  private fun generatePrewiredProvision(generator: GeneratorAdapter, startNanosLocal: Int, traceLocal: Int) {
+    // Dependency providers are cached only for the injector this provider has been registered in. When a child
+    // injector overrides the provider the dependencies are resolved through that injector on every call.
+    val foreignInjectorLabel = generator.newLabel()
+    generator.loadArg(0)
     generator.loadThis()
-    generator.getField(provider.type, MODULE_FIELD_NAME, provider.moduleType)
-    generateProvideMethodArguments(generator)
-    val method = provider.provisionPoint.cast<ProvisionPoint.AbstractMethod>().method.toMethodDescriptor()
-    generator.invokeVirtual(provider.moduleType, method)
+    generator.invokeVirtual(provider.type, GET_INJECTOR_METHOD)
+    generator.ifCmp(Types.OBJECT_TYPE, NE, foreignInjectorLabel)
 
-    if (provider.dependency.type.rawType.isPrimitive) {
-      return
+    var argumentIndex = 0
+    generateProvision(generator, startNanosLocal, traceLocal) { injectee ->
+      generator.loadThis()
+      generator.getField(provider.type, PROVIDER_FIELD_NAME_PREFIX + argumentIndex++, Types.PROVIDER_TYPE)
+      generator.convertDependency(injectee)
     }
 
-    val resultIsNullLabel = generator.newLabel()
-    generator.dup()
-    generator.ifNonNull(resultIsNullLabel)
-    generator.throwException(NULL_POINTER_EXCEPTION_TYPE, "Provider method returned null")
-
-    generator.visitLabel(resultIsNullLabel)
+    generator.mark(foreignInjectorLabel)
   }
 
-  private fun generateProvideMethodArguments(generator: GeneratorAdapter) {
-    val injectees = provider.provisionPoint.cast<ProvisionPoint.AbstractMethod>().injectionPoint.injectees
-    injectees.forEach { injectee ->
-      generateProviderMethodArgument(generator, injectee)
+  private fun generateProvision(
+      generator: GeneratorAdapter,
+      startNanosLocal: Int,
+      traceLocal: Int,
+      argumentGenerator: (Injectee) -> Unit
+  ) {
+    generator.provide(provider, { generator.loadModule() }, argumentGenerator)
+    if (provider.isInstrumented(options)) {
+      generator.recordInstance(keyRegistry, provider, provider.type, startNanosLocal)
     }
+    if (options.traceStartup) {
+      generator.endTrace(provider.traceName, traceLocal)
+    }
+    generator.returnValue()
   }
 
-  private fun generateProviderMethodArgument(generator: GeneratorAdapter, injectee: Injectee) {
-    generator.loadArg(0)
-    generator.getDependency(keyRegistry, injectee)
-  }
-
-  private fun generateInjectMembersInvocation(generator: GeneratorAdapter) {
-    generator.dup()
-    generator.loadArg(0)
-    generator.swap()
-    generator.invokeInterface(Types.INJECTOR_TYPE, INJECT_MEMBERS_METHOD)
+  private fun GeneratorAdapter.loadModule() {
+    loadThis()
+    getField(provider.type, MODULE_FIELD_NAME, provider.moduleType)
   }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.generation
+
+import io.michaelrocks.grip.ClassRegistry
+import io.michaelrocks.grip.mirrors.Type
+import io.michaelrocks.grip.mirrors.getObjectType
+import io.michaelrocks.grip.mirrors.getObjectTypeByInternalName
+import io.michaelrocks.lightsaber.processor.commons.GeneratorAdapter
+import io.michaelrocks.lightsaber.processor.commons.StandaloneClassWriter
+import io.michaelrocks.lightsaber.processor.commons.Types
+import io.michaelrocks.lightsaber.processor.commons.newMethod
+import io.michaelrocks.lightsaber.processor.descriptors.MethodDescriptor
+import io.michaelrocks.lightsaber.processor.generation.model.KeyRegistry
+import io.michaelrocks.lightsaber.processor.model.Module
+import io.michaelrocks.lightsaber.processor.model.isConstructorProvider
+import io.michaelrocks.lightsaber.processor.watermark.WatermarkClassVisitor
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.Opcodes.ACC_FINAL
+import org.objectweb.asm.Opcodes.ACC_PRIVATE
+import org.objectweb.asm.Opcodes.ACC_PUBLIC
+import org.objectweb.asm.Opcodes.ACC_SUPER
+import org.objectweb.asm.Opcodes.V1_6
+import org.objectweb.asm.commons.TableSwitchGenerator
+
+// Creates providers of a module on demand when bindings are registered lazily. Ids are indices of the providers.
+val Module.providerFactoryType: Type.Object
+  get() = getObjectTypeByInternalName("${type.internalName}\$ProviderFactory")
+
+// A factory of a deferred module holds a DeferredModule instead of the module itself.
+fun Module.getProviderFactoryModuleType(options: GenerationOptions): Type.Object =
+    if (options.deferModules) Types.DEFERRED_MODULE_TYPE else type
+
+fun Module.getProviderFactoryConstructor(options: GenerationOptions): MethodDescriptor {
+  if (hasInstance) {
+    return MethodDescriptor.forConstructor(getProviderFactoryModuleType(options))
+  } else {
+    return MethodDescriptor.forDefaultConstructor()
+  }
+}
+
+class ProviderFactoryClassGenerator(
+    private val classRegistry: ClassRegistry,
+    private val keyRegistry: KeyRegistry,
+    private val module: Module,
+    private val options: GenerationOptions = GenerationOptions()
+) {
+  companion object {
+    private const val MODULE_FIELD_NAME = "module"
+
+    private val ILLEGAL_STATE_EXCEPTION_TYPE = getObjectType<IllegalStateException>()
+
+    private val GET_MODULE_METHOD = MethodDescriptor.forMethod("get", Types.OBJECT_TYPE)
+
+    private val CREATE_PROVIDER_METHOD =
+        MethodDescriptor.forMethod("createProvider",
+            Types.INJECTING_PROVIDER_TYPE, Types.INJECTOR_TYPE, Type.Primitive.Int)
+  }
+
+  private val providers = module.providers.toList()
+  private val type = module.providerFactoryType
+  private val moduleFieldType = module.getProviderFactoryModuleType(options)
+
+  fun generate(): ByteArray {
+    val classWriter = StandaloneClassWriter(ClassWriter.COMPUTE_FRAMES or ClassWriter.COMPUTE_MAXS, classRegistry)
+    val classVisitor = WatermarkClassVisitor(classWriter, true)
+    classVisitor.visit(
+        V1_6,
+        ACC_PUBLIC or ACC_SUPER,
+        type.internalName,
+        null,
+        Types.OBJECT_TYPE.internalName,
+        arrayOf(Types.PROVIDER_FACTORY_TYPE.internalName)
+    )
+
+    if (module.hasInstance) {
+      classVisitor.visitField(ACC_PRIVATE or ACC_FINAL, MODULE_FIELD_NAME, moduleFieldType.descriptor, null, null)
+          .visitEnd()
+    }
+
+    classVisitor.newMethod(ACC_PUBLIC, module.getProviderFactoryConstructor(options)) { generateConstructor() }
+    generateCreateProviderMethod(classVisitor)
+
+    classVisitor.visitEnd()
+    return classWriter.toByteArray()
+  }
+
+  private fun GeneratorAdapter.generateConstructor() {
+    loadThis()
+    invokeConstructor(Types.OBJECT_TYPE, MethodDescriptor.forDefaultConstructor())
+
+    if (module.hasInstance) {
+      loadThis()
+      loadArg(0)
+      putField(type, MODULE_FIELD_NAME, moduleFieldType)
+    }
+  }
+
+  private fun generateCreateProviderMethod(classVisitor: ClassVisitor) {
+    // Every case returns or throws, so the method has no common exit.
+    val generator = GeneratorAdapter(classVisitor, ACC_PUBLIC, CREATE_PROVIDER_METHOD)
+    generator.visitCode()
+    generator.generateProviderSwitch()
+    generator.endMethod()
+  }
+
+  private fun GeneratorAdapter.generateProviderSwitch() {
+    loadArg(1)
+    val ids = IntArray(providers.size) { it }
+    tableSwitch(ids, object : TableSwitchGenerator {
+      override fun generateCase(key: Int, end: Label) {
+        val provider = providers[key]
+        newProvider(keyRegistry, provider, provider.isInstrumented(options)) {
+          if (options.mergeProviders) {
+            newMergedModuleProvider(module, key) { loadModule() }
+          } else if (provider.isConstructorProvider) {
+            newConstructorProvider(provider)
+          } else {
+            newModuleProvider(provider) { loadModule() }
+          }
+        }
+        returnValue()
+      }
+
+      override fun generateDefault() {
+        throwException(ILLEGAL_STATE_EXCEPTION_TYPE, "Unknown provider id")
+      }
+    }, true)
+  }
+
+  private fun GeneratorAdapter.loadModule() {
+    loadThis()
+    getField(type, MODULE_FIELD_NAME, moduleFieldType)
+    if (options.deferModules) {
+      invokeVirtual(Types.DEFERRED_MODULE_TYPE, GET_MODULE_METHOD)
+      checkCast(module.type)
+    }
+  }
+}
@@ -17,25 +17,75 @@
 package io.michaelrocks.lightsaber.processor.generation
 
 import io.michaelrocks.grip.ClassRegistry
+import io.michaelrocks.lightsaber.processor.commons.ParallelExecutor
 import io.michaelrocks.lightsaber.processor.generation.model.GenerationContext
 import io.michaelrocks.lightsaber.processor.logging.getLogger
 import io.michaelrocks.lightsaber.processor.model.InjectionContext
 
 class ProvidersGenerator(
     private val classProducer: ClassProducer,
-    private val classRegistry: ClassRegistry
+    private val classRegistry: ClassRegistry,
+    private val options: GenerationOptions,
+    private val executor: ParallelExecutor
 ) {
   private val logger = getLogger()
 
   fun generate(injectionContext: InjectionContext, generationContext: GenerationContext) {
+    if (options.mergeProviders) {
+      generateModuleProviders(injectionContext, generationContext)
+    } else {
+      generateProviders(injectionContext, generationContext)
+    }
+
+    if (options.createsProvidersLazily) {
+      generateProviderFactories(injectionContext, generationContext)
+    }
+  }
+
+  private fun generateProviders(injectionContext: InjectionContext, generationContext: GenerationContext) {
     injectionContext.allComponents.asSequence()
         .flatMap { it.modules.asSequence() }
         .flatMap { it.providers.asSequence() }
-        .forEach { provider ->
-          logger.debug("Generating provider {}", provider.type.internalName)
-          val generator = ProviderClassGenerator(classRegistry, generationContext.keyRegistry, provider)
-          val providerClassData = generator.generate()
-          classProducer.produceClass(provider.type.internalName, providerClassData)
+        .toList()
+        .let { providers ->
+          executor.forEach(providers) { provider ->
+            logger.debug("Generating provider {}", provider.type.internalName)
+            val generator = ProviderClassGenerator(classRegistry, generationContext.keyRegistry, provider, options)
+            val providerClassData = generator.generate()
+            classProducer.produceClass(provider.type.internalName, providerClassData)
+          }
+        }
+  }
+
+  private fun generateModuleProviders(injectionContext: InjectionContext, generationContext: GenerationContext) {
+    injectionContext.allComponents.asSequence()
+        .flatMap { it.modules.asSequence() }
+        .filter { it.providers.isNotEmpty() }
+        .distinctBy { it.type }
+        .toList()
+        .let { modules ->
+          executor.forEach(modules) { module ->
+            logger.debug("Generating module providers {}", module.providersType.internalName)
+            val generator = ModuleProvidersClassGenerator(classRegistry, generationContext.keyRegistry, module, options)
+            val providersClassData = generator.generate()
+            classProducer.produceClass(module.providersType.internalName, providersClassData)
+          }
+        }
+  }
+
+  private fun generateProviderFactories(injectionContext: InjectionContext, generationContext: GenerationContext) {
+    injectionContext.allComponents.asSequence()
+        .flatMap { it.modules.asSequence() }
+        .filter { it.providers.isNotEmpty() }
+        .distinctBy { it.type }
+        .toList()
+        .let { modules ->
+          executor.forEach(modules) { module ->
+            logger.debug("Generating provider factory {}", module.providerFactoryType.internalName)
+            val generator = ProviderFactoryClassGenerator(classRegistry, generationContext.keyRegistry, module, options)
+            val factoryClassData = generator.generate()
+            classProducer.produceClass(module.providerFactoryType.internalName, factoryClassData)
+          }
         }
   }
 }
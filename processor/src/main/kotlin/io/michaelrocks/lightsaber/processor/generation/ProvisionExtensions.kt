@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.generation
+
+import io.michaelrocks.grip.mirrors.Type
+import io.michaelrocks.grip.mirrors.getObjectType
+import io.michaelrocks.grip.mirrors.isPrimitive
+import io.michaelrocks.lightsaber.processor.commons.GeneratorAdapter
+import io.michaelrocks.lightsaber.processor.commons.Types
+import io.michaelrocks.lightsaber.processor.commons.cast
+import io.michaelrocks.lightsaber.processor.commons.newLocal
+import io.michaelrocks.lightsaber.processor.commons.rawType
+import io.michaelrocks.lightsaber.processor.commons.toFieldDescriptor
+import io.michaelrocks.lightsaber.processor.commons.toMethodDescriptor
+import io.michaelrocks.lightsaber.processor.descriptors.MethodDescriptor
+import io.michaelrocks.lightsaber.processor.generation.model.KeyRegistry
+import io.michaelrocks.lightsaber.processor.model.Injectee
+import io.michaelrocks.lightsaber.processor.model.Module
+import io.michaelrocks.lightsaber.processor.model.Provider
+import io.michaelrocks.lightsaber.processor.model.ProvisionPoint
+import io.michaelrocks.lightsaber.processor.model.isConstructorProvider
+
+private val NULL_POINTER_EXCEPTION_TYPE = getObjectType<NullPointerException>()
+private val SYSTEM_TYPE = getObjectType<System>()
+
+private val INJECT_MEMBERS_METHOD =
+    MethodDescriptor.forMethod("injectMembers", Type.Primitive.Void, Types.OBJECT_TYPE)
+private val NANO_TIME_METHOD = MethodDescriptor.forMethod("nanoTime", Type.Primitive.Long)
+private val GET_INJECTOR_METHOD = MethodDescriptor.forMethod("getInjector", Types.INJECTOR_TYPE)
+private val RECORD_INSTANCE_METHOD =
+    MethodDescriptor.forMethod("recordInstance",
+        Type.Primitive.Void, Types.INJECTOR_TYPE, Type.Primitive.Int, Type.Primitive.Long)
+
+val Provider.injectees: List<Injectee>
+  get() {
+    val provisionPoint = provisionPoint as? ProvisionPoint.AbstractMethod ?: return emptyList()
+    return provisionPoint.injectionPoint.injectees
+  }
+
+val Provider.traceName: String
+  get() {
+    val provisionPoint = provisionPoint
+    return when (provisionPoint) {
+      is ProvisionPoint.AbstractMethod -> "${provisionPoint.containerType.className}.${provisionPoint.method.name}"
+      is ProvisionPoint.Field -> "${provisionPoint.containerType.className}.${provisionPoint.field.name}"
+    }
+  }
+
+// Leaves a boxed instance provided by the provider on the stack. The injector must be the first argument of the
+// method being generated.
+fun GeneratorAdapter.provide(
+    provider: Provider,
+    moduleRetriever: () -> Unit,
+    argumentGenerator: (Injectee) -> Unit
+) {
+  if (provider.provisionPoint is ProvisionPoint.Field) {
+    moduleRetriever()
+    val field = provider.provisionPoint.cast<ProvisionPoint.Field>().field.toFieldDescriptor()
+    getField(provider.moduleType, field)
+  } else if (provider.isConstructorProvider) {
+    newProvidedInstance(provider, argumentGenerator)
+    invokeInjectMembers()
+  } else {
+    invokeProviderMethod(provider, moduleRetriever, argumentGenerator)
+  }
+
+  valueOf(provider.dependency.type.rawType)
+}
+
+private fun GeneratorAdapter.newProvidedInstance(provider: Provider, argumentGenerator: (Injectee) -> Unit) {
+  newInstance(provider.dependency.type.rawType)
+  dup()
+  provider.injectees.forEach(argumentGenerator)
+  val method = provider.provisionPoint.cast<ProvisionPoint.AbstractMethod>().method.toMethodDescriptor()
+  invokeConstructor(provider.dependency.type.rawType, method)
+}
+
+private fun GeneratorAdapter.invokeProviderMethod(
+    provider: Provider,
+    moduleRetriever: () -> Unit,
+    argumentGenerator: (Injectee) -> Unit
+) {
+  moduleRetriever()
+  provider.injectees.forEach(argumentGenerator)
+  val method = provider.provisionPoint.cast<ProvisionPoint.AbstractMethod>().method.toMethodDescriptor()
+  invokeVirtual(provider.moduleType, method)
+
+  if (provider.dependency.type.rawType.isPrimitive) {
+    return
+  }
+
+  val resultIsNullLabel = newLabel()
+  dup()
+  ifNonNull(resultIsNullLabel)
+  throwException(NULL_POINTER_EXCEPTION_TYPE, "Provider method returned null")
+
+  visitLabel(resultIsNullLabel)
+}
+
+private fun GeneratorAdapter.invokeInjectMembers() {
+  dup()
+  loadArg(0)
+  swap()
+  invokeInterface(Types.INJECTOR_TYPE, INJECT_MEMBERS_METHOD)
+}
+
+// Contributions aren't bound to slots of their own, so they aren't instrumented.
+fun Provider.isInstrumented(options: GenerationOptions): Boolean =
+    options.instrument && contribution == null
+
+fun GeneratorAdapter.startInstantiationTimer(): Int {
+  return newLocal(Type.Primitive.Long) {
+    invokeStatic(SYSTEM_TYPE, NANO_TIME_METHOD)
+  }
+}
+
+// Records an instance created by an instrumented provider of the given type. The instance stays on the stack.
+fun GeneratorAdapter.recordInstance(
+    keyRegistry: KeyRegistry,
+    provider: Provider,
+    providerType: Type.Object,
+    startNanosLocal: Int
+) {
+  val key = keyRegistry.keys[provider.dependency.box()] ?: error("Key for ${provider.dependency} not found")
+  loadThis()
+  invokeVirtual(providerType, GET_INJECTOR_METHOD)
+  push(key.slot)
+  loadLocal(startNanosLocal)
+  invokeStatic(Types.INJECTOR_METRICS_TYPE, RECORD_INSTANCE_METHOD)
+}
+
+// The injector must be the first argument of the method being generated.
+fun GeneratorAdapter.newModuleProvider(provider: Provider, moduleRetriever: () -> Unit) {
+  newInstance(provider.type)
+  dup()
+  moduleRetriever()
+  loadArg(0)
+  val constructor = MethodDescriptor.forConstructor(provider.moduleType, Types.INJECTOR_TYPE)
+  invokeConstructor(provider.type, constructor)
+}
+
+// The injector must be the first argument of the method being generated.
+fun GeneratorAdapter.newConstructorProvider(provider: Provider) {
+  newInstance(provider.type)
+  dup()
+  loadArg(0)
+  val constructor = MethodDescriptor.forConstructor(Types.INJECTOR_TYPE)
+  invokeConstructor(provider.type, constructor)
+}
+
+// The injector must be the first argument of the method being generated. The module retriever is called only if the
+// module has an instance.
+fun GeneratorAdapter.newMergedModuleProvider(module: Module, id: Int, moduleRetriever: () -> Unit) {
+  newInstance(module.providersType)
+  dup()
+  if (module.hasInstance) {
+    moduleRetriever()
+  }
+  loadArg(0)
+  push(id)
+  invokeConstructor(module.providersType, module.providersConstructor)
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.generation
+
+import io.michaelrocks.grip.mirrors.Type
+import io.michaelrocks.lightsaber.LightsaberTypes
+import io.michaelrocks.lightsaber.processor.commons.rawType
+import io.michaelrocks.lightsaber.processor.model.Component
+import io.michaelrocks.lightsaber.processor.model.Converter
+import io.michaelrocks.lightsaber.processor.model.Dependency
+import io.michaelrocks.lightsaber.processor.model.Injectee
+import io.michaelrocks.lightsaber.processor.model.InjectionContext
+import io.michaelrocks.lightsaber.processor.model.InjectionPoint
+import io.michaelrocks.lightsaber.processor.model.Provider
+import io.michaelrocks.lightsaber.processor.model.ProvisionPoint
+import io.michaelrocks.lightsaber.processor.model.Scope
+import io.michaelrocks.lightsaber.processor.model.isConstructorProvider
+import java.util.ArrayList
+import java.util.HashMap
+import java.util.HashSet
+
+class WarmUpScheduleComposer(private val context: InjectionContext) {
+  // Unrelated components may provide the same dependency, so every provider of it is kept.
+  private val providersByDependency = context.allComponents.asSequence()
+      .flatMap { it.modules.asSequence() }
+      .flatMap { it.providers.asSequence() }
+      .filter { it.contribution == null }
+      .groupBy { it.dependency.box() }
+  private val depths = HashMap<Dependency, Int>()
+  private val visitingDependencies = HashSet<Dependency>()
+
+  fun composeSchedule(component: Component): List<List<Dependency>> {
+    val schedule = ArrayList<MutableList<Dependency>>()
+    component.modules.asSequence()
+        .flatMap { it.providers.asSequence() }
+        .filter { it.isSingleton && it.contribution == null }
+        .forEach { provider ->
+          val dependency = provider.dependency.box()
+          val level = getSingletonDepth(dependency)
+          while (schedule.size <= level) {
+            schedule.add(ArrayList())
+          }
+          schedule[level].add(dependency)
+        }
+    return schedule
+  }
+
+  // Returns the level of the deepest singleton that will be created when the dependency is provided or -1 if no
+  // singletons will be created. Dependencies injected as a Provider or a Lazy aren't created during provision.
+  // When several components provide the dependency the deepest of their providers is taken, so the level is never
+  // lower than the one of the provider the injector actually uses.
+  private fun getSingletonDepth(dependency: Dependency): Int {
+    depths[dependency]?.let { return it }
+    // Dependency cycles are reported by the validator.
+    if (!visitingDependencies.add(dependency)) {
+      return -1
+    }
+
+    val providers = providersByDependency[dependency].orEmpty()
+    val depth = providers.map { getSingletonDepth(it) }.max() ?: -1
+
+    visitingDependencies.remove(dependency)
+    depths[dependency] = depth
+    return depth
+  }
+
+  private fun getSingletonDepth(provider: Provider): Int {
+    val dependenciesDepth = provider.getEagerDependencies().map { getSingletonDepth(it) }.max() ?: -1
+    return if (provider.isSingleton) dependenciesDepth + 1 else dependenciesDepth
+  }
+
+  private fun Provider.getEagerDependencies(): List<Dependency> {
+    val method = provisionPoint as? ProvisionPoint.AbstractMethod ?: return emptyList()
+    val injectees = ArrayList(method.injectionPoint.injectees)
+    if (isConstructorProvider) {
+      val target = context.findInjectableTargetByType(dependency.type.rawType as Type.Object)
+      target?.injectionPoints?.forEach { injectionPoint ->
+        when (injectionPoint) {
+          is InjectionPoint.Field -> injectees.add(injectionPoint.injectee)
+          is InjectionPoint.Method -> injectees.addAll(injectionPoint.injectees)
+        }
+      }
+    }
+
+    return injectees
+        .filter { it.isEager }
+        .map { it.dependency.box() }
+  }
+
+  private val Injectee.isEager: Boolean
+    get() = converter is Converter.Instance
+
+  private val Provider.isSingleton: Boolean
+    get() {
+      val scope = scope as? Scope.Class ?: return false
+      return scope.scopeType == LightsaberTypes.SINGLETON_PROVIDER_TYPE ||
+          scope.scopeType == LightsaberTypes.RACY_SINGLETON_PROVIDER_TYPE
+    }
+}
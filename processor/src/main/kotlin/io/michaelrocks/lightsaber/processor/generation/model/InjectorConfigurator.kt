@@ -18,8 +18,10 @@ package io.michaelrocks.lightsaber.processor.generation.model
 
 import io.michaelrocks.grip.mirrors.Type
 import io.michaelrocks.lightsaber.processor.model.Component
+import io.michaelrocks.lightsaber.processor.model.Dependency
 
 data class InjectorConfigurator(
     val type: Type.Object,
-    val component: Component
+    val component: Component,
+    val warmUpSchedule: List<List<Dependency>>
 )
@@ -16,36 +16,137 @@
 
 package io.michaelrocks.lightsaber.processor.injection
 
+import io.michaelrocks.grip.mirrors.Type
 import io.michaelrocks.grip.mirrors.getObjectTypeByInternalName
+import io.michaelrocks.lightsaber.processor.commons.toFieldDescriptor
+import io.michaelrocks.lightsaber.processor.commons.toMethodDescriptor
+import io.michaelrocks.lightsaber.processor.descriptors.FieldDescriptor
+import io.michaelrocks.lightsaber.processor.descriptors.MethodDescriptor
+import io.michaelrocks.lightsaber.processor.descriptors.descriptor
 import io.michaelrocks.lightsaber.processor.model.InjectionContext
+import io.michaelrocks.lightsaber.processor.model.InjectionPoint
+import io.michaelrocks.lightsaber.processor.model.ModuleProvisionPoint
+import io.michaelrocks.lightsaber.processor.model.ProvisionPoint
+import org.objectweb.asm.ClassReader
 import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
 import org.objectweb.asm.Opcodes
+import java.util.ArrayList
 
 class Patcher(
     classVisitor: ClassVisitor,
     private val context: InjectionContext
 ) : ClassVisitor(Opcodes.ASM5, classVisitor) {
+  companion object {
+    // Only components, modules and injection targets are patched, other classes may be copied as is.
+    fun isPatchable(context: InjectionContext, type: Type.Object): Boolean {
+      return context.findComponentByType(type) != null ||
+          context.findModuleByType(type) != null ||
+          context.findInjectableTargetByType(type) != null ||
+          context.findProvidableTargetByType(type) != null
+    }
+
+    // Returns the input array itself if the class doesn't need to be patched.
+    fun patch(classData: ByteArray, context: InjectionContext): ByteArray {
+      val classReader = ClassReader(classData)
+      if (!isPatchable(context, getObjectTypeByInternalName(classReader.className))) {
+        return classData
+      }
+
+      // The patcher only changes access flags, so frames and maxs of the input remain valid. A writer that shares the
+      // constant pool with the reader copies method bodies as is instead of recomputing them.
+      val classWriter = ClassWriter(classReader, 0)
+      val patcher = Patcher(classWriter, context)
+      classReader.accept(patcher, 0)
+      return if (patcher.isDirty) classWriter.toByteArray() else classData
+    }
+
+    // Lists the roles of the class and the members the patchers touch, so a class with the same signature is patched
+    // the same way as before. Members are sorted since the model doesn't keep them in a stable order. Returns an empty
+    // string if the class isn't patched at all.
+    fun computePatchSignature(context: InjectionContext, type: Type.Object): String {
+      val members = ArrayList<String>()
+      context.findComponentByType(type)?.let { component ->
+        members += "component"
+        component.providers.forEach { provider ->
+          val provisionPoint = provider.provisionPoint
+          when (provisionPoint) {
+            is ModuleProvisionPoint.Field -> members += "component:${provisionPoint.field.toFieldDescriptor().format()}"
+            is ModuleProvisionPoint.Method ->
+              members += "component:${provisionPoint.method.toMethodDescriptor().format()}"
+          }
+        }
+      }
+
+      context.findModuleByType(type)?.let { module ->
+        members += "module"
+        module.providers.forEach { provider ->
+          val provisionPoint = provider.provisionPoint
+          when (provisionPoint) {
+            is ProvisionPoint.Field -> members += "module:${provisionPoint.field.toFieldDescriptor().format()}"
+            is ProvisionPoint.AbstractMethod ->
+              members += "module:${provisionPoint.method.toMethodDescriptor().format()}"
+          }
+        }
+      }
+
+      context.findInjectableTargetByType(type)?.let { target ->
+        members += "injectable"
+        target.injectionPoints.forEach { injectionPoint ->
+          when (injectionPoint) {
+            is InjectionPoint.Field -> members += "injectable:${injectionPoint.field.toFieldDescriptor().format()}"
+            is InjectionPoint.Method -> members += "injectable:${injectionPoint.method.toMethodDescriptor().format()}"
+          }
+        }
+      }
+
+      context.findProvidableTargetByType(type)?.let { target ->
+        members += "providable"
+        target.injectionPoints.forEach { injectionPoint ->
+          if (injectionPoint is InjectionPoint.Method) {
+            members += "providable:${injectionPoint.method.toMethodDescriptor().format()}"
+          }
+        }
+      }
+
+      return members.sorted().joinToString(";")
+    }
+
+    private fun FieldDescriptor.format() = "$name:$descriptor"
+    private fun MethodDescriptor.format() = "$name$descriptor"
+  }
+
+  private val patchers = ArrayList<BaseInjectionClassVisitor>()
+
+  // Patchers only change access flags, so a class that isn't dirty is identical to its input.
+  val isDirty: Boolean
+    get() = patchers.any { it.isDirty }
 
   override fun visit(version: Int, access: Int, name: String, signature: String?, superName: String?,
       interfaces: Array<String>?) {
     val type = getObjectTypeByInternalName(name)
 
     context.findComponentByType(type)?.let {
-      cv = ComponentPatcher(cv, it)
+      addPatcher(ComponentPatcher(cv, it))
     }
 
     context.findModuleByType(type)?.let {
-      cv = ModulePatcher(cv, it)
+      addPatcher(ModulePatcher(cv, it))
     }
 
     context.findInjectableTargetByType(type)?.let {
-      cv = InjectableTargetPatcher(cv, it)
+      addPatcher(InjectableTargetPatcher(cv, it))
     }
 
     context.findProvidableTargetByType(type)?.let {
-      cv = ProvidableTargetPatcher(cv, it)
+      addPatcher(ProvidableTargetPatcher(cv, it))
     }
 
     super.visit(version, access, name, signature, superName, interfaces)
   }
+
+  private fun addPatcher(patcher: BaseInjectionClassVisitor) {
+    patchers += patcher
+    cv = patcher
+  }
 }
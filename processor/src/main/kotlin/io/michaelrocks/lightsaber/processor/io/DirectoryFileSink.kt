@@ -16,22 +16,104 @@
 
 package io.michaelrocks.lightsaber.processor.io
 
+import io.michaelrocks.lightsaber.processor.commons.using
 import java.io.File
+import java.util.zip.CRC32
 
 class DirectoryFileSink(private val directory: File) : FileSink {
+  companion object {
+    private const val BUFFER_SIZE = 64 * 1024
+  }
+
   override fun createFile(path: String, data: ByteArray) {
     val file = File(directory, path)
-    file.parentFile?.mkdirs()
-    file.writeBytes(data)
+    if (!mayBeUnchanged(file, data.size.toLong()) { computeCrc(data) } || !hasSameContent(file, data)) {
+      writeFile(file, data)
+    }
+  }
+
+  // A raw file carries the CRC of its data, so it's inflated for a comparison only if the length and the CRC match.
+  override fun createFile(path: String, file: RawFile) {
+    val targetFile = File(directory, path)
+    if (!mayBeUnchanged(targetFile, file.size) { file.crc }) {
+      writeFile(targetFile, file.inflate())
+      return
+    }
+
+    val data = file.inflate()
+    if (!hasSameContent(targetFile, data)) {
+      writeFile(targetFile, data)
+    }
   }
 
   override fun createDirectory(path: String) {
     File(directory, path).mkdirs()
   }
 
+  override fun deleteFile(path: String) {
+    File(directory, path).delete()
+  }
+
   override fun flush() {
   }
 
   override fun close() {
   }
-}
\ No newline at end of file
+
+  // Unchanged files are left intact so their timestamps don't make subsequent tasks do any work. The length and the
+  // CRC reject most changed files quickly, equal ones are confirmed by comparing the contents. The existing file is
+  // streamed instead of being loaded into memory.
+  private inline fun mayBeUnchanged(file: File, size: Long, crc: () -> Long): Boolean {
+    return file.length() == size && file.isFile && computeCrc(file) == crc()
+  }
+
+  private fun hasSameContent(file: File, data: ByteArray): Boolean {
+    var offset = 0
+    using(file.inputStream()) { stream ->
+      val buffer = ByteArray(BUFFER_SIZE)
+      while (true) {
+        val count = stream.read(buffer)
+        if (count < 0) {
+          break
+        }
+        if (offset + count > data.size) {
+          return false
+        }
+        for (index in 0 until count) {
+          if (buffer[index] != data[offset + index]) {
+            return false
+          }
+        }
+        offset += count
+      }
+    }
+    return offset == data.size
+  }
+
+  private fun writeFile(file: File, data: ByteArray) {
+    file.parentFile?.mkdirs()
+    file.writeBytes(data)
+  }
+
+  private fun computeCrc(data: ByteArray): Long {
+    return CRC32().run {
+      update(data)
+      value
+    }
+  }
+
+  private fun computeCrc(file: File): Long {
+    val crc = CRC32()
+    using(file.inputStream()) { stream ->
+      val buffer = ByteArray(BUFFER_SIZE)
+      while (true) {
+        val count = stream.read(buffer)
+        if (count < 0) {
+          break
+        }
+        crc.update(buffer, 0, count)
+      }
+    }
+    return crc.value
+  }
+}
@@ -33,6 +33,8 @@ internal class DirectoryFileSource(private val directory: File) : FileSource {
 
   override fun readFile(path: String): ByteArray = File(directory, path).readBytes()
 
+  override fun readRawFile(path: String): RawFile? = null
+
   override fun close() {
   }
 }
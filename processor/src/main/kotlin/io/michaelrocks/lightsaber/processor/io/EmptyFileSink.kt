@@ -21,10 +21,18 @@ object EmptyFileSink : FileSink {
     throw UnsupportedOperationException()
   }
 
+  override fun createFile(path: String, file: RawFile) {
+    throw UnsupportedOperationException()
+  }
+
   override fun createDirectory(path: String) {
     throw UnsupportedOperationException()
   }
 
+  override fun deleteFile(path: String) {
+    throw UnsupportedOperationException()
+  }
+
   override fun flush() {
   }
 
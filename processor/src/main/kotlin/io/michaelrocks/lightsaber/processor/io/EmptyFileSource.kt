@@ -24,6 +24,10 @@ object EmptyFileSource : FileSource {
     throw UnsupportedOperationException()
   }
 
+  override fun readRawFile(path: String): RawFile? {
+    throw UnsupportedOperationException()
+  }
+
   override fun close() {
   }
 }
\ No newline at end of file
@@ -21,7 +21,9 @@ import java.io.File
 
 interface FileSink : Closeable {
   fun createFile(path: String, data: ByteArray)
+  fun createFile(path: String, file: RawFile)
   fun createDirectory(path: String)
+  fun deleteFile(path: String)
   fun flush()
 
   interface Factory {
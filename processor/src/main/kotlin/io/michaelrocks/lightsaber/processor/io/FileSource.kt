@@ -22,6 +22,8 @@ import java.io.File
 interface FileSource : Closeable {
   fun listFiles(callback: (name: String, type: EntryType) -> Unit)
   fun readFile(path: String): ByteArray
+  // Returns the file in its compressed form if the source can provide one and null otherwise.
+  fun readRawFile(path: String): RawFile?
 
   enum class EntryType { CLASS, FILE, DIRECTORY }
 
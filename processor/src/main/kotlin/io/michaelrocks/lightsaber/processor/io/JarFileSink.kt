@@ -16,38 +16,115 @@
 
 package io.michaelrocks.lightsaber.processor.io
 
-import io.michaelrocks.lightsaber.processor.commons.closeQuietly
+import io.michaelrocks.lightsaber.processor.commons.using
 import java.io.File
-import java.util.jar.JarEntry
-import java.util.jar.JarOutputStream
+import java.io.IOException
+import java.io.InputStream
 
-internal class JarFileSink(jarFile: File) : FileSink {
-  private val stream = createJarOutputStream(jarFile)
+internal class JarFileSink(private val jarFile: File) : FileSink {
+  companion object {
+    private const val BUFFER_SIZE = 64 * 1024
+  }
+
+  private val temporaryFile = File(jarFile.path + ".tmp")
+  private val writer = createRawZipWriter(temporaryFile)
+  // New entries get a fixed time, so processing the same classes again produces the same archive.
+  private val dosTime = MIN_DOS_TIME
+  private var isClosed = false
 
+  // Only new and patched files are deflated, raw files keep their compressed data, CRC and sizes.
   override fun createFile(path: String, data: ByteArray) {
-    val entry = JarEntry(path)
-    stream.putNextEntry(entry)
-    stream.write(data)
-    stream.closeEntry()
+    createFile(path, RawFile.deflate(data, dosTime))
+  }
+
+  @Synchronized
+  override fun createFile(path: String, file: RawFile) {
+    writer.writeFile(path, file)
   }
 
+  @Synchronized
   override fun createDirectory(path: String) {
     val directoryPath = if (path.endsWith("/")) path else "$path/"
-    val entry = JarEntry(directoryPath)
-    stream.putNextEntry(entry)
-    stream.closeEntry()
+    writer.writeDirectory(directoryPath, dosTime)
   }
 
+  // The archive is written from scratch, so files that aren't created are absent.
+  override fun deleteFile(path: String) {
+  }
+
+  @Synchronized
   override fun flush() {
-    stream.flush()
+    writer.flush()
   }
 
+  // The archive is replaced only after the temporary file has been written completely, so a failure leaves the
+  // previous archive in place.
+  @Synchronized
   override fun close() {
-    stream.closeQuietly()
+    if (isClosed) {
+      return
+    }
+
+    isClosed = true
+    try {
+      writer.close()
+      // An unchanged archive is left intact so its timestamp doesn't make subsequent tasks do any work.
+      if (!jarFile.isFile || !hasSameContent(jarFile, temporaryFile)) {
+        // Renaming over an existing file replaces it atomically on POSIX systems but fails on some others.
+        if (!temporaryFile.renameTo(jarFile) && !(jarFile.delete() && temporaryFile.renameTo(jarFile))) {
+          throw IOException("Cannot replace $jarFile with $temporaryFile")
+        }
+      }
+    } finally {
+      temporaryFile.delete()
+    }
   }
 
-  private fun createJarOutputStream(jarFile: File): JarOutputStream {
+  private fun createRawZipWriter(jarFile: File): RawZipWriter {
     jarFile.parentFile?.mkdirs()
-    return JarOutputStream(jarFile.outputStream().buffered())
+    return RawZipWriter(jarFile.outputStream().buffered())
+  }
+
+  private fun hasSameContent(file1: File, file2: File): Boolean {
+    if (file1.length() != file2.length()) {
+      return false
+    }
+
+    return using(file1.inputStream()) { stream1 ->
+      using(file2.inputStream()) { stream2 ->
+        hasSameContent(stream1, stream2)
+      }
+    }
+  }
+
+  private fun hasSameContent(stream1: InputStream, stream2: InputStream): Boolean {
+    val buffer1 = ByteArray(BUFFER_SIZE)
+    val buffer2 = ByteArray(BUFFER_SIZE)
+    while (true) {
+      val count = stream1.readFully(buffer1)
+      if (count != stream2.readFully(buffer2)) {
+        return false
+      }
+      if (count == 0) {
+        return true
+      }
+      for (index in 0 until count) {
+        if (buffer1[index] != buffer2[index]) {
+          return false
+        }
+      }
+    }
+  }
+
+  private fun InputStream.readFully(buffer: ByteArray): Int {
+    var count = 0
+    while (count < buffer.size) {
+      val read = read(buffer, count, buffer.size - count)
+      if (read < 0) {
+        break
+      }
+      count += read
+    }
+    return count
   }
 }
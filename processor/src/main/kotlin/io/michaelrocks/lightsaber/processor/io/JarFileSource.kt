@@ -16,6 +16,7 @@
 
 package io.michaelrocks.lightsaber.processor.io
 
+import io.michaelrocks.lightsaber.processor.commons.closeQuietly
 import io.michaelrocks.lightsaber.processor.commons.using
 import java.io.File
 import java.io.IOException
@@ -24,6 +25,7 @@ import java.util.jar.JarFile
 
 internal class JarFileSource(private val jarFile: File) : FileSource {
   private val jar = JarFile(jarFile, true)
+  private val rawReader = lazy { RawZipReader(jarFile) }
 
   override fun listFiles(callback: (String, FileSource.EntryType) -> Unit) {
     fun JarEntry.toEntryType() = when {
@@ -43,7 +45,15 @@ internal class JarFileSource(private val jarFile: File) : FileSource {
     }
   }
 
+  override fun readRawFile(path: String): RawFile? {
+    return rawReader.value.readRawFile(path)
+  }
+
   override fun close() {
+    if (rawReader.isInitialized()) {
+      rawReader.value.closeQuietly()
+    }
+
     try {
       jar.close()
     } catch (exception: IOException) {
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.io
+
+import java.io.ByteArrayOutputStream
+import java.util.zip.CRC32
+import java.util.zip.Deflater
+import java.util.zip.Inflater
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+
+// A file of a JAR in the form it's stored in the JAR. Raw files are copied between JARs without inflating and
+// deflating their data.
+class RawFile(
+    val method: Int,
+    val crc: Long,
+    val size: Long,
+    val dosTime: Int,
+    val data: ByteArray
+) {
+  companion object {
+    fun deflate(data: ByteArray, dosTime: Int): RawFile {
+      val crc = CRC32()
+      crc.update(data)
+
+      val deflater = Deflater(Deflater.DEFAULT_COMPRESSION, true)
+      try {
+        deflater.setInput(data)
+        deflater.finish()
+        val stream = ByteArrayOutputStream(data.size / 2 + 64)
+        val buffer = ByteArray(8192)
+        while (!deflater.finished()) {
+          val count = deflater.deflate(buffer)
+          stream.write(buffer, 0, count)
+        }
+        return RawFile(ZipEntry.DEFLATED, crc.value, data.size.toLong(), dosTime, stream.toByteArray())
+      } finally {
+        deflater.end()
+      }
+    }
+  }
+
+  fun inflate(): ByteArray {
+    if (method == ZipEntry.STORED) {
+      return data
+    }
+
+    val inflater = Inflater(true)
+    try {
+      // An inflater without a ZLIB header may need an extra byte after the compressed data.
+      inflater.setInput(data.copyOf(data.size + 1))
+      val result = ByteArray(size.toInt())
+      var offset = 0
+      while (offset < result.size) {
+        val count = inflater.inflate(result, offset, result.size - offset)
+        if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+          throw ZipException("Compressed data is truncated")
+        }
+        offset += count
+      }
+      return result
+    } finally {
+      inflater.end()
+    }
+  }
+}
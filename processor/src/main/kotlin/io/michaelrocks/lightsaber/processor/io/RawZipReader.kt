@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.io
+
+import java.io.Closeable
+import java.io.File
+import java.io.RandomAccessFile
+import java.util.HashMap
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+
+// Reads compressed data of ZIP entries as is. Entries that can't be copied verbatim, such as encrypted entries or
+// entries with ZIP64 sizes, are not indexed and have to be read with a JarFile.
+internal class RawZipReader(file: File) : Closeable {
+  private val file = RandomAccessFile(file, "r")
+  private val entries = readCentralDirectory()
+
+  @Synchronized
+  fun readRawFile(name: String): RawFile? {
+    val entry = entries[name] ?: return null
+    val header = ByteArray(LOCAL_HEADER_SIZE)
+    file.seek(entry.offset)
+    file.readFully(header)
+    if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+      throw ZipException("Invalid local header of $name")
+    }
+
+    val nameLength = header.getUnsignedShort(26)
+    val extraLength = header.getUnsignedShort(28)
+    val data = ByteArray(entry.compressedSize.toInt())
+    file.seek(entry.offset + LOCAL_HEADER_SIZE + nameLength + extraLength)
+    file.readFully(data)
+    return RawFile(entry.method, entry.crc, entry.size, entry.dosTime, data)
+  }
+
+  override fun close() {
+    file.close()
+  }
+
+  private fun readCentralDirectory(): Map<String, Entry> {
+    val directory = findCentralDirectory() ?: return emptyMap()
+    val data = ByteArray(directory.size.toInt())
+    file.seek(directory.offset)
+    file.readFully(data)
+
+    val entries = HashMap<String, Entry>()
+    var position = 0
+    while (position + CENTRAL_HEADER_SIZE <= data.size && data.getInt(position) == CENTRAL_HEADER_SIGNATURE) {
+      val flags = data.getUnsignedShort(position + 8)
+      val method = data.getUnsignedShort(position + 10)
+      val dosTime = data.getInt(position + 12)
+      val crc = data.getUnsignedInt(position + 16)
+      val compressedSize = data.getUnsignedInt(position + 20)
+      val size = data.getUnsignedInt(position + 24)
+      val nameLength = data.getUnsignedShort(position + 28)
+      val extraLength = data.getUnsignedShort(position + 30)
+      val commentLength = data.getUnsignedShort(position + 32)
+      val offset = data.getUnsignedInt(position + 42)
+      // JarFile decodes names as UTF-8 regardless of the flag, so the names match the ones it lists.
+      val name = String(data, position + CENTRAL_HEADER_SIZE, nameLength, Charsets.UTF_8)
+
+      val isSupported = (flags and FLAG_ENCRYPTED) == 0 &&
+          (method == ZipEntry.STORED || method == ZipEntry.DEFLATED) &&
+          compressedSize != ZIP64_MAGIC_VALUE && size != ZIP64_MAGIC_VALUE && offset != ZIP64_MAGIC_VALUE
+      if (isSupported && name !in entries) {
+        entries.put(name, Entry(method, crc, compressedSize, size, dosTime, offset))
+      }
+
+      position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength
+    }
+    return entries
+  }
+
+  private fun findCentralDirectory(): CentralDirectory? {
+    val length = file.length()
+    val tailSize = minOf(length, (ZIP64_LOCATOR_SIZE + END_HEADER_SIZE + MAX_COMMENT_LENGTH).toLong()).toInt()
+    val tail = ByteArray(tailSize)
+    file.seek(length - tailSize)
+    file.readFully(tail)
+
+    var position = tailSize - END_HEADER_SIZE
+    while (position >= 0 && tail.getInt(position) != END_HEADER_SIGNATURE) {
+      position -= 1
+    }
+    if (position < 0) {
+      return null
+    }
+
+    val count = tail.getUnsignedShort(position + 10)
+    val size = tail.getUnsignedInt(position + 12)
+    val offset = tail.getUnsignedInt(position + 16)
+    if (count != ZIP64_MAGIC_COUNT && size != ZIP64_MAGIC_VALUE && offset != ZIP64_MAGIC_VALUE) {
+      return CentralDirectory(offset, size)
+    }
+
+    val locatorPosition = position - ZIP64_LOCATOR_SIZE
+    if (locatorPosition < 0 || tail.getInt(locatorPosition) != ZIP64_LOCATOR_SIGNATURE) {
+      return if (count == ZIP64_MAGIC_COUNT && size != ZIP64_MAGIC_VALUE && offset != ZIP64_MAGIC_VALUE) {
+        CentralDirectory(offset, size)
+      } else {
+        null
+      }
+    }
+
+    val header = ByteArray(ZIP64_END_HEADER_SIZE)
+    file.seek(tail.getLong(locatorPosition + 8))
+    file.readFully(header)
+    if (header.getInt(0) != ZIP64_END_HEADER_SIGNATURE) {
+      return null
+    }
+
+    return CentralDirectory(header.getLong(48), header.getLong(40))
+  }
+
+  private class CentralDirectory(val offset: Long, val size: Long)
+
+  private class Entry(
+      val method: Int,
+      val crc: Long,
+      val compressedSize: Long,
+      val size: Long,
+      val dosTime: Int,
+      val offset: Long
+  )
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.io
+
+import java.io.ByteArrayOutputStream
+import java.io.Closeable
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.HashSet
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+
+// Writes ZIP entries whose data is already compressed. The archive switches to the ZIP64 end of central directory
+// record when it contains too many entries for the regular one.
+internal class RawZipWriter(private val stream: OutputStream) : Closeable {
+  companion object {
+    private const val VERSION = 20
+    private const val ZIP64_VERSION = 45
+  }
+
+  private val centralDirectory = ByteArrayOutputStream()
+  private val names = HashSet<String>()
+  private var offset = 0L
+  private var entryCount = 0L
+  private var isFinished = false
+
+  fun writeFile(name: String, file: RawFile) {
+    writeEntry(name, file.method, file.crc, file.size, file.dosTime, file.data)
+  }
+
+  fun writeDirectory(name: String, dosTime: Int) {
+    writeEntry(name, ZipEntry.STORED, 0L, 0L, dosTime, ByteArray(0))
+  }
+
+  fun flush() {
+    stream.flush()
+  }
+
+  override fun close() {
+    try {
+      finish()
+    } finally {
+      stream.close()
+    }
+  }
+
+  private fun writeEntry(name: String, method: Int, crc: Long, size: Long, dosTime: Int, data: ByteArray) {
+    if (!names.add(name)) {
+      throw ZipException("duplicate entry: $name")
+    }
+    if (offset > ZIP64_MAGIC_VALUE - LOCAL_HEADER_SIZE - data.size || size >= ZIP64_MAGIC_VALUE) {
+      throw ZipException("Entry $name doesn't fit into a JAR without ZIP64 extensions")
+    }
+
+    val nameBytes = name.toByteArray(Charsets.UTF_8)
+    val localHeader = newBuffer(LOCAL_HEADER_SIZE + nameBytes.size)
+        .putInt(LOCAL_HEADER_SIGNATURE)
+        .putShort(VERSION.toShort())
+        .putShort(FLAG_UTF8.toShort())
+        .putShort(method.toShort())
+        .putInt(dosTime)
+        .putInt(crc.toInt())
+        .putInt(data.size)
+        .putInt(size.toInt())
+        .putShort(nameBytes.size.toShort())
+        .putShort(0)
+        .put(nameBytes)
+    val centralHeader = newBuffer(CENTRAL_HEADER_SIZE + nameBytes.size)
+        .putInt(CENTRAL_HEADER_SIGNATURE)
+        .putShort(VERSION.toShort())
+        .putShort(VERSION.toShort())
+        .putShort(FLAG_UTF8.toShort())
+        .putShort(method.toShort())
+        .putInt(dosTime)
+        .putInt(crc.toInt())
+        .putInt(data.size)
+        .putInt(size.toInt())
+        .putShort(nameBytes.size.toShort())
+        .putShort(0)
+        .putShort(0)
+        .putShort(0)
+        .putShort(0)
+        .putInt(0)
+        .putInt(offset.toInt())
+        .put(nameBytes)
+
+    stream.write(localHeader.array())
+    stream.write(data)
+    centralDirectory.write(centralHeader.array())
+    offset += localHeader.capacity() + data.size
+    entryCount += 1
+  }
+
+  private fun finish() {
+    if (isFinished) {
+      return
+    }
+
+    isFinished = true
+    val centralDirectoryOffset = offset
+    val centralDirectorySize = centralDirectory.size().toLong()
+    if (centralDirectoryOffset + centralDirectorySize >= ZIP64_MAGIC_VALUE) {
+      throw ZipException("JAR doesn't fit into 4 GB")
+    }
+
+    centralDirectory.writeTo(stream)
+    if (entryCount >= ZIP64_MAGIC_COUNT) {
+      val zip64EndHeaderOffset = centralDirectoryOffset + centralDirectorySize
+      val zip64EndHeader = newBuffer(ZIP64_END_HEADER_SIZE)
+          .putInt(ZIP64_END_HEADER_SIGNATURE)
+          .putLong((ZIP64_END_HEADER_SIZE - 12).toLong())
+          .putShort(ZIP64_VERSION.toShort())
+          .putShort(ZIP64_VERSION.toShort())
+          .putInt(0)
+          .putInt(0)
+          .putLong(entryCount)
+          .putLong(entryCount)
+          .putLong(centralDirectorySize)
+          .putLong(centralDirectoryOffset)
+      val zip64Locator = newBuffer(ZIP64_LOCATOR_SIZE)
+          .putInt(ZIP64_LOCATOR_SIGNATURE)
+          .putInt(0)
+          .putLong(zip64EndHeaderOffset)
+          .putInt(1)
+      stream.write(zip64EndHeader.array())
+      stream.write(zip64Locator.array())
+    }
+
+    val count = minOf(entryCount, ZIP64_MAGIC_COUNT.toLong()).toShort()
+    val endHeader = newBuffer(END_HEADER_SIZE)
+        .putInt(END_HEADER_SIGNATURE)
+        .putShort(0)
+        .putShort(0)
+        .putShort(count)
+        .putShort(count)
+        .putInt(centralDirectorySize.toInt())
+        .putInt(centralDirectoryOffset.toInt())
+        .putShort(0)
+    stream.write(endHeader.array())
+    stream.flush()
+  }
+
+  private fun newBuffer(size: Int): ByteBuffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN)
+}
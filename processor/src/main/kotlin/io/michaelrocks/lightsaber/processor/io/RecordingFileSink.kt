@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.io
+
+import java.util.HashMap
+import java.util.zip.CRC32
+
+class RecordingFileSink(private val delegate: FileSink) : FileSink {
+  private val createdFiles = HashMap<String, Long>()
+
+  // Files are created concurrently, so paths are sorted to make the result independent of the completion order.
+  val paths: List<String>
+    get() = synchronized(createdFiles) { createdFiles.keys.sorted() }
+
+  // CRCs of the created files by their paths.
+  val checksums: Map<String, Long>
+    get() = synchronized(createdFiles) { HashMap(createdFiles) }
+
+  override fun createFile(path: String, data: ByteArray) {
+    delegate.createFile(path, data)
+    val crc = CRC32().run {
+      update(data)
+      value
+    }
+    synchronized(createdFiles) { createdFiles[path] = crc }
+  }
+
+  override fun createFile(path: String, file: RawFile) {
+    delegate.createFile(path, file)
+    synchronized(createdFiles) { createdFiles[path] = file.crc }
+  }
+
+  override fun createDirectory(path: String) {
+    delegate.createDirectory(path)
+  }
+
+  override fun deleteFile(path: String) {
+    delegate.deleteFile(path)
+  }
+
+  override fun flush() {
+    delegate.flush()
+  }
+
+  override fun close() {
+    delegate.close()
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.io
+
+internal const val LOCAL_HEADER_SIGNATURE = 0x04034b50
+internal const val CENTRAL_HEADER_SIGNATURE = 0x02014b50
+internal const val END_HEADER_SIGNATURE = 0x06054b50
+internal const val ZIP64_END_HEADER_SIGNATURE = 0x06064b50
+internal const val ZIP64_LOCATOR_SIGNATURE = 0x07064b50
+
+internal const val LOCAL_HEADER_SIZE = 30
+internal const val CENTRAL_HEADER_SIZE = 46
+internal const val END_HEADER_SIZE = 22
+internal const val ZIP64_END_HEADER_SIZE = 56
+internal const val ZIP64_LOCATOR_SIZE = 20
+internal const val MAX_COMMENT_LENGTH = 0xffff
+
+internal const val FLAG_ENCRYPTED = 0x1
+internal const val FLAG_UTF8 = 0x800
+
+internal const val ZIP64_MAGIC_COUNT = 0xffff
+internal const val ZIP64_MAGIC_VALUE = 0xffffffffL
+
+internal fun ByteArray.getUnsignedShort(offset: Int): Int =
+    (this[offset].toInt() and 0xff) or ((this[offset + 1].toInt() and 0xff) shl 8)
+
+internal fun ByteArray.getInt(offset: Int): Int =
+    getUnsignedShort(offset) or (getUnsignedShort(offset + 2) shl 16)
+
+internal fun ByteArray.getUnsignedInt(offset: Int): Long =
+    getInt(offset).toLong() and 0xffffffffL
+
+internal fun ByteArray.getLong(offset: Int): Long =
+    getUnsignedInt(offset) or (getUnsignedInt(offset + 4) shl 32)
+
+// The earliest time representable in the MS-DOS format used by ZIP files: 1980-01-01 00:00:00.
+internal const val MIN_DOS_TIME = (1 shl 21) or (1 shl 16)
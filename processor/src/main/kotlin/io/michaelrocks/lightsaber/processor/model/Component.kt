@@ -21,7 +21,8 @@ import io.michaelrocks.grip.mirrors.Type
 data class Component(
     val type: Type.Object,
     val providers: Collection<ModuleProvider>,
-    val subcomponents: Collection<Type.Object>
+    val subcomponents: Collection<Type.Object>,
+    val multibindings: Collection<Multibinding> = emptyList()
 ) {
   val modules: Collection<Module> = providers.map { it.module }
 }
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.model
+
+// A provider with a contribution isn't bound on its own, its instances are collected into a multibinding.
+sealed class Contribution {
+  abstract val dependency: Dependency
+
+  data class Set(override val dependency: Dependency) : Contribution()
+
+  // The key is a String, an Int, a Long, a Type.Object of a class or an EnumMirror.
+  data class Map(override val dependency: Dependency, val key: Any) : Contribution()
+}
@@ -22,11 +22,16 @@ data class Provider(
     val type: Type.Object,
     val provisionPoint: ProvisionPoint,
     val moduleType: Type.Object,
-    val scope: Scope
+    val scope: Scope,
+    val contribution: Contribution? = null
 ) {
   val dependency: Dependency
     get() = provisionPoint.dependency
 }
 
+// The dependency the provider is registered for in an injector.
+val Provider.bindingDependency: Dependency
+  get() = contribution?.dependency ?: dependency
+
 val Provider.isConstructorProvider: Boolean
   get() = provisionPoint is ProvisionPoint.Constructor
@@ -24,6 +24,7 @@ import io.michaelrocks.lightsaber.processor.graph.HashDirectedGraph
 import io.michaelrocks.lightsaber.processor.model.Dependency
 import io.michaelrocks.lightsaber.processor.model.Module
 import io.michaelrocks.lightsaber.processor.model.ProvisionPoint
+import io.michaelrocks.lightsaber.processor.model.bindingDependency
 
 fun buildDependencyGraph(modules: Collection<Module>): DirectedGraph<Dependency> {
   return HashDirectedGraph<Dependency>().apply {
@@ -31,7 +32,7 @@ fun buildDependencyGraph(modules: Collection<Module>): DirectedGraph<Dependency>
     put(rootType, emptyList())
     for (module in modules) {
       for (provider in module.providers) {
-        val returnType = provider.dependency.box()
+        val returnType = provider.bindingDependency.box()
         val method = provider.provisionPoint as? ProvisionPoint.AbstractMethod
         val injectees = method?.injectionPoint?.injectees.orEmpty()
         val dependencies = injectees.map { it.dependency.box() }
@@ -94,10 +94,18 @@ private fun DirectedGraph<InjectionGraphVertex>.withComponent(
     graph.put(componentVertex, moduleVertex)
 
     module.providers.forEach { provider ->
-      val dependencyVertex = InjectionGraphVertex.DependencyVertex(provider.dependency)
-      graph.put(moduleVertex, dependencyVertex)
+      if (provider.contribution == null) {
+        val dependencyVertex = InjectionGraphVertex.DependencyVertex(provider.dependency)
+        graph.put(moduleVertex, dependencyVertex)
+      }
     }
   }
+
+  // Multibindings are aggregated across modules, so they are provided by the component itself.
+  component.multibindings.forEach { multibinding ->
+    val dependencyVertex = InjectionGraphVertex.DependencyVertex(multibinding.dependency)
+    graph.put(componentVertex, dependencyVertex)
+  }
   return graph
 }
 
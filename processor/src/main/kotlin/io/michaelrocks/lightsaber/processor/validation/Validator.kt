@@ -31,12 +31,16 @@ import io.michaelrocks.lightsaber.processor.model.Dependency
 import io.michaelrocks.lightsaber.processor.model.Injectee
 import io.michaelrocks.lightsaber.processor.model.InjectionContext
 import io.michaelrocks.lightsaber.processor.model.InjectionPoint
+import io.michaelrocks.lightsaber.processor.model.bindingDependency
 import java.util.ArrayList
 import java.util.HashSet
 
 class Validator(
     private val classRegistry: ClassRegistry,
-    private val errorReporter: ErrorReporter
+    private val errorReporter: ErrorReporter,
+    // Component chains that passed validation in the previous run and aren't affected by the changes since then
+    // aren't checked for duplicates and unresolved dependencies again.
+    private val isChainAffected: (List<Component>) -> Boolean = { true }
 ) {
   fun validate(context: InjectionContext) {
     performSanityChecks(context)
@@ -64,9 +68,13 @@ class Validator(
 
   private fun validateInjectionGraph(context: InjectionContext) {
     val injectionGraphs = buildInjectionGraphs(context)
+    val packageComponent = InjectionGraphVertex.ComponentVertex(context.packageComponent)
     injectionGraphs.forEach {
-      validateNoDuplicatesInInjectionGraph(it)
-      validateDependencyGraph(context, it)
+      val componentChain = extractComponentChain(it, packageComponent)
+      if (isChainAffected(componentChain)) {
+        validateNoDuplicatesInInjectionGraph(it)
+        validateDependencyGraph(it, componentChain)
+      }
     }
 
     val fullInjectionGraph = buildInjectionGraph(injectionGraphs)
@@ -93,9 +101,13 @@ class Validator(
           is InjectionGraphVertex.DependencyVertex -> {
             val dependency = vertex.dependency.toString()
             val modules =
-                adjacent
-                    .mapNotNull { it as? InjectionGraphVertex.ModuleVertex }
-                    .joinToString { it.module.type.className }
+                adjacent.joinToString { source ->
+                  when (source) {
+                    is InjectionGraphVertex.ComponentVertex -> source.component.type.className
+                    is InjectionGraphVertex.ModuleVertex -> source.module.type.className
+                    is InjectionGraphVertex.DependencyVertex -> source.dependency.toString()
+                  }
+                }
             errorReporter.reportError(
                 "Dependency provided multiple times in a component chain: $dependency: $modules"
             )
@@ -105,12 +117,13 @@ class Validator(
     }
   }
 
-  private fun validateDependencyGraph(context: InjectionContext, injectionGraph: DirectedGraph<InjectionGraphVertex>) {
+  private fun validateDependencyGraph(
+      injectionGraph: DirectedGraph<InjectionGraphVertex>,
+      componentChain: List<Component>
+  ) {
     val modules = injectionGraph.vertices.mapNotNull { (it as? InjectionGraphVertex.ModuleVertex)?.module }
     val dependencyGraph = buildDependencyGraph(modules)
 
-    val packageComponent = InjectionGraphVertex.ComponentVertex(context.packageComponent)
-    val componentChain = extractComponentChain(injectionGraph, packageComponent)
     val unresolvedDependencies =
         dependencyGraph.findUnresolvedDependencies(componentChain.subList(1, componentChain.size))
     if (unresolvedDependencies.isNotEmpty()) {
@@ -162,7 +175,7 @@ class Validator(
     components.forEach { component ->
       component.modules.forEach { module ->
         module.providers.forEach { provider ->
-          traversal.traverse(this, delegate, provider.dependency.box())
+          traversal.traverse(this, delegate, provider.bindingDependency.box())
         }
       }
     }
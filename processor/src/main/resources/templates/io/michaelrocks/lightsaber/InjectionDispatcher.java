@@ -18,62 +18,144 @@ package io.michaelrocks.lightsaber;
 
 import io.michaelrocks.lightsaber.internal.LightweightHashMap;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class InjectionDispatcher {
-  private static final Map<Class<?>, InjectorConfigurator> injectorConfigurators =
-      new LightweightHashMap<Class<?>, InjectorConfigurator>();
-  private static final Map<Class<?>, MembersInjector<?>> membersInjectors =
-      new LightweightHashMap<Class<?>, MembersInjector<?>>();
+  // Only class names are registered eagerly. Configurators and members injectors are instantiated on
+  // demand so their classes and the classes they reference are loaded only when actually used.
+  private static final Map<String, Integer> injectorConfiguratorIds = new LightweightHashMap<String, Integer>();
+  private static final Map<String, Integer> membersInjectorIds = new LightweightHashMap<String, Integer>();
+  // Members injectors of a class and all its superclasses ordered from the root of the hierarchy. Classes that are
+  // visible to the dispatcher live as long as it does, while other classes are held weakly so that their class
+  // loaders can be unloaded.
+  private static final ConcurrentMap<Class<?>, MembersInjector<Object>[]> flattenedMembersInjectors =
+      new ConcurrentHashMap<Class<?>, MembersInjector<Object>[]>();
+  private static final Map<Class<?>, MembersInjector<Object>[]> foreignFlattenedMembersInjectors =
+      Collections.synchronizedMap(new WeakHashMap<Class<?>, MembersInjector<Object>[]>());
 
   static {
     /*%STATIC_INITIALIZER%*/
   }
 
+  // Configurators are stateless, so each of them is created once.
+  private static final AtomicReferenceArray<InjectorConfigurator> injectorConfigurators =
+      new AtomicReferenceArray<InjectorConfigurator>(injectorConfiguratorIds.size());
+
   public static void configureInjector(final Object injectorObject, final Object component) {
     if (!(injectorObject instanceof LightsaberInjector)) {
       throw new ConfigurationException("Cannot configure a non-Lightsaber injector: " + injectorObject);
     }
 
     final LightsaberInjector injector = (LightsaberInjector) injectorObject;
+    getInjectorConfigurator(component).configureInjector(injector, component);
+  }
+
+  public static int[][] getWarmUpSchedule(final Object component) {
+    return getInjectorConfigurator(component).getWarmUpSchedule();
+  }
+
+  private static InjectorConfigurator getInjectorConfigurator(final Object component) {
     final Class<?> componentClass = component == null ? null : component.getClass();
-    final InjectorConfigurator injectorConfigurator = injectorConfigurators.get(componentClass);
-    if (injectorConfigurator == null) {
+    final Integer id = injectorConfiguratorIds.get(componentClass == null ? null : componentClass.getName());
+    if (id == null || (componentClass != null && !isProcessedClass(componentClass))) {
       throw new ConfigurationException("The component hasn't been processed with Lightsaber: " + component);
     }
 
-    injectorConfigurator.configureInjector(injector, component);
+    final InjectorConfigurator cachedConfigurator = injectorConfigurators.get(id);
+    if (cachedConfigurator != null) {
+      return cachedConfigurator;
+    }
+
+    final InjectorConfigurator configurator = newInjectorConfigurator(id);
+    return injectorConfigurators.compareAndSet(id, null, configurator) ? configurator : injectorConfigurators.get(id);
+  }
+
+  private static InjectorConfigurator newInjectorConfigurator(final int id) {
+    switch (id) {
+      /*%INJECTOR_CONFIGURATOR_FACTORY%*/
+      default:
+        throw new IllegalArgumentException("Unknown injector configurator: " + id);
+    }
   }
 
   public static void injectMembers(final Object injectorObject, final Object object) {
     final Injector injector = (Injector) injectorObject;
-    injectFieldsIntoObject(injector, object, object.getClass());
-    injectMethodsIntoObject(injector, object, object.getClass());
+    final MembersInjector<Object>[] injectors = getFlattenedMembersInjectors(object.getClass());
+    for (final MembersInjector<Object> membersInjector : injectors) {
+      membersInjector.injectFields(injector, object);
+    }
+    for (final MembersInjector<Object> membersInjector : injectors) {
+      membersInjector.injectMethods(injector, object);
+    }
   }
 
-  private static void injectFieldsIntoObject(final Injector injector, final Object object, final Class<?> type) {
-    if (type == Object.class) {
-      return;
+  private static MembersInjector<Object>[] getFlattenedMembersInjectors(final Class<?> type) {
+    final MembersInjector<Object>[] cachedInjectors = flattenedMembersInjectors.get(type);
+    if (cachedInjectors != null) {
+      return cachedInjectors;
     }
 
-    injectFieldsIntoObject(injector, object, type.getSuperclass());
-    // noinspection unchecked
-    final MembersInjector<Object> membersInjector = (MembersInjector<Object>) membersInjectors.get(type);
-    if (membersInjector != null) {
-      membersInjector.injectFields(injector, object);
+    final MembersInjector<Object>[] cachedForeignInjectors = foreignFlattenedMembersInjectors.get(type);
+    if (cachedForeignInjectors != null) {
+      return cachedForeignInjectors;
+    }
+
+    final MembersInjector<Object>[] injectors = flattenMembersInjectors(type);
+    if (!isProcessedClass(type)) {
+      foreignFlattenedMembersInjectors.put(type, injectors);
+      return injectors;
     }
+
+    final MembersInjector<Object>[] existingInjectors = flattenedMembersInjectors.putIfAbsent(type, injectors);
+    return existingInjectors != null ? existingInjectors : injectors;
   }
 
-  private static void injectMethodsIntoObject(final Injector injector, final Object object, final Class<?> type) {
-    if (type == Object.class) {
-      return;
+  private static MembersInjector<Object>[] flattenMembersInjectors(final Class<?> type) {
+    final List<MembersInjector<?>> injectors = new ArrayList<MembersInjector<?>>();
+    for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+      final Integer id = membersInjectorIds.get(current.getName());
+      if (id != null && isProcessedClass(current)) {
+        injectors.add(newMembersInjector(id));
+      }
     }
 
-    injectMethodsIntoObject(injector, object, type.getSuperclass());
+    final int size = injectors.size();
     // noinspection unchecked
-    final MembersInjector<Object> membersInjector = (MembersInjector<Object>) membersInjectors.get(type);
-    if (membersInjector != null) {
-      membersInjector.injectMethods(injector, object);
+    final MembersInjector<Object>[] result = new MembersInjector[size];
+    for (int i = 0; i < size; ++i) {
+      // noinspection unchecked
+      result[i] = (MembersInjector<Object>) injectors.get(size - 1 - i);
+    }
+    return result;
+  }
+
+  // Generated classes are registered by names, so a class with the same name from another class loader hasn't been
+  // processed. Such a class may also be unloaded before the dispatcher.
+  private static boolean isProcessedClass(final Class<?> type) {
+    final ClassLoader classLoader = InjectionDispatcher.class.getClassLoader();
+    if (type.getClassLoader() == classLoader) {
+      return true;
+    }
+
+    try {
+      return Class.forName(type.getName(), false, classLoader) == type;
+    } catch (final ClassNotFoundException exception) {
+      return false;
+    }
+  }
+
+  private static MembersInjector<?> newMembersInjector(final int id) {
+    switch (id) {
+      /*%MEMBERS_INJECTOR_FACTORY%*/
+      default:
+        throw new IllegalArgumentException("Unknown members injector: " + id);
     }
   }
 }
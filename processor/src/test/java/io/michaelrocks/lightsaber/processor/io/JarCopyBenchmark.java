@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+// Copies every entry of a large JAR the way the processor copies entries it doesn't patch. The inflated mode copies
+// entries with JarFile and JarOutputStream like the processor did before raw files were supported.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JarCopyBenchmark {
+  @Param({ "20000" })
+  private int entryCount;
+  @Param({ "8192" })
+  private int entrySize;
+
+  private File directory;
+  private File input;
+  private File output;
+  private final List<String> paths = new ArrayList<String>();
+
+  @Setup(Level.Trial)
+  public void createJar() throws IOException {
+    directory = File.createTempFile("lightsaber", "benchmark");
+    directory.delete();
+    directory.mkdirs();
+    input = new File(directory, "input.jar");
+    output = new File(directory, "output.jar");
+
+    // Bytes from a small alphabet compress about as well as class files do.
+    final Random random = new Random(42);
+    final byte[] data = new byte[entrySize];
+    final JarOutputStream stream = new JarOutputStream(new FileOutputStream(input));
+    try {
+      for (int i = 0; i < entryCount; ++i) {
+        for (int j = 0; j < data.length; ++j) {
+          data[j] = (byte) ('a' + random.nextInt(16));
+        }
+        final String path = "io/michaelrocks/lightsaber/benchmark/Class" + i + ".class";
+        stream.putNextEntry(new JarEntry(path));
+        stream.write(data);
+        stream.closeEntry();
+        paths.add(path);
+      }
+    } finally {
+      stream.close();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteJar() {
+    input.delete();
+    output.delete();
+    directory.delete();
+  }
+
+  @Benchmark
+  public void copyInflated() throws IOException {
+    final JarFile jarFile = new JarFile(input, true);
+    final JarOutputStream stream = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(output)));
+    try {
+      final byte[] buffer = new byte[8192];
+      for (final String path : paths) {
+        stream.putNextEntry(new JarEntry(path));
+        stream.write(readEntry(jarFile, path, buffer));
+        stream.closeEntry();
+      }
+    } finally {
+      stream.close();
+      jarFile.close();
+    }
+  }
+
+  @Benchmark
+  public void copyRaw() throws IOException {
+    final FileSource source = IoFactory.INSTANCE.createFileSource(input);
+    final FileSink sink = IoFactory.INSTANCE.createFileSink(input, output);
+    try {
+      for (final String path : paths) {
+        sink.createFile(path, source.readRawFile(path));
+      }
+    } finally {
+      sink.close();
+      source.close();
+    }
+  }
+
+  private static byte[] readEntry(final JarFile jarFile, final String path, final byte[] buffer) throws IOException {
+    final InputStream stream = jarFile.getInputStream(jarFile.getJarEntry(path));
+    try {
+      final ByteArrayOutputStream data = new ByteArrayOutputStream();
+      int count;
+      while ((count = stream.read(buffer)) != -1) {
+        data.write(buffer, 0, count);
+      }
+      return data.toByteArray();
+    } finally {
+      stream.close();
+    }
+  }
+}
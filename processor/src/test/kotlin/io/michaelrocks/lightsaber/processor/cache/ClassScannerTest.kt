@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.michaelrocks.lightsaber.processor.cache
+
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+
+class ClassScannerTest {
+  companion object {
+    private const val INJECT_DESCRIPTOR = "Ljavax/inject/Inject;"
+  }
+
+  @Test
+  fun testPlainClassIsIrrelevant() {
+    val summary = ClassScanner.scan(createClass("test/Plain") {
+      visitField(Opcodes.ACC_PRIVATE, "field", "Ltest/Dependency;", null, null).visitEnd()
+    })
+    assertFalse(summary.isRelevant)
+    assertTrue(summary.referencedTypes.isEmpty())
+  }
+
+  @Test
+  fun testInjectFieldIsRelevant() {
+    val summary = ClassScanner.scan(createClass("test/Target") {
+      val field = visitField(Opcodes.ACC_PRIVATE, "field", "Ltest/Dependency;", null, null)
+      field.visitAnnotation(INJECT_DESCRIPTOR, true).visitEnd()
+      field.visitEnd()
+    })
+    assertTrue(summary.isRelevant)
+    assertTrue("test/Dependency" in summary.referencedTypes)
+  }
+
+  @Test
+  fun testInjectMethodIsRelevant() {
+    val summary = ClassScanner.scan(createClass("test/Target") {
+      val method = visitMethod(Opcodes.ACC_PUBLIC, "inject", "(Ltest/Dependency;)V", null, null)
+      method.visitAnnotation(INJECT_DESCRIPTOR, true).visitEnd()
+      method.visitEnd()
+    })
+    assertTrue(summary.isRelevant)
+    assertTrue("test/Dependency" in summary.referencedTypes)
+  }
+
+  @Test
+  fun testInjectConstructorIsRelevant() {
+    val summary = ClassScanner.scan(createClass("test/Target") {
+      val method = visitMethod(Opcodes.ACC_PUBLIC, "<init>", "(Ltest/Dependency;)V", null, null)
+      method.visitAnnotation(INJECT_DESCRIPTOR, true).visitEnd()
+      method.visitEnd()
+    })
+    assertTrue(summary.isRelevant)
+    assertTrue("test/Dependency" in summary.referencedTypes)
+  }
+
+  @Test
+  fun testComponentIsRelevant() {
+    val summary = ClassScanner.scan(createClass("test/TargetComponent") {
+      val annotation = visitAnnotation("Lio/michaelrocks/lightsaber/Component;", false)
+      annotation.visit("root", true)
+      annotation.visitEnd()
+    })
+    assertTrue(summary.isRelevant)
+  }
+
+  @Test
+  fun testInvisibleAnnotationIsRelevant() {
+    val summary = ClassScanner.scan(createClass("test/Target") {
+      visitAnnotation("Lio/michaelrocks/lightsaber/ProvidedBy;", false).visitEnd()
+    })
+    assertTrue(summary.isRelevant)
+  }
+
+  @Test
+  fun testLazyFieldSignatureIsRelevant() {
+    val summary = ClassScanner.scan(createClass("test/Target") {
+      visitField(Opcodes.ACC_PRIVATE, "field", "Ljava/lang/Object;",
+          "Lio/michaelrocks/lightsaber/Lazy<Ltest/Dependency;>;", null).visitEnd()
+    })
+    assertTrue(summary.isRelevant)
+    assertTrue("test/Dependency" in summary.referencedTypes)
+  }
+
+  @Test
+  fun testReferencedTypesIncludeSuperclass() {
+    val summary = ClassScanner.scan(createClass("test/Target", "test/Base") {
+      visitAnnotation("Ljavax/inject/Singleton;", true).visitEnd()
+    })
+    assertTrue("test/Base" in summary.referencedTypes)
+  }
+
+  private inline fun createClass(
+      name: String,
+      superName: String = "java/lang/Object",
+      body: ClassWriter.() -> Unit
+  ): ByteArray {
+    val writer = ClassWriter(0)
+    writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, name, null, superName, null)
+    writer.body()
+    writer.visitEnd()
+    return writer.toByteArray()
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.cache
+
+import io.michaelrocks.lightsaber.processor.commons.ParallelExecutor
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import java.io.File
+
+class IncrementalCacheTest {
+  companion object {
+    private const val SERVICE_PATCH_SIGNATURE = "injectable;injectable:field:Ltest/Dependency;"
+  }
+
+  @get:Rule
+  val folder = TemporaryFolder()
+
+  private lateinit var cacheFile: File
+  private lateinit var input: File
+  private lateinit var output: File
+
+  @Before
+  fun createFiles() {
+    cacheFile = File(folder.root, "cache")
+    input = folder.newFolder("input")
+    output = folder.newFolder("output")
+    writeClass(input, "test/Service", injectable = true, fieldType = "test/Dependency")
+    writeClass(input, "test/Dependency")
+    writeClass(input, "test/Unrelated")
+    File(input, "resource.txt").writeText("resource")
+    input.copyRecursively(output)
+    save(createCache("key"))
+  }
+
+  @Test
+  fun testUnchangedInputsReuseResults() {
+    val changes = createCache("key").findIrrelevantChanges()!!.single()
+    assertTrue(changes.changedFiles.isEmpty())
+    assertTrue(changes.removedFiles.isEmpty())
+  }
+
+  @Test
+  fun testIrrelevantChangesReuseResults() {
+    writeClass(input, "test/Unrelated", fieldType = "test/Service")
+    File(input, "resource.txt").writeText("changed resource")
+    val changes = createCache("key").findIrrelevantChanges()!!.single()
+    assertEquals(setOf("test/Unrelated.class", "resource.txt"), changes.changedFiles.toSet())
+    assertTrue(changes.removedFiles.isEmpty())
+  }
+
+  @Test
+  fun testDeletedClassIsReportedAsRemoved() {
+    File(input, "test/Unrelated.class").delete()
+    val cache = createCache("key")
+    val changes = cache.findIrrelevantChanges()!!.single()
+    assertTrue(changes.changedFiles.isEmpty())
+    assertEquals(listOf("test/Unrelated.class"), changes.removedFiles.toList())
+    assertEquals(listOf("test/Unrelated.class"), cache.findRemovedFiles(0).toList())
+  }
+
+  @Test
+  fun testDeletedClassIsForgottenAfterSave() {
+    File(input, "test/Unrelated.class").delete()
+    save(createCache("key"))
+    val changes = createCache("key").findIrrelevantChanges()!!.single()
+    assertTrue(changes.removedFiles.isEmpty())
+  }
+
+  @Test
+  fun testDeletedRelevantClassRequiresProcessing() {
+    File(input, "test/Service.class").delete()
+    val cache = createCache("key")
+    assertNull(cache.findIrrelevantChanges())
+    assertEquals(listOf("test/Service.class"), cache.findRemovedFiles(0).toList())
+  }
+
+  @Test
+  fun testRelevantChangeRequiresProcessing() {
+    writeClass(input, "test/Service", injectable = true)
+    assertNull(createCache("key").findIrrelevantChanges())
+  }
+
+  @Test
+  fun testChangeOfReferencedClassRequiresProcessing() {
+    writeClass(input, "test/Dependency", fieldType = "test/Unrelated")
+    assertNull(createCache("key").findIrrelevantChanges())
+  }
+
+  @Test
+  fun testChangedOutputRequiresProcessing() {
+    File(output, "test/Service.class").appendBytes(byteArrayOf(0))
+    assertNull(createCache("key").findIrrelevantChanges())
+  }
+
+  @Test
+  fun testMissingGeneratedFileRequiresProcessing() {
+    save(createCache("key"), generatedFiles = listOf(File(folder.root, "Missing.class").absolutePath))
+    assertNull(createCache("key").findIrrelevantChanges())
+  }
+
+  @Test
+  fun testUnchangedOutputIsReusable() {
+    val cache = createCache("key")
+    assertTrue(cache.isOutputReusable(0, "test/Service.class", SERVICE_PATCH_SIGNATURE))
+    assertTrue(cache.isOutputReusable(0, "test/Unrelated.class", ""))
+  }
+
+  @Test
+  fun testOutputPatchedDifferentlyIsNotReusable() {
+    assertFalse(createCache("key").isOutputReusable(0, "test/Service.class", "injectable:another"))
+    assertFalse(createCache("key").isOutputReusable(0, "test/Unrelated.class", "injectable"))
+  }
+
+  @Test
+  fun testOutputOfChangedInputIsNotReusable() {
+    writeClass(input, "test/Unrelated", fieldType = "test/Service")
+    assertFalse(createCache("key").isOutputReusable(0, "test/Unrelated.class", ""))
+  }
+
+  @Test
+  fun testOverwrittenOutputIsNotReusable() {
+    File(output, "test/Unrelated.class").appendBytes(byteArrayOf(0))
+    assertFalse(createCache("key").isOutputReusable(0, "test/Unrelated.class", ""))
+  }
+
+  @Test
+  fun testChangeFilterTracksReferencedClasses() {
+    writeClass(input, "test/Dependency", fieldType = "test/Unrelated")
+    val changeFilter = createCache("key").createChangeFilter()!!
+    assertTrue(changeFilter.isAffected(listOf("test/Service")))
+    assertTrue(changeFilter.isAffected(listOf("test/Dependency")))
+    assertFalse(changeFilter.isAffected(listOf("test/Unrelated")))
+  }
+
+  @Test
+  fun testChangeFilterTracksClassesReferringToReachableClasses() {
+    writeClass(input, "test/Provided", injectable = true, fieldType = "test/Service")
+    val changeFilter = createCache("key").createChangeFilter()!!
+    assertTrue(changeFilter.isAffected(listOf("test/Service")))
+    assertFalse(changeFilter.isAffected(listOf("test/Dependency")))
+  }
+
+  @Test
+  fun testChangeFilterTracksRemovedClasses() {
+    File(input, "test/Service.class").delete()
+    val changeFilter = createCache("key").createChangeFilter()!!
+    assertTrue(changeFilter.isAffected(listOf("test/Service")))
+    assertFalse(changeFilter.isAffected(listOf("test/Dependency")))
+  }
+
+  @Test
+  fun testChangeFilterIsNotCreatedWithoutPreviousRun() {
+    assertNull(createCache("another key").createChangeFilter())
+  }
+
+  @Test
+  fun testChangeFilterIsNotCreatedForArchives() {
+    val archive = File(folder.root, "input.jar")
+    archive.writeBytes(byteArrayOf(0))
+    val archiveOutput = File(folder.root, "output.jar")
+    createCache("key", archive, archiveOutput).save(emptyList(), emptyMap(), listOf(emptyMap()))
+    assertNull(createCache("key", archive, archiveOutput).createChangeFilter())
+  }
+
+  @Test
+  fun testUnchangedSourcesReuseCompilation() {
+    save(createCache("key"), generatedSources = mapOf("test/Injector.java" to 42L))
+    assertTrue(createCache("key").isCompilationReusable(mapOf("test/Injector.java" to 42L)))
+    assertFalse(createCache("key").isCompilationReusable(mapOf("test/Injector.java" to 43L)))
+  }
+
+  @Test
+  fun testChangedConfigurationRequiresProcessing() {
+    assertNull(createCache("another key").findIrrelevantChanges())
+  }
+
+  private fun save(
+      cache: IncrementalCache,
+      generatedFiles: Collection<String> = emptyList(),
+      generatedSources: Map<String, Long> = emptyMap()
+  ) {
+    cache.save(generatedFiles, generatedSources, listOf(mapOf("test/Service.class" to SERVICE_PATCH_SIGNATURE)))
+  }
+
+  private fun createCache(
+      configurationKey: String,
+      input: File = this.input,
+      output: File = this.output
+  ): IncrementalCache {
+    return IncrementalCache(cacheFile, listOf(input), listOf(output), configurationKey, ParallelExecutor(1))
+  }
+
+  private fun writeClass(directory: File, name: String, injectable: Boolean = false, fieldType: String? = null) {
+    val writer = ClassWriter(0)
+    writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+    if (injectable) {
+      writer.visitAnnotation("Ljavax/inject/Singleton;", true).visitEnd()
+    }
+    if (fieldType != null) {
+      writer.visitField(Opcodes.ACC_PRIVATE, "field", "L$fieldType;", null, null).visitEnd()
+    }
+    writer.visitEnd()
+
+    val file = File(directory, "$name.class")
+    file.parentFile.mkdirs()
+    file.writeBytes(writer.toByteArray())
+  }
+}
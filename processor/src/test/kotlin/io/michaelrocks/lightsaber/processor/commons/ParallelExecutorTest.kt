@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.commons
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.fail
+import org.junit.Test
+
+class ParallelExecutorTest {
+  @Test
+  fun testMapPreservesOrder() {
+    ParallelExecutor(4).use { executor ->
+      val elements = (0 until 1000).toList()
+      val results = executor.map(elements) { element ->
+        if (element % 7 == 0) {
+          Thread.sleep(1)
+        }
+        element * 2
+      }
+      assertEquals(elements.map { it * 2 }, results)
+    }
+  }
+
+  @Test
+  fun testSingleThreadRunsOnCallingThread() {
+    ParallelExecutor(1).use { executor ->
+      val thread = Thread.currentThread()
+      val threads = executor.map(listOf(1, 2, 3)) { Thread.currentThread() }
+      assertEquals(listOf(thread, thread, thread), threads)
+    }
+  }
+
+  @Test
+  fun testExceptionIsRethrown() {
+    ParallelExecutor(4).use { executor ->
+      try {
+        executor.forEach(listOf(1, 2, 3)) { element ->
+          if (element == 2) {
+            throw IllegalStateException("Failed")
+          }
+        }
+        fail()
+      } catch (exception: IllegalStateException) {
+        assertEquals("Failed", exception.message)
+      }
+    }
+  }
+}
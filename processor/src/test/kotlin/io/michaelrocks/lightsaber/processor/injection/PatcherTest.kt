@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.michaelrocks.lightsaber.processor.injection
+
+import io.michaelrocks.grip.mirrors.getObjectTypeByInternalName
+import io.michaelrocks.lightsaber.processor.model.Component
+import io.michaelrocks.lightsaber.processor.model.InjectionContext
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.Opcodes.ACC_PUBLIC
+import org.objectweb.asm.Opcodes.ACC_STATIC
+import org.objectweb.asm.Opcodes.ACC_SUPER
+import org.objectweb.asm.Opcodes.ALOAD
+import org.objectweb.asm.Opcodes.IF_ICMPGE
+import org.objectweb.asm.Opcodes.ILOAD
+import org.objectweb.asm.Opcodes.INVOKESPECIAL
+import org.objectweb.asm.Opcodes.IRETURN
+import org.objectweb.asm.Opcodes.RETURN
+import org.objectweb.asm.Opcodes.V1_7
+import org.objectweb.asm.util.CheckClassAdapter
+import java.io.PrintWriter
+import java.io.StringWriter
+import java.lang.reflect.Modifier
+
+class PatcherTest {
+  @Test
+  fun testClassWithoutPatchesIsCopiedAsIs() {
+    val classData = createClass(ACC_PUBLIC)
+    val patchedClassData = Patcher.patch(classData, createContext())
+    assertTrue(classData.contentEquals(patchedClassData))
+  }
+
+  @Test
+  fun testClassWithAccessPatchIsValid() {
+    val classData = createClass(0)
+    val patchedClassData = Patcher.patch(classData, createContext())
+    assertNotSame(classData, patchedClassData)
+    assertEquals(ACC_PUBLIC or ACC_SUPER, ClassReader(patchedClassData).access)
+
+    val output = StringWriter()
+    CheckClassAdapter.verify(ClassReader(patchedClassData), false, PrintWriter(output))
+    assertEquals("", output.toString())
+
+    val patchedClass = ByteArrayClassLoader().defineClass(CLASS_NAME.replace('/', '.'), patchedClassData)
+    assertTrue(Modifier.isPublic(patchedClass.modifiers))
+    assertEquals(2, patchedClass.getMethod("min", Int::class.java, Int::class.java).invoke(null, 3, 2))
+
+    assertSame(patchedClassData, Patcher.patch(patchedClassData, createContext()))
+  }
+
+  private fun createContext(): InjectionContext {
+    val packageComponent = Component(getObjectTypeByInternalName("PackageComponent"), emptyList(), emptyList())
+    val component = Component(getObjectTypeByInternalName(CLASS_NAME), emptyList(), emptyList())
+    return InjectionContext(packageComponent, listOf(component), emptyList(), emptyList())
+  }
+
+  // Creates a class with a branch in a method, so the class has a stack map frame the patcher has to preserve.
+  private fun createClass(access: Int): ByteArray {
+    val writer = ClassWriter(ClassWriter.COMPUTE_MAXS or ClassWriter.COMPUTE_FRAMES)
+    writer.visit(V1_7, access or ACC_SUPER, CLASS_NAME, null, "java/lang/Object", null)
+
+    val constructor = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null)
+    constructor.visitCode()
+    constructor.visitVarInsn(ALOAD, 0)
+    constructor.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false)
+    constructor.visitInsn(RETURN)
+    constructor.visitMaxs(0, 0)
+    constructor.visitEnd()
+
+    val min = writer.visitMethod(ACC_PUBLIC or ACC_STATIC, "min", "(II)I", null, null)
+    val secondIsLess = Label()
+    min.visitCode()
+    min.visitVarInsn(ILOAD, 0)
+    min.visitVarInsn(ILOAD, 1)
+    min.visitJumpInsn(IF_ICMPGE, secondIsLess)
+    min.visitVarInsn(ILOAD, 0)
+    min.visitInsn(IRETURN)
+    min.visitLabel(secondIsLess)
+    min.visitVarInsn(ILOAD, 1)
+    min.visitInsn(IRETURN)
+    min.visitMaxs(0, 0)
+    min.visitEnd()
+
+    writer.visitEnd()
+    return writer.toByteArray()
+  }
+
+  private class ByteArrayClassLoader : ClassLoader(PatcherTest::class.java.classLoader) {
+    fun defineClass(name: String, classData: ByteArray): Class<*> = defineClass(name, classData, 0, classData.size)
+  }
+
+  companion object {
+    private const val CLASS_NAME = "io/michaelrocks/lightsaber/processor/injection/PatchedClass"
+  }
+}
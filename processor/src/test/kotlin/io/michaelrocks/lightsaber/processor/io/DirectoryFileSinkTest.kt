@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.michaelrocks.lightsaber.processor.io
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotEquals
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+
+class DirectoryFileSinkTest {
+  companion object {
+    private const val LAST_MODIFIED = 1000000000000L
+  }
+
+  @get:Rule
+  val folder = TemporaryFolder()
+
+  @Test
+  fun testUnchangedFileIsLeftIntact() {
+    val sink = DirectoryFileSink(folder.root)
+    val file = File(folder.root, "test/File.class")
+    sink.createFile("test/File.class", byteArrayOf(1, 2, 3))
+    file.setLastModified(LAST_MODIFIED)
+
+    sink.createFile("test/File.class", byteArrayOf(1, 2, 3))
+    assertEquals(LAST_MODIFIED, file.lastModified())
+
+    sink.createFile("test/File.class", RawFile.deflate(byteArrayOf(1, 2, 3), MIN_DOS_TIME))
+    assertEquals(LAST_MODIFIED, file.lastModified())
+  }
+
+  @Test
+  fun testChangedFileOfSameLengthIsRewritten() {
+    val sink = DirectoryFileSink(folder.root)
+    val file = File(folder.root, "File.class")
+    sink.createFile("File.class", byteArrayOf(1, 2, 3))
+    file.setLastModified(LAST_MODIFIED)
+
+    sink.createFile("File.class", byteArrayOf(3, 2, 1))
+    assertNotEquals(LAST_MODIFIED, file.lastModified())
+    assertArrayEquals(byteArrayOf(3, 2, 1), file.readBytes())
+
+    sink.createFile("File.class", RawFile.deflate(byteArrayOf(2, 1, 3), MIN_DOS_TIME))
+    assertArrayEquals(byteArrayOf(2, 1, 3), file.readBytes())
+  }
+
+  @Test
+  fun testChangedFileWithSameCrcIsRewritten() {
+    val sink = DirectoryFileSink(folder.root)
+    val file = File(folder.root, "File.txt")
+    val data = "plumless".toByteArray()
+    val collidingData = "buckeroo".toByteArray()
+    assertEquals(RawFile.deflate(data, MIN_DOS_TIME).crc, RawFile.deflate(collidingData, MIN_DOS_TIME).crc)
+
+    sink.createFile("File.txt", data)
+    sink.createFile("File.txt", collidingData)
+    assertArrayEquals(collidingData, file.readBytes())
+
+    sink.createFile("File.txt", RawFile.deflate(data, MIN_DOS_TIME))
+    assertArrayEquals(data, file.readBytes())
+  }
+
+  @Test
+  fun testDeletedFileIsRemoved() {
+    val sink = DirectoryFileSink(folder.root)
+    sink.createFile("test/File.class", byteArrayOf(1, 2, 3))
+    sink.deleteFile("test/File.class")
+    assertFalse(File(folder.root, "test/File.class").exists())
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.processor.io
+
+import io.michaelrocks.lightsaber.processor.commons.using
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.io.IOException
+import java.util.jar.JarEntry
+import java.util.jar.JarFile
+import java.util.jar.JarOutputStream
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+
+class JarFileSinkTest {
+  @get:Rule
+  val folder = TemporaryFolder()
+
+  @Test
+  fun testRawFilesAreCopiedVerbatim() {
+    val input = folder.newFile("input.jar")
+    val output = File(folder.root, "output.jar")
+    val deflatedData = ByteArray(10000) { (it % 37).toByte() }
+    val storedData = ByteArray(100) { it.toByte() }
+    createJar(input) { stream ->
+      stream.putNextEntry(JarEntry("directory/"))
+      stream.closeEntry()
+      stream.putNextEntry(JarEntry("directory/Deflated.class"))
+      stream.write(deflatedData)
+      stream.closeEntry()
+      stream.putNextEntry(newStoredEntry("Stored.txt", storedData))
+      stream.write(storedData)
+      stream.closeEntry()
+    }
+
+    val source = JarFileSource(input)
+    val sink = JarFileSink(output)
+    source.listFiles { path, type ->
+      when (type) {
+        FileSource.EntryType.DIRECTORY -> sink.createDirectory(path)
+        else -> sink.createFile(path, source.readRawFile(path)!!)
+      }
+    }
+    sink.createFile("Generated.class", deflatedData)
+    sink.close()
+    source.close()
+
+    using(JarFile(output)) { jar ->
+      assertEquals(listOf("directory/", "directory/Deflated.class", "Stored.txt", "Generated.class"),
+          jar.entries().toList().map { it.name })
+      assertArrayEquals(deflatedData, jar.read("directory/Deflated.class"))
+      assertArrayEquals(storedData, jar.read("Stored.txt"))
+      assertArrayEquals(deflatedData, jar.read("Generated.class"))
+      assertEquals(ZipEntry.STORED, jar.getJarEntry("Stored.txt").method)
+      assertEquals(ZipEntry.DEFLATED, jar.getJarEntry("Generated.class").method)
+    }
+
+    using(JarFile(input)) { inputJar ->
+      using(JarFile(output)) { outputJar ->
+        val inputEntry = inputJar.getJarEntry("directory/Deflated.class")
+        val outputEntry = outputJar.getJarEntry("directory/Deflated.class")
+        assertEquals(inputEntry.crc, outputEntry.crc)
+        assertEquals(inputEntry.compressedSize, outputEntry.compressedSize)
+      }
+    }
+  }
+
+  @Test
+  fun testRawFileIsInflated() {
+    val input = folder.newFile("input.jar")
+    val data = ByteArray(1000) { (it % 10).toByte() }
+    createJar(input) { stream ->
+      stream.putNextEntry(JarEntry("File.txt"))
+      stream.write(data)
+      stream.closeEntry()
+    }
+
+    val source = JarFileSource(input)
+    val rawFile = source.readRawFile("File.txt")!!
+    source.close()
+    assertEquals(ZipEntry.DEFLATED, rawFile.method)
+    assertArrayEquals(data, rawFile.inflate())
+  }
+
+  @Test
+  fun testManyEntriesAreWrittenWithZip64EndRecord() {
+    val output = File(folder.root, "output.jar")
+    val sink = JarFileSink(output)
+    val count = 70000
+    for (index in 0 until count) {
+      sink.createFile("file$index", byteArrayOf(index.toByte()))
+    }
+    sink.close()
+
+    using(JarFile(output)) { jar ->
+      assertEquals(count, jar.size())
+      assertArrayEquals(byteArrayOf(42), jar.read("file42"))
+    }
+
+    val source = JarFileSource(output)
+    assertArrayEquals(byteArrayOf(69999.toByte()), source.readRawFile("file69999")!!.inflate())
+    source.close()
+  }
+
+  @Test
+  fun testUnchangedArchiveIsLeftIntact() {
+    val output = File(folder.root, "output.jar")
+    writeJar(output, byteArrayOf(1, 2, 3))
+    val lastModified = 1000000000000L
+    output.setLastModified(lastModified)
+
+    writeJar(output, byteArrayOf(1, 2, 3))
+    assertEquals(lastModified, output.lastModified())
+    assertEquals(listOf("output.jar"), folder.root.list().toList())
+
+    writeJar(output, byteArrayOf(3, 2, 1))
+    assertNotEquals(lastModified, output.lastModified())
+    using(JarFile(output)) { jar ->
+      assertArrayEquals(byteArrayOf(3, 2, 1), jar.read("File.class"))
+    }
+  }
+
+  @Test
+  fun testFailedReplacementIsReported() {
+    val output = folder.newFolder("output.jar")
+    File(output, "File.class").writeBytes(byteArrayOf(1, 2, 3))
+
+    try {
+      writeJar(output, byteArrayOf(1, 2, 3))
+      fail("IOException expected")
+    } catch (exception: IOException) {
+      // Expected.
+    }
+
+    assertTrue(File(output, "File.class").isFile)
+    assertEquals(listOf("output.jar"), folder.root.list().toList())
+  }
+
+  @Test
+  fun testRepeatedCloseKeepsArchive() {
+    val output = File(folder.root, "output.jar")
+    val sink = JarFileSink(output)
+    sink.createFile("File.class", byteArrayOf(1, 2, 3))
+    sink.close()
+    sink.close()
+
+    using(JarFile(output)) { jar ->
+      assertArrayEquals(byteArrayOf(1, 2, 3), jar.read("File.class"))
+    }
+  }
+
+  private fun writeJar(file: File, data: ByteArray) {
+    val sink = JarFileSink(file)
+    sink.createFile("File.class", data)
+    sink.close()
+  }
+
+  private fun createJar(file: File, writer: (JarOutputStream) -> Unit) {
+    using(JarOutputStream(file.outputStream().buffered()), writer)
+  }
+
+  private fun newStoredEntry(name: String, data: ByteArray): JarEntry {
+    val crc = CRC32()
+    crc.update(data)
+    return JarEntry(name).apply {
+      method = ZipEntry.STORED
+      size = data.size.toLong()
+      compressedSize = data.size.toLong()
+      this.crc = crc.value
+    }
+  }
+
+  private fun JarFile.read(name: String): ByteArray {
+    return using(getInputStream(getJarEntry(name))) { it.readBytes() }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.benchmark;
+
+import io.michaelrocks.lightsaber.Module;
+import io.michaelrocks.lightsaber.Provides;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Module
+class BenchmarkModule {
+  @Provides
+  private DeepGraph.Leaf provideLeaf() {
+    return new DeepGraph.Leaf();
+  }
+
+  @Provides
+  private Map<String, List<Set<Integer>>> provideIntegerSetListMap() {
+    return Collections.emptyMap();
+  }
+
+  @Provides
+  private Map<String, List<Set<Long>>> provideLongSetListMap() {
+    return Collections.emptyMap();
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.benchmark;
+
+import io.michaelrocks.lightsaber.Injector;
+import io.michaelrocks.lightsaber.Lazy;
+import io.michaelrocks.lightsaber.LazyAdapter;
+import io.michaelrocks.lightsaber.Lightsaber;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Every iteration starts with a fresh injector so all benchmark threads race for the first instantiation. Run
+// ContentionBenchmarkRunner to repeat the benchmark with 1 to 64 threads.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 100)
+@Measurement(iterations = 500)
+@Fork(1)
+public class ContentionBenchmark {
+  private Injector injector;
+  private Lazy<SlowGraph.SlowObject> lazy;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    injector = Lightsaber.get().createInjector(new BenchmarkComponent());
+    lazy = new LazyAdapter<SlowGraph.SlowObject>(injector.getProvider(SlowGraph.SlowObject.class));
+  }
+
+  @Benchmark
+  public Object getSingleton() {
+    return injector.getInstance(SlowGraph.SlowSingleton.class);
+  }
+
+  @Benchmark
+  public Object getIdempotentSingleton() {
+    return injector.getInstance(SlowGraph.SlowIdempotentSingleton.class);
+  }
+
+  @Benchmark
+  public Object getLazy() {
+    return lazy.get();
+  }
+}
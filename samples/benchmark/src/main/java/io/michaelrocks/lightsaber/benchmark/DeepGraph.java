@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.benchmark;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+// Every node depends on two unscoped instances of the next level, so a single request for the root creates
+// 2^8 leaves and makes the injector resolve 510 dependencies.
+public class DeepGraph {
+  public static class Root {
+    @Inject
+    public Root(final Node1 left, final Node1 right) {
+    }
+  }
+
+  public static class Node1 {
+    @Inject
+    public Node1(final Node2 left, final Node2 right) {
+    }
+  }
+
+  public static class Node2 {
+    @Inject
+    public Node2(final Node3 left, final Node3 right) {
+    }
+  }
+
+  public static class Node3 {
+    @Inject
+    public Node3(final Node4 left, final Node4 right) {
+    }
+  }
+
+  public static class Node4 {
+    @Inject
+    public Node4(final Node5 left, final Provider<Node5> right) {
+      right.get();
+    }
+  }
+
+  public static class Node5 {
+    @Inject
+    public Node5(final Node6 left, final Node6 right) {
+    }
+  }
+
+  public static class Node6 {
+    @Inject
+    public Node6(final Node7 left, final Node7 right) {
+    }
+  }
+
+  public static class Node7 {
+    @Inject
+    public Node7(final Leaf left, final Leaf right) {
+    }
+  }
+
+  public static class Leaf {
+  }
+}
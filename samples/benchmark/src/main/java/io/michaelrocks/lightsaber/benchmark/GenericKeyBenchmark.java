@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.benchmark;
+
+import io.michaelrocks.lightsaber.Injector;
+import io.michaelrocks.lightsaber.Key;
+import io.michaelrocks.lightsaber.Lightsaber;
+import io.michaelrocks.lightsaber.internal.ParameterizedTypeImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GenericKeyBenchmark {
+  private Injector injector;
+  private Type internalType;
+  private Type reflectiveType;
+  private Key<?> key;
+
+  @Setup
+  public void setup() throws Exception {
+    injector = Lightsaber.get().createInjector(new BenchmarkComponent());
+    // Map<String, List<Set<Integer>>> built the same way the generated KeyRegistry does.
+    internalType = new ParameterizedTypeImpl(null, Map.class,
+        String.class,
+        new ParameterizedTypeImpl(null, List.class,
+            new ParameterizedTypeImpl(null, Set.class, Integer.class)));
+    // The same type as returned by the JDK reflection API.
+    reflectiveType = GenericKeyBenchmark.class.getDeclaredMethod("provideReflectiveType").getGenericReturnType();
+    key = Key.of(internalType);
+  }
+
+  @Benchmark
+  public Object getInstanceByInternalType() {
+    return injector.getInstance(internalType);
+  }
+
+  @Benchmark
+  public Object getInstanceByReflectiveType() {
+    return injector.getInstance(reflectiveType);
+  }
+
+  @Benchmark
+  public Object getInstanceByKey() {
+    return injector.getInstance(key);
+  }
+
+  @Benchmark
+  public int hashInternalType() {
+    return Key.of(internalType).hashCode();
+  }
+
+  @SuppressWarnings("unused")
+  private static Map<String, List<Set<Integer>>> provideReflectiveType() {
+    return null;
+  }
+}
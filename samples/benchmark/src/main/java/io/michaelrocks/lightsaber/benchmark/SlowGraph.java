@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber.benchmark;
+
+import io.michaelrocks.lightsaber.Idempotent;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+public class SlowGraph {
+  private static final long CONSTRUCTION_TOKENS = 10000;
+
+  @Singleton
+  public static class SlowSingleton {
+    @Inject
+    public SlowSingleton() {
+      Blackhole.consumeCPU(CONSTRUCTION_TOKENS);
+    }
+  }
+
+  @Singleton
+  @Idempotent
+  public static class SlowIdempotentSingleton {
+    @Inject
+    public SlowIdempotentSingleton() {
+      Blackhole.consumeCPU(CONSTRUCTION_TOKENS);
+    }
+  }
+
+  public static class SlowObject {
+    @Inject
+    public SlowObject() {
+      Blackhole.consumeCPU(CONSTRUCTION_TOKENS);
+    }
+  }
+}
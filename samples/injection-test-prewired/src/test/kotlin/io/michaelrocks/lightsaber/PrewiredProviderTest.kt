@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.lang.reflect.Modifier
+
+class PrewiredProviderTest {
+  @Test
+  fun testDependencyProvidersAreFinalFields() {
+    val moduleName = PrewiredModule::class.java.name
+    val providerClasses = generateSequence(0) { it + 1 }
+        .map { findClass("$moduleName\$MethodProvider\$$it") }
+        .takeWhile { it != null }
+        .filterNotNull()
+        .toList()
+    val fields = providerClasses.flatMap { providerClass ->
+      providerClass.declaredFields.filter { it.name.startsWith("provider") }
+    }
+
+    assertEquals(2, fields.size)
+    fields.forEach { field ->
+      assertTrue("$field must be private", Modifier.isPrivate(field.modifiers))
+      assertTrue("$field must be final", Modifier.isFinal(field.modifiers))
+    }
+  }
+
+  @Test
+  fun testDependenciesAreResolved() {
+    val injector = Lightsaber().createInjector(PrewiredComponent())
+    validateTarget(injector.getInstance<Target>())
+    validateTarget(injector.getInstance<Target>())
+  }
+
+  @Test
+  fun testDependenciesAreResolvedInChildInjector() {
+    val lightsaber = Lightsaber()
+    val parentInjector = lightsaber.createInjector(PrewiredComponent())
+    val childInjector = lightsaber.createChildInjector(parentInjector, ChildComponent())
+    validateTarget(childInjector.getInstance<Target>())
+    validateTarget(parentInjector.getInstance<Target>())
+  }
+
+  private fun validateTarget(target: Target) {
+    assertEquals("String", target.string)
+    assertEquals("String", target.lazyString.get())
+  }
+
+  private fun findClass(name: String): Class<*>? {
+    return try {
+      Class.forName(name)
+    } catch (exception: ClassNotFoundException) {
+      null
+    }
+  }
+
+  private class Target(val string: String, val lazyString: Lazy<String>)
+
+  @Module
+  private class PrewiredModule {
+    @Provides
+    fun provideString(): String = "String"
+
+    @Provides
+    fun provideTarget(string: String, lazyString: Lazy<String>): Target = Target(string, lazyString)
+  }
+
+  @Component
+  private class PrewiredComponent {
+    @Provides
+    fun providePrewiredModule(): PrewiredModule = PrewiredModule()
+  }
+
+  @Module
+  private class ChildModule {
+    @Provides
+    fun provideChildObject(): Any = "Child Object"
+  }
+
+  @Component(parents = arrayOf(PrewiredComponent::class))
+  private class ChildComponent {
+    @Provides
+    fun provideChildModule(): ChildModule = ChildModule()
+  }
+}
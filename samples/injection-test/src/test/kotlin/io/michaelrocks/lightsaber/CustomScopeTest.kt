@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber
+
+import io.michaelrocks.lightsaber.internal.InjectingProvider
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Test
+import java.util.concurrent.atomic.AtomicInteger
+import javax.inject.Scope
+
+class CustomScopeTest {
+  @Test
+  fun testCustomScope() {
+    val injector = lightsaber.createInjector(CustomScopeComponent())
+    val createdProviders = CachingProvider.createdProviders.get()
+    assertSame(injector.getInstance<String>(), injector.getInstance<String>())
+    assertNotSame(injector.getInstance<StringBuilder>(), injector.getInstance<StringBuilder>())
+    assertEquals(createdProviders, CachingProvider.createdProviders.get())
+  }
+
+  @Test
+  fun testCustomScopePerInjector() {
+    val injector1 = lightsaber.createInjector(CustomScopeComponent())
+    val injector2 = lightsaber.createInjector(CustomScopeComponent())
+    assertEquals(injector1.getInstance<String>(), injector2.getInstance<String>())
+    assertNotSame(injector1.getInstance<String>(), injector2.getInstance<String>())
+  }
+
+  @Scope
+  @ScopeProvider(CachingProvider::class)
+  @Retention(AnnotationRetention.RUNTIME)
+  annotation class Cached
+
+  class CachingProvider<T>(private val provider: InjectingProvider<T>) : InjectingProvider<T> {
+    private var instance: T? = null
+
+    init {
+      createdProviders.incrementAndGet()
+    }
+
+    override fun get(): T = instance ?: provider.get().also { instance = it }
+
+    override fun getWithInjector(injector: Injector): T =
+        instance ?: provider.getWithInjector(injector).also { instance = it }
+
+    companion object {
+      val createdProviders = AtomicInteger()
+    }
+  }
+
+  @Module
+  private class CustomScopeModule {
+    @Provides
+    @Cached
+    fun provideString(): String = StringBuilder("String").toString()
+
+    @Provides
+    fun provideStringBuilder(): StringBuilder = StringBuilder("StringBuilder")
+  }
+
+  @Component
+  private class CustomScopeComponent {
+    @Provides
+    fun provideCustomScopeModule(): CustomScopeModule = CustomScopeModule()
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber
+
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class InjectorConfiguratorTest {
+  @Test
+  fun testInjectorConfiguratorIsCached() {
+    val component = ConfiguratorComponent()
+    Lightsaber.get().createInjector(component)
+    assertSame(getInjectorConfigurator(component), getInjectorConfigurator(ConfiguratorComponent()))
+  }
+
+  @Test(expected = ConfigurationException::class)
+  fun testComponentFromAnotherClassLoader() {
+    val componentClass = ChildFirstClassLoader(ConfiguratorComponent::class.java).loadClass(
+        ConfiguratorComponent::class.java.name)
+    val constructor = componentClass.getDeclaredConstructor()
+    constructor.isAccessible = true
+    Lightsaber.get().createInjector(constructor.newInstance())
+  }
+
+  private fun getInjectorConfigurator(component: Any): Any {
+    val method = InjectionDispatcher::class.java.getDeclaredMethod("getInjectorConfigurator", Any::class.java)
+    method.isAccessible = true
+    return method.invoke(null, component)
+  }
+
+  @Component
+  private class ConfiguratorComponent
+
+  // Defines its own copy of a single class, so the copy has the same name as the original one.
+  private class ChildFirstClassLoader(
+      private val type: Class<*>
+  ) : ClassLoader(type.classLoader) {
+    override fun loadClass(name: String, resolve: Boolean): Class<*> {
+      if (name != type.name) {
+        return super.loadClass(name, resolve)
+      }
+
+      synchronized(this) {
+        findLoadedClass(name)?.let { return it }
+        val bytes = type.getResourceAsStream("/" + name.replace('.', '/') + ".class").use { it.readBytes() }
+        return defineClass(name, bytes, 0, bytes.size)
+      }
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Test
+import javax.inject.Inject
+
+class MembersInjectionTest {
+  @Test
+  fun testMembersInjectionOrder() {
+    val injector = Lightsaber.get().createInjector(MembersInjectionComponent())
+    val target = Derived()
+    injector.injectMembers(target)
+    assertEquals(0, target.baseField.value)
+    assertEquals(1, target.derivedField.value)
+    assertEquals(2, target.baseMethodOrdinal)
+    assertEquals(3, target.derivedMethodOrdinal)
+  }
+
+  @Test
+  fun testFlattenedMembersInjectorsAreCached() {
+    val injector = Lightsaber.get().createInjector(MembersInjectionComponent())
+    injector.injectMembers(Derived())
+    val injectors = getFlattenedMembersInjectors(Derived::class.java)
+    assertEquals(2, injectors.size)
+    assertSame(injectors, getFlattenedMembersInjectors(Derived::class.java))
+    assertSame(injectors[0]!!.javaClass, getFlattenedMembersInjectors(Base::class.java).single()!!.javaClass)
+  }
+
+  private fun getFlattenedMembersInjectors(type: Class<*>): Array<*> {
+    val method = InjectionDispatcher::class.java.getDeclaredMethod("getFlattenedMembersInjectors", Class::class.java)
+    method.isAccessible = true
+    return method.invoke(null, type) as Array<*>
+  }
+
+  @Component
+  private class MembersInjectionComponent {
+    @Provides
+    fun provideMembersInjectionModule(): MembersInjectionModule = MembersInjectionModule()
+  }
+
+  @Module
+  private class MembersInjectionModule {
+    private var ordinal = 0
+
+    @Provides
+    fun provideOrdinal(): Ordinal = Ordinal(ordinal++)
+  }
+
+  private class Ordinal(val value: Int)
+
+  private open class Base {
+    @Inject
+    lateinit var baseField: Ordinal
+
+    var baseMethodOrdinal = -1
+
+    @Inject
+    fun injectBase(ordinal: Ordinal) {
+      baseMethodOrdinal = ordinal.value
+    }
+  }
+
+  private class Derived : Base() {
+    @Inject
+    lateinit var derivedField: Ordinal
+
+    var derivedMethodOrdinal = -1
+
+    @Inject
+    fun injectDerived(ordinal: Ordinal) {
+      derivedMethodOrdinal = ordinal.value
+    }
+  }
+}
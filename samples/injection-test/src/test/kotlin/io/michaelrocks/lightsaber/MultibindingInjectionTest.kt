@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.michaelrocks.lightsaber
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Test
+import javax.inject.Inject
+
+class MultibindingInjectionTest {
+  @Test
+  fun testSetMultibinding() {
+    val injector = lightsaber.createInjector(MultibindingComponent())
+    val target = injector.getInstance<ConstructorInjectionTarget>()
+    assertEquals(setOf("Battery", "Adapter", "Motor"), target.parts)
+  }
+
+  @Test
+  fun testMapMultibinding() {
+    val injector = lightsaber.createInjector(MultibindingComponent())
+    val target = injector.getInstance<ConstructorInjectionTarget>()
+    assertEquals(mapOf("battery" to "Battery", "motor" to "Motor"), target.partsByName)
+    assertEquals(mapOf(1 to "Battery", 2 to "Motor"), target.partsById)
+    assertEquals(mapOf(PartType.BATTERY to "Battery", PartType.MOTOR to "Motor"), target.partsByType)
+    assertEquals(mapOf(String::class.java to "Battery", StringBuilder::class.java to "Motor"), target.partsByClass)
+  }
+
+  @Test
+  fun testMultibindingFieldInjection() {
+    val injector = lightsaber.createInjector(MultibindingComponent())
+    val target = FieldInjectionTarget()
+    injector.injectMembers(target)
+    assertEquals(setOf("Battery", "Adapter", "Motor"), target.parts)
+    assertEquals(mapOf(PartType.BATTERY to "Battery", PartType.MOTOR to "Motor"), target.partsByType)
+  }
+
+  @Test
+  fun testMultibindingCreatesNewCollections() {
+    val injector = lightsaber.createInjector(MultibindingComponent())
+    val target1 = injector.getInstance<ConstructorInjectionTarget>()
+    val target2 = injector.getInstance<ConstructorInjectionTarget>()
+    assertEquals(target1.parts, target2.parts)
+    assertNotSame(target1.parts, target2.parts)
+    assertEquals(target1.partsByType, target2.partsByType)
+    assertNotSame(target1.partsByType, target2.partsByType)
+  }
+
+  enum class PartType {
+    BATTERY,
+    ADAPTER,
+    MOTOR
+  }
+
+  @MapKey
+  @Retention(AnnotationRetention.RUNTIME)
+  annotation class PartTypeKey(val value: PartType)
+
+  @Module
+  private class BatteryModule {
+    @Provides
+    @IntoSet
+    fun provideBattery(): String = "Battery"
+
+    @Provides
+    @IntoSet
+    fun provideAdapter(): String = "Adapter"
+
+    @Provides
+    @IntoMap
+    @StringKey("battery")
+    fun provideBatteryByName(): String = "Battery"
+
+    @Provides
+    @IntoMap
+    @IntKey(1)
+    fun provideBatteryById(): String = "Battery"
+
+    @Provides
+    @IntoMap
+    @PartTypeKey(PartType.BATTERY)
+    fun provideBatteryByType(): String = "Battery"
+
+    @Provides
+    @IntoMap
+    @ClassKey(String::class)
+    fun provideBatteryByClass(): String = "Battery"
+  }
+
+  @Module
+  private class MotorModule {
+    @Provides
+    @IntoSet
+    fun provideMotor(): String = "Motor"
+
+    @Provides
+    @IntoMap
+    @StringKey("motor")
+    fun provideMotorByName(): String = "Motor"
+
+    @Provides
+    @IntoMap
+    @IntKey(2)
+    fun provideMotorById(): String = "Motor"
+
+    @Provides
+    @IntoMap
+    @PartTypeKey(PartType.MOTOR)
+    fun provideMotorByType(): String = "Motor"
+
+    @Provides
+    @IntoMap
+    @ClassKey(StringBuilder::class)
+    fun provideMotorByClass(): String = "Motor"
+  }
+
+  @Component
+  private class MultibindingComponent {
+    @Provides
+    fun provideBatteryModule(): BatteryModule = BatteryModule()
+
+    @Provides
+    fun provideMotorModule(): MotorModule = MotorModule()
+  }
+
+  private class ConstructorInjectionTarget @Inject constructor(
+      val parts: Set<String>,
+      val partsByName: Map<String, String>,
+      val partsById: Map<Int, String>,
+      val partsByType: Map<PartType, String>,
+      val partsByClass: Map<Class<*>, String>
+  )
+
+  private class FieldInjectionTarget {
+    @Inject
+    val parts: Set<String> = inject()
+    @Inject
+    val partsByType: Map<PartType, String> = inject()
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Michael Rozumyanskiy
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.michaelrocks.lightsaber
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+
+class WarmUpTest {
+  @Test
+  fun testSequentialWarmUp() {
+    val handle = Lightsaber.get().createInjector(WarmUpComponent(), WarmUp.sequential())
+    assertTrue(handle.isDone)
+    validateWarmUp(handle)
+  }
+
+  @Test
+  fun testParallelWarmUp() {
+    val executor = Executors.newFixedThreadPool(4)
+    try {
+      val handle = Lightsaber.get().createInjector(WarmUpComponent(), WarmUp.parallel(executor))
+      assertTrue(handle.await(10, TimeUnit.SECONDS))
+      validateWarmUp(handle)
+    } finally {
+      executor.shutdownNow()
+    }
+  }
+
+  private fun validateWarmUp(handle: WarmUpHandle) {
+    val levels = handle.timings.associateBy({ it.key }, { it.level })
+    assertEquals(0, levels[Fuel::class.java])
+    assertEquals(1, levels[Engine::class.java])
+    assertEquals(2, levels[Car::class.java])
+
+    val injector = handle.injector
+    val car = injector.getInstance<Car>()
+    assertSame(car, injector.getInstance<Car>())
+    assertSame(injector.getInstance<Engine>(), car.engine)
+    assertSame(injector.getInstance<Fuel>(), car.engine.fuel)
+  }
+
+  @Module
+  private class WarmUpModule {
+    @Provides
+    @Singleton
+    fun provideFuel(): Fuel = Fuel()
+
+    @Provides
+    @Singleton
+    fun provideEngine(fuel: Fuel): Engine = Engine(fuel)
+
+    @Provides
+    fun provideWheel(): Wheel = Wheel()
+  }
+
+  @Component
+  private class WarmUpComponent {
+    @Provides
+    fun provideWarmUpModule(): WarmUpModule = WarmUpModule()
+  }
+
+  private class Fuel
+
+  private class Engine(val fuel: Fuel)
+
+  private class Wheel
+
+  @Singleton
+  private class Car @Inject constructor(val engine: Engine, val wheels: Lazy<Wheel>)
+}